@@ -0,0 +1,493 @@
+package com.akira.springbootlogdemo.logging.processor;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.Filer;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.AnnotationValue;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.NestingKind;
+import javax.lang.model.element.PackageElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.TypeParameterElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.ArrayType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.tools.Diagnostic;
+import javax.tools.FileObject;
+import javax.tools.JavaFileObject;
+import javax.tools.StandardLocation;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * 为 {@code @RestController} 和 {@code @Service} 类生成日志包装子类 {@code Xxx_Logged}，
+ * 代替 ControllerLoggingAspectOrg / LoggingAspect 的运行时代理：
+ * <ul>
+ *     <li>每个 public 方法生成一个覆盖方法，参数按声明类型直接传给运行时，没有 Object[] 参数数组</li>
+ *     <li>类名、方法名、HTTP 方法和路由模板在编译期从映射注解算好，运行时不读注解、不反射</li>
+ *     <li>构造方法原样透传，依赖注入方式不变</li>
+ * </ul>
+ * 原类名到生成类名的对应关系写入 META-INF/springboot-log-demo/logged-components，
+ * 由 CompiledLoggingRegistrar 在 logging.weaving=compile 时替换 Bean 类。
+ * <p>
+ * final 类、抽象类、泛型类、非静态内部类和私有类不能安全地继承，跳过并给出提示。
+ */
+@SupportedAnnotationTypes({LoggingWrapperProcessor.REST_CONTROLLER, LoggingWrapperProcessor.SERVICE})
+public class LoggingWrapperProcessor extends AbstractProcessor {
+
+    static final String REST_CONTROLLER = "org.springframework.web.bind.annotation.RestController";
+    static final String SERVICE = "org.springframework.stereotype.Service";
+
+    private static final String INDEX = "META-INF/springboot-log-demo/logged-components";
+    private static final String RUNTIME = "com.akira.springbootlogdemo.logging.codegen.";
+    private static final String SUFFIX = "_Logged";
+    private static final String REQUEST_MAPPING = "org.springframework.web.bind.annotation.RequestMapping";
+    private static final Map<String, String> MAPPINGS = Map.of(
+            "org.springframework.web.bind.annotation.GetMapping", "GET",
+            "org.springframework.web.bind.annotation.PostMapping", "POST",
+            "org.springframework.web.bind.annotation.PutMapping", "PUT",
+            "org.springframework.web.bind.annotation.DeleteMapping", "DELETE",
+            "org.springframework.web.bind.annotation.PatchMapping", "PATCH");
+
+    // 原类的二进制名 -> 生成类的全名，跨轮次累积，最后一轮写出
+    private final Map<String, String> generated = new TreeMap<>();
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        for (TypeElement annotation : annotations) {
+            boolean controller = annotation.getQualifiedName().contentEquals(REST_CONTROLLER);
+            for (Element element : roundEnv.getElementsAnnotatedWith(annotation)) {
+                if (element.getKind() == ElementKind.CLASS && canWrap((TypeElement) element)) {
+                    generate((TypeElement) element, controller);
+                }
+            }
+        }
+        if (roundEnv.processingOver() && !generated.isEmpty()) {
+            writeIndex();
+        }
+        // 不独占这些注解，其他处理器照常可见
+        return false;
+    }
+
+    private boolean canWrap(TypeElement type) {
+        Set<Modifier> modifiers = type.getModifiers();
+        String reason = null;
+        if (modifiers.contains(Modifier.FINAL) || modifiers.contains(Modifier.ABSTRACT)) {
+            reason = "final or abstract";
+        } else if (modifiers.contains(Modifier.PRIVATE)) {
+            reason = "private";
+        } else if (type.getNestingKind() == NestingKind.MEMBER && !modifiers.contains(Modifier.STATIC)) {
+            reason = "an inner class";
+        } else if (type.getNestingKind() == NestingKind.LOCAL || type.getNestingKind() == NestingKind.ANONYMOUS) {
+            reason = "a local class";
+        } else if (!type.getTypeParameters().isEmpty()) {
+            reason = "generic";
+        } else if (ElementFilter.constructorsIn(type.getEnclosedElements()).stream()
+                .allMatch(constructor -> constructor.getModifiers().contains(Modifier.PRIVATE))) {
+            reason = "without a non-private constructor";
+        }
+        if (reason != null) {
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.NOTE,
+                    "No logging wrapper generated for " + type.getQualifiedName() + ": class is " + reason, type);
+            return false;
+        }
+        return true;
+    }
+
+    private void generate(TypeElement type, boolean controller) {
+        PackageElement pkg = processingEnv.getElementUtils().getPackageOf(type);
+        String packageName = pkg.isUnnamed() ? "" : pkg.getQualifiedName().toString();
+        String simpleName = wrapperName(type);
+        String qualifiedName = packageName.isEmpty() ? simpleName : packageName + "." + simpleName;
+        String basePath = controller ? mappingPath(findAnnotation(type, REQUEST_MAPPING)) : null;
+
+        StringBuilder out = new StringBuilder(4096);
+        if (!packageName.isEmpty()) {
+            out.append("package ").append(packageName).append(";\n\n");
+        }
+        out.append("@javax.annotation.processing.Generated(\"").append(getClass().getName()).append("\")\n");
+        out.append("public class ").append(simpleName).append(" extends ").append(type.getQualifiedName()).append(" {\n");
+
+        for (ExecutableElement constructor : ElementFilter.constructorsIn(type.getEnclosedElements())) {
+            if (!constructor.getModifiers().contains(Modifier.PRIVATE)) {
+                writeConstructor(out, simpleName, constructor);
+            }
+        }
+
+        int index = 0;
+        for (ExecutableElement method : ElementFilter.methodsIn(type.getEnclosedElements())) {
+            Set<Modifier> modifiers = method.getModifiers();
+            if (!modifiers.contains(Modifier.PUBLIC) || modifiers.contains(Modifier.STATIC)
+                    || modifiers.contains(Modifier.FINAL) || modifiers.contains(Modifier.ABSTRACT)) {
+                continue;
+            }
+            String constant = "M_" + index++;
+            writeMethodConstant(out, constant, type, method, controller, basePath);
+            if (controller) {
+                writeControllerMethod(out, constant, method);
+            } else {
+                writeServiceMethod(out, constant, method);
+            }
+        }
+        out.append("}\n");
+
+        try {
+            JavaFileObject file = processingEnv.getFiler().createSourceFile(qualifiedName, type);
+            try (Writer writer = file.openWriter()) {
+                writer.write(out.toString());
+            }
+            generated.put(processingEnv.getElementUtils().getBinaryName(type).toString(), qualifiedName);
+        } catch (IOException e) {
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR,
+                    "Failed to generate logging wrapper: " + e.getMessage(), type);
+        }
+    }
+
+    private void writeConstructor(StringBuilder out, String simpleName, ExecutableElement constructor) {
+        out.append('\n');
+        writeAnnotations(out, constructor, "    ");
+        out.append("    public ").append(simpleName).append('(');
+        writeParameters(out, constructor);
+        out.append(')');
+        writeThrows(out, constructor);
+        out.append(" {\n        super(").append(argumentList(constructor)).append(");\n    }\n");
+    }
+
+    private void writeMethodConstant(StringBuilder out, String constant, TypeElement type, ExecutableElement method,
+                                     boolean controller, String basePath) {
+        String className = literal(type.getSimpleName().toString());
+        String methodName = literal(method.getSimpleName().toString());
+        out.append("\n    private static final ").append(RUNTIME).append("LoggedMethod ").append(constant).append(" = ");
+        if (controller) {
+            String httpMethod = null;
+            String path = "";
+            for (AnnotationMirror mirror : method.getAnnotationMirrors()) {
+                String name = annotationName(mirror);
+                if (MAPPINGS.containsKey(name)) {
+                    httpMethod = MAPPINGS.get(name);
+                    path = mappingPath(mirror);
+                    break;
+                } else if (REQUEST_MAPPING.equals(name)) {
+                    httpMethod = requestMethod(mirror);
+                    path = mappingPath(mirror);
+                    break;
+                }
+            }
+            out.append("new ").append(RUNTIME).append("LoggedMethod(").append(className).append(", ")
+                    .append(methodName).append(", ").append(httpMethod == null ? "null" : literal(httpMethod))
+                    .append(", ").append(literal(basePath + path)).append(");\n");
+        } else {
+            out.append(RUNTIME).append("LoggedMethod.service(").append(className).append(", ")
+                    .append(methodName).append(");\n");
+        }
+    }
+
+    /**
+     * <pre>
+     * public R m(A a) {
+     *     ControllerInvocation $call = CompiledLogging.controller(M_0);
+     *     if ($call == null) return super.m(a);
+     *     $call.param("a", A.class, a);
+     *     $call.begin();
+     *     try { return $call.end(super.m(a)); } catch (Throwable $e) { $call.fail($e); throw $e; }
+     * }
+     * </pre>
+     */
+    private void writeControllerMethod(StringBuilder out, String constant, ExecutableElement method) {
+        boolean isVoid = method.getReturnType().getKind() == TypeKind.VOID;
+        String superCall = "super." + method.getSimpleName() + "(" + argumentList(method) + ")";
+        writeMethodHeader(out, method);
+        out.append("        ").append(RUNTIME).append("ControllerInvocation $call = ")
+                .append(RUNTIME).append("CompiledLogging.controller(").append(constant).append(");\n");
+        out.append("        if ($call == null) {\n");
+        out.append(isVoid ? "            " + superCall + ";\n            return;\n" : "            return " + superCall + ";\n");
+        out.append("        }\n");
+        for (VariableElement parameter : method.getParameters()) {
+            out.append("        $call.param(").append(literal(parameter.getSimpleName().toString())).append(", ")
+                    .append(classLiteral(parameter.asType())).append(", ").append(parameter.getSimpleName())
+                    .append(");\n");
+        }
+        out.append("        $call.begin();\n");
+        out.append("        try {\n");
+        if (isVoid) {
+            out.append("            ").append(superCall).append(";\n");
+            out.append("            $call.end(null);\n");
+        } else {
+            out.append("            return $call.end(").append(superCall).append(");\n");
+        }
+        out.append("        } catch (Throwable $e) {\n");
+        out.append("            $call.fail($e);\n");
+        out.append("            throw $e;\n");
+        out.append("        }\n");
+        out.append("    }\n");
+    }
+
+    /**
+     * DEBUG 关闭时只多一次级别判断，打开时才构造参数数组；
+     * 外层的 profileEnter/profileExit 在请求未被采样时只是一次 volatile 读
+     */
+    private void writeServiceMethod(StringBuilder out, String constant, ExecutableElement method) {
+        boolean isVoid = method.getReturnType().getKind() == TypeKind.VOID;
+        String superCall = "super." + method.getSimpleName() + "(" + argumentList(method) + ")";
+        String runtime = RUNTIME + "CompiledLogging";
+        writeMethodHeader(out, method);
+        out.append("        int $frame = ").append(runtime).append(".profileEnter(").append(constant).append(");\n");
+        out.append("        try {\n");
+        out.append("            if (!").append(runtime).append(".isServiceLogEnabled()) {\n");
+        out.append(isVoid ? "                " + superCall + ";\n                return;\n"
+                : "                return " + superCall + ";\n");
+        out.append("            }\n");
+        out.append("            ").append(runtime).append(".serviceEnter(").append(constant)
+                .append(", new Object[]{").append(argumentList(method)).append("});\n");
+        out.append("            long $start = System.nanoTime();\n");
+        if (isVoid) {
+            out.append("            ").append(superCall).append(";\n");
+            out.append("            ").append(runtime).append(".serviceExit(").append(constant).append(", null, $start);\n");
+        } else {
+            out.append("            ").append(method.getReturnType()).append(" $result = ").append(superCall).append(";\n");
+            out.append("            ").append(runtime).append(".serviceExit(").append(constant).append(", $result, $start);\n");
+            out.append("            return $result;\n");
+        }
+        out.append("        } finally {\n");
+        out.append("            ").append(runtime).append(".profileExit($frame);\n");
+        out.append("        }\n");
+        out.append("    }\n");
+    }
+
+    private void writeMethodHeader(StringBuilder out, ExecutableElement method) {
+        out.append('\n');
+        writeAnnotations(out, method, "    ");
+        out.append("    @Override\n    public ");
+        List<? extends TypeParameterElement> typeParameters = method.getTypeParameters();
+        if (!typeParameters.isEmpty()) {
+            out.append('<');
+            for (int i = 0; i < typeParameters.size(); i++) {
+                TypeParameterElement parameter = typeParameters.get(i);
+                out.append(i > 0 ? ", " : "").append(parameter.getSimpleName());
+                List<? extends TypeMirror> bounds = parameter.getBounds();
+                if (!(bounds.size() == 1 && bounds.get(0).toString().equals("java.lang.Object"))) {
+                    out.append(" extends ");
+                    for (int j = 0; j < bounds.size(); j++) {
+                        out.append(j > 0 ? " & " : "").append(bounds.get(j));
+                    }
+                }
+            }
+            out.append("> ");
+        }
+        out.append(method.getReturnType()).append(' ').append(method.getSimpleName()).append('(');
+        writeParameters(out, method);
+        out.append(')');
+        writeThrows(out, method);
+        out.append(" {\n");
+    }
+
+    /**
+     * 注解原样复制（@PathVariable、@RequestParam、@Autowired 等），@Override 由生成代码自己加
+     */
+    private void writeAnnotations(StringBuilder out, Element element, String indent) {
+        for (AnnotationMirror mirror : element.getAnnotationMirrors()) {
+            if (!annotationName(mirror).equals("java.lang.Override")) {
+                out.append(indent).append(annotationSource(mirror)).append('\n');
+            }
+        }
+    }
+
+    /**
+     * AnnotationMirror.toString 中的枚举常量不带类名（如 method={POST}），这里逐个值写成全限定形式
+     */
+    private static String annotationSource(AnnotationMirror mirror) {
+        StringBuilder source = new StringBuilder("@").append(annotationName(mirror));
+        Map<? extends ExecutableElement, ? extends AnnotationValue> values = mirror.getElementValues();
+        if (!values.isEmpty()) {
+            source.append('(');
+            boolean first = true;
+            for (Map.Entry<? extends ExecutableElement, ? extends AnnotationValue> entry : values.entrySet()) {
+                source.append(first ? "" : ", ").append(entry.getKey().getSimpleName()).append(" = ");
+                appendValue(source, entry.getValue());
+                first = false;
+            }
+            source.append(')');
+        }
+        return source.toString();
+    }
+
+    private static void appendValue(StringBuilder source, AnnotationValue annotationValue) {
+        Object value = annotationValue.getValue();
+        if (value instanceof VariableElement constant) {
+            source.append(((TypeElement) constant.getEnclosingElement()).getQualifiedName())
+                    .append('.').append(constant.getSimpleName());
+        } else if (value instanceof String text) {
+            source.append(literal(text));
+        } else if (value instanceof AnnotationMirror nested) {
+            source.append(annotationSource(nested));
+        } else if (value instanceof List<?> elements) {
+            source.append('{');
+            for (int i = 0; i < elements.size(); i++) {
+                source.append(i > 0 ? ", " : "");
+                appendValue(source, (AnnotationValue) elements.get(i));
+            }
+            source.append('}');
+        } else {
+            // 基本类型、字符和 Class 字面量的 toString 已经是合法的源码形式
+            source.append(annotationValue);
+        }
+    }
+
+    private void writeParameters(StringBuilder out, ExecutableElement executable) {
+        List<? extends VariableElement> parameters = executable.getParameters();
+        for (int i = 0; i < parameters.size(); i++) {
+            VariableElement parameter = parameters.get(i);
+            if (i > 0) {
+                out.append(", ");
+            }
+            for (AnnotationMirror mirror : parameter.getAnnotationMirrors()) {
+                out.append(annotationSource(mirror)).append(' ');
+            }
+            TypeMirror type = parameter.asType();
+            if (executable.isVarArgs() && i == parameters.size() - 1 && type.getKind() == TypeKind.ARRAY) {
+                out.append(((ArrayType) type).getComponentType()).append("...");
+            } else {
+                out.append(type);
+            }
+            out.append(' ').append(parameter.getSimpleName());
+        }
+    }
+
+    private void writeThrows(StringBuilder out, ExecutableElement executable) {
+        List<? extends TypeMirror> thrown = executable.getThrownTypes();
+        for (int i = 0; i < thrown.size(); i++) {
+            out.append(i == 0 ? " throws " : ", ").append(thrown.get(i));
+        }
+    }
+
+    private void writeIndex() {
+        Filer filer = processingEnv.getFiler();
+        try {
+            FileObject file = filer.createResource(StandardLocation.CLASS_OUTPUT, "", INDEX);
+            try (Writer writer = file.openWriter()) {
+                for (Map.Entry<String, String> entry : generated.entrySet()) {
+                    writer.write(entry.getKey() + "=" + entry.getValue() + "\n");
+                }
+            }
+        } catch (IOException e) {
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR,
+                    "Failed to write " + INDEX + ": " + e.getMessage());
+        }
+    }
+
+    private static String wrapperName(TypeElement type) {
+        // 静态内部类 Outer.Inner 生成 Outer_Inner_Logged
+        StringBuilder name = new StringBuilder(type.getSimpleName());
+        Element enclosing = type.getEnclosingElement();
+        while (enclosing instanceof TypeElement outer) {
+            name.insert(0, outer.getSimpleName() + "_");
+            enclosing = outer.getEnclosingElement();
+        }
+        return name.append(SUFFIX).toString();
+    }
+
+    private static String argumentList(ExecutableElement executable) {
+        StringBuilder arguments = new StringBuilder();
+        for (VariableElement parameter : executable.getParameters()) {
+            if (!arguments.isEmpty()) {
+                arguments.append(", ");
+            }
+            arguments.append(parameter.getSimpleName());
+        }
+        return arguments.toString();
+    }
+
+    private String classLiteral(TypeMirror type) {
+        // 泛型参数擦除后再取 .class
+        TypeMirror erased = processingEnv.getTypeUtils().erasure(type);
+        return erased + ".class";
+    }
+
+    private static AnnotationMirror findAnnotation(Element element, String name) {
+        for (AnnotationMirror mirror : element.getAnnotationMirrors()) {
+            if (annotationName(mirror).equals(name)) {
+                return mirror;
+            }
+        }
+        return null;
+    }
+
+    private static String annotationName(AnnotationMirror mirror) {
+        return ((TypeElement) mirror.getAnnotationType().asElement()).getQualifiedName().toString();
+    }
+
+    /**
+     * 映射注解的第一个路径：value 或 path 属性，与运行时 LoggedMethod.controller 的规则一致
+     */
+    private static String mappingPath(AnnotationMirror mirror) {
+        if (mirror == null) {
+            return "";
+        }
+        String path = firstString(mirror, "value");
+        return path != null ? path : firstStringOrEmpty(mirror, "path");
+    }
+
+    private static String requestMethod(AnnotationMirror mirror) {
+        for (Map.Entry<? extends ExecutableElement, ? extends AnnotationValue> entry : mirror.getElementValues().entrySet()) {
+            if (entry.getKey().getSimpleName().contentEquals("method")
+                    && entry.getValue().getValue() instanceof List<?> values && !values.isEmpty()) {
+                // 枚举常量 RequestMethod.GET 的 toString 是常量名
+                Object first = ((AnnotationValue) values.get(0)).getValue();
+                return first instanceof VariableElement constant ? constant.getSimpleName().toString() : first.toString();
+            }
+        }
+        return null;
+    }
+
+    private static String firstStringOrEmpty(AnnotationMirror mirror, String attribute) {
+        String value = firstString(mirror, attribute);
+        return value != null ? value : "";
+    }
+
+    private static String firstString(AnnotationMirror mirror, String attribute) {
+        for (Map.Entry<? extends ExecutableElement, ? extends AnnotationValue> entry : mirror.getElementValues().entrySet()) {
+            if (!entry.getKey().getSimpleName().contentEquals(attribute)) {
+                continue;
+            }
+            Object value = entry.getValue().getValue();
+            if (value instanceof List<?> values) {
+                return values.isEmpty() ? null : String.valueOf(((AnnotationValue) values.get(0)).getValue());
+            }
+            return String.valueOf(value);
+        }
+        return null;
+    }
+
+    private static String literal(String value) {
+        StringBuilder literal = new StringBuilder(value.length() + 2).append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"' -> literal.append("\\\"");
+                case '\\' -> literal.append("\\\\");
+                case '\n' -> literal.append("\\n");
+                case '\r' -> literal.append("\\r");
+                case '\t' -> literal.append("\\t");
+                default -> literal.append(c);
+            }
+        }
+        return literal.append('"').toString();
+    }
+}
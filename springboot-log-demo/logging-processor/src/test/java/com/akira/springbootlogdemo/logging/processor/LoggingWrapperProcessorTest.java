@@ -0,0 +1,141 @@
+package com.akira.springbootlogdemo.logging.processor;
+
+import com.google.testing.compile.Compilation;
+import com.google.testing.compile.Compiler;
+import com.google.testing.compile.JavaFileObjects;
+import org.junit.jupiter.api.Test;
+
+import javax.tools.Diagnostic;
+import javax.tools.JavaFileObject;
+import javax.tools.StandardLocation;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LoggingWrapperProcessorTest {
+
+    private static final String LOGGED_METHOD = "com.akira.springbootlogdemo.logging.codegen.LoggedMethod";
+
+    @Test
+    void controllerWrapperResolvesRoutesForEveryHttpMethod() throws Exception {
+        Compilation compilation = compile(JavaFileObjects.forSourceLines("demo.OrderController",
+                "package demo;",
+                "import org.springframework.web.bind.annotation.*;",
+                "@RestController",
+                "@RequestMapping(\"/api/orders\")",
+                "public class OrderController {",
+                "    private final String prefix;",
+                "    public OrderController(String prefix) { this.prefix = prefix; }",
+                "    @GetMapping(\"/{id}\")",
+                "    public String get(@PathVariable(\"id\") Long id) { return prefix + id; }",
+                "    @PutMapping(path = \"/{id}\")",
+                "    public String update(@PathVariable(\"id\") Long id, @RequestBody String body) { return body; }",
+                "    @DeleteMapping(\"/{id}\")",
+                "    public void delete(@PathVariable(\"id\") Long id) { }",
+                "    @PatchMapping({\"/{id}/status\", \"/{id}/state\"})",
+                "    public String patch(@PathVariable(\"id\") Long id) { return \"ok\"; }",
+                "    @RequestMapping(value = \"/search\", method = RequestMethod.POST)",
+                "    public java.util.List<String> search(@RequestBody java.util.Map<String, Object> query) {",
+                "        return java.util.List.of();",
+                "    }",
+                "    @RequestMapping(\"/any\")",
+                "    public String any() { return \"\"; }",
+                "    private String helper() { return prefix; }",
+                "    public static String util() { return \"\"; }",
+                "}"));
+
+        assertEquals(Compilation.Status.SUCCESS, compilation.status(), compilation.errors().toString());
+        String source = generatedSource(compilation, "demo.OrderController_Logged");
+        assertTrue(source.contains("public OrderController_Logged(java.lang.String prefix)"));
+        assertTrue(source.contains(constant("OrderController", "get", "GET", "/api/orders/{id}")));
+        assertTrue(source.contains(constant("OrderController", "update", "PUT", "/api/orders/{id}")));
+        assertTrue(source.contains(constant("OrderController", "delete", "DELETE", "/api/orders/{id}")));
+        assertTrue(source.contains(constant("OrderController", "patch", "PATCH", "/api/orders/{id}/status")));
+        assertTrue(source.contains(constant("OrderController", "search", "POST", "/api/orders/search")));
+        assertTrue(source.contains("new " + LOGGED_METHOD + "(\"OrderController\", \"any\", null, \"/api/orders/any\")"));
+        // 参数按声明类型直接传给运行时，泛型擦除后取 .class
+        assertTrue(source.contains("$call.param(\"query\", java.util.Map.class, query);"));
+        assertFalse(source.contains(" helper("));
+        assertFalse(source.contains(" util("));
+
+        String index = compilation.generatedFile(StandardLocation.CLASS_OUTPUT, "",
+                "META-INF/springboot-log-demo/logged-components").orElseThrow().getCharContent(true).toString();
+        assertEquals("demo.OrderController=demo.OrderController_Logged\n", index);
+    }
+
+    @Test
+    void serviceWrapperKeepsSignatures() throws Exception {
+        Compilation compilation = compile(JavaFileObjects.forSourceLines("demo.OrderService",
+                "package demo;",
+                "import org.springframework.stereotype.Service;",
+                "@Service",
+                "public class OrderService {",
+                "    public <T extends Number> T first(java.util.List<T> values) { return values.get(0); }",
+                "    public String join(String separator, String... parts) { return String.join(separator, parts); }",
+                "    public void save(String order) throws java.io.IOException { }",
+                "    public int count() { return 0; }",
+                "    public static class Audit { public void record() { } }",
+                "}"));
+
+        assertEquals(Compilation.Status.SUCCESS, compilation.status(), compilation.errors().toString());
+        String source = generatedSource(compilation, "demo.OrderService_Logged");
+        assertTrue(source.contains("public <T extends java.lang.Number> T first(java.util.List<T> values)"));
+        assertTrue(source.contains("public java.lang.String join(java.lang.String separator, java.lang.String... parts)"));
+        assertTrue(source.contains("public void save(java.lang.String order) throws java.io.IOException"));
+        assertTrue(source.contains(LOGGED_METHOD + ".service(\"OrderService\", \"count\")"));
+        assertTrue(source.contains("serviceEnter(M_0, new Object[]{values})"));
+        assertTrue(source.contains("profileExit($frame)"));
+        // 没有 @Service 的静态内部类不处理
+        assertTrue(compilation.generatedSourceFile("demo.OrderService_Audit_Logged").isEmpty());
+    }
+
+    @Test
+    void classesThatCannotBeSubclassedAreSkippedWithNote() throws Exception {
+        Compilation compilation = compile(JavaFileObjects.forSourceLines("demo.Services",
+                "package demo;",
+                "import org.springframework.stereotype.Service;",
+                "public class Services {",
+                "    @Service public static final class FinalService { public void run() { } }",
+                "    @Service private static class PrivateService { public void run() { } }",
+                "    @Service public static class GenericService<T> { public void run(T value) { } }",
+                "    @Service public class InnerService { public void run() { } }",
+                "    @Service public static class NestedService { public void run() { } }",
+                "}"));
+
+        assertEquals(Compilation.Status.SUCCESS, compilation.status(), compilation.errors().toString());
+        List<String> notes = new ArrayList<>();
+        for (Diagnostic<? extends JavaFileObject> note : compilation.notes()) {
+            notes.add(note.getMessage(Locale.ROOT));
+        }
+        assertTrue(notes.contains("No logging wrapper generated for demo.Services.FinalService: class is final or abstract"));
+        assertTrue(notes.contains("No logging wrapper generated for demo.Services.PrivateService: class is private"));
+        assertTrue(notes.contains("No logging wrapper generated for demo.Services.GenericService: class is generic"));
+        assertTrue(notes.contains("No logging wrapper generated for demo.Services.InnerService: class is an inner class"));
+        for (String skipped : List.of("FinalService", "PrivateService", "GenericService", "InnerService")) {
+            assertTrue(compilation.generatedSourceFile("demo.Services_" + skipped + "_Logged").isEmpty(), skipped);
+        }
+        // 静态内部类可以继承，生成 Outer_Inner_Logged
+        assertTrue(generatedSource(compilation, "demo.Services_NestedService_Logged")
+                .contains("extends demo.Services.NestedService"));
+    }
+
+    private static Compilation compile(JavaFileObject source) {
+        List<JavaFileObject> sources = new ArrayList<>(StubSources.sources());
+        sources.add(source);
+        return Compiler.javac().withProcessors(new LoggingWrapperProcessor()).compile(sources);
+    }
+
+    private static String generatedSource(Compilation compilation, String qualifiedName) throws IOException {
+        return compilation.generatedSourceFile(qualifiedName).orElseThrow().getCharContent(true).toString();
+    }
+
+    private static String constant(String className, String methodName, String httpMethod, String route) {
+        return "new " + LOGGED_METHOD + "(\"" + className + "\", \"" + methodName + "\", \"" + httpMethod + "\", \""
+                + route + "\")";
+    }
+}
@@ -0,0 +1,73 @@
+package com.akira.springbootlogdemo.logging.processor;
+
+import com.google.testing.compile.JavaFileObjects;
+
+import javax.tools.JavaFileObject;
+import java.util.List;
+
+/**
+ * 处理器模块不依赖 Spring 和主工程，测试时用最小的替身源码编译：
+ * Spring 的映射注解，以及生成代码调用的 codegen 运行时类
+ */
+final class StubSources {
+
+    private static final String WEB = "org.springframework.web.bind.annotation";
+    private static final String CODEGEN = "com.akira.springbootlogdemo.logging.codegen";
+
+    private StubSources() {
+    }
+
+    static List<JavaFileObject> sources() {
+        return List.of(
+                annotation(WEB, "RestController", ""),
+                annotation("org.springframework.stereotype", "Service", ""),
+                annotation(WEB, "RequestMapping", "String[] value() default {}; String[] path() default {}; "
+                        + "RequestMethod[] method() default {};"),
+                JavaFileObjects.forSourceLines(WEB + ".RequestMethod",
+                        "package " + WEB + ";",
+                        "public enum RequestMethod { GET, HEAD, POST, PUT, PATCH, DELETE, OPTIONS, TRACE }"),
+                mapping("GetMapping"),
+                mapping("PostMapping"),
+                mapping("PutMapping"),
+                mapping("DeleteMapping"),
+                mapping("PatchMapping"),
+                annotation(WEB, "PathVariable", "String value() default \"\";"),
+                annotation(WEB, "RequestBody", ""),
+                JavaFileObjects.forSourceLines(CODEGEN + ".LoggedMethod",
+                        "package " + CODEGEN + ";",
+                        "public record LoggedMethod(String className, String methodName, String httpMethod, String route) {",
+                        "    public static LoggedMethod service(String className, String methodName) {",
+                        "        return new LoggedMethod(className, methodName, null, null);",
+                        "    }",
+                        "}"),
+                JavaFileObjects.forSourceLines(CODEGEN + ".ControllerInvocation",
+                        "package " + CODEGEN + ";",
+                        "public final class ControllerInvocation {",
+                        "    public void param(String name, Class<?> type, Object value) { }",
+                        "    public void begin() { }",
+                        "    public <T> T end(T result) { return result; }",
+                        "    public void fail(Throwable error) { }",
+                        "}"),
+                JavaFileObjects.forSourceLines(CODEGEN + ".CompiledLogging",
+                        "package " + CODEGEN + ";",
+                        "public class CompiledLogging {",
+                        "    public static ControllerInvocation controller(LoggedMethod method) { return null; }",
+                        "    public static int profileEnter(LoggedMethod method) { return -1; }",
+                        "    public static void profileExit(int frame) { }",
+                        "    public static boolean isServiceLogEnabled() { return false; }",
+                        "    public static void serviceEnter(LoggedMethod method, Object[] args) { }",
+                        "    public static void serviceExit(LoggedMethod method, Object result, long startNanos) { }",
+                        "}"));
+    }
+
+    private static JavaFileObject mapping(String name) {
+        return annotation(WEB, name, "String[] value() default {}; String[] path() default {};");
+    }
+
+    private static JavaFileObject annotation(String pkg, String name, String body) {
+        return JavaFileObjects.forSourceLines(pkg + "." + name,
+                "package " + pkg + ";",
+                "@java.lang.annotation.Retention(java.lang.annotation.RetentionPolicy.RUNTIME)",
+                "public @interface " + name + " { " + body + " }");
+    }
+}
@@ -0,0 +1,107 @@
+package com.akira.springbootlogdemo.logging.admin;
+
+import com.akira.springbootlogdemo.logging.config.LoggingConfigManager;
+import com.akira.springbootlogdemo.logging.metrics.LoggingMetrics;
+import com.akira.springbootlogdemo.logging.metrics.OffloadMetrics;
+import com.akira.springbootlogdemo.logging.metrics.OutboundMetrics;
+import com.akira.springbootlogdemo.logging.metrics.RouteMetrics;
+import com.akira.springbootlogdemo.logging.metrics.SqlMetrics;
+import com.fasterxml.jackson.databind.JsonNode;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PatchMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.Map;
+
+/**
+ * 日志配置管理接口，修改立即生效，不需要重启：
+ * <pre>
+ * GET   /admin/logging/config
+ * PATCH /admin/logging/config   {"controller": {"enabled": false}, "levels": {"SQL_LOGGER": "INFO"}}
+ * GET   /admin/logging/metrics  日志子系统自身的开销和队列状态
+ * GET   /admin/logging/routes   按路由模板统计的耗时/状态码分布和慢请求样例 traceId
+ * DELETE /admin/logging/routes  清空路由统计
+ * GET   /admin/logging/offload  {@code @Blocking} 方法在虚拟线程上的排队/执行耗时
+ * GET   /admin/logging/outbound WebClient 按目标 host 统计的耗时/状态码分布和连接池状态
+ * DELETE /admin/logging/outbound 清空出站调用统计（连接池状态不受影响）
+ * GET   /admin/logging/sql      按 MappedStatement 拆分的连接获取/执行/读取/MyBatis 耗时
+ * DELETE /admin/logging/sql      清空 SQL 耗时统计
+ * </pre>
+ * 请求格式见 {@link LoggingConfigManager}。
+ * <p>
+ * 接口本身没有鉴权，能修改日志级别、清空统计，默认不注册；只在内网/运维环境设置
+ * {@code logging.admin.enabled=true} 打开。
+ */
+@RestController
+@ConditionalOnProperty(prefix = "logging.admin", name = "enabled", havingValue = "true")
+@RequestMapping("/admin/logging")
+public class LoggingAdminController {
+
+    private final LoggingConfigManager configManager;
+
+    public LoggingAdminController(LoggingConfigManager configManager) {
+        this.configManager = configManager;
+    }
+
+    @GetMapping("/config")
+    public Map<String, Object> getConfig() {
+        return configManager.describe();
+    }
+
+    @GetMapping("/metrics")
+    public Map<String, Object> getMetrics() {
+        return LoggingMetrics.snapshot();
+    }
+
+    @GetMapping("/routes")
+    public Map<String, Object> getRoutes() {
+        return RouteMetrics.snapshot();
+    }
+
+    @DeleteMapping("/routes")
+    public ResponseEntity<Void> resetRoutes() {
+        RouteMetrics.reset();
+        return ResponseEntity.noContent().build();
+    }
+
+    @GetMapping("/offload")
+    public Map<String, Object> getOffload() {
+        return OffloadMetrics.snapshot();
+    }
+
+    @GetMapping("/outbound")
+    public Map<String, Object> getOutbound() {
+        return OutboundMetrics.snapshot();
+    }
+
+    @DeleteMapping("/outbound")
+    public ResponseEntity<Void> resetOutbound() {
+        OutboundMetrics.reset();
+        return ResponseEntity.noContent().build();
+    }
+
+    @GetMapping("/sql")
+    public Map<String, Object> getSql() {
+        return SqlMetrics.snapshot();
+    }
+
+    @DeleteMapping("/sql")
+    public ResponseEntity<Void> resetSql() {
+        SqlMetrics.reset();
+        return ResponseEntity.noContent().build();
+    }
+
+    @PatchMapping("/config")
+    public ResponseEntity<Object> updateConfig(@RequestBody JsonNode patch) {
+        try {
+            return ResponseEntity.ok(configManager.update(patch));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", String.valueOf(e.getMessage())));
+        }
+    }
+}
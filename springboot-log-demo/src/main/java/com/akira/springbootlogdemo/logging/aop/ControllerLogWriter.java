@@ -0,0 +1,238 @@
+package com.akira.springbootlogdemo.logging.aop;
+
+import com.akira.springbootlogdemo.logging.config.LoggingConfigSnapshot;
+import com.akira.springbootlogdemo.logging.degrade.LoggingDegradation;
+import com.akira.springbootlogdemo.logging.error.StackTraceFingerprints;
+import com.akira.springbootlogdemo.logging.json.BoundedJsonSerializer;
+import com.akira.springbootlogdemo.logging.metrics.LoggingMetric;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.slf4j.event.Level;
+import org.slf4j.spi.LoggingEventBuilder;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Controller 请求/响应日志的输出：参数脱敏、响应快照、REQUEST/RESPONSE/ERROR 三种记录。
+ * <p>
+ * 运行时切面 {@link ControllerLoggingAspectOrg} 和编译期生成的包装类共用这里的逻辑，
+ * 映射注解按同一套规则解析（见 {@link com.akira.springbootlogdemo.logging.codegen.LoggedMethod#controller}），
+ * 两种方式输出的记录字段相同。
+ */
+@Component
+public class ControllerLogWriter {
+
+    private static final Logger logger = LoggerFactory.getLogger("CONTROLLER_LOGGER");
+    private static final Logger errorLogger = LoggerFactory.getLogger("CONTROLLER_ERROR_LOGGER");
+    private static final String OMITTED = "[omitted]";
+    private static final String REDACTED = "******";
+    // 参数文本或字段名中出现这些词时脱敏
+    private static final List<String> SENSITIVE_WORDS = List.of("password", "secret");
+
+    private final BoundedJsonSerializer serializer;
+    private final StackTraceFingerprints fingerprints = new StackTraceFingerprints();
+
+    public ControllerLogWriter(ObjectMapper objectMapper) {
+        this.serializer = new BoundedJsonSerializer(objectMapper
+                .configure(SerializationFeature.FAIL_ON_EMPTY_BEANS, false), SENSITIVE_WORDS);
+    }
+
+    public Object sanitizeParameterValue(Object value, LoggingConfigSnapshot config) {
+        if (value == null) {
+            return null;
+        }
+
+        // 文本参数按内容脱敏；复杂对象不做 toString，由序列化时按字段名脱敏
+        if (value instanceof CharSequence text) {
+            long redactionStart = System.nanoTime();
+            boolean sensitive = containsSensitiveWord(text);
+            LoggingMetric.recordTime(LoggingMetric.REDACTION_COUNT, LoggingMetric.REDACTION_NANOS, redactionStart);
+            return sensitive ? REDACTED : value;
+        }
+
+        // 简单类型直接返回
+        if (value instanceof Number || value instanceof Boolean || value instanceof Character ||
+                value instanceof Enum) {
+            return value;
+        }
+
+        // 降级时不再序列化请求中的复杂对象
+        if (!LoggingDegradation.currentLevel().captureRequestBody()) {
+            return OMITTED;
+        }
+
+        // 复杂对象序列化成有大小上限的 JSON 快照，由 JsonEncoder 原样写入，避免先转成字符串再转义一次
+        return toLogValue(value, config);
+    }
+
+    private static boolean containsSensitiveWord(CharSequence text) {
+        String value = text.toString();
+        for (String word : SENSITIVE_WORDS) {
+            if (value.contains(word)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public void extractExchangeData(ServerWebExchange exchange, RequestMetaData metaData,
+                                    LoggingConfigSnapshot config) {
+        // 请求头
+        HttpHeaders headers = exchange.getRequest().getHeaders();
+        long redactionStart = System.nanoTime();
+        Map<String, String> headerMap = headers.entrySet().stream()
+                .filter(entry -> !config.isExcludedHeader(entry.getKey()))
+                .collect(Collectors.toMap(
+                        Map.Entry::getKey,
+                        entry -> String.join(",", entry.getValue())
+                ));
+        LoggingMetric.recordTime(LoggingMetric.REDACTION_COUNT, LoggingMetric.REDACTION_NANOS, redactionStart);
+        metaData.setHeaders(headerMap);
+
+        // 请求路径和查询参数
+        metaData.setRequestPath(exchange.getRequest().getPath().value());
+        metaData.setQueryParams(exchange.getRequest().getQueryParams().toSingleValueMap());
+    }
+
+    public void logRequest(RequestMetaData metaData) {
+        if (logger.isInfoEnabled()) {
+            // 已经判断过 isInfoEnabled()，直接构造事件，不再经过 turbo filter 重复采样
+            logger.makeLoggingEventBuilder(Level.INFO)
+                    .setMessage("REQUEST")
+                    .addKeyValue("traceId", metaData.getTraceId())
+                    .addKeyValue("type", "REQUEST")
+                    .addKeyValue("httpMethod", metaData.getHttpMethod())
+                    .addKeyValue("path", metaData.getFullPath())
+                    .addKeyValue("class", metaData.getClassName())
+                    .addKeyValue("method", metaData.getMethodName())
+                    .addKeyValue("headers", metaData.getHeaders())
+                    .addKeyValue("params", metaData.getParams())
+                    .addKeyValue("queryParams", metaData.getQueryParams())
+                    .log();
+            logger.info("===========================================1");
+        }
+    }
+
+    /**
+     * 处理响应式和非响应式返回值：Mono/Flux 在终止信号时记录订阅到终止的耗时（见 {@link ReactiveTiming}），其他直接记录
+     *
+     * @param duration Controller 方法本身的耗时(ms)，对 Mono/Flux 来说只是组装流水线的时间
+     */
+    public Object logResult(Object result, RequestMetaData metaData, long duration, LoggingConfigSnapshot config) {
+        if (result instanceof Mono<?> mono) {
+            return ReactiveTiming.mono(mono,
+                    (timing, response, error) -> logResponse(response, metaData, duration, error, config, timing));
+        } else if (result instanceof Flux<?> flux) {
+            // 只有会记录响应体时才收集元素
+            boolean collect = LoggingDegradation.currentLevel().captureResponseBody() && logger.isInfoEnabled();
+            return ReactiveTiming.flux(flux, collect,
+                    (timing, response, error) -> logResponse(response, metaData, duration, error, config, timing));
+        } else {
+            logResponse(result, metaData, duration, null, config, null);
+            return result;
+        }
+    }
+
+    public void logError(RequestMetaData metaData, Throwable error, long duration, LoggingConfigSnapshot config) {
+        logResponse(null, metaData, duration, error, config, null);
+    }
+
+    /**
+     * @param duration Controller 方法本身的耗时(ms)
+     * @param timing   Mono/Flux 的订阅耗时，非响应式返回值为 null；不为 null 时 durationMs 取订阅到终止的耗时
+     */
+    private void logResponse(Object response, RequestMetaData metaData, long duration, Throwable error,
+                             LoggingConfigSnapshot config, ReactiveTiming timing) {
+        // 错误日志不受 INFO 开关（包括降级到只保留 ERROR）影响
+        if (error != null || logger.isInfoEnabled()) {
+            String type = error != null ? "ERROR" : "RESPONSE";
+            // INFO 已经判断过 isInfoEnabled()，直接构造事件，不再经过 turbo filter 重复采样
+            LoggingEventBuilder event = error != null ? errorLogger.atError() : logger.makeLoggingEventBuilder(Level.INFO);
+            event.setMessage(type)
+                    .addKeyValue("traceId", metaData.getTraceId())
+                    .addKeyValue("type", type)
+                    .addKeyValue("httpMethod", metaData.getHttpMethod())
+                    .addKeyValue("path", metaData.getFullPath())
+                    .addKeyValue("durationMs", timing != null ? timing.durationMillis() : duration);
+
+            if (timing != null) {
+                event.addKeyValue("assemblyMs", duration)
+                        .addKeyValue("signal", timing.signal().name())
+                        .addKeyValue("firstElementMs", timing.firstElementMillis())
+                        .addKeyValue("elements", timing.elements())
+                        .addKeyValue("maxGapMs", timing.maxGapMillis());
+            }
+            if (error != null) {
+                event.addKeyValue("error", buildErrorData(error, config));
+            } else {
+                event.addKeyValue("response", LoggingDegradation.currentLevel().captureResponseBody()
+                        ? sanitizeResponse(response, config) : OMITTED);
+            }
+            event.log();
+        }
+    }
+
+    private Object sanitizeResponse(Object response, LoggingConfigSnapshot config) {
+        if (response == null) {
+            return null;
+        }
+
+        if (response instanceof ResponseEntity) {
+            ResponseEntity<?> responseEntity = (ResponseEntity<?>) response;
+            Map<String, Object> responseData = new LinkedHashMap<>();
+            responseData.put("status", responseEntity.getStatusCodeValue());
+            responseData.put("headers", responseEntity.getHeaders());
+
+            responseData.put("body", toLogValue(responseEntity.getBody(), config));
+
+            return responseData;
+        }
+
+        return toLogValue(response, config);
+    }
+
+    /**
+     * 对象可能在异步写日志之前被修改，这里立即序列化成快照；超过 maxPayloadBytes/maxPayloadDepth 的部分截断，
+     * 大集合、深层对象只遍历到预算用完为止
+     */
+    private Object toLogValue(Object value, LoggingConfigSnapshot config) {
+        long start = System.nanoTime();
+        try {
+            return serializer.serialize(value, config.getMaxPayloadBytes(), config.getMaxPayloadDepth());
+        } finally {
+            LoggingMetric.recordTime(LoggingMetric.SERIALIZATION_COUNT, LoggingMetric.SERIALIZATION_NANOS, start);
+        }
+    }
+
+    private Map<String, Object> buildErrorData(Throwable error, LoggingConfigSnapshot config) {
+        Map<String, Object> errorData = new LinkedHashMap<>();
+        errorData.put("message", error.getMessage());
+        errorData.put("type", error.getClass().getName());
+
+        if (config.isIncludeErrorStacktrace()) {
+            // 错误风暴时同一个堆栈只在每个窗口输出一次，其余记录按 fingerprint 关联
+            StackTraceFingerprints.Occurrence occurrence = fingerprints.record(error,
+                    config.getStackTraceWindow(), config.getMaxStackTraceFingerprints());
+            errorData.put("fingerprint", occurrence.fingerprint());
+            errorData.put("occurrences", occurrence.occurrences());
+            if (occurrence.stackTrace() != null) {
+                errorData.put("stackTrace", occurrence.stackTrace());
+            } else {
+                LoggingMetric.DEDUPLICATED_STACK_TRACES.increment();
+            }
+        }
+
+        return errorData;
+    }
+}
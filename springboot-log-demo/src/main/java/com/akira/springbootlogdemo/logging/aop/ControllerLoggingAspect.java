@@ -47,16 +47,19 @@ public class ControllerLoggingAspect {
         long duration = System.currentTimeMillis() - startTime;
 
         if (result instanceof Mono) {
-            return ((Mono<?>) result).doOnSuccess(response -> {
+            // proceed() 只完成了组装，耗时按订阅到终止信号计算
+            return ReactiveTiming.mono((Mono<?>) result, (timing, response, error) -> {
+                if (error != null) {
+                    logger.error("Controller error: {}, duration={}ms",
+                            error.getMessage(), timing.durationMillis());
+                    return;
+                }
                 if (exchange != null) {
                     logger.info("Response: duration={}ms, status={}",
-                            duration,
+                            timing.durationMillis(),
                             exchange.getResponse().getStatusCode());
                 }
                 logResponseContent(response);
-            }).doOnError(error -> {
-                logger.error("Controller error: {}, duration={}ms",
-                        error.getMessage(), duration);
             });
         } else if (result instanceof ResponseEntity) {
             logger.info("Response: status={}, body={}, duration={}ms",
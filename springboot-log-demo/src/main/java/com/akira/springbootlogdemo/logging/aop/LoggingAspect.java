@@ -4,12 +4,20 @@ import org.aspectj.lang.ProceedingJoinPoint;
 import org.aspectj.lang.annotation.Around;
 import org.aspectj.lang.annotation.Aspect;
 import org.aspectj.lang.annotation.Pointcut;
+import org.aspectj.lang.reflect.MethodSignature;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.stereotype.Component;
+import com.akira.springbootlogdemo.logging.profile.CallTreeProfiler;
 
+/**
+ * 运行时织入的 Service 方法日志，logging.weaving=compile 时改用编译期生成的包装类。
+ * DEBUG 关闭时不再取参数和类名，只在请求被 {@link CallTreeProfiler} 采样时记录调用树
+ */
 @Aspect
 @Component
+@ConditionalOnProperty(prefix = "logging", name = "weaving", havingValue = "runtime", matchIfMissing = true)
 public class LoggingAspect {
 
     private static final Logger logger = LoggerFactory.getLogger(LoggingAspect.class);
@@ -20,6 +28,21 @@ public class LoggingAspect {
 
     @Around("serviceMethods()")
     public Object logMethodCall(ProceedingJoinPoint joinPoint) throws Throwable {
+        // 采样中的请求把这次调用记入调用树
+        int frame = CallTreeProfiler.isSampling()
+                ? CallTreeProfiler.enter(((MethodSignature) joinPoint.getSignature()).getMethod())
+                : CallTreeProfiler.NONE;
+        try {
+            if (!logger.isDebugEnabled()) {
+                return joinPoint.proceed();
+            }
+            return logAndProceed(joinPoint);
+        } finally {
+            CallTreeProfiler.exit(frame);
+        }
+    }
+
+    private Object logAndProceed(ProceedingJoinPoint joinPoint) throws Throwable {
         String methodName = joinPoint.getSignature().getName();
         String className = joinPoint.getTarget().getClass().getSimpleName();
         Object[] args = joinPoint.getArgs();
@@ -35,4 +58,4 @@ public class LoggingAspect {
 
         return result;
     }
-}
\ No newline at end of file
+}
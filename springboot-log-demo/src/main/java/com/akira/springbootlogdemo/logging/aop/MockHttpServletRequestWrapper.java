@@ -1,56 +0,0 @@
-package com.akira.springbootlogdemo.logging.aop;
-
-import jakarta.servlet.ReadListener;
-import jakarta.servlet.ServletInputStream;
-import jakarta.servlet.http.HttpServletRequest;
-import jakarta.servlet.http.HttpServletRequestWrapper;
-import org.springframework.util.StreamUtils;
-
-import java.io.BufferedReader;
-import java.io.ByteArrayInputStream;
-import java.io.IOException;
-import java.io.InputStreamReader;
-
-public class MockHttpServletRequestWrapper extends HttpServletRequestWrapper{
-    private final byte[] cachedBody;
-
-    public MockHttpServletRequestWrapper(HttpServletRequest request) throws IOException {
-        super(request);
-        cachedBody = StreamUtils.copyToByteArray(request.getInputStream());
-    }
-
-    @Override
-    public ServletInputStream getInputStream() throws IOException {
-
-        final ByteArrayInputStream in = new ByteArrayInputStream(cachedBody);
-
-        return new ServletInputStream() {
-
-            @Override
-            public boolean isFinished() {
-                return in.available() == 0;
-            }
-
-            @Override
-            public boolean isReady() {
-                return true;
-            }
-
-            @Override
-            public int read() throws IOException {
-                return in.read();
-            }
-
-            @Override
-            public void setReadListener(ReadListener readListener) {
-                throw new UnsupportedOperationException();
-            }
-        };
-    }
-
-    @Override
-    public BufferedReader getReader() throws IOException {
-        ByteArrayInputStream byteArrayInputStream = new ByteArrayInputStream(this.cachedBody);
-        return new BufferedReader(new InputStreamReader(byteArrayInputStream));
-    }
-}
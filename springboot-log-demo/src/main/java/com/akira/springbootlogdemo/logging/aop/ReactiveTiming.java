@@ -0,0 +1,188 @@
+package com.akira.springbootlogdemo.logging.aop;
+
+import org.reactivestreams.Subscription;
+import reactor.core.CoreSubscriber;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.FluxOperator;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoOperator;
+import reactor.core.publisher.Operators;
+import reactor.core.publisher.SignalType;
+import reactor.util.context.Context;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+
+/**
+ * Mono/Flux 从订阅到终止信号的耗时。
+ * <p>
+ * Controller 方法返回时只完成了响应式流水线的组装，真正执行在订阅之后，在 proceed() 之后停表只量到组装时间。
+ * 这里用一个算子（一个 Publisher 包装 + 一个 Subscriber，替代原来的 doOnSuccess/doOnError 两个算子）记录：
+ * <ul>
+ *     <li>duration：订阅到 onComplete / onError / cancel</li>
+ *     <li>firstElement：订阅到第一个 onNext，没有元素时为 -1</li>
+ *     <li>maxGap：相邻两个 onNext 的最大间隔，即 Flux 逐元素的最大延迟</li>
+ * </ul>
+ * 每次订阅只在第一个终止信号时回调一次 listener。Controller 日志关闭时调用方直接返回原始 Mono/Flux，不创建任何对象。
+ *
+ * @param signal ON_COMPLETE、ON_ERROR 或 CANCEL
+ */
+public record ReactiveTiming(SignalType signal, long durationNanos, long firstElementNanos,
+                             long elements, long maxGapNanos) {
+
+    @FunctionalInterface
+    public interface Listener {
+        /**
+         * @param value Mono 的值；Flux 收集元素时为元素列表，否则为 null
+         */
+        void onTerminate(ReactiveTiming timing, Object value, Throwable error);
+    }
+
+    public static <T> Mono<T> mono(Mono<T> source, Listener listener) {
+        return new TimedMono<>(source, listener);
+    }
+
+    /**
+     * 元素照常向下游传递，不会像 collectList 那样等全部完成
+     *
+     * @param collect 是否同时收集元素作为 value 传给 listener（用于记录响应体）
+     */
+    public static <T> Flux<T> flux(Flux<T> source, boolean collect, Listener listener) {
+        return new TimedFlux<>(source, collect, listener);
+    }
+
+    public long durationMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(durationNanos);
+    }
+
+    public long firstElementMillis() {
+        return firstElementNanos < 0 ? -1 : TimeUnit.NANOSECONDS.toMillis(firstElementNanos);
+    }
+
+    public long maxGapMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(maxGapNanos);
+    }
+
+    static final class TimedMono<T> extends MonoOperator<T, T> {
+        private final Listener listener;
+
+        TimedMono(Mono<? extends T> source, Listener listener) {
+            super(source);
+            this.listener = listener;
+        }
+
+        @Override
+        public void subscribe(CoreSubscriber<? super T> actual) {
+            source.subscribe(new TimedSubscriber<>(actual, listener, true, false));
+        }
+    }
+
+    static final class TimedFlux<T> extends FluxOperator<T, T> {
+        private final Listener listener;
+        private final boolean collect;
+
+        TimedFlux(Flux<? extends T> source, boolean collect, Listener listener) {
+            super(source);
+            this.collect = collect;
+            this.listener = listener;
+        }
+
+        @Override
+        public void subscribe(CoreSubscriber<? super T> actual) {
+            source.subscribe(new TimedSubscriber<>(actual, listener, false, collect));
+        }
+    }
+
+    static final class TimedSubscriber<T> implements CoreSubscriber<T>, Subscription {
+
+        @SuppressWarnings("rawtypes")
+        private static final AtomicIntegerFieldUpdater<TimedSubscriber> TERMINATED =
+                AtomicIntegerFieldUpdater.newUpdater(TimedSubscriber.class, "terminated");
+
+        private final CoreSubscriber<? super T> actual;
+        private final Listener listener;
+        private final boolean mono;
+        private final List<T> collected;
+
+        private Subscription upstream;
+        // onNext 之间由 Reactive Streams 保证串行；cancel 可能在其他线程上，读到的计数可能稍旧
+        private long subscribeNanos;
+        private long firstElementNanos = -1;
+        private long lastElementNanos;
+        private long maxGapNanos;
+        private long elements;
+        private volatile int terminated;
+
+        TimedSubscriber(CoreSubscriber<? super T> actual, Listener listener, boolean mono, boolean collect) {
+            this.actual = actual;
+            this.listener = listener;
+            this.mono = mono;
+            this.collected = collect ? new ArrayList<>() : null;
+        }
+
+        @Override
+        public void onSubscribe(Subscription subscription) {
+            if (Operators.validate(upstream, subscription)) {
+                upstream = subscription;
+                subscribeNanos = System.nanoTime();
+                actual.onSubscribe(this);
+            }
+        }
+
+        @Override
+        public void onNext(T value) {
+            long now = System.nanoTime();
+            if (elements++ == 0) {
+                firstElementNanos = now - subscribeNanos;
+            } else {
+                maxGapNanos = Math.max(maxGapNanos, now - lastElementNanos);
+            }
+            lastElementNanos = now;
+            if (mono) {
+                // 与 doOnSuccess 一致，Mono 收到值即视为完成（下游拿到值后可能直接 cancel）
+                terminate(SignalType.ON_COMPLETE, value, null);
+            } else if (collected != null) {
+                collected.add(value);
+            }
+            actual.onNext(value);
+        }
+
+        @Override
+        public void onError(Throwable error) {
+            terminate(SignalType.ON_ERROR, null, error);
+            actual.onError(error);
+        }
+
+        @Override
+        public void onComplete() {
+            terminate(SignalType.ON_COMPLETE, collected, null);
+            actual.onComplete();
+        }
+
+        @Override
+        public void request(long n) {
+            upstream.request(n);
+        }
+
+        @Override
+        public void cancel() {
+            terminate(SignalType.CANCEL, collected, null);
+            upstream.cancel();
+        }
+
+        @Override
+        public Context currentContext() {
+            return actual.currentContext();
+        }
+
+        private void terminate(SignalType signal, Object value, Throwable error) {
+            if (TERMINATED.compareAndSet(this, 0, 1)) {
+                long duration = System.nanoTime() - subscribeNanos;
+                listener.onTerminate(new ReactiveTiming(signal, duration, firstElementNanos, elements, maxGapNanos),
+                        value, error);
+            }
+        }
+    }
+}
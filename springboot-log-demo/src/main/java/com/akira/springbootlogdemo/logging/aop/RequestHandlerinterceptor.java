@@ -1,26 +1,22 @@
 package com.akira.springbootlogdemo.logging.aop;
 
-import jakarta.servlet.http.HttpServlet;
+import com.akira.springbootlogdemo.logging.filter.CachedBodyRequest;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.lang.Nullable;
 import org.springframework.web.servlet.HandlerInterceptor;
 import org.springframework.web.servlet.ModelAndView;
 
-import java.io.BufferedReader;
-import java.nio.Buffer;
-
 public class RequestHandlerinterceptor implements HandlerInterceptor {
 
+    private static final int MAX_BODY_LENGTH = 2000;
+
     @Override
      public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) throws Exception {
-        BufferedReader reader = request.getReader();
-        StringBuilder body = new StringBuilder();
-        String line;
-        while ((line = reader.readLine()) != null) {
-            body.append(line);
-        }
-        String requestBody = body.toString();
+        // 不能直接 request.getReader()：请求体只能读一次，Controller 或之前的组件已经调用过 getInputStream() 时会抛
+        // IllegalStateException，读完后 Controller 也读不到了。这里读 CachedBodyFilter 共享的缓存
+        CachedBodyRequest cachedRequest = CachedBodyRequest.from(request);
+        String requestBody = cachedRequest != null ? cachedRequest.getBodyAsString(MAX_BODY_LENGTH) : "";
         System.out.println("=========="+request.getRequestURI());
         System.out.println("=========="+requestBody);
         return true;
@@ -0,0 +1,29 @@
+package com.akira.springbootlogdemo.logging.aop;
+
+import lombok.Data;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Controller 调用的请求元数据，由 ControllerLoggingAspectOrg 或编译期生成的包装类填充
+ */
+@Data
+public class RequestMetaData {
+    private String traceId;
+    private String className;
+    private String methodName;
+    private String httpMethod;
+    private String basePath = "";
+    private String[] path = new String[0];
+    private String requestPath;
+    private Map<String, String> headers;
+    private Map<String, String> queryParams;
+    private List<RequestParamData> params;
+
+    public String getFullPath() {
+        return basePath + (path.length > 0 ? path[0] : "") + (requestPath != null ? requestPath : "");
+    }
+
+    // getters and setters
+}
@@ -0,0 +1,12 @@
+package com.akira.springbootlogdemo.logging.aop;
+
+import lombok.Data;
+
+@Data
+public class RequestParamData {
+    private String name;
+    private String type;
+    private Object value;
+
+    // getters and setters
+}
@@ -0,0 +1,108 @@
+package com.akira.springbootlogdemo.logging.appender;
+
+import com.akira.springbootlogdemo.logging.archive.BlockCompressor;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * 归档文件名模式，兼容 SizeAndTimeBasedRollingPolicy 的写法：
+ * <pre>logs/application-%d{yyyy-MM-dd}.%i.log</pre>
+ * 只支持一个 %d{...}（省略时为 yyyy-MM-dd）和一个 %i。
+ * 块压缩后的归档（追加 {@link BlockCompressor#EXTENSION}）同样被识别。
+ */
+public class ArchiveFileNamePattern {
+
+    private static final String DEFAULT_DATE_PATTERN = "yyyy-MM-dd";
+
+    private final Path directory;
+    private final String prefix;
+    private final String middle;
+    private final String suffix;
+    private final DateTimeFormatter formatter;
+    private final Pattern regex;
+
+    public ArchiveFileNamePattern(String pattern) {
+        Path path = Paths.get(pattern);
+        this.directory = path.getParent() != null ? path.getParent() : Paths.get(".");
+        String name = path.getFileName().toString();
+
+        int dateStart = name.indexOf("%d");
+        int indexStart = name.indexOf("%i");
+        if (dateStart < 0 || indexStart < dateStart) {
+            throw new IllegalArgumentException("fileNamePattern must contain %d followed by %i: " + pattern);
+        }
+        String datePattern = DEFAULT_DATE_PATTERN;
+        int dateEnd = dateStart + 2;
+        if (name.startsWith("{", dateEnd)) {
+            int close = name.indexOf('}', dateEnd);
+            datePattern = name.substring(dateEnd + 1, close);
+            dateEnd = close + 1;
+        }
+        this.prefix = name.substring(0, dateStart);
+        this.middle = name.substring(dateEnd, indexStart);
+        this.suffix = name.substring(indexStart + 2);
+        this.formatter = DateTimeFormatter.ofPattern(datePattern);
+        this.regex = Pattern.compile(Pattern.quote(prefix) + "(.+?)" + Pattern.quote(middle)
+                + "(\\d+)" + Pattern.quote(suffix) + "(?:" + Pattern.quote(BlockCompressor.EXTENSION) + ")?");
+    }
+
+    public Path directory() {
+        return directory;
+    }
+
+    public Path fileFor(LocalDate date, int index) {
+        return directory.resolve(prefix + formatter.format(date) + middle + index + suffix);
+    }
+
+    /**
+     * 指定日期下第一个尚不存在的归档文件
+     */
+    public Path nextFree(LocalDate date) {
+        int index = 0;
+        while (Files.exists(fileFor(date, index)) || Files.exists(BlockCompressor.compressedPath(fileFor(date, index)))) {
+            index++;
+        }
+        return fileFor(date, index);
+    }
+
+    /**
+     * 列出目录中符合模式的归档文件，按日期、序号升序
+     */
+    public List<Archive> list() throws IOException {
+        List<Archive> archives = new ArrayList<>();
+        if (!Files.isDirectory(directory)) {
+            return archives;
+        }
+        try (Stream<Path> files = Files.list(directory)) {
+            for (Path file : (Iterable<Path>) files::iterator) {
+                Matcher matcher = regex.matcher(file.getFileName().toString());
+                if (!matcher.matches()) {
+                    continue;
+                }
+                try {
+                    LocalDate date = LocalDate.parse(matcher.group(1), formatter);
+                    archives.add(new Archive(file, date, Integer.parseInt(matcher.group(2)), Files.size(file)));
+                } catch (DateTimeParseException | NumberFormatException e) {
+                    // 不是本模式生成的文件，忽略
+                }
+            }
+        }
+        archives.sort(Comparator.comparing(Archive::date).thenComparingInt(Archive::index));
+        return archives;
+    }
+
+    public record Archive(Path path, LocalDate date, int index, long size) {
+    }
+}
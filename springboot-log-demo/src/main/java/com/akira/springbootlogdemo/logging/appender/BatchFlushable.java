@@ -0,0 +1,13 @@
+package com.akira.springbootlogdemo.logging.appender;
+
+/**
+ * 由 {@link RingBufferAsyncAppender} 在每批事件写完后调用，
+ * 让不是 OutputStreamAppender 的下游（如 {@link MappedFileAppender}）也能按批落盘。
+ */
+public interface BatchFlushable {
+
+    /**
+     * 一批事件写完，在 worker 线程上调用
+     */
+    void flushBatch();
+}
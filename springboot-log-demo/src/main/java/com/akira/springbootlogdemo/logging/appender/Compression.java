@@ -0,0 +1,25 @@
+package com.akira.springbootlogdemo.logging.appender;
+
+/**
+ * MappedFileAppender 归档文件的压缩方式
+ */
+public enum Compression {
+
+    /**
+     * 不压缩
+     */
+    NONE,
+
+    /**
+     * 按块独立压缩并生成时间索引（见 BlockCompressor）。
+     * <ul>
+     *     <li>只在以时间戳开头的行处切块：%d{yyyy-MM-dd HH:mm:ss.SSS} 开头的文本行，或 JsonEncoder 输出的 @timestamp 行；
+     *     堆栈等续行跟随所属的日志</li>
+     *     <li>块内保留原文件的字节偏移，index=true 时的 traceId / URI 索引对压缩后的归档同样有效，
+     *     LogIndexQuery 只解压命中的块</li>
+     *     <li>没有可识别时间戳的内容（如 BinaryLogEncoder 的二进制日志）不会切块，整个文件压成一块，
+     *     没有时间索引，压缩时整段读入内存，不建议开启</li>
+     * </ul>
+     */
+    BLOCK
+}
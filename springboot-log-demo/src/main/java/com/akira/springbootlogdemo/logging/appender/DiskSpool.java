@@ -0,0 +1,164 @@
+package com.akira.springbootlogdemo.logging.appender;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * ForwardingAppender 的磁盘暂存：每个批次一个文件，文件名是 20 位补零的批次序号，按序号回放。
+ * <p>
+ * 文件内容是 4 字节事件数加上压缩后的批次。先写 .tmp 再原子改名，进程崩溃时不会留下半个批次；
+ * 启动时残留的 .tmp 直接删除。收集端拒绝或读不出来的批次移到 dead-letter 子目录，不再回放。
+ * 暂存清空后重启序号会从 0 开始，所以 dead-letter 文件名前面加上本次 open 的时间戳，不会覆盖上次运行的文件。
+ * 非线程安全，由 ForwardingAppender 的锁保护。
+ */
+class DiskSpool {
+
+    private static final String SUFFIX = ".batch";
+    private static final String TEMP_SUFFIX = ".tmp";
+    private static final String DEAD_LETTER = "dead-letter";
+
+    private final Path directory;
+    // 序号 -> 文件大小
+    private final ConcurrentSkipListMap<Long, Long> batches = new ConcurrentSkipListMap<>();
+    private long totalBytes;
+    // dead-letter 文件名前缀，区分不同运行
+    private String deadLetterPrefix;
+
+    DiskSpool(Path directory) {
+        this.directory = directory;
+    }
+
+    /**
+     * 加载上次运行留下的批次
+     */
+    void open() throws IOException {
+        deadLetterPrefix = System.currentTimeMillis() + "-";
+        Files.createDirectories(directory);
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory)) {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                if (name.endsWith(TEMP_SUFFIX)) {
+                    Files.deleteIfExists(file);
+                } else if (name.endsWith(SUFFIX)) {
+                    try {
+                        long sequence = Long.parseLong(name.substring(0, name.length() - SUFFIX.length()));
+                        long size = Files.size(file);
+                        batches.put(sequence, size);
+                        totalBytes += size;
+                    } catch (NumberFormatException e) {
+                        // 不是本组件写的文件，忽略
+                    }
+                }
+            }
+        }
+    }
+
+    void write(ForwardBatch batch) throws IOException {
+        writeFile(directory, fileName(batch.sequence()), batch);
+        long size = 4L + batch.payload().length;
+        batches.put(batch.sequence(), size);
+        totalBytes += size;
+    }
+
+    /**
+     * 把还在内存中的批次写到 dead-letter 目录；目标已存在时抛出异常，不覆盖
+     */
+    void writeDeadLetter(ForwardBatch batch) throws IOException {
+        Path deadLetter = directory.resolve(DEAD_LETTER);
+        Files.createDirectories(deadLetter);
+        String name = deadLetterPrefix + fileName(batch.sequence());
+        if (Files.exists(deadLetter.resolve(name + SUFFIX))) {
+            throw new FileAlreadyExistsException(deadLetter.resolve(name + SUFFIX).toString());
+        }
+        writeFile(deadLetter, name, batch);
+    }
+
+    /**
+     * 把暂存的批次移到 dead-letter 目录；文件已经不存在时只从索引中去掉。目标已存在时抛出异常，不覆盖
+     */
+    void moveToDeadLetter(long sequence) throws IOException {
+        Long size = batches.remove(sequence);
+        if (size != null) {
+            totalBytes -= size;
+        }
+        Path file = path(sequence);
+        if (Files.exists(file)) {
+            Path deadLetter = directory.resolve(DEAD_LETTER);
+            Files.createDirectories(deadLetter);
+            Files.move(file, deadLetter.resolve(deadLetterPrefix + fileName(sequence) + SUFFIX));
+        }
+    }
+
+    ForwardBatch read(long sequence) throws IOException {
+        byte[] bytes = Files.readAllBytes(path(sequence));
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        int events = buffer.getInt();
+        byte[] payload = new byte[buffer.remaining()];
+        buffer.get(payload);
+        return new ForwardBatch(sequence, events, payload);
+    }
+
+    void delete(long sequence) throws IOException {
+        Long size = batches.remove(sequence);
+        if (size != null) {
+            totalBytes -= size;
+        }
+        Files.deleteIfExists(path(sequence));
+    }
+
+    /**
+     * @return 最小的序号，没有批次时为 -1
+     */
+    long firstSequence() {
+        Map.Entry<Long, Long> first = batches.firstEntry();
+        return first != null ? first.getKey() : -1;
+    }
+
+    /**
+     * @return 最大的序号，没有批次时为 -1
+     */
+    long lastSequence() {
+        Map.Entry<Long, Long> last = batches.lastEntry();
+        return last != null ? last.getKey() : -1;
+    }
+
+    boolean isEmpty() {
+        return batches.isEmpty();
+    }
+
+    int size() {
+        return batches.size();
+    }
+
+    long totalBytes() {
+        return totalBytes;
+    }
+
+    private static void writeFile(Path directory, String name, ForwardBatch batch) throws IOException {
+        Path temp = directory.resolve(name + TEMP_SUFFIX);
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            ByteBuffer header = ByteBuffer.allocate(4).putInt(batch.events()).flip();
+            channel.write(new ByteBuffer[]{header, ByteBuffer.wrap(batch.payload())});
+            channel.force(false);
+        }
+        Files.move(temp, directory.resolve(name + SUFFIX), StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private Path path(long sequence) {
+        return directory.resolve(fileName(sequence) + SUFFIX);
+    }
+
+    private static String fileName(long sequence) {
+        return String.format("%020d", sequence);
+    }
+}
@@ -0,0 +1,29 @@
+package com.akira.springbootlogdemo.logging.appender;
+
+/**
+ * MappedFileAppender 的落盘策略
+ */
+public enum Durability {
+
+    /**
+     * 只写入页缓存，由操作系统决定何时落盘；进程崩溃不丢，机器掉电可能丢
+     */
+    OS_FLUSH,
+
+    /**
+     * 后台线程每隔 commitInterval 调用一次 force，写入线程不等待
+     */
+    PERIODIC_FORCE,
+
+    /**
+     * 上游 RingBufferAsyncAppender 每写完一批 force 一次，force 在 worker 线程上执行，请求线程不等待；
+     * 直接写入（没有经过 RingBufferAsyncAppender）的部分仍按 commitInterval 在后台 force
+     */
+    BATCH_FORCE,
+
+    /**
+     * 组提交：写入线程等待覆盖自己那次写入的 force 完成，
+     * 同一个 commitInterval 内的写入共享一次 force
+     */
+    GROUP_COMMIT
+}
@@ -0,0 +1,11 @@
+package com.akira.springbootlogdemo.logging.appender;
+
+/**
+ * ForwardingAppender 的一个批次
+ *
+ * @param sequence 封批时分配的递增序号，发送和回放都按它排序
+ * @param events   批次中的事件数
+ * @param payload  gzip 压缩后的编码结果
+ */
+record ForwardBatch(long sequence, int events, byte[] payload) {
+}
@@ -0,0 +1,167 @@
+package com.akira.springbootlogdemo.logging.appender;
+
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+
+/**
+ * ForwardingAppender 把批次发送到收集端的方式，由 collectorUrl 的 scheme 决定：
+ * <ul>
+ *     <li>http/https：每个批次一次 POST，Content-Encoding: gzip，2xx 视为成功；
+ *     4xx（408、429 除外）视为收集端拒绝该批次，抛 {@link BatchRejectedException}</li>
+ *     <li>tcp://host:port：长连接，每个批次一帧 [4 字节长度][4 字节事件数][gzip 数据]，
+ *     收集端处理完后回一个字节 1 确认；连接出错时关闭，下次发送重连</li>
+ * </ul>
+ * 只由 ForwardingAppender 的发送线程调用。
+ */
+interface ForwardTransport extends AutoCloseable {
+
+    /**
+     * @throws BatchRejectedException 收集端拒绝了这个批次，重试也不会成功
+     * @throws IOException            发送失败，批次会重试
+     */
+    void send(ForwardBatch batch) throws IOException;
+
+    @Override
+    void close();
+
+    static ForwardTransport create(String collectorUrl, Duration timeout, String contentType) {
+        URI uri = URI.create(collectorUrl);
+        String scheme = uri.getScheme() != null ? uri.getScheme().toLowerCase() : "";
+        return switch (scheme) {
+            case "http", "https" -> new Http(uri, timeout, contentType);
+            case "tcp" -> new Tcp(uri.getHost(), uri.getPort(), timeout);
+            default -> throw new IllegalArgumentException("Unsupported collector url [" + collectorUrl + "]");
+        };
+    }
+
+    final class Http implements ForwardTransport {
+        private final URI uri;
+        private final Duration timeout;
+        private final String contentType;
+        private final HttpClient client;
+
+        Http(URI uri, Duration timeout, String contentType) {
+            this.uri = uri;
+            this.timeout = timeout;
+            this.contentType = contentType;
+            this.client = HttpClient.newBuilder().connectTimeout(timeout).build();
+        }
+
+        @Override
+        public void send(ForwardBatch batch) throws IOException {
+            HttpRequest request = HttpRequest.newBuilder(uri)
+                    .timeout(timeout)
+                    .header("Content-Type", contentType)
+                    .header("Content-Encoding", "gzip")
+                    .header("X-Log-Batch-Sequence", Long.toString(batch.sequence()))
+                    .header("X-Log-Batch-Events", Integer.toString(batch.events()))
+                    .POST(HttpRequest.BodyPublishers.ofByteArray(batch.payload()))
+                    .build();
+            HttpResponse<Void> response;
+            try {
+                response = client.send(request, HttpResponse.BodyHandlers.discarding());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while sending batch " + batch.sequence());
+            }
+            int status = response.statusCode();
+            if (status / 100 == 4 && status != 408 && status != 429) {
+                throw new BatchRejectedException("Collector rejected batch " + batch.sequence() + " with " + status);
+            }
+            if (status / 100 != 2) {
+                throw new IOException("Collector responded " + status);
+            }
+        }
+
+        @Override
+        public void close() {
+            // 连接池由 HttpClient 管理，空闲连接超时后自行关闭
+        }
+    }
+
+    final class Tcp implements ForwardTransport {
+        private final String host;
+        private final int port;
+        private final int timeoutMillis;
+        private Socket socket;
+        private DataOutputStream out;
+        private DataInputStream in;
+
+        Tcp(String host, int port, Duration timeout) {
+            if (host == null || port < 0) {
+                throw new IllegalArgumentException("tcp collector url needs host and port");
+            }
+            this.host = host;
+            this.port = port;
+            this.timeoutMillis = (int) timeout.toMillis();
+        }
+
+        @Override
+        public void send(ForwardBatch batch) throws IOException {
+            try {
+                if (socket == null) {
+                    connect();
+                }
+                out.writeInt(batch.payload().length);
+                out.writeInt(batch.events());
+                out.write(batch.payload());
+                out.flush();
+                int ack = in.read();
+                if (ack != 1) {
+                    throw new IOException("Collector did not acknowledge batch " + batch.sequence());
+                }
+            } catch (IOException e) {
+                close();
+                throw e;
+            }
+        }
+
+        private void connect() throws IOException {
+            Socket connected = new Socket();
+            try {
+                connected.connect(new InetSocketAddress(host, port), timeoutMillis);
+                connected.setSoTimeout(timeoutMillis);
+                connected.setTcpNoDelay(true);
+            } catch (IOException e) {
+                connected.close();
+                throw e;
+            }
+            socket = connected;
+            out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+            in = new DataInputStream(socket.getInputStream());
+        }
+
+        @Override
+        public void close() {
+            if (socket != null) {
+                try {
+                    socket.close();
+                } catch (IOException e) {
+                    // 忽略
+                }
+                socket = null;
+                out = null;
+                in = null;
+            }
+        }
+    }
+
+    /**
+     * 收集端明确拒绝了批次（如 HTTP 400、413），ForwardingAppender 把它移到 dead-letter 目录后继续发送后面的批次
+     */
+    final class BatchRejectedException extends IOException {
+        BatchRejectedException(String message) {
+            super(message);
+        }
+    }
+}
@@ -0,0 +1,475 @@
+package com.akira.springbootlogdemo.logging.appender;
+
+import ch.qos.logback.core.UnsynchronizedAppenderBase;
+import ch.qos.logback.core.encoder.Encoder;
+import ch.qos.logback.core.util.Duration;
+import ch.qos.logback.core.util.FileSize;
+import com.akira.springbootlogdemo.logging.metrics.LoggingMetric;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Paths;
+import java.util.ArrayDeque;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * 把日志批量压缩后发送到收集端的 Appender，不再需要外部的 tailer 重新读取日志文件。
+ * <p>
+ * 编码后的事件攒成批次（batchSize 条、maxBatchSize 字节或 lingerTime 到期，先到为准），gzip 压缩后交给发送线程，
+ * 协议见 {@link ForwardTransport}。每个批次在封批时分配递增序号，发送线程总是先发序号最小的批次：
+ * <ul>
+ *     <li>内存中最多排 maxPendingBatches 个批次，收集端慢或不可用时之后的批次写入 spoolDirectory</li>
+ *     <li>发送失败按指数退避重试同一个批次（最长 maxRetryDelay），不跳过、不乱序</li>
+ *     <li>收集端拒绝（HTTP 4xx）或磁盘上读不出来的批次移到 spoolDirectory/dead-letter，跳过继续发送</li>
+ *     <li>停止时未发送的批次写入磁盘，下次启动接着按序号回放</li>
+ *     <li>磁盘暂存超过 maxSpoolSize 时 append 阻塞，直到发送线程腾出空间</li>
+ * </ul>
+ * append 的阻塞落在调用线程上，应挂在 RingBufferAsyncAppender 之后：压力由异步通道的 worker 承受，
+ * 请求线程只受该通道 overflowPolicy 的影响。
+ * <pre>
+ * &lt;appender name="FORWARD" class="com.akira.springbootlogdemo.logging.appender.ForwardingAppender"&gt;
+ *     &lt;collectorUrl&gt;http://localhost:9880/logs&lt;/collectorUrl&gt;
+ *     &lt;spoolDirectory&gt;logs/forward-spool&lt;/spoolDirectory&gt;
+ *     &lt;batchSize&gt;512&lt;/batchSize&gt;
+ *     &lt;lingerTime&gt;1 second&lt;/lingerTime&gt;
+ *     &lt;maxSpoolSize&gt;512MB&lt;/maxSpoolSize&gt;
+ *     &lt;encoder class="com.akira.springbootlogdemo.logging.json.JsonEncoder"/&gt;
+ * &lt;/appender&gt;
+ * </pre>
+ */
+public class ForwardingAppender<E> extends UnsynchronizedAppenderBase<E> {
+
+    private static final long DEFAULT_MAX_BATCH_SIZE = FileSize.MB_COEFFICIENT;
+    private static final long DEFAULT_MAX_SPOOL_SIZE = 512 * FileSize.MB_COEFFICIENT;
+    private static final long MIN_RETRY_DELAY = 100;
+
+    private Encoder<E> encoder;
+    private String collectorUrl;
+    private String contentType = "application/x-ndjson";
+    private String spoolDirectory;
+    private int batchSize = 512;
+    private FileSize maxBatchSize = new FileSize(DEFAULT_MAX_BATCH_SIZE);
+    private Duration lingerTime = Duration.buildBySeconds(1);
+    private int maxPendingBatches = 16;
+    private FileSize maxSpoolSize = new FileSize(DEFAULT_MAX_SPOOL_SIZE);
+    private Duration sendTimeout = Duration.buildBySeconds(10);
+    private Duration maxRetryDelay = Duration.buildBySeconds(30);
+    private Duration shutdownTimeout = Duration.buildBySeconds(5);
+
+    private final ReentrantLock lock = new ReentrantLock();
+    // 有批次可发或当前批次需要检查 lingerTime
+    private final Condition sendable = lock.newCondition();
+    // 磁盘暂存腾出了空间
+    private final Condition space = lock.newCondition();
+
+    private ForwardTransport transport;
+    private DiskSpool spool;
+    private Thread sender;
+    private boolean encodeUnderLock;
+    private final ArrayDeque<ForwardBatch> pending = new ArrayDeque<>();
+    private ByteArrayOutputStream current;
+    private int currentEvents;
+    private long currentStartNanos;
+    private long nextSequence;
+
+    @Override
+    public void start() {
+        if (encoder == null) {
+            addError("No encoder set for the appender named [" + getName() + "].");
+            return;
+        }
+        if (collectorUrl == null || spoolDirectory == null) {
+            addError("Both collectorUrl and spoolDirectory must be set for the appender named [" + getName() + "].");
+            return;
+        }
+        encodeUnderLock = encoder instanceof OrderedEncoder;
+        try {
+            transport = ForwardTransport.create(collectorUrl,
+                    java.time.Duration.ofMillis(sendTimeout.getMilliseconds()), contentType);
+            spool = new DiskSpool(Paths.get(spoolDirectory));
+            spool.open();
+        } catch (IOException | IllegalArgumentException e) {
+            addError("Failed to start forwarding to [" + collectorUrl + "]", e);
+            return;
+        }
+        nextSequence = spool.lastSequence() + 1;
+        if (!spool.isEmpty()) {
+            addInfo("Replaying " + spool.size() + " spooled batches from [" + spoolDirectory + "]");
+        }
+        current = new ByteArrayOutputStream((int) Math.min(maxBatchSize.getSize(), 64 * 1024));
+
+        sender = new Thread(this::sendLoop, "ForwardingAppender-" + getName());
+        sender.setDaemon(true);
+        super.start();
+        sender.start();
+    }
+
+    @Override
+    public void stop() {
+        if (!isStarted()) {
+            return;
+        }
+        lock.lock();
+        try {
+            // 发送线程看到停止后封掉当前批次，在 shutdownTimeout 内尽量发完
+            super.stop();
+            sendable.signalAll();
+            space.signalAll();
+        } finally {
+            lock.unlock();
+        }
+        try {
+            sender.join(shutdownTimeout.getMilliseconds());
+            if (sender.isAlive()) {
+                sender.interrupt();
+                sender.join(sendTimeout.getMilliseconds());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        lock.lock();
+        try {
+            if (currentEvents > 0) {
+                seal();
+            }
+            int remaining = pending.size();
+            while (!pending.isEmpty()) {
+                writeSpool(pending.pollFirst());
+            }
+            if (!spool.isEmpty()) {
+                addInfo(remaining + " pending batches spooled, " + spool.size()
+                        + " batches will be replayed on next start");
+            }
+        } finally {
+            lock.unlock();
+        }
+        transport.close();
+    }
+
+    @Override
+    protected void append(E event) {
+        // 编码在锁外完成，依赖顺序的编码器除外
+        byte[] bytes = encodeUnderLock ? null : encoder.encode(event);
+        lock.lock();
+        try {
+            if (!isStarted()) {
+                return;
+            }
+            if (encodeUnderLock) {
+                bytes = encoder.encode(event);
+            }
+            if (bytes == null || bytes.length == 0) {
+                return;
+            }
+            awaitSpace();
+            if (currentEvents == 0) {
+                currentStartNanos = System.nanoTime();
+            }
+            current.write(bytes, 0, bytes.length);
+            currentEvents++;
+            if (currentEvents >= batchSize || current.size() >= maxBatchSize.getSize()) {
+                seal();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 背压：磁盘暂存满时等待发送线程腾出空间，调用方（异步通道的 worker）随之停下
+     */
+    private void awaitSpace() {
+        if (spool.totalBytes() < maxSpoolSize.getSize()) {
+            return;
+        }
+        long start = System.nanoTime();
+        while (isStarted() && spool.totalBytes() >= maxSpoolSize.getSize()) {
+            try {
+                space.await(1, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+        LoggingMetric.FORWARD_BLOCKED_NANOS.add(System.nanoTime() - start);
+    }
+
+    /**
+     * 压缩当前批次并分配序号，内存队列满时直接写入磁盘。调用方持有锁
+     */
+    private void seal() {
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream(current.size() / 4 + 64);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(compressed, 8192)) {
+            current.writeTo(gzip);
+        } catch (IOException e) {
+            // 写内存不会失败
+            throw new IllegalStateException(e);
+        }
+        ForwardBatch batch = new ForwardBatch(nextSequence++, currentEvents, compressed.toByteArray());
+        current.reset();
+        currentEvents = 0;
+
+        if (pending.size() < maxPendingBatches) {
+            pending.addLast(batch);
+        } else {
+            writeSpool(batch);
+        }
+        sendable.signal();
+    }
+
+    private void writeSpool(ForwardBatch batch) {
+        try {
+            spool.write(batch);
+            LoggingMetric.SPOOLED_BATCHES.increment();
+        } catch (IOException e) {
+            addError("Failed to spool batch " + batch.sequence() + ", " + batch.events() + " events dropped", e);
+        }
+    }
+
+    private void sendLoop() {
+        long retryDelay = 0;
+        while (true) {
+            ForwardBatch batch;
+            long spooledSequence = -1;
+            lock.lock();
+            try {
+                batch = nextBatch();
+                if (batch == null) {
+                    spooledSequence = spool.firstSequence();
+                    if (spooledSequence < 0) {
+                        // 已停止且全部发完
+                        return;
+                    }
+                }
+            } finally {
+                lock.unlock();
+            }
+
+            try {
+                if (batch == null) {
+                    batch = spool.read(spooledSequence);
+                }
+                transport.send(batch);
+            } catch (NoSuchFileException | BufferUnderflowException e) {
+                // 暂存文件丢失或不完整，重试也读不出来
+                deadLetter(null, spooledSequence, "unreadable: " + e);
+                continue;
+            } catch (ForwardTransport.BatchRejectedException e) {
+                deadLetter(batch, batch.sequence(), e.getMessage());
+                continue;
+            } catch (IOException | RuntimeException e) {
+                if (!isStarted() || Thread.currentThread().isInterrupted()) {
+                    // 停止期间不再重试，剩余批次由 stop 写入磁盘
+                    return;
+                }
+                LoggingMetric.FORWARD_FAILURES.increment();
+                if (e instanceof RuntimeException) {
+                    // 不让发送线程退出，否则之后的批次只会堆在磁盘上
+                    addError("Unexpected error while forwarding to [" + collectorUrl + "], will retry", e);
+                } else if (retryDelay == 0) {
+                    addWarn("Failed to forward batch to [" + collectorUrl + "], will retry: " + e);
+                }
+                retryDelay = Math.min(Math.max(MIN_RETRY_DELAY, retryDelay * 2), maxRetryDelay.getMilliseconds());
+                if (!backoff(retryDelay)) {
+                    return;
+                }
+                continue;
+            }
+
+            if (retryDelay > 0) {
+                addInfo("Forwarding to [" + collectorUrl + "] recovered");
+                retryDelay = 0;
+            }
+            lock.lock();
+            try {
+                // stop 可能已把内存中的批次写入磁盘
+                if (!pending.remove(batch)) {
+                    spool.delete(batch.sequence());
+                }
+                space.signalAll();
+            } catch (IOException e) {
+                addWarn("Failed to delete spooled batch " + batch.sequence(), e);
+            } finally {
+                lock.unlock();
+            }
+            LoggingMetric.FORWARDED_EVENTS.add(batch.events());
+            LoggingMetric.FORWARDED_BYTES.add(batch.payload().length);
+        }
+    }
+
+    /**
+     * 把不能再发送的批次移到 dead-letter 目录，之后接着发送下一个批次
+     *
+     * @param batch 内存中或已从磁盘读出的批次；读不出来时为 null
+     */
+    private void deadLetter(ForwardBatch batch, long sequence, String reason) {
+        lock.lock();
+        try {
+            // 与发送成功时相同：不在内存中就在磁盘上（可能是 stop 刚写入的）
+            if (batch != null && pending.remove(batch)) {
+                spool.writeDeadLetter(batch);
+            } else {
+                spool.moveToDeadLetter(sequence);
+            }
+            space.signalAll();
+        } catch (IOException e) {
+            addError("Failed to move batch " + sequence + " to dead-letter", e);
+        } finally {
+            lock.unlock();
+        }
+        LoggingMetric.DEAD_LETTER_BATCHES.increment();
+        addWarn("Batch " + sequence + " moved to dead-letter and skipped (" + reason + ")");
+    }
+
+    /**
+     * 取序号最小的待发批次；在磁盘上时返回 null，由调用方在锁外读取。
+     * 没有可发的批次时等待，期间按 lingerTime 封掉当前批次。调用方持有锁
+     *
+     * @return 内存中的批次；在磁盘上或已停止且没有剩余批次时为 null
+     */
+    private ForwardBatch nextBatch() {
+        long lingerNanos = TimeUnit.MILLISECONDS.toNanos(lingerTime.getMilliseconds());
+        while (true) {
+            if (currentEvents > 0 && (!isStarted() || System.nanoTime() - currentStartNanos >= lingerNanos)) {
+                seal();
+            }
+            ForwardBatch head = pending.peekFirst();
+            long spooled = spool.firstSequence();
+            if (head != null && (spooled < 0 || head.sequence() < spooled)) {
+                return head;
+            }
+            if (spooled >= 0 || !isStarted()) {
+                return null;
+            }
+            long wait = currentEvents > 0 ? lingerNanos - (System.nanoTime() - currentStartNanos) : lingerNanos;
+            try {
+                sendable.awaitNanos(Math.max(wait, 1));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return null;
+            }
+        }
+    }
+
+    /**
+     * @return 被停止或中断时为 false
+     */
+    private boolean backoff(long delayMillis) {
+        lock.lock();
+        try {
+            // 新批次封好时也会 signal，等满整个退避时间，不提前重试
+            long remaining = TimeUnit.MILLISECONDS.toNanos(delayMillis);
+            while (isStarted() && remaining > 0) {
+                remaining = sendable.awaitNanos(remaining);
+            }
+            return isStarted();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public Encoder<E> getEncoder() {
+        return encoder;
+    }
+
+    public void setEncoder(Encoder<E> encoder) {
+        this.encoder = encoder;
+    }
+
+    public String getCollectorUrl() {
+        return collectorUrl;
+    }
+
+    public void setCollectorUrl(String collectorUrl) {
+        this.collectorUrl = collectorUrl;
+    }
+
+    public String getContentType() {
+        return contentType;
+    }
+
+    public void setContentType(String contentType) {
+        this.contentType = contentType;
+    }
+
+    public String getSpoolDirectory() {
+        return spoolDirectory;
+    }
+
+    public void setSpoolDirectory(String spoolDirectory) {
+        this.spoolDirectory = spoolDirectory;
+    }
+
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    public void setBatchSize(int batchSize) {
+        this.batchSize = batchSize;
+    }
+
+    public FileSize getMaxBatchSize() {
+        return maxBatchSize;
+    }
+
+    public void setMaxBatchSize(FileSize maxBatchSize) {
+        this.maxBatchSize = maxBatchSize;
+    }
+
+    public Duration getLingerTime() {
+        return lingerTime;
+    }
+
+    public void setLingerTime(Duration lingerTime) {
+        this.lingerTime = lingerTime;
+    }
+
+    public int getMaxPendingBatches() {
+        return maxPendingBatches;
+    }
+
+    public void setMaxPendingBatches(int maxPendingBatches) {
+        this.maxPendingBatches = maxPendingBatches;
+    }
+
+    public FileSize getMaxSpoolSize() {
+        return maxSpoolSize;
+    }
+
+    public void setMaxSpoolSize(FileSize maxSpoolSize) {
+        this.maxSpoolSize = maxSpoolSize;
+    }
+
+    public Duration getSendTimeout() {
+        return sendTimeout;
+    }
+
+    public void setSendTimeout(Duration sendTimeout) {
+        this.sendTimeout = sendTimeout;
+    }
+
+    public Duration getMaxRetryDelay() {
+        return maxRetryDelay;
+    }
+
+    public void setMaxRetryDelay(Duration maxRetryDelay) {
+        this.maxRetryDelay = maxRetryDelay;
+    }
+
+    public Duration getShutdownTimeout() {
+        return shutdownTimeout;
+    }
+
+    public void setShutdownTimeout(Duration shutdownTimeout) {
+        this.shutdownTimeout = shutdownTimeout;
+    }
+}
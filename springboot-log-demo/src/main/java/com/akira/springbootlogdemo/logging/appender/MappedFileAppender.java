@@ -0,0 +1,539 @@
+package com.akira.springbootlogdemo.logging.appender;
+
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.UnsynchronizedAppenderBase;
+import ch.qos.logback.core.encoder.Encoder;
+import ch.qos.logback.core.util.Duration;
+import ch.qos.logback.core.util.FileSize;
+import com.akira.springbootlogdemo.logging.archive.BlockCompressor;
+import com.akira.springbootlogdemo.logging.index.LogIndexWriter;
+import com.akira.springbootlogdemo.logging.metrics.LoggingMetric;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * 基于内存映射的分段文件 Appender。
+ * <p>
+ * 活动文件按 maxFileSize 预分配并映射到内存，每条日志只是一次内存拷贝，没有逐条的 write 系统调用。
+ * 段写满或跨天时截断到实际长度并按 fileNamePattern 归档，归档清理规则与
+ * SizeAndTimeBasedRollingPolicy 相同（maxHistory 天、totalSizeCap 总量）。
+ * <p>
+ * compression=BLOCK 时，归档文件在单独的后台线程中压缩成可按时间定位的独立块（见 {@link BlockCompressor}），
+ * 压缩大文件不会耽误定时 force 和组提交。
+ * <p>
+ * index=true 时同步维护 traceId / URI 索引（见 {@link LogIndexWriter}），随段一起归档和清理。
+ * <p>
+ * 活动文件的最后 16 字节记录已写入的数据长度（以 0 字节开头的魔数 + 长度），异常退出后重启时据此续写，
+ * 正常关闭和滚动时随截断一起去掉。
+ * <p>
+ * 经由 {@link RingBufferAsyncAppender} 写入时，durability=BATCH_FORCE 让每批写完后 force 一次（见 {@link #flushBatch()}）；
+ * 其他模式下每批的 flush 没有意义：写入映射即已进入页缓存，相当于 OutputStream 的 flush。
+ * <p>
+ * 注意：活动文件在滚动前末尾是预分配的 0 字节，tail -f 之类的工具会看到空洞。
+ * <pre>
+ * &lt;appender name="FILE" class="com.akira.springbootlogdemo.logging.appender.MappedFileAppender"&gt;
+ *     &lt;file&gt;logs/application.log&lt;/file&gt;
+ *     &lt;fileNamePattern&gt;logs/application-%d{yyyy-MM-dd}.%i.log&lt;/fileNamePattern&gt;
+ *     &lt;maxFileSize&gt;50MB&lt;/maxFileSize&gt;
+ *     &lt;maxHistory&gt;30&lt;/maxHistory&gt;
+ *     &lt;totalSizeCap&gt;1GB&lt;/totalSizeCap&gt;
+ *     &lt;durability&gt;PERIODIC_FORCE&lt;/durability&gt;
+ *     &lt;commitInterval&gt;1 second&lt;/commitInterval&gt;
+ *     &lt;compression&gt;BLOCK&lt;/compression&gt;
+ *     &lt;index&gt;true&lt;/index&gt;
+ *     &lt;encoder&gt;...&lt;/encoder&gt;
+ * &lt;/appender&gt;
+ * </pre>
+ */
+public class MappedFileAppender<E> extends UnsynchronizedAppenderBase<E> implements BatchFlushable {
+
+    private static final long DEFAULT_MAX_FILE_SIZE = 50 * FileSize.MB_COEFFICIENT;
+    private static final long DEFAULT_TOTAL_SIZE_CAP = FileSize.GB_COEFFICIENT;
+    // 首字节为 0，二进制解码在此停止；0xFF/0xFE 不会出现在 UTF-8 文本中
+    private static final long TRAILER_MAGIC = 0x004D4C454E44FFFEL;
+    private static final int TRAILER_SIZE = 16;
+
+    private Encoder<E> encoder;
+    private String file;
+    private String fileNamePattern;
+    private FileSize maxFileSize = new FileSize(DEFAULT_MAX_FILE_SIZE);
+    private int maxHistory = 30;
+    private FileSize totalSizeCap = new FileSize(DEFAULT_TOTAL_SIZE_CAP);
+    private Durability durability = Durability.OS_FLUSH;
+    private Duration commitInterval = Duration.buildByMilliseconds(200);
+    private Compression compression = Compression.NONE;
+    private FileSize compressionBlockSize = new FileSize(BlockCompressor.DEFAULT_BLOCK_SIZE);
+    private boolean index;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition committed = lock.newCondition();
+    // 段的替换（滚动、关闭）持有写锁，后台 force 持有读锁，force 期间映射不会被截断或释放
+    private final ReentrantReadWriteLock segmentLock = new ReentrantReadWriteLock();
+    private final ZoneId zone = ZoneId.systemDefault();
+
+    private ArchiveFileNamePattern archivePattern;
+    private ScheduledExecutorService executor;
+    // 归档压缩和清理
+    private ExecutorService archiveExecutor;
+    private FileChannel channel;
+    private MappedByteBuffer buffer;
+    // buffer 之后的 16 字节，不在 buffer 的 limit 之内
+    private ByteBuffer trailer;
+    private LogIndexWriter indexWriter;
+    private LocalDate segmentDate;
+    private long nextRolloverMillis;
+    private boolean encodeUnderLock;
+    // 累计写入 / 已 force 的字节数，跨段单调递增，用于组提交
+    private long writtenBytes;
+    private long committedBytes;
+
+    @Override
+    public void start() {
+        if (encoder == null) {
+            addError("No encoder set for the appender named [" + getName() + "].");
+            return;
+        }
+        if (file == null || fileNamePattern == null) {
+            addError("Both file and fileNamePattern must be set for the appender named [" + getName() + "].");
+            return;
+        }
+        encodeUnderLock = encoder instanceof OrderedEncoder;
+        try {
+            archivePattern = new ArchiveFileNamePattern(fileNamePattern);
+            executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "MappedFileAppender-" + getName());
+                thread.setDaemon(true);
+                return thread;
+            });
+            archiveExecutor = Executors.newSingleThreadExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "MappedFileAppender-archive-" + getName());
+                thread.setDaemon(true);
+                return thread;
+            });
+            openSegment(maxFileSize.getSize());
+        } catch (IOException | IllegalArgumentException e) {
+            addError("Failed to open mapped file [" + file + "]", e);
+            return;
+        }
+        if (durability != Durability.OS_FLUSH) {
+            long interval = Math.max(1, commitInterval.getMilliseconds());
+            executor.scheduleWithFixedDelay(this::commit, interval, interval, TimeUnit.MILLISECONDS);
+        }
+        if (index) {
+            executor.scheduleWithFixedDelay(this::flushIndex, 1, 1, TimeUnit.SECONDS);
+        }
+        // 清理平时只在滚动时执行，启动时补一次，重启后 maxHistory / totalSizeCap 同样生效
+        archiveExecutor.execute(this::cleanArchives);
+        super.start();
+    }
+
+    @Override
+    public void stop() {
+        if (!isStarted()) {
+            return;
+        }
+        lock.lock();
+        segmentLock.writeLock().lock();
+        try {
+            super.stop();
+            closeSegment();
+        } catch (IOException e) {
+            addError("Failed to close mapped file [" + file + "]", e);
+        } finally {
+            segmentLock.writeLock().unlock();
+            committed.signalAll();
+            lock.unlock();
+        }
+        executor.shutdown();
+        archiveExecutor.shutdown();
+    }
+
+    @Override
+    protected void append(E event) {
+        // 编码在锁外完成，锁内只有拷贝；依赖顺序的编码器除外
+        byte[] bytes = encodeUnderLock ? null : encoder.encode(event);
+        lock.lock();
+        try {
+            if (!isStarted()) {
+                return;
+            }
+            if (System.currentTimeMillis() >= nextRolloverMillis) {
+                rollover(0);
+            }
+            if (encodeUnderLock) {
+                bytes = encoder.encode(event);
+            }
+            if (bytes == null || bytes.length == 0) {
+                return;
+            }
+            if (buffer.remaining() < bytes.length) {
+                if (encodeUnderLock) {
+                    // 新段会重置编码器的字典，重新编码后可能变长，预留足够空间
+                    rollover(bytes.length * 2 + 256);
+                    bytes = encoder.encode(event);
+                } else {
+                    rollover(bytes.length);
+                }
+            }
+            int position = buffer.position();
+            buffer.put(bytes);
+            trailer.putLong(8, buffer.position());
+            writtenBytes += bytes.length;
+            LoggingMetric.WRITTEN_EVENTS.increment();
+            LoggingMetric.WRITTEN_BYTES.add(bytes.length);
+            if (indexWriter != null && event instanceof ILoggingEvent loggingEvent) {
+                indexWriter.record(loggingEvent, position, bytes.length);
+            }
+            if (durability == Durability.GROUP_COMMIT) {
+                awaitCommit(writtenBytes);
+            }
+        } catch (IOException e) {
+            addError("Failed to write to mapped file [" + file + "]", e);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * durability=BATCH_FORCE 时在上游 worker 线程上 force 本批写入；其他模式由自己的后台线程负责，这里不做处理
+     */
+    @Override
+    public void flushBatch() {
+        if (durability == Durability.BATCH_FORCE) {
+            commit();
+        }
+    }
+
+    private void awaitCommit(long target) {
+        while (committedBytes < target && isStarted()) {
+            try {
+                committed.await(commitInterval.getMilliseconds() * 2, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    /**
+     * 后台 force：锁内只取快照，force 本身在锁外执行，不阻塞写入。
+     * force 期间持有段的读锁，滚动要等 force 结束才能截断和释放映射
+     */
+    private void commit() {
+        MappedByteBuffer target;
+        long targetBytes;
+        lock.lock();
+        try {
+            if (!isStarted() || committedBytes == writtenBytes) {
+                return;
+            }
+            target = buffer;
+            targetBytes = writtenBytes;
+        } finally {
+            lock.unlock();
+        }
+
+        segmentLock.readLock().lock();
+        try {
+            // 快照之后已经滚动：旧段在关闭时已 force，不用再 force
+            if (target == buffer) {
+                target.force();
+            }
+        } catch (UncheckedIOException e) {
+            addWarn("Failed to force mapped file [" + file + "]", e);
+            return;
+        } finally {
+            segmentLock.readLock().unlock();
+        }
+
+        lock.lock();
+        try {
+            if (targetBytes > committedBytes) {
+                committedBytes = targetBytes;
+            }
+            committed.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 测试用：已 force 的字节数
+     */
+    long committedBytes() {
+        lock.lock();
+        try {
+            return committedBytes;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void flushIndex() {
+        lock.lock();
+        try {
+            if (indexWriter != null) {
+                indexWriter.flush();
+            }
+        } catch (IOException e) {
+            addWarn("Failed to flush index of [" + file + "]", e);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void rollover(int required) throws IOException {
+        segmentLock.writeLock().lock();
+        try {
+            replaceSegment(required);
+        } finally {
+            segmentLock.writeLock().unlock();
+        }
+    }
+
+    private void replaceSegment(int required) throws IOException {
+        closeSegment();
+        Path active = Paths.get(file);
+        if (Files.exists(active) && Files.size(active) > 0) {
+            Path archive = archivePattern.nextFree(segmentDate);
+            Files.move(active, archive, StandardCopyOption.ATOMIC_MOVE);
+            Path activeIndex = LogIndexWriter.indexPath(active);
+            if (Files.exists(activeIndex)) {
+                Files.move(activeIndex, LogIndexWriter.indexPath(archive), StandardCopyOption.REPLACE_EXISTING);
+            }
+            archiveExecutor.execute(() -> {
+                if (compression == Compression.BLOCK) {
+                    compressArchive(archive);
+                }
+                cleanArchives();
+            });
+        }
+        openSegment(Math.max(maxFileSize.getSize(), required));
+    }
+
+    private void openSegment(long size) throws IOException {
+        Path active = Paths.get(file);
+        if (active.getParent() != null) {
+            Files.createDirectories(active.getParent());
+        }
+        boolean existing = Files.exists(active);
+        segmentDate = existing
+                ? LocalDate.ofInstant(Files.getLastModifiedTime(active).toInstant(), zone)
+                : LocalDate.now(zone);
+        nextRolloverMillis = segmentDate.plusDays(1).atStartOfDay(zone).toInstant().toEpochMilli();
+
+        channel = FileChannel.open(active, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        long dataEnd = existing ? dataEnd(channel) : 0;
+        long mapSize = Math.max(size, dataEnd) + TRAILER_SIZE;
+        if (channel.size() > mapSize) {
+            // maxFileSize 调小后续写：去掉旧的长度记录，避免下次重启读到它
+            channel.truncate(mapSize);
+        }
+        buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, mapSize);
+        trailer = buffer.slice((int) mapSize - TRAILER_SIZE, TRAILER_SIZE);
+        trailer.putLong(0, TRAILER_MAGIC);
+        buffer.limit((int) mapSize - TRAILER_SIZE);
+        buffer.position((int) dataEnd);
+
+        byte[] header = encoder.headerBytes();
+        // 依赖顺序的编码器在续写时也要写 header，让解码端重置字典
+        if ((buffer.position() == 0 || encodeUnderLock) && header != null && header.length > 0) {
+            buffer.put(header);
+            writtenBytes += header.length;
+        }
+        trailer.putLong(8, buffer.position());
+        if (index) {
+            indexWriter = new LogIndexWriter(LogIndexWriter.indexPath(active));
+        }
+    }
+
+    /**
+     * 续写已有文件时的数据长度：上次异常退出（未截断）时取末尾记录的长度，正常关闭的文件已截断，取文件长度。
+     * 不能按末尾的 0 字节判断，二进制编码的事件本身可能以 0 结尾
+     */
+    private static long dataEnd(FileChannel channel) throws IOException {
+        long size = channel.size();
+        if (size < TRAILER_SIZE) {
+            return size;
+        }
+        ByteBuffer tail = ByteBuffer.allocate(TRAILER_SIZE);
+        while (tail.hasRemaining()) {
+            if (channel.read(tail, size - TRAILER_SIZE + tail.position()) < 0) {
+                break;
+            }
+        }
+        long length = tail.getLong(8);
+        boolean recorded = !tail.hasRemaining() && tail.getLong(0) == TRAILER_MAGIC
+                && length >= 0 && length <= size - TRAILER_SIZE;
+        return recorded ? length : size;
+    }
+
+    private void closeSegment() throws IOException {
+        if (channel == null) {
+            return;
+        }
+        byte[] footer = encoder.footerBytes();
+        if (footer != null && footer.length > 0 && buffer.remaining() >= footer.length) {
+            buffer.put(footer);
+            writtenBytes += footer.length;
+        }
+        if (durability != Durability.OS_FLUSH) {
+            buffer.force();
+        }
+        committedBytes = writtenBytes;
+        committed.signalAll();
+        if (indexWriter != null) {
+            indexWriter.close();
+            indexWriter = null;
+        }
+        channel.truncate(buffer.position());
+        channel.close();
+        channel = null;
+        buffer = null;
+        trailer = null;
+    }
+
+    private void compressArchive(Path archive) {
+        try {
+            new BlockCompressor((int) compressionBlockSize.getSize(), zone).compress(archive);
+            Files.delete(archive);
+        } catch (IOException e) {
+            addWarn("Failed to compress archive [" + archive + "], keeping it uncompressed", e);
+        }
+    }
+
+    /**
+     * 与 SizeAndTimeBasedRollingPolicy 一致：先按 maxHistory 删过期归档，再按 totalSizeCap 删最旧的
+     */
+    private void cleanArchives() {
+        try {
+            List<ArchiveFileNamePattern.Archive> archives = archivePattern.list();
+            LocalDate oldest = LocalDate.now(zone).minusDays(maxHistory);
+            long total = 0;
+            for (ArchiveFileNamePattern.Archive archive : archives) {
+                total += archive.size();
+            }
+            for (ArchiveFileNamePattern.Archive archive : archives) {
+                boolean expired = maxHistory > 0 && archive.date().isBefore(oldest);
+                boolean overCap = totalSizeCap.getSize() > 0 && total > totalSizeCap.getSize();
+                if (!expired && !overCap) {
+                    continue;
+                }
+                if (Files.deleteIfExists(archive.path())) {
+                    Files.deleteIfExists(BlockCompressor.indexPath(archive.path()));
+                    Files.deleteIfExists(LogIndexWriter.indexPath(archive.path()));
+                    total -= archive.size();
+                }
+            }
+        } catch (IOException e) {
+            addWarn("Failed to clean archives for [" + fileNamePattern + "]", e);
+        }
+    }
+
+    public Compression getCompression() {
+        return compression;
+    }
+
+    public void setCompression(Compression compression) {
+        this.compression = compression;
+    }
+
+    public FileSize getCompressionBlockSize() {
+        return compressionBlockSize;
+    }
+
+    public void setCompressionBlockSize(FileSize compressionBlockSize) {
+        this.compressionBlockSize = compressionBlockSize;
+    }
+
+    public boolean isIndex() {
+        return index;
+    }
+
+    public void setIndex(boolean index) {
+        this.index = index;
+    }
+
+    public Encoder<E> getEncoder() {
+        return encoder;
+    }
+
+    public void setEncoder(Encoder<E> encoder) {
+        this.encoder = encoder;
+    }
+
+    public String getFile() {
+        return file;
+    }
+
+    public void setFile(String file) {
+        this.file = file == null ? null : file.trim();
+    }
+
+    public String getFileNamePattern() {
+        return fileNamePattern;
+    }
+
+    public void setFileNamePattern(String fileNamePattern) {
+        this.fileNamePattern = fileNamePattern;
+    }
+
+    public FileSize getMaxFileSize() {
+        return maxFileSize;
+    }
+
+    public void setMaxFileSize(FileSize maxFileSize) {
+        this.maxFileSize = maxFileSize;
+    }
+
+    public int getMaxHistory() {
+        return maxHistory;
+    }
+
+    public void setMaxHistory(int maxHistory) {
+        this.maxHistory = maxHistory;
+    }
+
+    public FileSize getTotalSizeCap() {
+        return totalSizeCap;
+    }
+
+    public void setTotalSizeCap(FileSize totalSizeCap) {
+        this.totalSizeCap = totalSizeCap;
+    }
+
+    public Durability getDurability() {
+        return durability;
+    }
+
+    public void setDurability(Durability durability) {
+        this.durability = durability;
+    }
+
+    public Duration getCommitInterval() {
+        return commitInterval;
+    }
+
+    public void setCommitInterval(Duration commitInterval) {
+        this.commitInterval = commitInterval;
+    }
+}
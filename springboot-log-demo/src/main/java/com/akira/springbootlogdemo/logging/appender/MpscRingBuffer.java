@@ -0,0 +1,99 @@
+package com.akira.springbootlogdemo.logging.appender;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Consumer;
+
+/**
+ * 预分配的多生产者/单消费者环形缓冲区（无锁）。
+ * <p>
+ * 每个槽位带一个序号：生产者 CAS 抢占写位置，写完后发布序号；
+ * 消费者只按序号判断槽位是否可读，读完后把序号推进一圈归还给生产者。
+ */
+public class MpscRingBuffer<E> {
+
+    private final int capacity;
+    private final int mask;
+    private final AtomicReferenceArray<E> slots;
+    private final AtomicLongArray sequences;
+    private final AtomicLong tail = new AtomicLong();
+    // 只有消费者线程写，volatile 仅用于 size() 的近似读取
+    private volatile long head;
+
+    public MpscRingBuffer(int requestedCapacity) {
+        if (requestedCapacity < 2) {
+            throw new IllegalArgumentException("capacity must be >= 2: " + requestedCapacity);
+        }
+        this.capacity = Integer.highestOneBit(requestedCapacity - 1) << 1;
+        this.mask = capacity - 1;
+        this.slots = new AtomicReferenceArray<>(capacity);
+        this.sequences = new AtomicLongArray(capacity);
+        for (int i = 0; i < capacity; i++) {
+            sequences.set(i, i);
+        }
+    }
+
+    /**
+     * 尝试写入，缓冲区满时立即返回 false
+     */
+    public boolean offer(E element) {
+        while (true) {
+            long position = tail.get();
+            int index = (int) (position & mask);
+            long delta = sequences.get(index) - position;
+            if (delta == 0) {
+                if (tail.compareAndSet(position, position + 1)) {
+                    slots.lazySet(index, element);
+                    sequences.lazySet(index, position + 1);
+                    return true;
+                }
+            } else if (delta < 0) {
+                return false;
+            } else {
+                Thread.onSpinWait();
+            }
+        }
+    }
+
+    /**
+     * 批量取出最多 limit 个元素，只能由消费者线程调用
+     *
+     * @return 实际取出的个数
+     */
+    public int drain(Consumer<? super E> consumer, int limit) {
+        long position = head;
+        int drained = 0;
+        while (drained < limit) {
+            int index = (int) (position & mask);
+            if (sequences.get(index) != position + 1) {
+                break;
+            }
+            E element = slots.get(index);
+            slots.lazySet(index, null);
+            sequences.lazySet(index, position + capacity);
+            position++;
+            drained++;
+            consumer.accept(element);
+        }
+        head = position;
+        return drained;
+    }
+
+    public int size() {
+        long size = tail.get() - head;
+        return (int) Math.max(0, Math.min(size, capacity));
+    }
+
+    public int remainingCapacity() {
+        return capacity - size();
+    }
+
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    public int capacity() {
+        return capacity;
+    }
+}
@@ -0,0 +1,8 @@
+package com.akira.springbootlogdemo.logging.appender;
+
+/**
+ * 标记接口：编码结果依赖于写入顺序（如字典编码、时间戳差分），
+ * Appender 必须在写锁内按写入顺序调用 encode。
+ */
+public interface OrderedEncoder {
+}
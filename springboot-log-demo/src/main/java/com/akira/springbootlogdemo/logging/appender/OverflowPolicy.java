@@ -0,0 +1,29 @@
+package com.akira.springbootlogdemo.logging.appender;
+
+/**
+ * 缓冲区剩余容量低于 discardingThreshold 时的处理方式。
+ * WARN 及以上级别在任何策略下都不会被丢弃，缓冲区满时只能等待。
+ */
+public enum OverflowPolicy {
+
+    /**
+     * 不丢弃，缓冲区满时生产者等待（与 discardingThreshold=0 的 AsyncAppender 一致）
+     */
+    BLOCK,
+
+    /**
+     * 优先丢弃 TRACE/DEBUG/INFO
+     */
+    DROP_DEBUG_INFO,
+
+    /**
+     * TRACE/DEBUG/INFO 按 sampleRate 采样，每 sampleRate 条保留 1 条
+     */
+    SAMPLE,
+
+    /**
+     * 不丢弃、生产者不等待：缓冲区满时事件写入内存映射的溢出文件（spillFile），worker 清空缓冲区后按顺序读回。
+     * 溢出文件达到 maxSpillSize 时才退化为等待
+     */
+    SPILL
+}
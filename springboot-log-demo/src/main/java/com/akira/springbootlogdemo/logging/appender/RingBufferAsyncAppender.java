@@ -0,0 +1,537 @@
+package com.akira.springbootlogdemo.logging.appender;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.classic.spi.LoggerContextVO;
+import ch.qos.logback.core.Appender;
+import ch.qos.logback.core.OutputStreamAppender;
+import ch.qos.logback.core.UnsynchronizedAppenderBase;
+import ch.qos.logback.core.spi.AppenderAttachable;
+import ch.qos.logback.core.spi.AppenderAttachableImpl;
+import ch.qos.logback.core.util.FileSize;
+import com.akira.springbootlogdemo.logging.metrics.LoggingMetric;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Iterator;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 基于无锁环形缓冲区的异步 Appender，用于替代 logback 的 AsyncAppender。
+ * <p>
+ * 与 AsyncAppender 的区别：
+ * <ul>
+ *     <li>预分配的 MPSC 环形缓冲区，生产者 CAS 入队，没有 ArrayBlockingQueue 的锁</li>
+ *     <li>消费者批量出队，一批写完后统一 flush（下游 immediateFlush=false 或实现了 {@link BatchFlushable} 时生效）</li>
+ *     <li>等待策略和溢出策略可配置，见 {@link WaitStrategy}、{@link OverflowPolicy}</li>
+ *     <li>不采集调用者信息（caller data），避免每条日志一次栈遍历</li>
+ *     <li>ERROR 事件走单独的保留通道（errorLaneSize），worker 每轮优先处理，不会排在大量 DEBUG/INFO 之后，也不会被丢弃</li>
+ * </ul>
+ * 保留通道的事件会先于同一时刻已在主缓冲区中的事件写出，文件中的顺序以时间戳为准。
+ * <p>
+ * overflowPolicy=SPILL 时，主缓冲区满后事件写入内存映射的溢出文件（见 {@link SpillQueue}），
+ * worker 清空主缓冲区后再按顺序读回。溢出文件非空期间新事件也写入溢出文件，同一线程的日志顺序不变。
+ * 溢出文件达到 maxSpillSize 时生产者等待；停止时溢出文件中的事件同样会写完。
+ * <p>
+ * 每个通道（API、Controller、SQL、错误）各配一个实例，缓冲区、worker 线程和溢出策略互不影响，见 logback-spring.xml。
+ * <pre>
+ * &lt;appender name="ASYNC" class="com.akira.springbootlogdemo.logging.appender.RingBufferAsyncAppender"&gt;
+ *     &lt;bufferSize&gt;1024&lt;/bufferSize&gt;
+ *     &lt;batchSize&gt;64&lt;/batchSize&gt;
+ *     &lt;waitStrategy&gt;BLOCKING&lt;/waitStrategy&gt;
+ *     &lt;overflowPolicy&gt;DROP_DEBUG_INFO&lt;/overflowPolicy&gt;
+ *     &lt;errorLaneSize&gt;256&lt;/errorLaneSize&gt;
+ *     &lt;workerPriority&gt;5&lt;/workerPriority&gt;
+ *     &lt;appender-ref ref="FILE"/&gt;
+ * &lt;/appender&gt;
+ *
+ * &lt;appender name="ASYNC_CONTROLLER" class="com.akira.springbootlogdemo.logging.appender.RingBufferAsyncAppender"&gt;
+ *     &lt;overflowPolicy&gt;SPILL&lt;/overflowPolicy&gt;
+ *     &lt;spillFile&gt;logs/spill/controller&lt;/spillFile&gt;
+ *     &lt;spillSegmentSize&gt;16MB&lt;/spillSegmentSize&gt;
+ *     &lt;maxSpillSize&gt;512MB&lt;/maxSpillSize&gt;
+ *     &lt;appender-ref ref="FILE"/&gt;
+ * &lt;/appender&gt;
+ * </pre>
+ */
+public class RingBufferAsyncAppender extends UnsynchronizedAppenderBase<ILoggingEvent>
+        implements AppenderAttachable<ILoggingEvent> {
+
+    public static final int DEFAULT_BUFFER_SIZE = 1024;
+    public static final int DEFAULT_BATCH_SIZE = 64;
+    public static final int DEFAULT_SAMPLE_RATE = 10;
+    public static final int DEFAULT_MAX_FLUSH_TIME = 1000;
+    public static final int DEFAULT_ERROR_LANE_SIZE = 256;
+    private static final long DEFAULT_SPILL_SEGMENT_SIZE = 16 * FileSize.MB_COEFFICIENT;
+    private static final long DEFAULT_MAX_SPILL_SIZE = 512 * FileSize.MB_COEFFICIENT;
+    private static final int UNDEFINED = -1;
+
+    private final AppenderAttachableImpl<ILoggingEvent> aai = new AppenderAttachableImpl<>();
+    private final LongAdder droppedCount = new LongAdder();
+    // 只由消费线程更新：每次取批前看到的最大队列深度
+    private volatile int highWaterMark;
+    private final AtomicLong sampleCounter = new AtomicLong();
+
+    private int bufferSize = DEFAULT_BUFFER_SIZE;
+    private int batchSize = DEFAULT_BATCH_SIZE;
+    private int discardingThreshold = UNDEFINED;
+    private int sampleRate = DEFAULT_SAMPLE_RATE;
+    private int maxFlushTime = DEFAULT_MAX_FLUSH_TIME;
+    private WaitStrategy waitStrategy = WaitStrategy.BLOCKING;
+    private OverflowPolicy overflowPolicy = OverflowPolicy.BLOCK;
+    private int errorLaneSize = DEFAULT_ERROR_LANE_SIZE;
+    private Level errorLaneLevel = Level.ERROR;
+    private int workerPriority = Thread.NORM_PRIORITY;
+    private String spillFile;
+    private FileSize spillSegmentSize = new FileSize(DEFAULT_SPILL_SEGMENT_SIZE);
+    private FileSize maxSpillSize = new FileSize(DEFAULT_MAX_SPILL_SIZE);
+
+    private MpscRingBuffer<ILoggingEvent> buffer;
+    // 为 ERROR 保留的通道，errorLaneSize=0 时为 null
+    private MpscRingBuffer<ILoggingEvent> errorLane;
+    // overflowPolicy=SPILL 时的溢出文件，否则为 null；由 worker 退出时关闭，生产者读一次到局部变量再用
+    private volatile SpillQueue spill;
+    private volatile boolean spillFailed;
+    private LoggerContextVO loggerContextVO;
+    private Thread worker;
+    private int appenderCount;
+    private volatile boolean consumerWaiting;
+
+    @Override
+    public void start() {
+        if (isStarted()) {
+            return;
+        }
+        if (appenderCount == 0) {
+            addError("No attached appenders found for [" + getName() + "].");
+            return;
+        }
+        if (bufferSize < 2) {
+            addError("Invalid bufferSize [" + bufferSize + "]");
+            return;
+        }
+        buffer = new MpscRingBuffer<>(bufferSize);
+        errorLane = errorLaneSize > 0 ? new MpscRingBuffer<>(Math.max(2, errorLaneSize)) : null;
+        if (discardingThreshold == UNDEFINED) {
+            discardingThreshold = buffer.capacity() / 5;
+        }
+        addInfo("Setting discardingThreshold to " + discardingThreshold
+                + ", capacity " + buffer.capacity() + ", overflowPolicy " + overflowPolicy);
+        if (overflowPolicy == OverflowPolicy.SPILL) {
+            openSpill();
+        }
+
+        worker = new Thread(this::drainLoop, "RingBufferAsyncAppender-Worker-" + getName());
+        worker.setDaemon(true);
+        worker.setPriority(Math.max(Thread.MIN_PRIORITY, Math.min(Thread.MAX_PRIORITY, workerPriority)));
+        super.start();
+        worker.start();
+    }
+
+    @Override
+    public void stop() {
+        if (!isStarted()) {
+            return;
+        }
+        // 先置为停止，worker 会把剩余事件写完再退出
+        super.stop();
+        LockSupport.unpark(worker);
+        try {
+            worker.join(maxFlushTime);
+            if (worker.isAlive()) {
+                addWarn("Max flush timeout (" + maxFlushTime + " ms) exceeded. Approximately "
+                        + (getQueueSize() + getSpilledQueueSize()) + " queued events were possibly discarded.");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            addError("Failed to join worker thread. " + (getQueueSize() + getSpilledQueueSize())
+                    + " queued events may be discarded.", e);
+        }
+        // 溢出文件由 worker 写完剩余事件退出时关闭，超时后 worker 仍在运行也不会泄漏
+    }
+
+    private void openSpill() {
+        Path file = spillFile != null ? Paths.get(spillFile)
+                : Paths.get(System.getProperty("java.io.tmpdir"), "logback-spill", getName());
+        long segmentSize = Math.min(Integer.MAX_VALUE, spillSegmentSize.getSize());
+        SpillQueue opened = new SpillQueue(file, (int) segmentSize, maxSpillSize.getSize());
+        try {
+            int stale = opened.open();
+            if (stale > 0) {
+                addWarn("Deleted " + stale + " stale spill segments of [" + file + "]");
+            }
+        } catch (IOException e) {
+            // 打不开溢出文件时按 BLOCK 处理，不影响 appender 启动
+            addError("Failed to open spill file [" + file + "], falling back to BLOCK", e);
+            spill = null;
+            return;
+        }
+        spill = opened;
+        spillFailed = false;
+        loggerContextVO = getContext() instanceof LoggerContext loggerContext
+                ? loggerContext.getLoggerContextRemoteView() : null;
+        addInfo("Spilling overflow to [" + file + "], maxSpillSize " + maxSpillSize);
+    }
+
+    @Override
+    protected void append(ILoggingEvent event) {
+        if (errorLane != null && event.getLevel().isGreaterOrEqual(errorLaneLevel)) {
+            event.prepareForDeferredProcessing();
+            put(errorLane, event);
+            return;
+        }
+        if (shouldDrop(event)) {
+            droppedCount.increment();
+            return;
+        }
+        // 只固化消息和 MDC，不采集 caller data
+        event.prepareForDeferredProcessing();
+        SpillQueue spill = this.spill;
+        if (spill != null && !spillFailed) {
+            if (spill.isEmpty() && buffer.offer(event)) {
+                signalConsumer();
+                return;
+            }
+            if (putSpill(spill, event)) {
+                return;
+            }
+        }
+        put(buffer, event);
+    }
+
+    /**
+     * 溢出文件非空时新事件也写入溢出文件，保证同一线程的事件不会越过之前溢出的事件
+     *
+     * @return false 表示写溢出文件失败，已停用溢出文件，调用方退回到等待主缓冲区
+     */
+    private boolean putSpill(SpillQueue spill, ILoggingEvent event) {
+        byte[] record = SpilledEvent.encode(event);
+        int round = 0;
+        try {
+            while (!spill.offer(record)) {
+                if (!isStarted()) {
+                    droppedCount.increment();
+                    return true;
+                }
+                signalConsumer();
+                backoff(round++);
+            }
+        } catch (IOException | UncheckedIOException e) {
+            spillFailed = true;
+            addError("Failed to write spill file, falling back to BLOCK", e);
+            return false;
+        }
+        LoggingMetric.SPILLED_EVENTS.increment();
+        LoggingMetric.SPILLED_BYTES.add(record.length);
+        signalConsumer();
+        return true;
+    }
+
+    private boolean shouldDrop(ILoggingEvent event) {
+        if (overflowPolicy == OverflowPolicy.BLOCK || overflowPolicy == OverflowPolicy.SPILL
+                || event.getLevel().toInt() > Level.INFO_INT) {
+            return false;
+        }
+        if (buffer.remainingCapacity() > discardingThreshold) {
+            return false;
+        }
+        if (overflowPolicy == OverflowPolicy.DROP_DEBUG_INFO) {
+            return true;
+        }
+        return sampleCounter.getAndIncrement() % sampleRate != 0;
+    }
+
+    private void put(MpscRingBuffer<ILoggingEvent> target, ILoggingEvent event) {
+        int round = 0;
+        while (!target.offer(event)) {
+            if (!isStarted()) {
+                droppedCount.increment();
+                return;
+            }
+            signalConsumer();
+            backoff(round++);
+        }
+        signalConsumer();
+    }
+
+    private void signalConsumer() {
+        if (consumerWaiting) {
+            LockSupport.unpark(worker);
+        }
+    }
+
+    private void backoff(int round) {
+        if (round < 100) {
+            Thread.onSpinWait();
+        } else if (round < 200) {
+            Thread.yield();
+        } else {
+            LockSupport.parkNanos(TimeUnit.MICROSECONDS.toNanos(50));
+        }
+    }
+
+    private void drainLoop() {
+        // start 之后不再变化，关闭也由这里负责
+        SpillQueue spill = this.spill;
+        int idleRounds = 0;
+        while (isStarted()) {
+            if (drainBatch(spill) > 0) {
+                flushAfterBatch();
+                idleRounds = 0;
+                continue;
+            }
+            if (waitStrategy.needsSignal()) {
+                consumerWaiting = true;
+                if (buffer.isEmpty() && (errorLane == null || errorLane.isEmpty())
+                        && (spill == null || spill.isEmpty()) && isStarted()) {
+                    waitStrategy.idle(this, idleRounds++);
+                }
+                consumerWaiting = false;
+            } else {
+                waitStrategy.idle(this, idleRounds++);
+            }
+        }
+
+        addInfo("Worker thread will flush remaining events before exiting.");
+        while (drainBatch(spill) > 0) {
+            flushAfterBatch();
+        }
+        if (spill != null) {
+            spill.close();
+            // 超时后重新 start 时字段已经换成新的溢出文件
+            if (this.spill == spill) {
+                this.spill = null;
+            }
+        }
+    }
+
+    /**
+     * 先清空保留通道，再从主缓冲区取一批；主缓冲区为空时从溢出文件取一批
+     */
+    private int drainBatch(SpillQueue spill) {
+        int depth = getQueueSize();
+        if (depth > highWaterMark) {
+            highWaterMark = depth;
+        }
+        int drained = 0;
+        if (errorLane != null) {
+            drained += errorLane.drain(aai::appendLoopOnAppenders, errorLane.capacity());
+        }
+        int fromBuffer = buffer.drain(aai::appendLoopOnAppenders, batchSize);
+        if (fromBuffer == 0 && spill != null && !spill.isEmpty()) {
+            int fromSpill = spill.drain(this::appendSpilled, batchSize);
+            LoggingMetric.UNSPILLED_EVENTS.add(fromSpill);
+            return drained + fromSpill;
+        }
+        return drained + fromBuffer;
+    }
+
+    private void appendSpilled(byte[] record) {
+        try {
+            aai.appendLoopOnAppenders(SpilledEvent.decode(record, loggerContextVO));
+        } catch (UncheckedIOException e) {
+            droppedCount.increment();
+            addError("Failed to decode spilled event", e);
+        }
+    }
+
+    /**
+     * 下游是关闭了 immediateFlush 的 OutputStreamAppender 或 {@link BatchFlushable} 时，每批只 flush 一次
+     */
+    private void flushAfterBatch() {
+        Iterator<Appender<ILoggingEvent>> it = aai.iteratorForAppenders();
+        while (it.hasNext()) {
+            Appender<ILoggingEvent> appender = it.next();
+            if (appender instanceof BatchFlushable flushable) {
+                flushable.flushBatch();
+            } else if (appender instanceof OutputStreamAppender<ILoggingEvent> streamAppender
+                    && !streamAppender.isImmediateFlush()) {
+                OutputStream out = streamAppender.getOutputStream();
+                if (out == null) {
+                    continue;
+                }
+                try {
+                    out.flush();
+                } catch (IOException e) {
+                    addWarn("Failed to flush appender [" + appender.getName() + "]", e);
+                }
+            }
+        }
+    }
+
+    public int getQueueSize() {
+        return (buffer == null ? 0 : buffer.size()) + getErrorQueueSize();
+    }
+
+    public int getErrorQueueSize() {
+        return errorLane == null ? 0 : errorLane.size();
+    }
+
+    /**
+     * @return 溢出文件中尚未读回的事件数
+     */
+    public long getSpilledQueueSize() {
+        SpillQueue spill = this.spill;
+        return spill == null ? 0 : spill.size();
+    }
+
+    public int getRemainingCapacity() {
+        return buffer == null ? bufferSize : buffer.remainingCapacity();
+    }
+
+    public long getDroppedCount() {
+        return droppedCount.sum();
+    }
+
+    public int getHighWaterMark() {
+        return highWaterMark;
+    }
+
+    public int getBufferSize() {
+        return bufferSize;
+    }
+
+    public void setBufferSize(int bufferSize) {
+        this.bufferSize = bufferSize;
+    }
+
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    public void setBatchSize(int batchSize) {
+        this.batchSize = Math.max(1, batchSize);
+    }
+
+    public int getDiscardingThreshold() {
+        return discardingThreshold;
+    }
+
+    public void setDiscardingThreshold(int discardingThreshold) {
+        this.discardingThreshold = discardingThreshold;
+    }
+
+    public int getSampleRate() {
+        return sampleRate;
+    }
+
+    public void setSampleRate(int sampleRate) {
+        this.sampleRate = Math.max(1, sampleRate);
+    }
+
+    public int getMaxFlushTime() {
+        return maxFlushTime;
+    }
+
+    public void setMaxFlushTime(int maxFlushTime) {
+        this.maxFlushTime = maxFlushTime;
+    }
+
+    public WaitStrategy getWaitStrategy() {
+        return waitStrategy;
+    }
+
+    public void setWaitStrategy(WaitStrategy waitStrategy) {
+        this.waitStrategy = waitStrategy;
+    }
+
+    public OverflowPolicy getOverflowPolicy() {
+        return overflowPolicy;
+    }
+
+    public void setOverflowPolicy(OverflowPolicy overflowPolicy) {
+        this.overflowPolicy = overflowPolicy;
+    }
+
+    public int getErrorLaneSize() {
+        return errorLaneSize;
+    }
+
+    public void setErrorLaneSize(int errorLaneSize) {
+        this.errorLaneSize = errorLaneSize;
+    }
+
+    public Level getErrorLaneLevel() {
+        return errorLaneLevel;
+    }
+
+    public void setErrorLaneLevel(Level errorLaneLevel) {
+        this.errorLaneLevel = errorLaneLevel;
+    }
+
+    public int getWorkerPriority() {
+        return workerPriority;
+    }
+
+    public void setWorkerPriority(int workerPriority) {
+        this.workerPriority = workerPriority;
+    }
+
+    public String getSpillFile() {
+        return spillFile;
+    }
+
+    public void setSpillFile(String spillFile) {
+        this.spillFile = spillFile;
+    }
+
+    public FileSize getSpillSegmentSize() {
+        return spillSegmentSize;
+    }
+
+    public void setSpillSegmentSize(FileSize spillSegmentSize) {
+        this.spillSegmentSize = spillSegmentSize;
+    }
+
+    public FileSize getMaxSpillSize() {
+        return maxSpillSize;
+    }
+
+    public void setMaxSpillSize(FileSize maxSpillSize) {
+        this.maxSpillSize = maxSpillSize;
+    }
+
+    @Override
+    public void addAppender(Appender<ILoggingEvent> newAppender) {
+        appenderCount++;
+        addInfo("Attaching appender named [" + newAppender.getName() + "] to " + getName());
+        aai.addAppender(newAppender);
+    }
+
+    @Override
+    public Iterator<Appender<ILoggingEvent>> iteratorForAppenders() {
+        return aai.iteratorForAppenders();
+    }
+
+    @Override
+    public Appender<ILoggingEvent> getAppender(String name) {
+        return aai.getAppender(name);
+    }
+
+    @Override
+    public boolean isAttached(Appender<ILoggingEvent> eAppender) {
+        return aai.isAttached(eAppender);
+    }
+
+    @Override
+    public void detachAndStopAllAppenders() {
+        aai.detachAndStopAllAppenders();
+    }
+
+    @Override
+    public boolean detachAppender(Appender<ILoggingEvent> eAppender) {
+        return aai.detachAppender(eAppender);
+    }
+
+    @Override
+    public boolean detachAppender(String name) {
+        return aai.detachAppender(name);
+    }
+}
@@ -0,0 +1,219 @@
+package com.akira.springbootlogdemo.logging.appender;
+
+import sun.misc.Unsafe;
+
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * RingBufferAsyncAppender 的溢出文件：只追加的 FIFO 队列，记录是 [4 字节长度][内容]，写在内存映射的分段文件里。
+ * <p>
+ * 段文件名是 {@code <prefix>-<段号>.spill}，按 segmentSize 预分配。写满一段开新段，
+ * 所有段的映射总量达到 maxSize 时 offer 返回 false；读完的段立即解除映射并删除，读写位置在同一段内追上时从头复用。
+ * <p>
+ * 生产者在锁内只做一次内存拷贝；消费者（worker）在锁内把记录拷贝出来，锁外再交给下游，
+ * 不会因为下游写文件慢而挡住生产者。溢出文件只用来削峰，不做崩溃恢复：打开时删除上次运行残留的段。
+ */
+class SpillQueue {
+
+    private static final String SUFFIX = ".spill";
+    // 用来显式解除映射；拿不到时（非 HotSpot 等）退回到等 buffer 被 GC
+    private static final Unsafe UNSAFE = unsafe();
+
+    private final Path directory;
+    private final String prefix;
+    private final int segmentSize;
+    private final long maxSize;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final ArrayDeque<Segment> segments = new ArrayDeque<>();
+    private long mappedBytes;
+    private long nextSegment;
+    // 锁内修改，锁外只读
+    private volatile long pending;
+    private boolean closed;
+
+    SpillQueue(Path file, int segmentSize, long maxSize) {
+        Path absolute = file.toAbsolutePath();
+        this.directory = absolute.getParent();
+        this.prefix = absolute.getFileName().toString();
+        this.segmentSize = segmentSize;
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * @return 删除的残留段数
+     */
+    int open() throws IOException {
+        Files.createDirectories(directory);
+        int deleted = 0;
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, prefix + "-*" + SUFFIX)) {
+            for (Path file : files) {
+                Files.deleteIfExists(file);
+                deleted++;
+            }
+        }
+        return deleted;
+    }
+
+    /**
+     * @return false 表示溢出文件已达 maxSize 或已关闭
+     */
+    boolean offer(byte[] record) throws IOException {
+        int needed = 4 + record.length;
+        lock.lock();
+        try {
+            if (closed) {
+                // 与 close 并发的生产者不再创建新段
+                return false;
+            }
+            Segment tail = segments.peekLast();
+            if (tail == null || tail.buffer.capacity() - tail.writePosition < needed) {
+                // 超过 segmentSize 的单条记录单独占一段
+                int size = Math.max(segmentSize, needed);
+                if (!segments.isEmpty() && mappedBytes + size > maxSize) {
+                    return false;
+                }
+                tail = newSegment(size);
+            }
+            tail.buffer.putInt(tail.writePosition, record.length);
+            tail.buffer.put(tail.writePosition + 4, record);
+            tail.writePosition += needed;
+            pending++;
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 按写入顺序取出最多 max 条记录交给 consumer，只由一个线程调用
+     *
+     * @return 取出的记录数
+     */
+    int drain(Consumer<byte[]> consumer, int max) {
+        List<byte[]> records = new ArrayList<>((int) Math.min(max, pending));
+        lock.lock();
+        try {
+            while (records.size() < max) {
+                Segment head = segments.peekFirst();
+                if (head == null) {
+                    break;
+                }
+                if (head.readPosition < head.writePosition) {
+                    byte[] record = new byte[head.buffer.getInt(head.readPosition)];
+                    head.buffer.get(head.readPosition + 4, record);
+                    head.readPosition += 4 + record.length;
+                    records.add(record);
+                    pending--;
+                } else if (segments.size() > 1) {
+                    release(segments.pollFirst());
+                } else {
+                    // 读写追上，整段从头复用
+                    head.readPosition = 0;
+                    head.writePosition = 0;
+                    break;
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+        records.forEach(consumer);
+        return records.size();
+    }
+
+    boolean isEmpty() {
+        return pending == 0;
+    }
+
+    long size() {
+        return pending;
+    }
+
+    long mappedBytes() {
+        return mappedBytes;
+    }
+
+    /**
+     * 删除所有段，未读的记录随之丢弃
+     */
+    void close() {
+        lock.lock();
+        try {
+            closed = true;
+            while (!segments.isEmpty()) {
+                release(segments.pollFirst());
+            }
+            pending = 0;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private Segment newSegment(int size) throws IOException {
+        Path path = directory.resolve(prefix + "-" + nextSegment++ + SUFFIX);
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            Segment segment = new Segment(path, channel, channel.map(FileChannel.MapMode.READ_WRITE, 0, size));
+            segments.addLast(segment);
+            mappedBytes += size;
+            return segment;
+        } catch (IOException e) {
+            channel.close();
+            Files.deleteIfExists(path);
+            throw e;
+        }
+    }
+
+    /**
+     * 解除映射、关闭并删除段文件。只关闭 channel 不会解除映射，磁盘空间和映射内存要等 buffer 被 GC 才释放。
+     * 调用方持有锁，且段已从队列中移除，之后不会再访问它的 buffer
+     */
+    private void release(Segment segment) {
+        mappedBytes -= segment.buffer.capacity();
+        if (UNSAFE != null) {
+            UNSAFE.invokeCleaner(segment.buffer);
+        }
+        try {
+            segment.channel.close();
+            Files.deleteIfExists(segment.path);
+        } catch (IOException e) {
+            // 忽略，下次 open 时清理
+        }
+    }
+
+    private static Unsafe unsafe() {
+        try {
+            Field field = Unsafe.class.getDeclaredField("theUnsafe");
+            field.setAccessible(true);
+            return (Unsafe) field.get(null);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            return null;
+        }
+    }
+
+    private static final class Segment {
+        final Path path;
+        final FileChannel channel;
+        final MappedByteBuffer buffer;
+        int writePosition;
+        int readPosition;
+
+        Segment(Path path, FileChannel channel, MappedByteBuffer buffer) {
+            this.path = path;
+            this.channel = channel;
+            this.buffer = buffer;
+        }
+    }
+}
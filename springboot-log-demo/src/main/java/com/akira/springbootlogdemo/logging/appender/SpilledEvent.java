@@ -0,0 +1,451 @@
+package com.akira.springbootlogdemo.logging.appender;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.classic.spi.IThrowableProxy;
+import ch.qos.logback.classic.spi.LoggerContextVO;
+import ch.qos.logback.classic.spi.StackTraceElementProxy;
+import com.akira.springbootlogdemo.logging.json.JsonWriter;
+import com.akira.springbootlogdemo.logging.json.RawJson;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Marker;
+import org.slf4j.MarkerFactory;
+import org.slf4j.event.KeyValuePair;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.temporal.TemporalAccessor;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 写入溢出文件后又读回的日志事件，见 {@link SpillQueue}。
+ * <p>
+ * 只保留下游编码器用到的内容：时间、级别、logger、线程、格式化后的消息、MDC、marker 名、key-value 和异常。
+ * key-value 的值保留类型：数字、布尔、字符串原样恢复，其他对象按 JsonWriter 的输出保存为 {@link RawJson}，
+ * JsonEncoder 输出与原事件相同。异常的每个栈帧保存原始文本，打印出的堆栈也与原事件相同。
+ * 没有 caller data（异步通道本来就不采集）。
+ */
+final class SpilledEvent implements ILoggingEvent {
+
+    private static final ObjectMapper OBJECT_MAPPER = JsonWriter.defaultObjectMapper();
+
+    // key-value 值的类型标记
+    private static final byte NULL = 0;
+    private static final byte STRING = 1;
+    private static final byte LONG = 2;
+    private static final byte INTEGER = 3;
+    private static final byte DOUBLE = 4;
+    private static final byte FLOAT = 5;
+    private static final byte BOOLEAN = 6;
+    private static final byte BIG_DECIMAL = 7;
+    private static final byte BIG_INTEGER = 8;
+    private static final byte RAW_JSON = 9;
+
+    private long timeStamp;
+    private int nanoseconds;
+    private long sequenceNumber;
+    private Level level;
+    private String loggerName;
+    private String threadName;
+    private String message;
+    private Map<String, String> mdc;
+    private List<Marker> markers;
+    private List<KeyValuePair> keyValuePairs;
+    private IThrowableProxy throwableProxy;
+    private LoggerContextVO loggerContext;
+
+    private SpilledEvent() {
+    }
+
+    static byte[] encode(ILoggingEvent event) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(256);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeLong(event.getTimeStamp());
+            out.writeInt(event.getNanoseconds());
+            out.writeLong(event.getSequenceNumber());
+            out.writeInt(event.getLevel().toInt());
+            writeString(out, event.getLoggerName());
+            writeString(out, event.getThreadName());
+            writeString(out, event.getFormattedMessage());
+
+            Map<String, String> mdc = event.getMDCPropertyMap();
+            out.writeInt(mdc != null ? mdc.size() : 0);
+            if (mdc != null) {
+                for (Map.Entry<String, String> entry : mdc.entrySet()) {
+                    writeString(out, entry.getKey());
+                    writeString(out, entry.getValue());
+                }
+            }
+
+            List<Marker> markers = event.getMarkerList();
+            out.writeInt(markers != null ? markers.size() : 0);
+            if (markers != null) {
+                for (Marker marker : markers) {
+                    writeString(out, marker.getName());
+                }
+            }
+
+            List<KeyValuePair> pairs = event.getKeyValuePairs();
+            out.writeInt(pairs != null ? pairs.size() : 0);
+            if (pairs != null) {
+                for (KeyValuePair pair : pairs) {
+                    writeString(out, pair.key);
+                    writeValue(out, pair.value);
+                }
+            }
+
+            writeThrowable(out, event.getThrowableProxy());
+        } catch (IOException e) {
+            // 写内存不会失败
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    static SpilledEvent decode(byte[] bytes, LoggerContextVO loggerContext) {
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes))) {
+            SpilledEvent event = new SpilledEvent();
+            event.timeStamp = in.readLong();
+            event.nanoseconds = in.readInt();
+            event.sequenceNumber = in.readLong();
+            event.level = Level.toLevel(in.readInt());
+            event.loggerName = readString(in);
+            event.threadName = readString(in);
+            event.message = readString(in);
+
+            int mdcSize = in.readInt();
+            event.mdc = mdcSize == 0 ? Collections.emptyMap() : new HashMap<>(mdcSize * 2);
+            for (int i = 0; i < mdcSize; i++) {
+                event.mdc.put(readString(in), readString(in));
+            }
+
+            int markerCount = in.readInt();
+            if (markerCount > 0) {
+                event.markers = new ArrayList<>(markerCount);
+                for (int i = 0; i < markerCount; i++) {
+                    event.markers.add(MarkerFactory.getDetachedMarker(readString(in)));
+                }
+            }
+
+            int pairCount = in.readInt();
+            if (pairCount > 0) {
+                event.keyValuePairs = new ArrayList<>(pairCount);
+                for (int i = 0; i < pairCount; i++) {
+                    event.keyValuePairs.add(new KeyValuePair(readString(in), readValue(in)));
+                }
+            }
+
+            event.throwableProxy = readThrowable(in);
+            event.loggerContext = loggerContext;
+            return event;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static void writeValue(DataOutputStream out, Object value) throws IOException {
+        if (value == null) {
+            out.writeByte(NULL);
+        } else if (value instanceof Long || value instanceof Short || value instanceof Byte) {
+            out.writeByte(LONG);
+            out.writeLong(((Number) value).longValue());
+        } else if (value instanceof Integer number) {
+            out.writeByte(INTEGER);
+            out.writeInt(number);
+        } else if (value instanceof Double number) {
+            out.writeByte(DOUBLE);
+            out.writeDouble(number);
+        } else if (value instanceof Float number) {
+            // Float.toString 与转成 double 后的输出不同，单独保存
+            out.writeByte(FLOAT);
+            out.writeFloat(number);
+        } else if (value instanceof Boolean bool) {
+            out.writeByte(BOOLEAN);
+            out.writeBoolean(bool);
+        } else if (value instanceof BigDecimal || value instanceof BigInteger) {
+            out.writeByte(value instanceof BigDecimal ? BIG_DECIMAL : BIG_INTEGER);
+            writeString(out, value.toString());
+        } else if (value instanceof Enum<?> constant) {
+            // 与 JsonWriter 一致，按 name 写成字符串
+            out.writeByte(STRING);
+            writeString(out, constant.name());
+        } else if (value instanceof CharSequence || value instanceof Character || value instanceof TemporalAccessor) {
+            out.writeByte(STRING);
+            writeString(out, value.toString());
+        } else {
+            byte[] json = value instanceof RawJson raw ? raw.bytes()
+                    : new JsonWriter(256, OBJECT_MAPPER).value(value).toByteArray();
+            out.writeByte(RAW_JSON);
+            out.writeInt(json.length);
+            out.write(json);
+        }
+    }
+
+    private static Object readValue(DataInputStream in) throws IOException {
+        byte type = in.readByte();
+        return switch (type) {
+            case NULL -> null;
+            case STRING -> readString(in);
+            case LONG -> in.readLong();
+            case INTEGER -> in.readInt();
+            case DOUBLE -> in.readDouble();
+            case FLOAT -> in.readFloat();
+            case BOOLEAN -> in.readBoolean();
+            case BIG_DECIMAL -> new BigDecimal(readString(in));
+            case BIG_INTEGER -> new BigInteger(readString(in));
+            case RAW_JSON -> {
+                byte[] json = new byte[in.readInt()];
+                in.readFully(json);
+                yield new RawJson(json);
+            }
+            default -> throw new IOException("Unknown value type " + type);
+        };
+    }
+
+    private static void writeThrowable(DataOutputStream out, IThrowableProxy proxy) throws IOException {
+        out.writeBoolean(proxy != null);
+        if (proxy == null) {
+            return;
+        }
+        writeString(out, proxy.getClassName());
+        writeString(out, proxy.getMessage());
+        out.writeInt(proxy.getCommonFrames());
+        out.writeBoolean(proxy.isCyclic());
+        StackTraceElementProxy[] frames = proxy.getStackTraceElementProxyArray();
+        out.writeInt(frames != null ? frames.length : 0);
+        if (frames != null) {
+            for (StackTraceElementProxy frame : frames) {
+                StackTraceElement element = frame.getStackTraceElement();
+                writeString(out, element.getClassName());
+                writeString(out, element.getMethodName());
+                writeString(out, element.getFileName());
+                out.writeInt(element.getLineNumber());
+                writeString(out, frame.getSTEAsString());
+            }
+        }
+        writeThrowable(out, proxy.getCause());
+        IThrowableProxy[] suppressed = proxy.getSuppressed();
+        out.writeInt(suppressed != null ? suppressed.length : 0);
+        if (suppressed != null) {
+            for (IThrowableProxy element : suppressed) {
+                writeThrowable(out, element);
+            }
+        }
+    }
+
+    private static IThrowableProxy readThrowable(DataInputStream in) throws IOException {
+        if (!in.readBoolean()) {
+            return null;
+        }
+        String className = readString(in);
+        String message = readString(in);
+        int commonFrames = in.readInt();
+        boolean cyclic = in.readBoolean();
+        StackTraceElementProxy[] frames = new StackTraceElementProxy[in.readInt()];
+        for (int i = 0; i < frames.length; i++) {
+            StackTraceElement element = new StackTraceElement(readString(in), readString(in), readString(in), in.readInt());
+            frames[i] = new SpilledFrame(element, readString(in));
+        }
+        IThrowableProxy cause = readThrowable(in);
+        IThrowableProxy[] suppressed = new IThrowableProxy[in.readInt()];
+        for (int i = 0; i < suppressed.length; i++) {
+            suppressed[i] = readThrowable(in);
+        }
+        return new SpilledThrowable(className, message, commonFrames, cyclic, frames, cause, suppressed);
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        // writeUTF 限制 64KB，消息和堆栈可能更长
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public String getThreadName() {
+        return threadName;
+    }
+
+    @Override
+    public Level getLevel() {
+        return level;
+    }
+
+    @Override
+    public String getMessage() {
+        return message;
+    }
+
+    @Override
+    public Object[] getArgumentArray() {
+        return null;
+    }
+
+    @Override
+    public String getFormattedMessage() {
+        return message;
+    }
+
+    @Override
+    public String getLoggerName() {
+        return loggerName;
+    }
+
+    @Override
+    public LoggerContextVO getLoggerContextVO() {
+        return loggerContext;
+    }
+
+    @Override
+    public IThrowableProxy getThrowableProxy() {
+        return throwableProxy;
+    }
+
+    @Override
+    public StackTraceElement[] getCallerData() {
+        return new StackTraceElement[0];
+    }
+
+    @Override
+    public boolean hasCallerData() {
+        return false;
+    }
+
+    @Override
+    public List<Marker> getMarkerList() {
+        return markers;
+    }
+
+    @Override
+    public Map<String, String> getMDCPropertyMap() {
+        return mdc;
+    }
+
+    @Override
+    @SuppressWarnings("deprecation")
+    public Map<String, String> getMdc() {
+        return mdc;
+    }
+
+    @Override
+    public long getTimeStamp() {
+        return timeStamp;
+    }
+
+    @Override
+    public int getNanoseconds() {
+        return nanoseconds;
+    }
+
+    @Override
+    public Instant getInstant() {
+        return Instant.ofEpochMilli(timeStamp).plusNanos(Math.max(0, nanoseconds) % 1_000_000);
+    }
+
+    @Override
+    public long getSequenceNumber() {
+        return sequenceNumber;
+    }
+
+    @Override
+    public List<KeyValuePair> getKeyValuePairs() {
+        return keyValuePairs;
+    }
+
+    @Override
+    public void prepareForDeferredProcessing() {
+        // 读回的事件已经是固化后的内容
+    }
+
+    @Override
+    public String toString() {
+        return "[" + level + "] " + message;
+    }
+
+    /**
+     * 保留原始的栈帧文本（包括模块名、类加载器名），打印出的堆栈与原事件相同
+     */
+    private static final class SpilledFrame extends StackTraceElementProxy {
+        private final String text;
+
+        SpilledFrame(StackTraceElement element, String text) {
+            super(element);
+            this.text = text;
+        }
+
+        @Override
+        public String getSTEAsString() {
+            return text;
+        }
+
+        @Override
+        public String toString() {
+            return text;
+        }
+    }
+
+    private record SpilledThrowable(String className, String message, int commonFrames, boolean cyclic,
+                                    StackTraceElementProxy[] frames, IThrowableProxy cause,
+                                    IThrowableProxy[] suppressed) implements IThrowableProxy {
+        @Override
+        public String getMessage() {
+            return message;
+        }
+
+        @Override
+        public String getClassName() {
+            return className;
+        }
+
+        @Override
+        public StackTraceElementProxy[] getStackTraceElementProxyArray() {
+            return frames;
+        }
+
+        @Override
+        public int getCommonFrames() {
+            return commonFrames;
+        }
+
+        @Override
+        public IThrowableProxy getCause() {
+            return cause;
+        }
+
+        @Override
+        public IThrowableProxy[] getSuppressed() {
+            return suppressed;
+        }
+
+        @Override
+        public boolean isCyclic() {
+            return cyclic;
+        }
+    }
+}
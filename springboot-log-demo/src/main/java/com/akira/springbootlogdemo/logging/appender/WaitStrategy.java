@@ -0,0 +1,71 @@
+package com.akira.springbootlogdemo.logging.appender;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 消费者线程在缓冲区为空时的等待策略
+ */
+public enum WaitStrategy {
+
+    /**
+     * park 等待，由生产者写入后唤醒，CPU 占用最低（默认）
+     */
+    BLOCKING,
+
+    /**
+     * 先自旋、再 yield、最后短暂 park，延迟和 CPU 之间折中
+     */
+    SLEEPING,
+
+    /**
+     * 自旋后 yield，延迟低，但会占用一个核
+     */
+    YIELDING,
+
+    /**
+     * 一直自旋，延迟最低，独占一个核
+     */
+    BUSY_SPIN;
+
+    static final long BLOCKING_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(10);
+    private static final long SLEEPING_PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(100);
+    private static final int SPIN_ROUNDS = 100;
+    private static final int YIELD_ROUNDS = 200;
+
+    /**
+     * 空闲一轮，round 为连续空闲的次数
+     */
+    void idle(Object blocker, int round) {
+        switch (this) {
+            case BLOCKING:
+                LockSupport.parkNanos(blocker, BLOCKING_PARK_NANOS);
+                break;
+            case SLEEPING:
+                if (round < SPIN_ROUNDS) {
+                    Thread.onSpinWait();
+                } else if (round < YIELD_ROUNDS) {
+                    Thread.yield();
+                } else {
+                    LockSupport.parkNanos(blocker, SLEEPING_PARK_NANOS);
+                }
+                break;
+            case YIELDING:
+                if (round < SPIN_ROUNDS) {
+                    Thread.onSpinWait();
+                } else {
+                    Thread.yield();
+                }
+                break;
+            default:
+                Thread.onSpinWait();
+        }
+    }
+
+    /**
+     * 是否需要生产者在写入后主动唤醒消费者
+     */
+    boolean needsSignal() {
+        return this == BLOCKING;
+    }
+}
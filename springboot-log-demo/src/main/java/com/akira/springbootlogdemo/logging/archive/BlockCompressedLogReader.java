@@ -0,0 +1,192 @@
+package com.akira.springbootlogdemo.logging.archive;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+/**
+ * 按时间范围读取 {@link BlockCompressor} 生成的压缩日志，只解压覆盖该范围的块。
+ * <p>
+ * 命令行：
+ * <pre>
+ * BlockCompressedLogReader logs/application-2025-04-10.0.log.blz "2025-04-10 10:00:00.000" "2025-04-10 10:05:00.000"
+ * </pre>
+ */
+public class BlockCompressedLogReader {
+
+    private static final DateTimeFormatter TIMESTAMP = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss.SSS");
+
+    private final ZoneId zone;
+
+    public BlockCompressedLogReader(ZoneId zone) {
+        this.zone = zone;
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length != 3) {
+            System.err.println("Usage: BlockCompressedLogReader <file.blz> <from> <to>   (yyyy-MM-dd HH:mm:ss.SSS)");
+            System.exit(1);
+        }
+        ZoneId zone = ZoneId.systemDefault();
+        long from = LocalDateTime.parse(args[1], TIMESTAMP).atZone(zone).toInstant().toEpochMilli();
+        long to = LocalDateTime.parse(args[2], TIMESTAMP).atZone(zone).toInstant().toEpochMilli();
+        new BlockCompressedLogReader(zone).read(Paths.get(args[0]), from, to, System.out::print);
+    }
+
+    /**
+     * 输出 [fromMillis, toMillis] 内的日志；堆栈等续行跟随所属日志一起输出
+     */
+    public void read(Path compressed, long fromMillis, long toMillis, Consumer<String> lineConsumer) throws IOException {
+        List<BlockIndexEntry> blocks = readIndex(BlockCompressor.indexPath(compressed));
+        Inflater inflater = new Inflater(true);
+        try (FileChannel channel = FileChannel.open(compressed, StandardOpenOption.READ)) {
+            for (BlockIndexEntry block : blocks) {
+                if (block.lastMillis() < fromMillis || block.firstMillis() > toMillis) {
+                    continue;
+                }
+                byte[] raw = inflate(channel, block, inflater);
+                emitLines(raw, fromMillis, toMillis, lineConsumer);
+            }
+        } catch (DataFormatException e) {
+            throw new IOException("Corrupted block in " + compressed, e);
+        } finally {
+            inflater.end();
+        }
+    }
+
+    /**
+     * 按未压缩偏移读取片段（偏移来自 LogIndexWriter），ranges 需按 offset 升序，相邻片段所在的块只解压一次
+     */
+    public List<byte[]> readRaw(Path compressed, List<RawRange> ranges) throws IOException {
+        List<BlockIndexEntry> blocks = readIndex(BlockCompressor.indexPath(compressed));
+        // 块与块在未压缩数据中首尾相接，rawLength 累加即为每块的起始偏移
+        long[] rawStarts = new long[blocks.size()];
+        long rawOffset = 0;
+        for (int i = 0; i < blocks.size(); i++) {
+            rawStarts[i] = rawOffset;
+            rawOffset += blocks.get(i).rawLength();
+        }
+
+        List<byte[]> result = new ArrayList<>(ranges.size());
+        Inflater inflater = new Inflater(true);
+        int cachedBlock = -1;
+        byte[] cached = null;
+        try (FileChannel channel = FileChannel.open(compressed, StandardOpenOption.READ)) {
+            for (RawRange range : ranges) {
+                byte[] bytes = new byte[range.length()];
+                int copied = 0;
+                int block = blockAt(rawStarts, range.offset());
+                while (copied < bytes.length && block >= 0 && block < blocks.size()) {
+                    if (block != cachedBlock) {
+                        cached = inflate(channel, blocks.get(block), inflater);
+                        cachedBlock = block;
+                    }
+                    long from = range.offset() + copied - rawStarts[block];
+                    if (from >= cached.length) {
+                        break;
+                    }
+                    int length = (int) Math.min(bytes.length - copied, cached.length - from);
+                    System.arraycopy(cached, (int) from, bytes, copied, length);
+                    copied += length;
+                    block++;
+                }
+                result.add(copied == bytes.length ? bytes : Arrays.copyOf(bytes, copied));
+            }
+        } catch (DataFormatException e) {
+            throw new IOException("Corrupted block in " + compressed, e);
+        } finally {
+            inflater.end();
+        }
+        return result;
+    }
+
+    private static int blockAt(long[] rawStarts, long offset) {
+        int i = Arrays.binarySearch(rawStarts, offset);
+        return i >= 0 ? i : -i - 2;
+    }
+
+    public List<BlockIndexEntry> readIndex(Path index) throws IOException {
+        List<BlockIndexEntry> entries = new ArrayList<>();
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(index)))) {
+            byte[] magic = new byte[BlockCompressor.INDEX_MAGIC.length];
+            in.readFully(magic);
+            if (!Arrays.equals(magic, BlockCompressor.INDEX_MAGIC)) {
+                throw new IOException("Not a block index: " + index);
+            }
+            while (true) {
+                try {
+                    entries.add(new BlockIndexEntry(in.readLong(), in.readLong(), in.readLong(),
+                            in.readInt(), in.readInt()));
+                } catch (EOFException e) {
+                    return entries;
+                }
+            }
+        }
+    }
+
+    private byte[] inflate(FileChannel channel, BlockIndexEntry block, Inflater inflater)
+            throws IOException, DataFormatException {
+        ByteBuffer compressed = ByteBuffer.allocate(block.compressedLength());
+        long position = block.offset() + BlockCompressor.BLOCK_HEADER_LENGTH;
+        while (compressed.hasRemaining()) {
+            if (channel.read(compressed, position + compressed.position()) < 0) {
+                throw new EOFException("Truncated block at offset " + block.offset());
+            }
+        }
+        byte[] raw = new byte[block.rawLength()];
+        inflater.reset();
+        inflater.setInput(compressed.array());
+        int length = 0;
+        while (length < raw.length && !inflater.finished()) {
+            int inflated = inflater.inflate(raw, length, raw.length - length);
+            if (inflated == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                throw new DataFormatException("Truncated block at offset " + block.offset());
+            }
+            length += inflated;
+        }
+        return raw;
+    }
+
+    private void emitLines(byte[] raw, long fromMillis, long toMillis, Consumer<String> lineConsumer) {
+        boolean inRange = false;
+        int start = 0;
+        for (int i = 0; i < raw.length; i++) {
+            if (raw[i] != '\n' && i != raw.length - 1) {
+                continue;
+            }
+            int length = i - start + 1;
+            long timestamp = LogTimestamps.parse(raw, start, length, zone);
+            if (timestamp != LogTimestamps.NONE) {
+                inRange = timestamp >= fromMillis && timestamp <= toMillis;
+            }
+            if (inRange) {
+                lineConsumer.accept(new String(raw, start, length, StandardCharsets.UTF_8));
+            }
+            start = i + 1;
+        }
+    }
+
+    public record RawRange(long offset, int length) {
+    }
+
+    public record BlockIndexEntry(long firstMillis, long lastMillis, long offset, int compressedLength,
+                                  int rawLength) {
+    }
+}
@@ -0,0 +1,182 @@
+package com.akira.springbootlogdemo.logging.archive;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.ZoneId;
+import java.util.Arrays;
+import java.util.zip.Deflater;
+
+/**
+ * 把归档的文本日志压缩成相互独立的 Deflate 块，并生成 时间戳 -&gt; 块偏移 的索引文件。
+ * <pre>
+ * xxx.log.blz      "BLZ1" { rawLength(int) compressedLength(int) deflate... }*
+ * xxx.log.blz.idx  "BLZI" { firstMillis(long) lastMillis(long) offset(long) compressedLength(int) rawLength(int) }*
+ * </pre>
+ * 块只在日志行（不是堆栈续行）的开头切分，每个块可以单独解压，见 {@link BlockCompressedLogReader}。
+ */
+public final class BlockCompressor {
+
+    public static final String EXTENSION = ".blz";
+    public static final String INDEX_EXTENSION = ".idx";
+    public static final int DEFAULT_BLOCK_SIZE = 64 * 1024;
+
+    static final byte[] DATA_MAGIC = "BLZ1".getBytes(StandardCharsets.US_ASCII);
+    static final byte[] INDEX_MAGIC = "BLZI".getBytes(StandardCharsets.US_ASCII);
+    static final int BLOCK_HEADER_LENGTH = 8;
+
+    private final int blockSize;
+    private final ZoneId zone;
+
+    public BlockCompressor(int blockSize, ZoneId zone) {
+        this.blockSize = blockSize;
+        this.zone = zone;
+    }
+
+    public static Path compressedPath(Path source) {
+        return source.resolveSibling(source.getFileName() + EXTENSION);
+    }
+
+    public static Path indexPath(Path compressed) {
+        return compressed.resolveSibling(compressed.getFileName() + INDEX_EXTENSION);
+    }
+
+    /**
+     * 压缩 source，成功后返回压缩文件路径；source 本身不删除，由调用方决定
+     */
+    public Path compress(Path source) throws IOException {
+        Path target = compressedPath(source);
+        Path index = indexPath(target);
+        Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+        try (InputStream in = new BufferedInputStream(Files.newInputStream(source), 64 * 1024);
+             DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(target)));
+             DataOutputStream idx = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(index)))) {
+            out.write(DATA_MAGIC);
+            idx.write(INDEX_MAGIC);
+            BlockWriter writer = new BlockWriter(deflater, out, idx, DATA_MAGIC.length);
+
+            LineReader lines = new LineReader(in);
+            while (lines.next()) {
+                long timestamp = LogTimestamps.parse(lines.buffer(), 0, lines.length(), zone);
+                if (timestamp != LogTimestamps.NONE && writer.rawSize() >= blockSize) {
+                    writer.flush();
+                }
+                writer.append(lines.buffer(), lines.length(), timestamp);
+            }
+            writer.flush();
+        } catch (IOException e) {
+            Files.deleteIfExists(target);
+            Files.deleteIfExists(index);
+            throw e;
+        } finally {
+            deflater.end();
+        }
+        return target;
+    }
+
+    private static final class BlockWriter {
+        private final Deflater deflater;
+        private final DataOutputStream out;
+        private final DataOutputStream idx;
+        private final ByteArrayOutputStream raw = new ByteArrayOutputStream(DEFAULT_BLOCK_SIZE + 4096);
+        private byte[] compressed = new byte[DEFAULT_BLOCK_SIZE];
+        private long offset;
+        private long firstMillis = LogTimestamps.NONE;
+        private long lastMillis = LogTimestamps.NONE;
+
+        BlockWriter(Deflater deflater, DataOutputStream out, DataOutputStream idx, long offset) {
+            this.deflater = deflater;
+            this.out = out;
+            this.idx = idx;
+            this.offset = offset;
+        }
+
+        int rawSize() {
+            return raw.size();
+        }
+
+        void append(byte[] line, int length, long timestamp) {
+            if (timestamp != LogTimestamps.NONE) {
+                if (firstMillis == LogTimestamps.NONE) {
+                    firstMillis = timestamp;
+                }
+                lastMillis = Math.max(lastMillis, timestamp);
+            }
+            raw.write(line, 0, length);
+        }
+
+        void flush() throws IOException {
+            if (raw.size() == 0) {
+                return;
+            }
+            byte[] input = raw.toByteArray();
+            deflater.reset();
+            deflater.setInput(input);
+            deflater.finish();
+            int compressedLength = 0;
+            while (!deflater.finished()) {
+                if (compressedLength == compressed.length) {
+                    compressed = Arrays.copyOf(compressed, compressed.length * 2);
+                }
+                compressedLength += deflater.deflate(compressed, compressedLength, compressed.length - compressedLength);
+            }
+
+            out.writeInt(input.length);
+            out.writeInt(compressedLength);
+            out.write(compressed, 0, compressedLength);
+
+            // 整块都是续行时沿用上一块的时间
+            idx.writeLong(firstMillis != LogTimestamps.NONE ? firstMillis : lastMillis);
+            idx.writeLong(lastMillis);
+            idx.writeLong(offset);
+            idx.writeInt(compressedLength);
+            idx.writeInt(input.length);
+
+            offset += BLOCK_HEADER_LENGTH + compressedLength;
+            raw.reset();
+            firstMillis = LogTimestamps.NONE;
+        }
+    }
+
+    /**
+     * 按字节读行（保留换行符），避免先解码成 String
+     */
+    static final class LineReader {
+        private final InputStream in;
+        private byte[] buffer = new byte[1024];
+        private int length;
+
+        LineReader(InputStream in) {
+            this.in = in;
+        }
+
+        boolean next() throws IOException {
+            length = 0;
+            int b;
+            while ((b = in.read()) != -1) {
+                if (length == buffer.length) {
+                    buffer = Arrays.copyOf(buffer, buffer.length * 2);
+                }
+                buffer[length++] = (byte) b;
+                if (b == '\n') {
+                    return true;
+                }
+            }
+            return length > 0;
+        }
+
+        byte[] buffer() {
+            return buffer;
+        }
+
+        int length() {
+            return length;
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package com.akira.springbootlogdemo.logging.archive;
+
+import com.akira.springbootlogdemo.logging.json.JsonEncoder;
+
+import java.nio.charset.StandardCharsets;
+import java.time.DateTimeException;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+
+/**
+ * 解析行首的 %d{yyyy-MM-dd HH:mm:ss.SSS} 时间戳，或 {@link JsonEncoder} 输出行的 @timestamp 字段。
+ * 不以时间戳开头的行（如异常堆栈）属于上一条日志。
+ */
+public final class LogTimestamps {
+
+    public static final int LENGTH = "yyyy-MM-dd HH:mm:ss.SSS".length();
+    public static final long NONE = -1;
+
+    private static final byte[] JSON_PREFIX = JsonEncoder.TIMESTAMP_PREFIX.getBytes(StandardCharsets.US_ASCII);
+    // 判断一行是否以时间戳开头最多需要看的字节数
+    public static final int MAX_PREFIX_LENGTH = JSON_PREFIX.length + LENGTH;
+
+    private LogTimestamps() {
+    }
+
+    /**
+     * @return 毫秒时间戳，行首不是时间戳时返回 {@link #NONE}
+     */
+    public static long parse(byte[] line, int offset, int length, ZoneId zone) {
+        // JsonEncoder 输出的行：{"@timestamp":"yyyy-MM-ddTHH:mm:ss.SSS+08:00",...
+        if (startsWith(line, offset, length, JSON_PREFIX)) {
+            offset += JSON_PREFIX.length;
+            length -= JSON_PREFIX.length;
+        }
+        if (length < LENGTH) {
+            return NONE;
+        }
+        int year = digits(line, offset, 4);
+        int month = digits(line, offset + 5, 2);
+        int day = digits(line, offset + 8, 2);
+        int hour = digits(line, offset + 11, 2);
+        int minute = digits(line, offset + 14, 2);
+        int second = digits(line, offset + 17, 2);
+        int millis = digits(line, offset + 20, 3);
+        if ((year | month | day | hour | minute | second | millis) < 0
+                || line[offset + 4] != '-' || line[offset + 7] != '-' || (line[offset + 10] != ' ' && line[offset + 10] != 'T')
+                || line[offset + 13] != ':' || line[offset + 16] != ':' || line[offset + 19] != '.'
+                || month < 1 || month > 12 || day < 1 || day > 31 || hour > 23 || minute > 59 || second > 59) {
+            return NONE;
+        }
+        try {
+            return LocalDateTime.of(year, month, day, hour, minute, second, millis * 1_000_000)
+                    .atZone(zone).toInstant().toEpochMilli();
+        } catch (DateTimeException e) {
+            return NONE;
+        }
+    }
+
+    private static boolean startsWith(byte[] line, int offset, int length, byte[] prefix) {
+        if (length < prefix.length) {
+            return false;
+        }
+        for (int i = 0; i < prefix.length; i++) {
+            if (line[offset + i] != prefix[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int digits(byte[] bytes, int offset, int count) {
+        int value = 0;
+        for (int i = offset; i < offset + count; i++) {
+            int digit = bytes[i] - '0';
+            if (digit < 0 || digit > 9) {
+                return -1;
+            }
+            value = value * 10 + digit;
+        }
+        return value;
+    }
+}
@@ -0,0 +1,237 @@
+package com.akira.springbootlogdemo.logging.binary;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.pattern.TargetLengthBasedClassNameAbbreviator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.helpers.MessageFormatter;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedWriter;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+import static com.akira.springbootlogdemo.logging.binary.BinaryLogFormat.*;
+
+/**
+ * 二进制日志解码器，同时是离线命令行工具：
+ * <pre>
+ * java -cp app.jar -Dloader.main=com.akira.springbootlogdemo.logging.binary.BinaryLogDecoder \
+ *      org.springframework.boot.loader.launch.PropertiesLauncher [--json] logs/application.blog ...
+ * </pre>
+ * 默认按 logback-spring.xml 的 pattern 还原文本，--json 时每行输出一个 JSON 对象。
+ */
+public class BinaryLogDecoder {
+
+    private static final DateTimeFormatter TIMESTAMP =
+            DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss.SSS").withZone(ZoneId.systemDefault());
+
+    public static void main(String[] args) throws IOException {
+        boolean json = false;
+        List<String> files = new ArrayList<>();
+        for (String arg : args) {
+            if ("--json".equals(arg)) {
+                json = true;
+            } else {
+                files.add(arg);
+            }
+        }
+        if (files.isEmpty()) {
+            System.err.println("Usage: BinaryLogDecoder [--json] <file>...");
+            System.exit(1);
+        }
+
+        BinaryLogDecoder decoder = new BinaryLogDecoder();
+        ObjectMapper objectMapper = new ObjectMapper();
+        TargetLengthBasedClassNameAbbreviator abbreviator = new TargetLengthBasedClassNameAbbreviator(36);
+        boolean asJson = json;
+        try (Writer out = new BufferedWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8))) {
+            for (String file : files) {
+                try (InputStream in = Files.newInputStream(Paths.get(file))) {
+                    decoder.decode(in, event -> {
+                        try {
+                            out.write(asJson ? toJson(objectMapper, event) : toText(abbreviator, event));
+                        } catch (IOException e) {
+                            throw new UncheckedIOException(e);
+                        }
+                    });
+                }
+            }
+        }
+    }
+
+    /**
+     * 还原为 %d{yyyy-MM-dd HH:mm:ss.SSS} [%thread] %-5level %logger{36} - %msg%n
+     */
+    static String toText(TargetLengthBasedClassNameAbbreviator abbreviator, DecodedEvent event) {
+        StringBuilder line = new StringBuilder(128)
+                .append(TIMESTAMP.format(Instant.ofEpochMilli(event.timestamp())))
+                .append(" [").append(event.threadName()).append("] ")
+                .append(String.format("%-5s", event.level()))
+                .append(' ').append(abbreviator.abbreviate(event.loggerName()))
+                .append(" - ").append(event.formattedMessage())
+                .append(System.lineSeparator());
+        if (event.throwable() != null) {
+            line.append(event.throwable());
+        }
+        return line.toString();
+    }
+
+    static String toJson(ObjectMapper objectMapper, DecodedEvent event) throws IOException {
+        Map<String, Object> logMap = new LinkedHashMap<>();
+        logMap.put("timestamp", TIMESTAMP.format(Instant.ofEpochMilli(event.timestamp())));
+        logMap.put("level", event.level().toString());
+        logMap.put("thread", event.threadName());
+        logMap.put("logger", event.loggerName());
+        logMap.put("message", event.formattedMessage());
+        logMap.put("template", event.template());
+        logMap.put("args", event.arguments() != null ? Arrays.asList(event.arguments()) : List.of());
+        if (!event.keyValues().isEmpty()) {
+            logMap.put("keyValues", event.keyValues());
+        }
+        if (event.throwable() != null) {
+            logMap.put("throwable", event.throwable());
+        }
+        return objectMapper.writeValueAsString(logMap) + System.lineSeparator();
+    }
+
+    /**
+     * 顺序解码一个文件（可包含多个段），遇到 0 字节或文件结尾时停止
+     */
+    public void decode(InputStream input, Consumer<DecodedEvent> consumer) throws IOException {
+        DataInputStream in = new DataInputStream(new BufferedInputStream(input, 64 * 1024));
+        List<String> dictionary = new ArrayList<>();
+        long lastTimestamp = 0;
+        boolean keyValues = true;
+        while (true) {
+            int tag = in.read();
+            if (tag == -1 || tag == TAG_END) {
+                return;
+            }
+            switch (tag) {
+                case TAG_HEADER -> {
+                    byte[] magic = new byte[MAGIC.length];
+                    in.readFully(magic);
+                    if (!Arrays.equals(magic, MAGIC)) {
+                        throw new IOException("Not a binary log segment");
+                    }
+                    int version = in.readUnsignedByte();
+                    if (version != VERSION && version != VERSION_WITHOUT_KEY_VALUES) {
+                        throw new IOException("Unsupported binary log version: " + version);
+                    }
+                    keyValues = version != VERSION_WITHOUT_KEY_VALUES;
+                    lastTimestamp = in.readLong();
+                    dictionary.clear();
+                }
+                case TAG_DEFINE -> {
+                    int id = (int) readVarint(in);
+                    String value = readString(in);
+                    while (dictionary.size() < id) {
+                        dictionary.add(null);
+                    }
+                    dictionary.set(id - 1, value);
+                }
+                case TAG_EVENT -> {
+                    lastTimestamp += readZigZag(in);
+                    Level level = Level.toLevel((int) readVarint(in));
+                    String logger = readReference(in, dictionary);
+                    String thread = readReference(in, dictionary);
+                    String template = readReference(in, dictionary);
+                    int argCount = (int) readVarint(in);
+                    Object[] args = argCount > 0 ? new Object[argCount] : null;
+                    for (int i = 0; i < argCount; i++) {
+                        args[i] = readArgument(in);
+                    }
+                    Object throwable = readArgument(in);
+                    Map<String, Object> pairs = Map.of();
+                    int keyValueCount = keyValues ? (int) readVarint(in) : 0;
+                    if (keyValueCount > 0) {
+                        pairs = new LinkedHashMap<>();
+                        for (int i = 0; i < keyValueCount; i++) {
+                            String key = readReference(in, dictionary);
+                            pairs.put(key, readArgument(in));
+                        }
+                    }
+                    consumer.accept(new DecodedEvent(lastTimestamp, level, thread, logger, template, args,
+                            throwable != null ? throwable.toString() : null, pairs));
+                }
+                default -> throw new IOException("Corrupted binary log, unknown tag: " + tag);
+            }
+        }
+    }
+
+    private static String readReference(DataInputStream in, List<String> dictionary) throws IOException {
+        int id = (int) readVarint(in);
+        if (id == INLINE) {
+            return readString(in);
+        }
+        if (id > dictionary.size() || dictionary.get(id - 1) == null) {
+            throw new IOException("Corrupted binary log, undefined dictionary id: " + id);
+        }
+        return dictionary.get(id - 1);
+    }
+
+    private static Object readArgument(DataInputStream in) throws IOException {
+        int type = in.readUnsignedByte();
+        return switch (type) {
+            case ARG_NULL -> null;
+            case ARG_STRING -> readString(in);
+            case ARG_LONG -> readZigZag(in);
+            case ARG_DOUBLE -> Double.longBitsToDouble(in.readLong());
+            case ARG_TRUE -> Boolean.TRUE;
+            case ARG_FALSE -> Boolean.FALSE;
+            default -> throw new IOException("Corrupted binary log, unknown argument type: " + type);
+        };
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        byte[] utf8 = new byte[(int) readVarint(in)];
+        in.readFully(utf8);
+        return new String(utf8, StandardCharsets.UTF_8);
+    }
+
+    private static long readZigZag(DataInputStream in) throws IOException {
+        long value = readVarint(in);
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    private static long readVarint(DataInputStream in) throws IOException {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            int b = in.read();
+            if (b == -1) {
+                throw new EOFException("Truncated varint");
+            }
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IOException("Corrupted binary log, varint too long");
+    }
+
+    public record DecodedEvent(long timestamp, Level level, String threadName, String loggerName,
+                               String template, Object[] arguments, String throwable,
+                               Map<String, Object> keyValues) {
+
+        public String formattedMessage() {
+            return arguments == null ? template : MessageFormatter.arrayFormat(template, arguments).getMessage();
+        }
+    }
+}
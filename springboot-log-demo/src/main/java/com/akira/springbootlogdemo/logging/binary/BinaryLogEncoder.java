@@ -0,0 +1,235 @@
+package com.akira.springbootlogdemo.logging.binary;
+
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.classic.spi.IThrowableProxy;
+import ch.qos.logback.classic.spi.ThrowableProxyUtil;
+import ch.qos.logback.core.encoder.EncoderBase;
+import com.akira.springbootlogdemo.logging.appender.OrderedEncoder;
+import org.slf4j.event.KeyValuePair;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static com.akira.springbootlogdemo.logging.binary.BinaryLogFormat.*;
+
+/**
+ * 紧凑二进制日志编码器：每条日志写成 模板 id + 带类型的参数，
+ * logger、线程名和 key-value 的 key 字典编码，时间戳写与上一条的差值。格式化推迟到 {@link BinaryLogDecoder} 读日志时。
+ * <p>
+ * 编码依赖写入顺序，只能配合 MappedFileAppender 或放在 ASYNC 之后的单线程下游使用。
+ * <pre>
+ * &lt;encoder class="com.akira.springbootlogdemo.logging.binary.BinaryLogEncoder"&gt;
+ *     &lt;maxDictionarySize&gt;4096&lt;/maxDictionarySize&gt;
+ *     &lt;maxTemplateLength&gt;256&lt;/maxTemplateLength&gt;
+ * &lt;/encoder&gt;
+ * </pre>
+ */
+public class BinaryLogEncoder extends EncoderBase<ILoggingEvent> implements OrderedEncoder {
+
+    public static final int DEFAULT_MAX_DICTIONARY_SIZE = 4096;
+    public static final int DEFAULT_MAX_TEMPLATE_LENGTH = 256;
+
+    private int maxDictionarySize = DEFAULT_MAX_DICTIONARY_SIZE;
+    private int maxTemplateLength = DEFAULT_MAX_TEMPLATE_LENGTH;
+
+    private final Map<String, Integer> dictionary = new HashMap<>();
+    private final ByteSink sink = new ByteSink(512);
+    private long lastTimestamp;
+
+    /**
+     * 每个新段开始时调用：重置字典和时间戳基准
+     */
+    @Override
+    public synchronized byte[] headerBytes() {
+        dictionary.clear();
+        lastTimestamp = System.currentTimeMillis();
+        sink.reset();
+        sink.write(TAG_HEADER);
+        sink.write(MAGIC);
+        sink.write(VERSION);
+        sink.writeLong(lastTimestamp);
+        return sink.toByteArray();
+    }
+
+    @Override
+    public synchronized byte[] encode(ILoggingEvent event) {
+        sink.reset();
+        String template = event.getMessage() != null ? event.getMessage() : "";
+
+        // 字典项要写在引用它的事件之前
+        int loggerId = reference(event.getLoggerName());
+        int threadId = reference(event.getThreadName());
+        int templateId = isTemplate(template) ? reference(template) : INLINE;
+        List<KeyValuePair> keyValuePairs = event.getKeyValuePairs();
+        int keyValueCount = keyValuePairs != null ? keyValuePairs.size() : 0;
+        int[] keyIds = keyValueCount > 0 ? new int[keyValueCount] : null;
+        for (int i = 0; i < keyValueCount; i++) {
+            keyIds[i] = reference(keyValuePairs.get(i).key);
+        }
+
+        sink.write(TAG_EVENT);
+        long timestamp = event.getTimeStamp();
+        sink.writeZigZag(timestamp - lastTimestamp);
+        lastTimestamp = timestamp;
+        sink.writeVarint(event.getLevel().toInt());
+        writeReference(loggerId, event.getLoggerName());
+        writeReference(threadId, event.getThreadName());
+        writeReference(templateId, template);
+
+        Object[] args = event.getArgumentArray();
+        int argCount = args != null ? args.length : 0;
+        sink.writeVarint(argCount);
+        for (int i = 0; i < argCount; i++) {
+            writeArgument(args[i]);
+        }
+
+        IThrowableProxy throwable = event.getThrowableProxy();
+        writeArgument(throwable != null ? ThrowableProxyUtil.asString(throwable) : null);
+
+        // key-value 的 key 进字典，值和参数一样带类型写出
+        sink.writeVarint(keyValueCount);
+        for (int i = 0; i < keyValueCount; i++) {
+            KeyValuePair pair = keyValuePairs.get(i);
+            writeReference(keyIds[i], pair.key);
+            writeArgument(pair.value);
+        }
+        return sink.toByteArray();
+    }
+
+    @Override
+    public byte[] footerBytes() {
+        return null;
+    }
+
+    /**
+     * 带占位符或较短的消息才进字典；ControllerLoggingAspectOrg 那种预先序列化好的 JSON 每条都不同，直接内联
+     */
+    private boolean isTemplate(String message) {
+        return message.length() <= maxTemplateLength || message.contains("{}");
+    }
+
+    private int reference(String value) {
+        if (value == null) {
+            return INLINE;
+        }
+        Integer id = dictionary.get(value);
+        if (id != null) {
+            return id;
+        }
+        if (dictionary.size() >= maxDictionarySize) {
+            return INLINE;
+        }
+        id = dictionary.size() + 1;
+        dictionary.put(value, id);
+        sink.write(TAG_DEFINE);
+        sink.writeVarint(id);
+        sink.writeString(value);
+        return id;
+    }
+
+    private void writeReference(int id, String value) {
+        sink.writeVarint(id);
+        if (id == INLINE) {
+            sink.writeString(value != null ? value : "");
+        }
+    }
+
+    private void writeArgument(Object arg) {
+        if (arg == null) {
+            sink.write(ARG_NULL);
+        } else if (arg instanceof Long || arg instanceof Integer || arg instanceof Short || arg instanceof Byte) {
+            sink.write(ARG_LONG);
+            sink.writeZigZag(((Number) arg).longValue());
+        } else if (arg instanceof Double) {
+            sink.write(ARG_DOUBLE);
+            sink.writeLong(Double.doubleToRawLongBits(((Number) arg).doubleValue()));
+        } else if (arg instanceof Boolean) {
+            sink.write((Boolean) arg ? ARG_TRUE : ARG_FALSE);
+        } else {
+            sink.write(ARG_STRING);
+            sink.writeString(String.valueOf(arg));
+        }
+    }
+
+    public int getMaxDictionarySize() {
+        return maxDictionarySize;
+    }
+
+    public void setMaxDictionarySize(int maxDictionarySize) {
+        this.maxDictionarySize = maxDictionarySize;
+    }
+
+    public int getMaxTemplateLength() {
+        return maxTemplateLength;
+    }
+
+    public void setMaxTemplateLength(int maxTemplateLength) {
+        this.maxTemplateLength = maxTemplateLength;
+    }
+
+    /**
+     * 可复用的字节缓冲区
+     */
+    private static final class ByteSink {
+        private byte[] bytes;
+        private int size;
+
+        ByteSink(int capacity) {
+            this.bytes = new byte[capacity];
+        }
+
+        void reset() {
+            size = 0;
+        }
+
+        void write(int b) {
+            ensure(1);
+            bytes[size++] = (byte) b;
+        }
+
+        void write(byte[] src) {
+            ensure(src.length);
+            System.arraycopy(src, 0, bytes, size, src.length);
+            size += src.length;
+        }
+
+        void writeVarint(long value) {
+            ensure(10);
+            while ((value & ~0x7FL) != 0) {
+                bytes[size++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            bytes[size++] = (byte) value;
+        }
+
+        void writeZigZag(long value) {
+            writeVarint((value << 1) ^ (value >> 63));
+        }
+
+        void writeLong(long value) {
+            ensure(8);
+            for (int shift = 56; shift >= 0; shift -= 8) {
+                bytes[size++] = (byte) (value >>> shift);
+            }
+        }
+
+        void writeString(String value) {
+            byte[] utf8 = value.getBytes(StandardCharsets.UTF_8);
+            writeVarint(utf8.length);
+            write(utf8);
+        }
+
+        byte[] toByteArray() {
+            return Arrays.copyOf(bytes, size);
+        }
+
+        private void ensure(int extra) {
+            if (size + extra > bytes.length) {
+                bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, size + extra));
+            }
+        }
+    }
+}
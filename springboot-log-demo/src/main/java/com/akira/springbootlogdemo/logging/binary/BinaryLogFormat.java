@@ -0,0 +1,46 @@
+package com.akira.springbootlogdemo.logging.binary;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * 二进制日志格式定义。
+ * <pre>
+ * 段头     HEADER  "BLOG" version(1) baseMillis(8)
+ * 字典项   DEFINE  id(varint) utf8Length(varint) utf8
+ * 事件     EVENT   timeDelta(zigzag) level(varint) loggerId threadId templateId [inline template]
+ *                  argCount(varint) args... throwable(string|null)
+ *                  keyValueCount(varint) (keyId [inline key] value)...       version 2 起
+ * 参数     NULL | STRING utf8 | LONG zigzag | DOUBLE 8 bytes | TRUE | FALSE
+ * </pre>
+ * 所有字典（模板、logger、线程名、key-value 的 key）共用一个 id 空间，每个段从 header 开始重新编号。
+ * 0 字节表示段结束（MappedFileAppender 活动文件末尾的预分配区域）。
+ */
+final class BinaryLogFormat {
+
+    static final byte[] MAGIC = "BLOG".getBytes(StandardCharsets.US_ASCII);
+    static final int VERSION = 2;
+    /**
+     * version 1 的事件没有 key-value，解码时仍然支持
+     */
+    static final int VERSION_WITHOUT_KEY_VALUES = 1;
+
+    static final int TAG_END = 0x00;
+    static final int TAG_HEADER = 0x01;
+    static final int TAG_DEFINE = 0x02;
+    static final int TAG_EVENT = 0x03;
+
+    static final int ARG_NULL = 0;
+    static final int ARG_STRING = 1;
+    static final int ARG_LONG = 2;
+    static final int ARG_DOUBLE = 3;
+    static final int ARG_TRUE = 4;
+    static final int ARG_FALSE = 5;
+
+    /**
+     * 模板 id 为 0 表示模板以字符串内联，不进入字典
+     */
+    static final int INLINE = 0;
+
+    private BinaryLogFormat() {
+    }
+}
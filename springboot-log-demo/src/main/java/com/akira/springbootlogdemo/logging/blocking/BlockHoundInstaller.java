@@ -0,0 +1,38 @@
+package com.akira.springbootlogdemo.logging.blocking;
+
+import reactor.blockhound.BlockHound;
+import reactor.blockhound.integration.BlockHoundIntegration;
+
+import java.util.ServiceLoader;
+
+/**
+ * 所有 BlockHound 的引用都放在这里：BlockHound 只在 bootRun 和测试的类路径上，
+ * 打包后的应用里没有它，调用前先用 {@link #isAvailable()} 判断
+ */
+final class BlockHoundInstaller {
+
+    private static final String BLOCK_HOUND_CLASS = "reactor.blockhound.BlockHound";
+
+    private BlockHoundInstaller() {
+    }
+
+    static boolean isAvailable() {
+        try {
+            Class.forName(BLOCK_HOUND_CLASS, false, BlockHoundInstaller.class.getClassLoader());
+            return true;
+        } catch (ClassNotFoundException e) {
+            return false;
+        }
+    }
+
+    static void install() {
+        BlockHound.Builder builder = BlockHound.builder();
+        // 与 BlockHound.install() 相同，先加载 reactor-core 等提供的集成（非阻塞线程判断、白名单）
+        ServiceLoader.load(BlockHoundIntegration.class).stream()
+                .map(ServiceLoader.Provider::get)
+                .sorted()
+                .forEach(builder::with);
+        builder.blockingMethodCallback(method -> BlockingCallDetector.report(method.toString(), null));
+        builder.install();
+    }
+}
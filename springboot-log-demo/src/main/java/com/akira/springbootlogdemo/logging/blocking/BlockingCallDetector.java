@@ -0,0 +1,206 @@
+package com.akira.springbootlogdemo.logging.blocking;
+
+import com.akira.springbootlogdemo.logging.config.BlockingDetectionProperties;
+import com.akira.springbootlogdemo.logging.trace.TraceContext;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 非阻塞线程（Reactor parallel/single 调度器、Netty 事件循环等实现了 NonBlocking 的线程）上的阻塞调用检测，默认关闭。
+ * <p>
+ * 两种来源：
+ * <ul>
+ *     <li>instrument=true 时安装 BlockHound，检测 Thread.sleep、阻塞 I/O、锁等待等 JDK 方法；
+ *     回调里只报告，不抛 BlockingOperationError，不改变业务行为。BlockHound 只在 bootRun 和测试的类路径上，
+ *     打包后的应用里没有时只保留检查点</li>
+ *     <li>显式检查点 {@link #checkBlocking}：SqlLoggingInterceptor 在执行 JDBC 之前调用</li>
+ * </ul>
+ * 每个调用点（阻塞操作 + 第一个业务代码栈帧）只报告一次，另有每分钟的总数限制，被限流的次数随下一条报告输出。
+ * 报告写到 BLOCKING_LOGGER，带 MDC 中的 traceId；在 Reactor 线程上 MDC 通常没有值。
+ * 没有违规时的开销只有 BlockHound 的线程判断，或检查点上的一次 volatile 读。
+ */
+@Component
+public class BlockingCallDetector {
+
+    private static final Logger log = LoggerFactory.getLogger(BlockingCallDetector.class);
+    private static final Logger reportLogger = LoggerFactory.getLogger("BLOCKING_LOGGER");
+
+    private static final long WINDOW_NANOS = TimeUnit.MINUTES.toNanos(1);
+    private static final int MAX_STACK_FRAMES = 32;
+    // 定位调用点时跳过的框架栈帧
+    private static final String[] FRAMEWORK_PACKAGES = {
+            "java.", "javax.", "jdk.", "sun.", "com.sun.", "reactor.", "org.reactivestreams.", "io.netty.",
+            "org.springframework.", "org.apache.ibatis.", "org.mybatis.", "com.mysql.", "com.zaxxer.",
+            "com.akira.springbootlogdemo.logging."
+    };
+
+    private static volatile boolean enabled;
+    private static volatile int maxReportsPerMinute;
+    private static volatile int maxCallSites;
+    // BlockHound 是整个 JVM 范围的，只能安装一次
+    private static boolean installed;
+
+    private static final Set<String> REPORTED = ConcurrentHashMap.newKeySet();
+    private static final AtomicLong WINDOW_START = new AtomicLong(System.nanoTime());
+    private static final AtomicInteger WINDOW_REPORTS = new AtomicInteger();
+    private static final LongAdder SUPPRESSED = new LongAdder();
+    // 写报告本身可能阻塞（异步队列满时等待），防止回调重入
+    private static final ThreadLocal<Boolean> REPORTING = new ThreadLocal<>();
+
+    private final BlockingDetectionProperties properties;
+
+    public BlockingCallDetector(BlockingDetectionProperties properties) {
+        this.properties = properties;
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        maxReportsPerMinute = properties.getMaxReportsPerMinute();
+        maxCallSites = properties.getMaxCallSites();
+        // 重新启用时从空的调用点和新的限流窗口开始
+        REPORTED.clear();
+        WINDOW_START.set(System.nanoTime());
+        WINDOW_REPORTS.set(0);
+        SUPPRESSED.reset();
+        if (properties.isInstrument()) {
+            installBlockHound();
+        }
+        enabled = true;
+        log.info("Blocking call detection enabled (BlockHound {})", installed ? "installed" : "not installed");
+    }
+
+    @PreDestroy
+    public void stop() {
+        // BlockHound 无法卸载，回调里按 enabled 判断
+        enabled = false;
+    }
+
+    /**
+     * 显式检查点：调用方即将执行一个阻塞操作
+     *
+     * @param operation 操作类型，如 JDBC
+     * @param target    操作对象，如 Mapper 语句 id
+     */
+    public static void checkBlocking(String operation, String target) {
+        if (enabled && Schedulers.isInNonBlockingThread()) {
+            report(operation, target);
+        }
+    }
+
+    private static synchronized void installBlockHound() {
+        if (installed) {
+            return;
+        }
+        if (!BlockHoundInstaller.isAvailable()) {
+            log.warn("BlockHound is not on the classpath, only explicit checkpoints are active");
+            return;
+        }
+        try {
+            BlockHoundInstaller.install();
+            installed = true;
+        } catch (RuntimeException | LinkageError e) {
+            log.warn("BlockHound could not be installed, only explicit checkpoints are active: {}", e.toString());
+        }
+    }
+
+    static void report(String operation, String target) {
+        if (!enabled || REPORTING.get() != null) {
+            return;
+        }
+        REPORTING.set(Boolean.TRUE);
+        try {
+            StackTraceElement[] stack = new Throwable().getStackTrace();
+            String callSite = callSite(stack);
+            String key = operation + "@" + callSite;
+            if (REPORTED.contains(key)) {
+                return;
+            }
+            if (!tryAcquire()) {
+                SUPPRESSED.increment();
+                return;
+            }
+            // 调用点数量超过上限后不再记录，之后只受总数限制
+            if (REPORTED.size() < maxCallSites && !REPORTED.add(key)) {
+                return;
+            }
+            reportLogger.atWarn()
+                    .setMessage("BLOCKING")
+                    .addKeyValue("traceId", TraceContext.currentTraceId())
+                    .addKeyValue("type", "BLOCKING")
+                    .addKeyValue("operation", operation)
+                    .addKeyValue("target", target)
+                    .addKeyValue("thread", Thread.currentThread().getName())
+                    .addKeyValue("callSite", callSite)
+                    .addKeyValue("suppressed", SUPPRESSED.sumThenReset())
+                    .addKeyValue("stackTrace", trimStack(stack))
+                    .log();
+        } finally {
+            REPORTING.remove();
+        }
+    }
+
+    private static boolean tryAcquire() {
+        long now = System.nanoTime();
+        long start = WINDOW_START.get();
+        if (now - start >= WINDOW_NANOS && WINDOW_START.compareAndSet(start, now)) {
+            WINDOW_REPORTS.set(0);
+        }
+        return WINDOW_REPORTS.incrementAndGet() <= maxReportsPerMinute;
+    }
+
+    /**
+     * 第一个业务代码栈帧，跳过 JDK、框架、Spring 代理和生成的日志包装类
+     */
+    static String callSite(StackTraceElement[] stack) {
+        for (StackTraceElement frame : stack) {
+            if (!isFramework(frame.getClassName())) {
+                return frame.toString();
+            }
+        }
+        return stack.length > 0 ? stack[stack.length - 1].toString() : "unknown";
+    }
+
+    private static boolean isFramework(String className) {
+        if (className.contains("$$") || className.endsWith("_Logged")) {
+            return true;
+        }
+        for (String prefix : FRAMEWORK_PACKAGES) {
+            if (className.startsWith(prefix)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 去掉检测器和 BlockHound 自身的栈帧，最多保留 MAX_STACK_FRAMES 帧
+     */
+    private static List<String> trimStack(StackTraceElement[] stack) {
+        int from = 0;
+        while (from < stack.length && (stack[from].getClassName().startsWith(BlockingCallDetector.class.getName())
+                || stack[from].getClassName().startsWith("reactor.blockhound."))) {
+            from++;
+        }
+        List<String> frames = new ArrayList<>(Math.min(MAX_STACK_FRAMES, stack.length - from));
+        for (int i = from; i < stack.length && frames.size() < MAX_STACK_FRAMES; i++) {
+            frames.add(stack[i].toString());
+        }
+        return frames;
+    }
+}
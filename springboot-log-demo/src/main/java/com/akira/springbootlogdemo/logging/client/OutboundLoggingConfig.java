@@ -0,0 +1,81 @@
+package com.akira.springbootlogdemo.logging.client;
+
+import com.akira.springbootlogdemo.logging.config.OutboundLoggingProperties;
+import com.akira.springbootlogdemo.logging.metrics.OutboundMetrics;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.reactive.function.client.WebClientCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.reactive.ClientHttpConnector;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionPoolMetrics;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.net.SocketAddress;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 为 Spring Boot 提供的 WebClient.Builder 加上 {@link OutboundLoggingFilter}，并替换默认的 ClientHttpConnector：
+ * 使用开启了连接池统计的 ConnectionProvider 和安装了计时回调的 HttpClient。
+ * <p>
+ * 只对注入 WebClient.Builder 创建的 WebClient 生效，{@code WebClient.create()} 不经过 Spring，不会被记录。
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "logging.outbound", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class OutboundLoggingConfig {
+
+    private static final String POOL_NAME = "webclient";
+
+    @Bean(destroyMethod = "dispose")
+    public ConnectionProvider outboundConnectionProvider(OutboundLoggingProperties properties) {
+        return ConnectionProvider.builder(POOL_NAME)
+                .maxConnections(properties.getMaxConnections())
+                .pendingAcquireTimeout(Duration.ofMillis(properties.getPendingAcquireTimeout()))
+                .maxIdleTime(Duration.ofMillis(properties.getMaxIdleTime()))
+                .metrics(true, PoolRegistrar::new)
+                .build();
+    }
+
+    @Bean
+    public ClientHttpConnector outboundClientHttpConnector(ConnectionProvider outboundConnectionProvider) {
+        return new ReactorClientHttpConnector(OutboundTimings.instrument(HttpClient.create(outboundConnectionProvider)));
+    }
+
+    @Bean
+    public WebClientCustomizer outboundLoggingCustomizer(OutboundLoggingProperties properties) {
+        OutboundLoggingFilter filter = new OutboundLoggingFilter(properties.getMaxBodyBytes());
+        return builder -> builder.filter(filter);
+    }
+
+    /**
+     * reactor-netty 为每个目标地址创建连接池时注册，读取时取实时值
+     */
+    private static final class PoolRegistrar implements ConnectionProvider.MeterRegistrar {
+
+        @Override
+        public void registerMetrics(String poolName, String id, SocketAddress remoteAddress, ConnectionPoolMetrics metrics) {
+            OutboundMetrics.registerPool(key(poolName, remoteAddress), () -> {
+                Map<String, Object> stats = new LinkedHashMap<>();
+                stats.put("acquired", metrics.acquiredSize());
+                stats.put("idle", metrics.idleSize());
+                stats.put("allocated", metrics.allocatedSize());
+                stats.put("maxAllocated", metrics.maxAllocatedSize());
+                stats.put("pendingAcquire", metrics.pendingAcquireSize());
+                stats.put("maxPendingAcquire", metrics.maxPendingAcquireSize());
+                return stats;
+            });
+        }
+
+        @Override
+        public void deRegisterMetrics(String poolName, String id, SocketAddress remoteAddress) {
+            OutboundMetrics.deregisterPool(key(poolName, remoteAddress));
+        }
+
+        private static String key(String poolName, SocketAddress remoteAddress) {
+            return poolName + " " + remoteAddress;
+        }
+    }
+}
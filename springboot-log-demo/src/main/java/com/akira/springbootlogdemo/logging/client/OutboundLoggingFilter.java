@@ -0,0 +1,255 @@
+package com.akira.springbootlogdemo.logging.client;
+
+import com.akira.springbootlogdemo.logging.degrade.DegradationLevel;
+import com.akira.springbootlogdemo.logging.degrade.LoggingDegradation;
+import com.akira.springbootlogdemo.logging.metrics.LoggingMetric;
+import com.akira.springbootlogdemo.logging.metrics.OutboundMetrics;
+import com.akira.springbootlogdemo.logging.trace.TraceContext;
+import org.reactivestreams.Publisher;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.slf4j.MDC;
+import org.slf4j.spi.LoggingEventBuilder;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.client.reactive.ClientHttpRequest;
+import org.springframework.http.client.reactive.ClientHttpRequestDecorator;
+import org.springframework.web.reactive.function.BodyInserter;
+import org.springframework.web.reactive.function.client.ClientRequest;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.ExchangeFilterFunction;
+import org.springframework.web.reactive.function.client.ExchangeFunction;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.net.URI;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * WebClient 出站调用的日志、计时和 trace 传递。
+ * <p>
+ * 每次调用：
+ * <ul>
+ *     <li>请求头带上当前 traceId（X-Trace-Id），traceId 是 32 位十六进制时同时带 W3C traceparent，
+ *     parent span id 每次调用新生成，记录在日志的 spanId 中</li>
+ *     <li>记录 DNS、连接（https 包括 TLS 握手）、首字节、总耗时，见 {@link OutboundTimings}；
+ *     复用连接池中的连接时只有首字节和总耗时</li>
+ *     <li>请求体和响应体各记录前 maxBodyBytes 字节，body 照常流式传递，不整体缓存</li>
+ *     <li>按 host 记录耗时直方图（{@link OutboundMetrics}）</li>
+ * </ul>
+ * 日志与入站的 ApiLoggingJsonFilter 字段相同（method、uri、requestBody、status、responseBody、durationMs、exception），
+ * 另加 host、spanId、reused、timings，消息为 CLIENT_LOG。响应体读完（或被取消）时输出，
+ * 此时通常在 netty 线程上，traceId 按调用时的值写入 MDC。
+ * <p>
+ * traceId 优先取 Reactor Context 中的 {@link TraceContext#TRACE_ID}，其次是订阅线程的 MDC，都没有时新生成。
+ * 日志降级同样生效：只保留 ERROR 时不输出日志，只传 trace 和计时。
+ */
+public class OutboundLoggingFilter implements ExchangeFilterFunction {
+
+    private static final Logger log = LoggerFactory.getLogger(OutboundLoggingFilter.class);
+
+    private final int maxBodyBytes;
+
+    public OutboundLoggingFilter(int maxBodyBytes) {
+        this.maxBodyBytes = maxBodyBytes;
+    }
+
+    @Override
+    public Mono<ClientResponse> filter(ClientRequest request, ExchangeFunction next) {
+        return Mono.deferContextual(context -> {
+            String traceId = context.getOrDefault(TraceContext.TRACE_ID, null);
+            if (traceId == null) {
+                traceId = TraceContext.currentOrNewTraceId();
+            }
+            Exchange exchange = new Exchange(request, traceId, LoggingDegradation.currentLevel());
+            return next.exchange(exchange.tracedRequest())
+                    .contextWrite(ctx -> ctx.put(OutboundTimings.class, exchange.timings))
+                    .map(exchange::onResponse)
+                    .doOnError(exchange::onError)
+                    .doOnCancel(exchange::onCancel);
+        });
+    }
+
+    /**
+     * 一次出站调用的状态，在订阅线程上创建
+     */
+    private final class Exchange {
+        private final ClientRequest request;
+        private final String traceId;
+        private final String spanId = TraceContext.newSpanId();
+        private final OutboundTimings timings = new OutboundTimings();
+        private final long startMillis = System.currentTimeMillis();
+        private final boolean logging;
+        private final BodyPrefix requestBody;
+        private final BodyPrefix responseBody;
+        private final AtomicBoolean finished = new AtomicBoolean();
+        private volatile int status;
+        private volatile Charset responseCharset = StandardCharsets.UTF_8;
+
+        Exchange(ClientRequest request, String traceId, DegradationLevel degradation) {
+            this.request = request;
+            this.traceId = traceId;
+            this.logging = !degradation.errorsOnly();
+            this.requestBody = logging && degradation.captureRequestBody() ? new BodyPrefix(maxBodyBytes) : null;
+            this.responseBody = logging && degradation.captureResponseBody() ? new BodyPrefix(maxBodyBytes) : null;
+        }
+
+        ClientRequest tracedRequest() {
+            ClientRequest.Builder builder = ClientRequest.from(request).headers(headers -> {
+                headers.set(TraceContext.TRACE_ID_HEADER, traceId);
+                String traceparent = TraceContext.traceparent(traceId, spanId);
+                if (traceparent != null) {
+                    headers.set(TraceContext.TRACEPARENT_HEADER, traceparent);
+                }
+            });
+            if (requestBody != null) {
+                builder.body(capturing(request.body()));
+            }
+            return builder.build();
+        }
+
+        /**
+         * 写出请求体时顺带记录前缀，写出的 DataBuffer 不变
+         */
+        private BodyInserter<?, ? super ClientHttpRequest> capturing(BodyInserter<?, ? super ClientHttpRequest> body) {
+            return (outputMessage, context) -> body.insert(new ClientHttpRequestDecorator(outputMessage) {
+                @Override
+                public Mono<Void> writeWith(Publisher<? extends DataBuffer> chunks) {
+                    return super.writeWith(Flux.from(chunks).doOnNext(requestBody::capture));
+                }
+            }, context);
+        }
+
+        ClientResponse onResponse(ClientResponse response) {
+            timings.firstByte();
+            status = response.statusCode().value();
+            responseCharset = charset(response.headers().asHttpHeaders());
+            // 响应体读完、出错或被取消（包括 toBodilessEntity 直接释放）时结束本次调用
+            return response.mutate()
+                    .body(body -> (responseBody != null ? body.doOnNext(responseBody::capture) : body)
+                            .doOnError(this::onError)
+                            .doFinally(signal -> finish(null)))
+                    .build();
+        }
+
+        void onError(Throwable error) {
+            finish(error);
+        }
+
+        void onCancel() {
+            if (status == 0) {
+                finish(null);
+            }
+        }
+
+        private void finish(Throwable error) {
+            if (!finished.compareAndSet(false, true)) {
+                return;
+            }
+            long end = System.nanoTime();
+            URI url = request.url();
+            String host = url.getPort() == -1 ? url.getHost() : url.getHost() + ":" + url.getPort();
+            OutboundMetrics.record(host, status, end - timings.start, traceId);
+            if (logging) {
+                log(host, end, error);
+            }
+        }
+
+        private void log(String host, long end, Throwable error) {
+            Map<String, Object> logMap = new LinkedHashMap<>();
+            logMap.put("method", request.method().name());
+            logMap.put("uri", request.url().toString());
+            if (requestBody != null && requestBody.size() > 0) {
+                logMap.put("requestBody", requestBody.asString(charset(request.headers())));
+            }
+            logMap.put("status", status);
+            if (responseBody != null && status != 0) {
+                logMap.put("responseBody", responseBody.asString(responseCharset));
+            }
+            logMap.put("durationMs", System.currentTimeMillis() - startMillis);
+            if (error != null) {
+                logMap.put("exception", error.getClass().getSimpleName() + ": " + error.getMessage());
+            }
+            logMap.put("host", host);
+            logMap.put("spanId", spanId);
+            logMap.put("reused", timings.reused());
+            logMap.put("timings", timings.toMap(end));
+
+            // 结束时通常在 netty 线程上，traceId 和状态码临时写入 MDC，供日志索引检索
+            String previousTraceId = MDC.get(TraceContext.TRACE_ID);
+            String previousStatus = MDC.get(TraceContext.STATUS);
+            MDC.put(TraceContext.TRACE_ID, traceId);
+            MDC.put(TraceContext.STATUS, String.valueOf(status));
+            try {
+                LoggingEventBuilder event = (error != null ? log.atWarn() : log.atInfo()).setMessage("CLIENT_LOG");
+                logMap.forEach(event::addKeyValue);
+                event.log();
+            } finally {
+                restore(TraceContext.TRACE_ID, previousTraceId);
+                restore(TraceContext.STATUS, previousStatus);
+            }
+        }
+    }
+
+    private static void restore(String key, String previous) {
+        if (previous != null) {
+            MDC.put(key, previous);
+        } else {
+            MDC.remove(key);
+        }
+    }
+
+    private static Charset charset(HttpHeaders headers) {
+        MediaType contentType = headers.getContentType();
+        return contentType != null && contentType.getCharset() != null ? contentType.getCharset() : StandardCharsets.UTF_8;
+    }
+
+    /**
+     * body 的前 limit 字节；只拷贝不消费，DataBuffer 的读位置不变
+     */
+    private static final class BodyPrefix {
+        private final int limit;
+        private byte[] bytes;
+        private int length;
+        private long total;
+
+        BodyPrefix(int limit) {
+            this.limit = limit;
+        }
+
+        // capture 在 netty 线程上，asString 可能在其他线程上
+        synchronized void capture(DataBuffer buffer) {
+            int readable = buffer.readableByteCount();
+            total += readable;
+            int copy = Math.min(readable, limit - length);
+            if (copy <= 0) {
+                return;
+            }
+            if (bytes == null) {
+                bytes = new byte[limit];
+            }
+            int position = buffer.readPosition();
+            for (int i = 0; i < copy; i++) {
+                bytes[length++] = buffer.getByte(position + i);
+            }
+            LoggingMetric.CAPTURED_BYTES.add(copy);
+        }
+
+        synchronized long size() {
+            return total;
+        }
+
+        synchronized String asString(Charset charset) {
+            if (length == 0) {
+                return "";
+            }
+            String text = new String(bytes, 0, length, charset);
+            return total > length ? text + "...(truncated)" : text;
+        }
+    }
+}
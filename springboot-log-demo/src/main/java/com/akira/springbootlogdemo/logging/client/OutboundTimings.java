@@ -0,0 +1,106 @@
+package com.akira.springbootlogdemo.logging.client;
+
+import io.netty.channel.Channel;
+import io.netty.util.AttributeKey;
+import reactor.netty.http.client.HttpClient;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 一次出站调用各阶段的时间点（System.nanoTime）。
+ * <p>
+ * OutboundLoggingFilter 为每次调用创建一个，放进 Reactor Context；{@link #instrument} 安装的 reactor-netty 回调
+ * 在连接上记录 DNS 解析和 TCP 连接的起止时间，发送请求时通过 Context 找到本次调用并取走这些时间点。
+ * 复用连接池中的连接时没有 DNS/连接阶段，reused 为 true。
+ */
+final class OutboundTimings {
+
+    private static final AttributeKey<long[]> CONNECT_TIMES = AttributeKey.valueOf("outbound.connectTimes");
+    private static final int RESOLVE_START = 0;
+    private static final int RESOLVE_END = 1;
+    private static final int CONNECTED = 2;
+
+    final long start = System.nanoTime();
+    // 以下字段在 netty 线程上写，在 doFinally 所在的线程上读
+    private volatile long resolveStart;
+    private volatile long resolveEnd;
+    private volatile long connected;
+    private volatile boolean reused = true;
+    private volatile long firstByte;
+
+    /**
+     * 在 HttpClient 上安装记录连接阶段的回调
+     */
+    static HttpClient instrument(HttpClient client) {
+        return client
+                .doOnResolve(connection -> connectTimes(connection.channel())[RESOLVE_START] = System.nanoTime())
+                .doAfterResolve((connection, address) ->
+                        connectTimes(connection.channel())[RESOLVE_END] = System.nanoTime())
+                .doOnConnected(connection -> {
+                    long[] times = connection.channel().attr(CONNECT_TIMES).get();
+                    if (times != null) {
+                        times[CONNECTED] = System.nanoTime();
+                    }
+                })
+                .doOnRequest((request, connection) -> {
+                    OutboundTimings timings = request.currentContextView().getOrDefault(OutboundTimings.class, null);
+                    if (timings != null) {
+                        timings.connectionAcquired(connection.channel());
+                    }
+                });
+    }
+
+    private static long[] connectTimes(Channel channel) {
+        long[] times = channel.attr(CONNECT_TIMES).get();
+        if (times == null) {
+            times = new long[3];
+            channel.attr(CONNECT_TIMES).set(times);
+        }
+        return times;
+    }
+
+    /**
+     * 新建的连接第一次发送请求时取走连接阶段的时间点，之后复用这个连接的请求看不到
+     */
+    private void connectionAcquired(Channel channel) {
+        long[] times = channel.attr(CONNECT_TIMES).getAndSet(null);
+        if (times == null) {
+            return;
+        }
+        resolveStart = times[RESOLVE_START];
+        resolveEnd = times[RESOLVE_END];
+        connected = times[CONNECTED];
+        reused = false;
+    }
+
+    void firstByte() {
+        firstByte = System.nanoTime();
+    }
+
+    boolean reused() {
+        return reused;
+    }
+
+    /**
+     * @return 各阶段耗时(ms)，只包含已经发生的阶段
+     */
+    Map<String, Object> toMap(long end) {
+        Map<String, Object> result = new LinkedHashMap<>();
+        if (resolveStart > 0 && resolveEnd >= resolveStart) {
+            result.put("dnsMs", millis(resolveEnd - resolveStart));
+        }
+        if (resolveEnd > 0 && connected >= resolveEnd) {
+            result.put("connectMs", millis(connected - resolveEnd));
+        }
+        if (firstByte > 0) {
+            result.put("firstByteMs", millis(firstByte - start));
+        }
+        result.put("totalMs", millis(end - start));
+        return result;
+    }
+
+    private static double millis(long nanos) {
+        return Math.round(nanos / 1_000.0) / 1_000.0;
+    }
+}
@@ -0,0 +1,69 @@
+package com.akira.springbootlogdemo.logging.codegen;
+
+import com.akira.springbootlogdemo.logging.aop.ControllerLogWriter;
+import com.akira.springbootlogdemo.logging.config.LoggingConfigManager;
+import com.akira.springbootlogdemo.logging.config.LoggingConfigSnapshot;
+import com.akira.springbootlogdemo.logging.profile.CallTreeProfiler;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+/**
+ * 编译期生成的日志包装类（logging-processor 生成的 {@code Xxx_Logged}）在运行时调用的入口。
+ * <p>
+ * 生成的代码直接传入带类型的参数和编译期算好的路由，不经过 ProceedingJoinPoint、参数数组和反射。
+ * 这里只持有 Spring 管理的依赖，由静态方法提供给生成的代码（生成类不能增加构造参数）。
+ */
+@Component
+public class CompiledLogging {
+
+    // 与 LoggingAspect 使用同一个 logger，两种模式的输出一致
+    private static final Logger serviceLogger =
+            LoggerFactory.getLogger("com.akira.springbootlogdemo.logging.aop.LoggingAspect");
+
+    private static volatile ControllerLogWriter logWriter;
+    private static volatile LoggingConfigManager configManager;
+
+    public CompiledLogging(ControllerLogWriter logWriter, LoggingConfigManager configManager) {
+        CompiledLogging.logWriter = logWriter;
+        CompiledLogging.configManager = configManager;
+    }
+
+    /**
+     * @return Controller 日志关闭或尚未初始化时返回 null，生成的代码直接调用原方法
+     */
+    public static ControllerInvocation controller(LoggedMethod method) {
+        ControllerLogWriter writer = logWriter;
+        LoggingConfigManager manager = configManager;
+        if (writer == null || manager == null) {
+            return null;
+        }
+        LoggingConfigSnapshot config = manager.current();
+        return config.isControllerEnabled() ? new ControllerInvocation(writer, config, method) : null;
+    }
+
+    /**
+     * 生成的 Service 方法在最外层调用，采样中的请求把这次调用记入调用树
+     */
+    public static int profileEnter(LoggedMethod method) {
+        return CallTreeProfiler.enter(method);
+    }
+
+    public static void profileExit(int frame) {
+        CallTreeProfiler.exit(frame);
+    }
+
+    public static boolean isServiceLogEnabled() {
+        return serviceLogger.isDebugEnabled();
+    }
+
+    public static void serviceEnter(LoggedMethod method, Object[] args) {
+        serviceLogger.debug("Entering {}.{}() with args: {}", method.className(), method.methodName(), args);
+    }
+
+    public static void serviceExit(LoggedMethod method, Object result, long startNanos) {
+        long duration = (System.nanoTime() - startNanos) / 1_000_000;
+        serviceLogger.debug("Exiting {}.{}() with result: {}, execution time: {}ms",
+                method.className(), method.methodName(), result, duration);
+    }
+}
@@ -0,0 +1,82 @@
+package com.akira.springbootlogdemo.logging.codegen;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.BeansException;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.beans.factory.config.ConfigurableListableBeanFactory;
+import org.springframework.beans.factory.support.BeanDefinitionRegistry;
+import org.springframework.beans.factory.support.BeanDefinitionRegistryPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * logging.weaving=compile 时，把 Controller/Service 的 Bean 类替换成编译期生成的 {@code Xxx_Logged} 子类。
+ * <p>
+ * 对应关系由 logging-processor 写入 {@value #INDEX}（每行 {@code 原类名=生成类名}），启动时只读这一个清单，
+ * 不扫描类路径；ControllerLoggingAspectOrg / LoggingAspect 在该模式下不注册，也就没有切点匹配和代理。
+ */
+@Component
+@ConditionalOnProperty(prefix = "logging", name = "weaving", havingValue = "compile")
+public class CompiledLoggingRegistrar implements BeanDefinitionRegistryPostProcessor {
+
+    public static final String INDEX = "META-INF/springboot-log-demo/logged-components";
+
+    private static final Logger log = LoggerFactory.getLogger(CompiledLoggingRegistrar.class);
+
+    @Override
+    public void postProcessBeanDefinitionRegistry(BeanDefinitionRegistry registry) throws BeansException {
+        Map<String, String> wrappers = loadIndex(getClass().getClassLoader());
+        if (wrappers.isEmpty()) {
+            log.warn("logging.weaving=compile but no generated logging wrappers were found in {}", INDEX);
+            return;
+        }
+        int replaced = 0;
+        for (String name : registry.getBeanDefinitionNames()) {
+            BeanDefinition definition = registry.getBeanDefinition(name);
+            String wrapper = wrappers.get(definition.getBeanClassName());
+            if (wrapper != null) {
+                definition.setBeanClassName(wrapper);
+                replaced++;
+            }
+        }
+        log.info("Replaced {} bean classes with compile-time logging wrappers", replaced);
+    }
+
+    @Override
+    public void postProcessBeanFactory(ConfigurableListableBeanFactory beanFactory) throws BeansException {
+        // 只需要修改 Bean 定义
+    }
+
+    static Map<String, String> loadIndex(ClassLoader classLoader) {
+        Map<String, String> wrappers = new HashMap<>();
+        try {
+            Enumeration<URL> resources = classLoader.getResources(INDEX);
+            while (resources.hasMoreElements()) {
+                try (BufferedReader reader = new BufferedReader(
+                        new InputStreamReader(resources.nextElement().openStream(), StandardCharsets.UTF_8))) {
+                    String line;
+                    while ((line = reader.readLine()) != null) {
+                        int separator = line.indexOf('=');
+                        if (separator > 0) {
+                            wrappers.put(line.substring(0, separator).trim(), line.substring(separator + 1).trim());
+                        }
+                    }
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read " + INDEX, e);
+        }
+        return wrappers;
+    }
+}
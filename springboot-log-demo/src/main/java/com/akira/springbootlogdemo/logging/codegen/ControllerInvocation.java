@@ -0,0 +1,83 @@
+package com.akira.springbootlogdemo.logging.codegen;
+
+import com.akira.springbootlogdemo.logging.aop.ControllerLogWriter;
+import com.akira.springbootlogdemo.logging.aop.RequestMetaData;
+import com.akira.springbootlogdemo.logging.aop.RequestParamData;
+import com.akira.springbootlogdemo.logging.config.LoggingConfigSnapshot;
+import com.akira.springbootlogdemo.logging.trace.TraceContext;
+import org.springframework.web.server.ServerWebExchange;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 一次 Controller 调用的日志状态，生成的代码按以下顺序调用：
+ * <pre>
+ * ControllerInvocation $call = CompiledLogging.controller(M_0);
+ * $call.param("name", String.class, name);   // 每个参数一次
+ * $call.begin();
+ * return $call.end(super.method(name));       // 异常时 $call.fail(e)
+ * </pre>
+ */
+public final class ControllerInvocation {
+
+    private final ControllerLogWriter logWriter;
+    private final LoggingConfigSnapshot config;
+    private final RequestMetaData metaData = new RequestMetaData();
+    private final List<RequestParamData> params = new ArrayList<>(4);
+    private long startNanos;
+
+    ControllerInvocation(ControllerLogWriter logWriter, LoggingConfigSnapshot config, LoggedMethod method) {
+        this.logWriter = logWriter;
+        this.config = config;
+        metaData.setClassName(method.className());
+        metaData.setMethodName(method.methodName());
+        metaData.setHttpMethod(method.httpMethod());
+        metaData.setBasePath(method.route());
+        metaData.setParams(params);
+    }
+
+    /**
+     * @param type 参数的声明类型，用于 excludedParameterTypes 判断
+     */
+    public void param(String name, Class<?> type, Object value) {
+        if (value instanceof ServerWebExchange exchange) {
+            logWriter.extractExchangeData(exchange, metaData, config);
+            return;
+        }
+        // 过滤掉不需要记录的参数类型
+        if (config.isExcludedParameterType(type)) {
+            return;
+        }
+        RequestParamData paramData = new RequestParamData();
+        paramData.setName(name);
+        paramData.setType(type.getSimpleName());
+        try {
+            paramData.setValue(logWriter.sanitizeParameterValue(value, config));
+        } catch (Exception e) {
+            paramData.setValue("[Serialization Error]");
+        }
+        params.add(paramData);
+    }
+
+    public void begin() {
+        // 请求追踪ID，沿用 TraceIdFilter 写入 MDC 的值
+        metaData.setTraceId(TraceContext.currentOrNewTraceId());
+        logWriter.logRequest(metaData);
+        startNanos = System.nanoTime();
+    }
+
+    @SuppressWarnings("unchecked")
+    public <T> T end(T result) {
+        // Mono/Flux 包装后类型不变
+        return (T) logWriter.logResult(result, metaData, elapsedMillis(), config);
+    }
+
+    public void fail(Throwable error) {
+        logWriter.logError(metaData, error, elapsedMillis(), config);
+    }
+
+    private long elapsedMillis() {
+        return (System.nanoTime() - startNanos) / 1_000_000;
+    }
+}
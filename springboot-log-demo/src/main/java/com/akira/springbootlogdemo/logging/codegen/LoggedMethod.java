@@ -0,0 +1,47 @@
+package com.akira.springbootlogdemo.logging.codegen;
+
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.web.bind.annotation.RequestMapping;
+
+import java.lang.reflect.Method;
+
+/**
+ * 生成的包装类中每个方法一个静态常量，类名、方法名、HTTP 方法和路由模板都在编译期确定；
+ * 运行时切面通过 {@link #controller(Method)} 按同样的规则得到相同的值
+ *
+ * @param httpMethod Service 方法为 null
+ * @param route      类和方法上映射路径拼接后的路由模板，如 /api/test/hello/{name}；Service 方法为 null
+ */
+public record LoggedMethod(String className, String methodName, String httpMethod, String route) {
+
+    public static LoggedMethod service(String className, String methodName) {
+        return new LoggedMethod(className, methodName, null, null);
+    }
+
+    /**
+     * 运行时切面用反射解析 Controller 方法，规则与 LoggingWrapperProcessor 编译期生成的常量相同：
+     * 类上 @RequestMapping 的第一个路径拼上方法上映射注解（@GetMapping ... @PatchMapping、@RequestMapping）的第一个路径，
+     * value 和 path 互为别名；HTTP 方法取 method 的第一个值，@RequestMapping 没有指定时为 null
+     */
+    public static LoggedMethod controller(Method method) {
+        Class<?> type = method.getDeclaringClass();
+        RequestMapping classMapping = AnnotatedElementUtils.getMergedAnnotation(type, RequestMapping.class);
+        RequestMapping methodMapping = AnnotatedElementUtils.getMergedAnnotation(method, RequestMapping.class);
+        String httpMethod = methodMapping != null && methodMapping.method().length > 0
+                ? methodMapping.method()[0].name() : null;
+        return new LoggedMethod(type.getSimpleName(), method.getName(), httpMethod,
+                firstPath(classMapping) + firstPath(methodMapping));
+    }
+
+    private static String firstPath(RequestMapping mapping) {
+        return mapping != null && mapping.path().length > 0 ? mapping.path()[0] : "";
+    }
+
+    /**
+     * 调用树中的节点名，如 TestService.hello
+     */
+    @Override
+    public String toString() {
+        return className + "." + methodName;
+    }
+}
@@ -0,0 +1,24 @@
+package com.akira.springbootlogdemo.logging.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * for BlockingCallDetector
+ */
+@Component
+@ConfigurationProperties(prefix = "logging.blocking-detection")
+@Data
+public class BlockingDetectionProperties {
+    private boolean enabled = false;
+    // 安装 BlockHound 检测 sleep、阻塞 I/O、锁等待，需要 JVM 参数 -XX:+AllowRedefinitionToAddDeleteMethods，
+    // 且 BlockHound 只在 bootRun 和测试的类路径上；关闭或没有 BlockHound 时只检查 MyBatis 拦截器中的 JDBC 调用
+    private boolean instrument = true;
+    // 每分钟最多输出的报告数
+    private int maxReportsPerMinute = 20;
+    // 最多记住多少个已报告的调用点，超出后不再去重
+    private int maxCallSites = 1024;
+
+    // getters and setters
+}
@@ -0,0 +1,155 @@
+package com.akira.springbootlogdemo.logging.config;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.LoggerContext;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.ILoggerFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 运行时可修改的日志配置。
+ * <p>
+ * 启动时从 LoggingProperties / MyBatisLoggingProperties 编译出 {@link LoggingConfigSnapshot}，
+ * 修改时在副本上合并、重新编译，再整体替换 volatile 引用：热路径上只有一次 volatile 读，没有锁。
+ * 写操作之间用 synchronized 串行化，读不受影响。
+ * <p>
+ * 修改请求格式（字段都可以省略，省略的保持不变）：
+ * <pre>
+ * {
+ *   "controller": {"enabled": true, "includeErrorStacktrace": false, "excludedHeaders": ["authorization"]},
+ *   "mybatis": {"showResults": false, "slowQueryThreshold": 200, "excludedSqlIds": ["com.example.mapper.ConfigMapper.*"]},
+ *   "levels": {"SQL_LOGGER": "INFO", "CONTROLLER_LOGGER": null}
+ * }
+ * </pre>
+ * levels 直接修改 logback 的 logger 级别，值为 null 表示恢复继承父 logger。
+ */
+@Component
+public class LoggingConfigManager {
+
+    private static final Logger log = LoggerFactory.getLogger(LoggingConfigManager.class);
+
+    private final ObjectMapper objectMapper;
+    private LoggingProperties controller;
+    private MyBatisLoggingProperties mybatis;
+    // 通过本接口修改过级别的 logger
+    private final Set<String> levels = new LinkedHashSet<>();
+
+    private volatile LoggingConfigSnapshot snapshot;
+
+    public LoggingConfigManager(LoggingProperties loggingProperties,
+                                MyBatisLoggingProperties myBatisLoggingProperties,
+                                ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+        // 保存副本，不修改 Spring 绑定的属性 Bean
+        this.controller = copy(loggingProperties, LoggingProperties.class);
+        this.mybatis = copy(myBatisLoggingProperties, MyBatisLoggingProperties.class);
+        this.snapshot = LoggingConfigSnapshot.compile(controller, mybatis);
+    }
+
+    /**
+     * 热路径调用：每个请求/SQL 读一次，之后只使用返回的快照
+     */
+    public LoggingConfigSnapshot current() {
+        return snapshot;
+    }
+
+    public synchronized Map<String, Object> describe() {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("controller", controller);
+        result.put("mybatis", mybatis);
+        Map<String, String> effective = new LinkedHashMap<>();
+        ILoggerFactory factory = LoggerFactory.getILoggerFactory();
+        if (factory instanceof LoggerContext context) {
+            for (String name : levels) {
+                effective.put(name, String.valueOf(context.getLogger(name).getEffectiveLevel()));
+            }
+        }
+        result.put("levels", effective);
+        return result;
+    }
+
+    /**
+     * 合并修改并原子替换快照；请求不合法时抛出 IllegalArgumentException，当前配置保持不变
+     */
+    public synchronized Map<String, Object> update(JsonNode patch) {
+        if (patch == null || !patch.isObject()) {
+            throw new IllegalArgumentException("Request body must be a JSON object");
+        }
+        LoggingProperties nextController = merge(controller, patch.get("controller"), LoggingProperties.class);
+        MyBatisLoggingProperties nextMybatis = merge(mybatis, patch.get("mybatis"), MyBatisLoggingProperties.class);
+        Map<String, Level> nextLevels = parseLevels(patch.get("levels"));
+
+        LoggingConfigSnapshot next = LoggingConfigSnapshot.compile(nextController, nextMybatis);
+        controller = nextController;
+        mybatis = nextMybatis;
+        snapshot = next;
+        applyLevels(nextLevels);
+
+        log.warn("Logging configuration updated: {}", patch);
+        return describe();
+    }
+
+    private <T> T merge(T current, JsonNode patch, Class<T> type) {
+        T copy = copy(current, type);
+        if (patch == null || patch.isNull()) {
+            return copy;
+        }
+        try {
+            return objectMapper.readerForUpdating(copy).readValue(patch);
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Invalid " + type.getSimpleName() + ": " + e.getOriginalMessage(), e);
+        }
+    }
+
+    private <T> T copy(T value, Class<T> type) {
+        return objectMapper.convertValue(value, type);
+    }
+
+    private Map<String, Level> parseLevels(JsonNode node) {
+        Map<String, Level> result = new LinkedHashMap<>();
+        if (node == null || node.isNull()) {
+            return result;
+        }
+        if (!node.isObject()) {
+            throw new IllegalArgumentException("levels must be a JSON object");
+        }
+        Iterator<Map.Entry<String, JsonNode>> fields = node.fields();
+        while (fields.hasNext()) {
+            Map.Entry<String, JsonNode> field = fields.next();
+            JsonNode value = field.getValue();
+            if (value.isNull()) {
+                if (Logger.ROOT_LOGGER_NAME.equalsIgnoreCase(field.getKey())) {
+                    throw new IllegalArgumentException("ROOT level cannot be reset");
+                }
+                result.put(field.getKey(), null);
+                continue;
+            }
+            Level level = Level.toLevel(value.asText(), null);
+            if (level == null) {
+                throw new IllegalArgumentException("Unknown level for " + field.getKey() + ": " + value.asText());
+            }
+            result.put(field.getKey(), level);
+        }
+        return result;
+    }
+
+    private void applyLevels(Map<String, Level> nextLevels) {
+        if (nextLevels.isEmpty() || !(LoggerFactory.getILoggerFactory() instanceof LoggerContext context)) {
+            return;
+        }
+        nextLevels.forEach((name, level) -> {
+            context.getLogger(name).setLevel(level);
+            levels.add(name);
+        });
+    }
+}
@@ -0,0 +1,109 @@
+package com.akira.springbootlogdemo.logging.config;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * LoggingProperties 和 MyBatisLoggingProperties 编译后的不可变快照。
+ * <p>
+ * 列表转成 HashSet，请求头名统一转小写，excludedSqlIds 中以 {@code *} 结尾的项编译成前缀匹配。
+ * 快照创建后不再修改，调用方每次请求只读一次 {@link LoggingConfigManager#current()}，之后的判断都不需要同步。
+ */
+@Getter
+public final class LoggingConfigSnapshot {
+
+    // Controller 日志（logging.controller）
+    private final boolean controllerEnabled;
+    private final boolean includeErrorStacktrace;
+    private final Set<String> excludedHeaders;
+    private final Set<String> excludedParameterTypes;
+    private final int maxPayloadBytes;
+    private final int maxPayloadDepth;
+    private final long stackTraceWindow;
+    private final int maxStackTraceFingerprints;
+
+    // SQL 日志（mybatis.logging）
+    private final boolean sqlEnabled;
+    private final long slowQueryThreshold;
+    private final boolean showResults;
+    private final boolean showParams;
+    private final int maxResultLength;
+    private final Set<String> excludedSqlIds;
+    @Getter(AccessLevel.NONE)
+    private final String[] excludedSqlIdPrefixes;
+
+    private LoggingConfigSnapshot(LoggingProperties controller, MyBatisLoggingProperties mybatis) {
+        this.controllerEnabled = controller.isEnabled();
+        this.includeErrorStacktrace = controller.isIncludeErrorStacktrace();
+        this.excludedHeaders = lowerCase(controller.getExcludedHeaders());
+        this.excludedParameterTypes = Set.copyOf(nonNull(controller.getExcludedParameterTypes()));
+        this.maxPayloadBytes = controller.getMaxPayloadBytes();
+        this.maxPayloadDepth = controller.getMaxPayloadDepth();
+        this.stackTraceWindow = controller.getStackTraceWindow();
+        this.maxStackTraceFingerprints = controller.getMaxStackTraceFingerprints();
+
+        this.sqlEnabled = mybatis.isEnabled();
+        this.slowQueryThreshold = mybatis.getSlowQueryThreshold();
+        this.showResults = mybatis.isShowResults();
+        this.showParams = mybatis.isShowParams();
+        this.maxResultLength = mybatis.getMaxResultLength();
+
+        Set<String> exact = new HashSet<>();
+        List<String> prefixes = new ArrayList<>();
+        for (String id : nonNull(mybatis.getExcludedSqlIds())) {
+            if (id.endsWith("*")) {
+                prefixes.add(id.substring(0, id.length() - 1));
+            } else {
+                exact.add(id);
+            }
+        }
+        this.excludedSqlIds = Set.copyOf(exact);
+        this.excludedSqlIdPrefixes = prefixes.toArray(new String[0]);
+    }
+
+    public static LoggingConfigSnapshot compile(LoggingProperties controller, MyBatisLoggingProperties mybatis) {
+        return new LoggingConfigSnapshot(controller, mybatis);
+    }
+
+    /**
+     * 请求头名大小写不敏感
+     */
+    public boolean isExcludedHeader(String name) {
+        return excludedHeaders.contains(name.toLowerCase(Locale.ROOT));
+    }
+
+    public boolean isExcludedParameterType(Class<?> type) {
+        return excludedParameterTypes.contains(type.getName());
+    }
+
+    public boolean isExcludedSqlId(String id) {
+        if (excludedSqlIds.contains(id)) {
+            return true;
+        }
+        for (String prefix : excludedSqlIdPrefixes) {
+            if (id.startsWith(prefix)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static Set<String> lowerCase(Collection<String> values) {
+        Set<String> result = new HashSet<>();
+        for (String value : nonNull(values)) {
+            result.add(value.toLowerCase(Locale.ROOT));
+        }
+        return Set.copyOf(result);
+    }
+
+    private static <T> Collection<T> nonNull(Collection<T> values) {
+        return values != null ? values : List.of();
+    }
+}
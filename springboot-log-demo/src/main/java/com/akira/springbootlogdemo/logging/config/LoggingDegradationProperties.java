@@ -0,0 +1,27 @@
+package com.akira.springbootlogdemo.logging.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * for LoggingDegradation
+ */
+@Component
+@ConfigurationProperties(prefix = "logging.degradation")
+@Data
+public class LoggingDegradationProperties {
+    private boolean enabled = true;
+    // 评估周期(ms)
+    private long evaluationInterval = 1000;
+    // 异步队列占用比例，超过 high 升级一档，低于 low 才算恢复
+    private double queueHighWatermark = 0.5;
+    private double queueLowWatermark = 0.2;
+    // 请求 p99(ms)
+    private long latencyHighThreshold = 1000;
+    private long latencyLowThreshold = 300;
+    // 连续多少个周期无压力才降一档
+    private int recoveryIntervals = 5;
+
+    // getters and setters
+}
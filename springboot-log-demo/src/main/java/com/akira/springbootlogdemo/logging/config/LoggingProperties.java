@@ -9,7 +9,7 @@ import java.util.Collections;
 import java.util.List;
 
 /**
- * for ControllerLoggingAspectOrg
+ * for ControllerLoggingAspectOrg（经 LoggingConfigManager 编译成快照后读取）
  */
 @Component
 @ConfigurationProperties(prefix = "logging.controller")
@@ -19,6 +19,12 @@ public class LoggingProperties {
     private boolean includeErrorStacktrace = false;
     private List<String> excludedHeaders = Arrays.asList("authorization", "cookie");
     private List<String> excludedParameterTypes = Collections.singletonList("org.springframework.ui.Model");
+    // 单个参数/响应体写入日志的字节和嵌套深度上限，超出部分截断
+    private int maxPayloadBytes = 4096;
+    private int maxPayloadDepth = 8;
+    // 同一异常堆栈（按指纹）在这个时间窗口内只输出一次完整堆栈，之后只输出指纹和次数；0 表示不去重
+    private long stackTraceWindow = 60000; // ms
+    private int maxStackTraceFingerprints = 4096;
 
     // getters and setters
 }
\ No newline at end of file
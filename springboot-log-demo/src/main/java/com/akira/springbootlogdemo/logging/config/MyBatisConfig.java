@@ -8,7 +8,7 @@ import org.springframework.context.annotation.Configuration;
 public class MyBatisConfig {
 
     @Bean
-    public SqlLoggingInterceptor sqlLoggingInterceptor() {
-        return new SqlLoggingInterceptor();
+    public SqlLoggingInterceptor sqlLoggingInterceptor(LoggingConfigManager configManager) {
+        return new SqlLoggingInterceptor(configManager);
     }
 }
\ No newline at end of file
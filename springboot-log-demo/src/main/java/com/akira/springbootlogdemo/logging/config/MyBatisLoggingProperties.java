@@ -8,7 +8,7 @@ import java.util.Collections;
 import java.util.List;
 
 /**
- * for SqlLoggingInterceptorOrg
+ * for SqlLoggingInterceptor（经 LoggingConfigManager 编译成快照后读取）
  */
 @Component
 @ConfigurationProperties(prefix = "mybatis.logging")
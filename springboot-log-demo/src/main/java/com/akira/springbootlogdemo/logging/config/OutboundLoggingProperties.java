@@ -0,0 +1,25 @@
+package com.akira.springbootlogdemo.logging.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * for OutboundLoggingFilter
+ */
+@Component
+@ConfigurationProperties(prefix = "logging.outbound")
+@Data
+public class OutboundLoggingProperties {
+    private boolean enabled = true;
+    // 请求体/响应体各记录的前缀字节数，超出部分写截断标记
+    private int maxBodyBytes = 2000;
+    // 每个目标地址的最大连接数
+    private int maxConnections = 500;
+    // 连接池满时等待连接的超时(ms)
+    private long pendingAcquireTimeout = 45000;
+    // 空闲连接的回收时间(ms)
+    private long maxIdleTime = 30000;
+
+    // getters and setters
+}
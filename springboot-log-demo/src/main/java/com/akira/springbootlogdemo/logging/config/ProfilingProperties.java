@@ -0,0 +1,25 @@
+package com.akira.springbootlogdemo.logging.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * for CallTreeProfiler
+ */
+@Component
+@ConfigurationProperties(prefix = "logging.profiling")
+@Data
+public class ProfilingProperties {
+    private boolean enabled = false;
+    // 采样比例，0.01 表示 1% 的请求记录调用树
+    private double sampleRate = 0.01;
+    // 被采样的请求耗时(ms)达到阈值才输出 PROFILE 记录
+    private long threshold = 500;
+    // 每个线程预分配的调用树节点数，超出的调用计入父节点
+    private int maxFrames = 256;
+    // 最大调用深度
+    private int maxDepth = 32;
+
+    // getters and setters
+}
@@ -0,0 +1,18 @@
+package com.akira.springbootlogdemo.logging.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * for CachedBodyFilter
+ */
+@Component
+@ConfigurationProperties(prefix = "logging.request-body")
+@Data
+public class RequestBodyProperties {
+    // 每个请求最多缓存的请求体字节数，超出部分不缓存，只能由 Controller 读取一次
+    private int maxCachedBodyBytes = 1024 * 1024;
+
+    // getters and setters
+}
@@ -0,0 +1,49 @@
+package com.akira.springbootlogdemo.logging.degrade;
+
+/**
+ * 日志降级档位，逐档累加：后一档包含前一档的全部降级
+ */
+public enum DegradationLevel {
+
+    NORMAL,
+
+    /**
+     * 不再缓存和记录响应体
+     */
+    DROP_RESPONSE_BODY,
+
+    /**
+     * 请求体也不再缓存和记录，Controller 参数中的复杂对象不再序列化
+     */
+    DROP_REQUEST_BODY,
+
+    /**
+     * INFO 及以下按比例采样
+     */
+    SAMPLE_INFO,
+
+    /**
+     * 只保留 ERROR
+     */
+    ERRORS_ONLY;
+
+    public boolean captureResponseBody() {
+        return this == NORMAL;
+    }
+
+    public boolean captureRequestBody() {
+        return compareTo(DROP_REQUEST_BODY) < 0;
+    }
+
+    public boolean errorsOnly() {
+        return this == ERRORS_ONLY;
+    }
+
+    DegradationLevel next() {
+        return this == ERRORS_ONLY ? this : values()[ordinal() + 1];
+    }
+
+    DegradationLevel previous() {
+        return this == NORMAL ? this : values()[ordinal() - 1];
+    }
+}
@@ -0,0 +1,98 @@
+package com.akira.springbootlogdemo.logging.degrade;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.turbo.TurboFilter;
+import ch.qos.logback.core.spi.FilterReply;
+import com.akira.springbootlogdemo.logging.metrics.LoggingMetric;
+import org.slf4j.Marker;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 按 {@link LoggingDegradation} 的档位在日志事件创建之前过滤：
+ * SAMPLE_INFO 时 INFO 及以下每 sampleRate 条保留 1 条，ERRORS_ONLY 时只放行 ERROR。
+ * <p>
+ * SLF4J 2 的 {@code atInfo()...log()} 只在 {@code atInfo()} 时经过 turbo filter（format 为 null 的判断），
+ * 之后的 {@code log()} 不再经过，所以 isXxxEnabled()/atXxx() 的判断本身也要采样。
+ * 判断放行后，同一线程里同一 logger、同一级别紧接着的一次普通调用不再重复采样，之后的调用照常采样，
+ * 这样 {@code if (log.isInfoEnabled()) { log.info(...); }} 不会被采样两次，
+ * 一次放行的判断也不会让之后循环里的调用全部绕过采样。
+ * <pre>
+ * &lt;turboFilter class="com.akira.springbootlogdemo.logging.degrade.DegradationTurboFilter"&gt;
+ *     &lt;sampleRate&gt;10&lt;/sampleRate&gt;
+ * &lt;/turboFilter&gt;
+ * </pre>
+ */
+public class DegradationTurboFilter extends TurboFilter {
+
+    private final AtomicLong counter = new AtomicLong();
+    // 每个线程最近一次放行的判断
+    private final ThreadLocal<Admitted> admitted = ThreadLocal.withInitial(Admitted::new);
+    private int sampleRate = 10;
+
+    @Override
+    public FilterReply decide(Marker marker, Logger logger, Level level, String format, Object[] params, Throwable t) {
+        DegradationLevel degradation = LoggingDegradation.currentLevel();
+        if (degradation.compareTo(DegradationLevel.SAMPLE_INFO) < 0 || level == null || logger == null) {
+            return FilterReply.NEUTRAL;
+        }
+        // 本来就不会输出的级别交给 logger 自己判断，不采样也不计数
+        if (!level.isGreaterOrEqual(logger.getEffectiveLevel())) {
+            return FilterReply.NEUTRAL;
+        }
+        if (degradation.errorsOnly()) {
+            return level.isGreaterOrEqual(Level.ERROR) ? FilterReply.NEUTRAL : deny();
+        }
+        if (level.toInt() > Level.INFO_INT) {
+            return FilterReply.NEUTRAL;
+        }
+
+        Admitted last = admitted.get();
+        if (format != null && last.matches(logger, level)) {
+            // 放行只用一次
+            last.clear();
+            return FilterReply.NEUTRAL;
+        }
+        boolean keep = counter.getAndIncrement() % sampleRate == 0;
+        if (format == null) {
+            // 每次判断都覆盖上一次的结果
+            last.set(keep ? logger : null, level);
+        }
+        return keep ? FilterReply.NEUTRAL : deny();
+    }
+
+    /**
+     * 判断被拒绝时，调用方不会再构造事件（atXxx() 返回 NOP builder），所以同样计为丢弃
+     */
+    private static FilterReply deny() {
+        LoggingMetric.DISCARDED_EVENTS.increment();
+        return FilterReply.DENY;
+    }
+
+    public int getSampleRate() {
+        return sampleRate;
+    }
+
+    public void setSampleRate(int sampleRate) {
+        this.sampleRate = Math.max(1, sampleRate);
+    }
+
+    private static final class Admitted {
+        private Logger logger;
+        private Level level;
+
+        boolean matches(Logger logger, Level level) {
+            return this.logger == logger && this.level == level;
+        }
+
+        void set(Logger logger, Level level) {
+            this.logger = logger;
+            this.level = level;
+        }
+
+        void clear() {
+            set(null, null);
+        }
+    }
+}
@@ -0,0 +1,178 @@
+package com.akira.springbootlogdemo.logging.degrade;
+
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.Appender;
+import com.akira.springbootlogdemo.logging.appender.RingBufferAsyncAppender;
+import com.akira.springbootlogdemo.logging.config.LoggingDegradationProperties;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.ILoggerFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.util.Iterator;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 日志自适应降级：根据异步队列积压和请求 p99 逐档降级，压力消失后带滞后地逐档恢复。
+ * <p>
+ * 档位和请求耗时窗口是全局共享的（静态字段），过滤器、ControllerLoggingAspectOrg 和 logback 的
+ * {@link DegradationTurboFilter} 都读同一个值，不依赖 Spring 注入。
+ * <ul>
+ *     <li>队列占用 &gt;= queueHighWatermark 或 p99 &gt;= latencyHighThreshold：每个评估周期升一档</li>
+ *     <li>队列占用 &lt;= queueLowWatermark 且 p99 &lt;= latencyLowThreshold 连续 recoveryIntervals 个周期：降一档</li>
+ *     <li>介于两者之间：保持不变</li>
+ * </ul>
+ */
+@Component
+public class LoggingDegradation {
+
+    private static final Logger log = LoggerFactory.getLogger(LoggingDegradation.class);
+
+    private static volatile DegradationLevel level = DegradationLevel.NORMAL;
+    private static final LatencyWindow LATENCY = new LatencyWindow();
+
+    private final LoggingDegradationProperties properties;
+    private ScheduledExecutorService executor;
+    private int calmIntervals;
+
+    public LoggingDegradation(LoggingDegradationProperties properties) {
+        this.properties = properties;
+    }
+
+    public static DegradationLevel currentLevel() {
+        return level;
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "LoggingDegradation");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long interval = Math.max(100, properties.getEvaluationInterval());
+        executor.scheduleWithFixedDelay(this::evaluate, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+        level = DegradationLevel.NORMAL;
+    }
+
+    /**
+     * 由 TraceIdFilter 在每个请求结束时调用
+     */
+    public static void recordRequest(long durationNanos) {
+        LATENCY.record(TimeUnit.NANOSECONDS.toMillis(durationNanos));
+    }
+
+    void evaluate() {
+        try {
+            double queueFill = maxQueueFill();
+            long p99 = LATENCY.percentileAndReset(0.99);
+            boolean pressure = queueFill >= properties.getQueueHighWatermark()
+                    || p99 >= properties.getLatencyHighThreshold();
+            boolean calm = queueFill <= properties.getQueueLowWatermark()
+                    && p99 <= properties.getLatencyLowThreshold();
+
+            DegradationLevel current = level;
+            if (pressure) {
+                calmIntervals = 0;
+                change(current, current.next(), queueFill, p99);
+            } else if (calm && current != DegradationLevel.NORMAL) {
+                if (++calmIntervals >= properties.getRecoveryIntervals()) {
+                    calmIntervals = 0;
+                    change(current, current.previous(), queueFill, p99);
+                }
+            } else {
+                calmIntervals = 0;
+            }
+        } catch (RuntimeException e) {
+            // 评估失败不能让定时任务终止
+            log.warn("Failed to evaluate logging degradation", e);
+        }
+    }
+
+    private void change(DegradationLevel from, DegradationLevel to, double queueFill, long p99) {
+        if (from == to) {
+            return;
+        }
+        level = to;
+        // ERROR 级别，ERRORS_ONLY 档位下也能看到
+        log.error("Logging degradation {} -> {} (queue fill {}%, request p99 {}ms)",
+                from, to, Math.round(queueFill * 100), p99);
+    }
+
+    /**
+     * 所有 RingBufferAsyncAppender 主缓冲区的最大占用比例
+     */
+    private double maxQueueFill() {
+        ILoggerFactory factory = LoggerFactory.getILoggerFactory();
+        if (!(factory instanceof LoggerContext context)) {
+            return 0;
+        }
+        double max = 0;
+        for (ch.qos.logback.classic.Logger logger : context.getLoggerList()) {
+            Iterator<Appender<ILoggingEvent>> it = logger.iteratorForAppenders();
+            while (it.hasNext()) {
+                if (it.next() instanceof RingBufferAsyncAppender async && async.isStarted()) {
+                    int queued = async.getQueueSize() - async.getErrorQueueSize();
+                    int capacity = queued + async.getRemainingCapacity();
+                    if (capacity > 0) {
+                        max = Math.max(max, (double) queued / capacity);
+                    }
+                }
+            }
+        }
+        return max;
+    }
+
+    /**
+     * 一个评估周期内的请求耗时分布，按 2 的幂分桶（1ms、2ms、4ms ... 约 65s）
+     */
+    static final class LatencyWindow {
+        private static final int BUCKETS = 18;
+        private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+
+        void record(long millis) {
+            int bucket = millis <= 1 ? 0 : Math.min(BUCKETS - 1, 64 - Long.numberOfLeadingZeros(millis - 1));
+            counts.incrementAndGet(bucket);
+        }
+
+        /**
+         * @return 百分位所在桶的上界(ms)，没有请求时为 0
+         */
+        long percentileAndReset(double percentile) {
+            long[] snapshot = new long[BUCKETS];
+            long total = 0;
+            for (int i = 0; i < BUCKETS; i++) {
+                snapshot[i] = counts.getAndSet(i, 0);
+                total += snapshot[i];
+            }
+            if (total == 0) {
+                return 0;
+            }
+            long rank = (long) Math.ceil(total * percentile);
+            long seen = 0;
+            for (int i = 0; i < BUCKETS; i++) {
+                seen += snapshot[i];
+                if (seen >= rank) {
+                    return 1L << i;
+                }
+            }
+            return 1L << (BUCKETS - 1);
+        }
+    }
+}
@@ -0,0 +1,144 @@
+package com.akira.springbootlogdemo.logging.error;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 异常堆栈指纹：同一个指纹的完整堆栈在每个时间窗口内只输出一次。
+ * <p>
+ * 指纹是异常类型和所有栈帧（类、方法、文件、行号）沿 cause 链计算的 64 位哈希，不包含异常消息，
+ * 同一处代码抛出的、消息不同的异常视为同一个指纹。窗口内第一次出现时返回完整堆栈，之后只返回指纹和窗口内的累计次数。
+ * <p>
+ * 最多记住 maxFingerprints 个指纹，满了之后先清理窗口已过期的，仍然满时新指纹不去重，每次都输出完整堆栈。
+ */
+public class StackTraceFingerprints {
+
+    // cause 链最多计算和输出的层数
+    private static final int MAX_CAUSES = 16;
+
+    private final Map<Long, Window> windows = new ConcurrentHashMap<>();
+
+    /**
+     * 一次异常的记录结果
+     *
+     * @param fingerprint 16 位十六进制指纹
+     * @param occurrences 当前窗口内（包括这一次）的出现次数
+     * @param stackTrace  窗口内第一次出现时的完整堆栈，包括 cause 链；其他时候为 null
+     */
+    public record Occurrence(String fingerprint, long occurrences, List<String> stackTrace) {
+    }
+
+    /**
+     * @param windowMillis    同一指纹两次输出完整堆栈的最小间隔，不大于 0 时每次都输出
+     * @param maxFingerprints 最多记住的指纹数
+     */
+    public Occurrence record(Throwable error, long windowMillis, int maxFingerprints) {
+        List<Throwable> chain = causeChain(error);
+        long hash = fingerprint(chain);
+        String id = String.format("%016x", hash);
+        if (windowMillis <= 0) {
+            return new Occurrence(id, 1, stackTrace(chain));
+        }
+
+        long now = System.nanoTime();
+        long windowNanos = windowMillis * 1_000_000L;
+        Window window = windows.get(hash);
+        if (window == null) {
+            if (windows.size() >= maxFingerprints) {
+                windows.values().removeIf(w -> now - w.start >= windowNanos);
+            }
+            if (windows.size() >= maxFingerprints) {
+                return new Occurrence(id, 1, stackTrace(chain));
+            }
+            window = new Window(now);
+            Window existing = windows.putIfAbsent(hash, window);
+            if (existing == null) {
+                return new Occurrence(id, 1, stackTrace(chain));
+            }
+            window = existing;
+        }
+
+        long occurrences;
+        // 判断过期、重置和计数在同一把锁内，与重置并发的计数不会丢失或记到另一个窗口
+        synchronized (window) {
+            if (now - window.start >= windowNanos) {
+                window.start = now;
+                window.count = 1;
+            } else {
+                window.count++;
+            }
+            occurrences = window.count;
+        }
+        // 新窗口重新输出完整堆栈
+        return new Occurrence(id, occurrences, occurrences == 1 ? stackTrace(chain) : null);
+    }
+
+    public int size() {
+        return windows.size();
+    }
+
+    static long fingerprint(List<Throwable> chain) {
+        long hash = 0xcbf29ce484222325L;
+        for (Throwable throwable : chain) {
+            hash = mix(hash, throwable.getClass().getName().hashCode());
+            for (StackTraceElement frame : throwable.getStackTrace()) {
+                hash = mix(hash, frame.getClassName().hashCode());
+                hash = mix(hash, frame.getMethodName().hashCode());
+                hash = mix(hash, frame.getFileName() != null ? frame.getFileName().hashCode() : 0);
+                hash = mix(hash, frame.getLineNumber());
+            }
+        }
+        return hash;
+    }
+
+    private static long mix(long hash, int value) {
+        // FNV-1a 按 int 混入
+        return (hash ^ value) * 0x100000001b3L;
+    }
+
+    /**
+     * 异常本身和它的 cause，遇到循环引用或超过 MAX_CAUSES 层时停止
+     */
+    private static List<Throwable> causeChain(Throwable error) {
+        List<Throwable> chain = new ArrayList<>(2);
+        Set<Throwable> seen = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (Throwable current = error; current != null && chain.size() < MAX_CAUSES && seen.add(current);
+             current = current.getCause()) {
+            chain.add(current);
+        }
+        return chain;
+    }
+
+    /**
+     * 与 printStackTrace 相同的顺序：异常的栈帧，之后每个 cause 一行 "Caused by: 类型: 消息" 和它的栈帧
+     */
+    private static List<String> stackTrace(List<Throwable> chain) {
+        List<String> lines = new ArrayList<>();
+        for (int i = 0; i < chain.size(); i++) {
+            Throwable throwable = chain.get(i);
+            if (i > 0) {
+                lines.add("Caused by: " + throwable);
+            }
+            for (StackTraceElement frame : throwable.getStackTrace()) {
+                lines.add(frame.toString());
+            }
+        }
+        return lines;
+    }
+
+    private static final class Window {
+        // 清理过期指纹时在锁外读取
+        private volatile long start;
+        // 由 Window 自身的锁保护
+        private long count = 1;
+
+        Window(long start) {
+            this.start = start;
+        }
+    }
+}
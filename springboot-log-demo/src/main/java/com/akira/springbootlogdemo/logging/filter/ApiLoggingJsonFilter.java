@@ -1,14 +1,18 @@
 package com.akira.springbootlogdemo.logging.filter;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.akira.springbootlogdemo.logging.degrade.DegradationLevel;
+import com.akira.springbootlogdemo.logging.degrade.LoggingDegradation;
+import com.akira.springbootlogdemo.logging.metrics.LoggingMetric;
+import com.akira.springbootlogdemo.logging.trace.TraceContext;
 import jakarta.servlet.*;
 import jakarta.servlet.annotation.WebFilter;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.slf4j.MDC;
+import org.slf4j.spi.LoggingEventBuilder;
 import org.springframework.stereotype.Component;
-import org.springframework.web.util.ContentCachingRequestWrapper;
 import org.springframework.web.util.ContentCachingResponseWrapper;
 
 import java.io.IOException;
@@ -22,7 +26,6 @@ public class ApiLoggingJsonFilter implements Filter {
 
     private static final Logger log = LoggerFactory.getLogger(ApiLoggingJsonFilter.class);
     private static final int MAX_BODY_LENGTH = 2000;
-    private static final ObjectMapper objectMapper = new ObjectMapper();
 
     @Override
     public void doFilter(ServletRequest request, ServletResponse response, FilterChain chain)
@@ -31,26 +34,37 @@ public class ApiLoggingJsonFilter implements Filter {
         HttpServletRequest httpRequest = (HttpServletRequest) request;
         HttpServletResponse httpResponse = (HttpServletResponse) response;
 
-        ContentCachingRequestWrapper requestWrapper = new ContentCachingRequestWrapper(httpRequest);
-        ContentCachingResponseWrapper responseWrapper = new ContentCachingResponseWrapper(httpResponse);
+        DegradationLevel degradation = LoggingDegradation.currentLevel();
+        if (degradation.errorsOnly()) {
+            // 只保留 ERROR 时 API 日志不会输出，请求和响应都不再包装
+            chain.doFilter(request, response);
+            return;
+        }
+        // 降级时不再记录请求体、不再缓存响应体；请求体由 CachedBodyFilter 统一缓存，这里不再包装请求
+        CachedBodyRequest cachedRequest = degradation.captureRequestBody() ? CachedBodyRequest.from(httpRequest) : null;
+        HttpServletResponse responseWrapper = degradation.captureResponseBody()
+                ? new ContentCachingResponseWrapper(httpResponse) : httpResponse;
 
         long startTime = System.currentTimeMillis();
         Exception exception = null;
 
         try {
-            chain.doFilter(requestWrapper, responseWrapper);
+            chain.doFilter(request, responseWrapper);
         } catch (Exception ex) {
             exception = ex;
             throw ex;
         } finally {
             long duration = System.currentTimeMillis() - startTime;
-            logRequestResponse(requestWrapper, responseWrapper, duration, exception);
-            responseWrapper.copyBodyToResponse();
+            logRequestResponse(httpRequest, cachedRequest, responseWrapper, duration, exception);
+            if (responseWrapper instanceof ContentCachingResponseWrapper cachingResponse) {
+                cachingResponse.copyBodyToResponse();
+            }
         }
     }
 
-    private void logRequestResponse(ContentCachingRequestWrapper request,
-                                    ContentCachingResponseWrapper response,
+    private void logRequestResponse(HttpServletRequest request,
+                                    CachedBodyRequest cachedRequest,
+                                    HttpServletResponse response,
                                     long duration,
                                     Exception ex) {
 
@@ -62,24 +76,44 @@ public class ApiLoggingJsonFilter implements Filter {
         String fullUri = queryString != null ? uri + "?" + queryString : uri;
         logMap.put("uri", fullUri);
 
-        String requestBody = getContentAsString(request.getContentAsByteArray(), request.getCharacterEncoding());
-        if (!requestBody.isBlank()) {
-            logMap.put("requestBody", truncate(requestBody));
+        if (cachedRequest != null) {
+            String requestBody = getRequestBody(cachedRequest);
+            if (!requestBody.isBlank()) {
+                logMap.put("requestBody", truncate(requestBody));
+            }
         }
 
-        String responseBody = getContentAsString(response.getContentAsByteArray(), response.getCharacterEncoding());
         logMap.put("status", response.getStatus());
-        logMap.put("responseBody", truncate(responseBody));
+        if (response instanceof ContentCachingResponseWrapper cachingResponse) {
+            String responseBody = getContentAsString(cachingResponse.getContentAsByteArray(), response.getCharacterEncoding());
+            logMap.put("responseBody", truncate(responseBody));
+        }
         logMap.put("durationMs", duration);
 
         if (ex != null) {
             logMap.put("exception", ex.getClass().getSimpleName() + ": " + ex.getMessage());
         }
 
+        // 状态码写入 MDC，供日志索引按 URI/状态码检索
+        MDC.put(TraceContext.STATUS, String.valueOf(response.getStatus()));
         try {
-            log.info("API_LOG: {}", objectMapper.writeValueAsString(logMap));
-        } catch (Exception e) {
-            log.error("Failed to serialize API log", e);
+            // 以 key-value 输出，由 JsonEncoder 直接写成 JSON 字段，不再先序列化成字符串
+            LoggingEventBuilder event = log.atInfo().setMessage("API_LOG");
+            logMap.forEach(event::addKeyValue);
+            event.log();
+        } finally {
+            MDC.remove(TraceContext.STATUS);
+        }
+    }
+
+    /**
+     * 请求体来自 CachedBodyFilter 共享的缓存；多解码一个字符，超长时由 truncate 加上截断标记
+     */
+    private String getRequestBody(CachedBodyRequest request) {
+        try {
+            return request.getBodyAsString(MAX_BODY_LENGTH + 1);
+        } catch (IOException e) {
+            return "[UNREADABLE BODY]";
         }
     }
 
@@ -87,6 +121,7 @@ public class ApiLoggingJsonFilter implements Filter {
         if (buf == null || buf.length == 0) {
             return "";
         }
+        LoggingMetric.CAPTURED_BYTES.add(buf.length);
         try {
             return new String(buf, encoding != null ? encoding : StandardCharsets.UTF_8.name());
         } catch (Exception e) {
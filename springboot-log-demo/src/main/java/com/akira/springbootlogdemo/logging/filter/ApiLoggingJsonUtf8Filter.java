@@ -1,16 +1,16 @@
 package com.akira.springbootlogdemo.logging.filter;
 
-import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.databind.SerializationFeature;
+import com.akira.springbootlogdemo.logging.degrade.DegradationLevel;
+import com.akira.springbootlogdemo.logging.degrade.LoggingDegradation;
+import com.akira.springbootlogdemo.logging.metrics.LoggingMetric;
 import jakarta.servlet.*;
 import jakarta.servlet.annotation.WebFilter;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.slf4j.spi.LoggingEventBuilder;
 import org.springframework.stereotype.Component;
-import org.springframework.web.util.ContentCachingRequestWrapper;
 import org.springframework.web.util.ContentCachingResponseWrapper;
 
 import java.io.IOException;
@@ -25,10 +25,6 @@ public class ApiLoggingJsonUtf8Filter implements Filter {
     private static final Logger log = LoggerFactory.getLogger(ApiLoggingJsonUtf8Filter.class);
     private static final int MAX_BODY_LENGTH = 2000;
 
-    // 使用配置良好的 ObjectMapper
-    private static final ObjectMapper objectMapper = new ObjectMapper()
-            .enable(SerializationFeature.INDENT_OUTPUT); // 格式化输出（人类友好）
-
     @Override
     public void doFilter(ServletRequest request, ServletResponse response, FilterChain chain)
             throws IOException, ServletException {
@@ -36,26 +32,37 @@ public class ApiLoggingJsonUtf8Filter implements Filter {
         HttpServletRequest httpRequest = (HttpServletRequest) request;
         HttpServletResponse httpResponse = (HttpServletResponse) response;
 
-        ContentCachingRequestWrapper requestWrapper = new ContentCachingRequestWrapper(httpRequest);
-        ContentCachingResponseWrapper responseWrapper = new ContentCachingResponseWrapper(httpResponse);
+        DegradationLevel degradation = LoggingDegradation.currentLevel();
+        if (degradation.errorsOnly()) {
+            // 只保留 ERROR 时 API 日志不会输出，请求和响应都不再包装
+            chain.doFilter(request, response);
+            return;
+        }
+        // 降级时不再记录请求体、不再缓存响应体；请求体由 CachedBodyFilter 统一缓存，这里不再包装请求
+        CachedBodyRequest cachedRequest = degradation.captureRequestBody() ? CachedBodyRequest.from(httpRequest) : null;
+        HttpServletResponse responseWrapper = degradation.captureResponseBody()
+                ? new ContentCachingResponseWrapper(httpResponse) : httpResponse;
 
         long startTime = System.currentTimeMillis();
         Exception exception = null;
 
         try {
-            chain.doFilter(requestWrapper, responseWrapper);
+            chain.doFilter(request, responseWrapper);
         } catch (Exception ex) {
             exception = ex;
             throw ex;
         } finally {
             long duration = System.currentTimeMillis() - startTime;
-            logRequestResponse(requestWrapper, responseWrapper, duration, exception);
-            responseWrapper.copyBodyToResponse(); // 写回响应
+            logRequestResponse(httpRequest, cachedRequest, responseWrapper, duration, exception);
+            if (responseWrapper instanceof ContentCachingResponseWrapper cachingResponse) {
+                cachingResponse.copyBodyToResponse(); // 写回响应
+            }
         }
     }
 
-    private void logRequestResponse(ContentCachingRequestWrapper request,
-                                    ContentCachingResponseWrapper response,
+    private void logRequestResponse(HttpServletRequest request,
+                                    CachedBodyRequest cachedRequest,
+                                    HttpServletResponse response,
                                     long duration,
                                     Exception ex) {
 
@@ -67,28 +74,38 @@ public class ApiLoggingJsonUtf8Filter implements Filter {
         String fullUri = queryString != null ? uri + "?" + queryString : uri;
         logMap.put("请求地址", fullUri);
 
-        String requestBody = getContentAsString(request.getContentAsByteArray(),request.getCharacterEncoding());
-        if (!requestBody.isBlank()) {
-            logMap.put("请求体", truncate(requestBody));
+        if (cachedRequest != null) {
+            String requestBody = getRequestBody(cachedRequest);
+            if (!requestBody.isBlank()) {
+                logMap.put("请求体", truncate(requestBody));
+            }
         }
 
-        String responseBody = getContentAsString(response.getContentAsByteArray(), response.getCharacterEncoding());
-
         logMap.put("响应状态", response.getStatus());
-        logMap.put("响应体", truncate(responseBody));
+        if (response instanceof ContentCachingResponseWrapper cachingResponse) {
+            String responseBody = getContentAsString(cachingResponse.getContentAsByteArray(), response.getCharacterEncoding());
+            logMap.put("响应体", truncate(responseBody));
+        }
         logMap.put("耗时(ms)", duration);
 
         if (ex != null) {
             logMap.put("异常信息", ex.getClass().getSimpleName() + ": " + ex.getMessage());
         }
 
+        // 以 key-value 输出，中文字段名和内容由 JsonEncoder 按 UTF-8 原样写出
+        LoggingEventBuilder event = log.atInfo().setMessage("API日志记录");
+        logMap.forEach(event::addKeyValue);
+        event.log();
+    }
+
+    /**
+     * 请求体来自 CachedBodyFilter 共享的缓存；多解码一个字符，超长时由 truncate 加上截断标记
+     */
+    private String getRequestBody(CachedBodyRequest request) {
         try {
-            // 美化格式 + 保留中文
-            String logJson = objectMapper.writeValueAsString(logMap);
-            log.info("API日志记录：{}", logJson);
-        } catch (JsonProcessingException e) {
-            log.error("日志序列化失败", e);
-            log.error("日志序列化失败", e);
+            return request.getBodyAsString(MAX_BODY_LENGTH + 1);
+        } catch (IOException e) {
+            return "[UNREADABLE BODY]";
         }
     }
 
@@ -96,6 +113,7 @@ public class ApiLoggingJsonUtf8Filter implements Filter {
         if (buf == null || buf.length == 0) {
             return "";
         }
+        LoggingMetric.CAPTURED_BYTES.add(buf.length);
         try {
             // 如果是 JSON 或文本类型，直接用 UTF-8 解码，忽略 response.getCharacterEncoding()
             if (contentType != null && (contentType.contains("application/json") || contentType.contains("text"))) {
@@ -0,0 +1,48 @@
+package com.akira.springbootlogdemo.logging.filter;
+
+import com.akira.springbootlogdemo.logging.config.RequestBodyProperties;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+/**
+ * 紧跟在 TraceIdFilter 之后，为有请求体的请求创建唯一的 {@link CachedBodyRequest}，
+ * 之后的日志过滤器、拦截器和 Controller 共用这一份请求体，最多缓存 logging.request-body.max-cached-body-bytes 字节。
+ * 表单请求的流仍由容器解析成参数，日志按参数记录；multipart 请求不包装，请求体不记录。
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 1)
+public class CachedBodyFilter extends OncePerRequestFilter {
+
+    private final RequestBodyProperties properties;
+
+    public CachedBodyFilter(RequestBodyProperties properties) {
+        this.properties = properties;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        filterChain.doFilter(hasBody(request)
+                ? new CachedBodyRequest(request, properties.getMaxCachedBodyBytes()) : request, response);
+    }
+
+    private static boolean hasBody(HttpServletRequest request) {
+        if (request.getContentLength() == 0) {
+            return false;
+        }
+        if (request.getContentLength() < 0 && request.getHeader("Transfer-Encoding") == null) {
+            return false;
+        }
+        String contentType = request.getContentType();
+        return contentType == null || !contentType.startsWith(MediaType.MULTIPART_FORM_DATA_VALUE);
+    }
+}
@@ -0,0 +1,277 @@
+package com.akira.springbootlogdemo.logging.filter;
+
+import com.akira.springbootlogdemo.logging.metrics.LoggingMetric;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.ServletRequest;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import org.springframework.http.MediaType;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.net.URLEncoder;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Map;
+
+/**
+ * 整个请求共享的一份请求体缓存。
+ * <p>
+ * 第一次读取时（Controller 的 @RequestBody、拦截器或日志过滤器，谁先谁读）把请求体读进一个数组，
+ * 数组按实际读到的字节逐步扩容，Content-Length 只用来决定初始容量；最多缓存 maxCachedBytes 字节。
+ * 之后 getInputStream()/getReader() 每次返回这个数组上的新流，可以重复读取，也可以混用
+ * （原始请求只允许二选一，先后调用会抛 IllegalStateException）；
+ * 日志组件通过 {@link #getBodyAsString} 直接从数组解码，不再各自缓存一份。
+ * <p>
+ * 超过上限的请求体只缓存前 maxCachedBytes 字节，剩余部分不缓存，由第一个读取者接着原始流读完，
+ * 之后再读取会抛 IllegalStateException。
+ * <p>
+ * 表单请求的参数由容器解析，这里不接管它的流，日志用的请求体按参数重新拼成 a=1&amp;b=2。
+ * <p>
+ * 由 {@link CachedBodyFilter} 创建并放在请求属性 {@link #ATTRIBUTE} 中，
+ * 拿到的请求被其他包装类包住时也能用 {@link #from} 找到。
+ */
+public class CachedBodyRequest extends HttpServletRequestWrapper {
+
+    public static final String ATTRIBUTE = CachedBodyRequest.class.getName();
+
+    private static final byte[] EMPTY = new byte[0];
+    private static final int INITIAL_CAPACITY = 8 * 1024;
+
+    private final int maxCachedBytes;
+    private final boolean form;
+    // null 表示还没有读取
+    private byte[] body;
+    private int length;
+    // 超过上限时原始流中没有缓存的剩余部分，交给第一个读取者后置为 null
+    private ServletInputStream remaining;
+    private boolean truncated;
+
+    public CachedBodyRequest(HttpServletRequest request, int maxCachedBytes) {
+        super(request);
+        // load() 会多读一个字节，上限留出余量
+        this.maxCachedBytes = Math.min(Math.max(0, maxCachedBytes), Integer.MAX_VALUE - 16);
+        this.form = isFormPost(request);
+        request.setAttribute(ATTRIBUTE, this);
+    }
+
+    /**
+     * @return 当前请求共享的缓存，没有经过 CachedBodyFilter（如 multipart 请求）时为 null
+     */
+    public static CachedBodyRequest from(ServletRequest request) {
+        return request.getAttribute(ATTRIBUTE) instanceof CachedBodyRequest cached ? cached : null;
+    }
+
+    @Override
+    public ServletInputStream getInputStream() throws IOException {
+        if (form) {
+            return super.getInputStream();
+        }
+        load();
+        if (truncated) {
+            if (remaining == null) {
+                throw new IllegalStateException(
+                        "Request body exceeds " + maxCachedBytes + " cached bytes and has already been read");
+            }
+            ServletInputStream rest = remaining;
+            remaining = null;
+            // 包括判断截断时多读的那个字节
+            return new CachedBodyInputStream(body, length + 1, rest);
+        }
+        return new CachedBodyInputStream(body, length, null);
+    }
+
+    @Override
+    public BufferedReader getReader() throws IOException {
+        if (form) {
+            return super.getReader();
+        }
+        return new BufferedReader(new InputStreamReader(getInputStream(), charset()));
+    }
+
+    /**
+     * @return 缓存的字节数，超过上限时为 maxCachedBytes
+     */
+    public int getBodyLength() throws IOException {
+        load();
+        return length;
+    }
+
+    /**
+     * @return 请求体是否超过了缓存上限
+     */
+    public boolean isTruncated() throws IOException {
+        load();
+        return truncated;
+    }
+
+    /**
+     * 按请求的字符集解码，只解码前 maxChars 个字符需要的字节
+     */
+    public String getBodyAsString(int maxChars) throws IOException {
+        load();
+        Charset charset = charset();
+        int bytesPerChar = (int) Math.ceil(charset.newEncoder().maxBytesPerChar());
+        int decodeLength = (int) Math.min(length, (long) maxChars * bytesPerChar);
+        String text = new String(body, 0, decodeLength, charset);
+        return text.length() > maxChars ? text.substring(0, maxChars) : text;
+    }
+
+    private void load() throws IOException {
+        if (body != null) {
+            return;
+        }
+        if (form) {
+            byte[] parameters = formBody();
+            body = parameters;
+            length = Math.min(parameters.length, maxCachedBytes);
+            truncated = parameters.length > maxCachedBytes;
+            LoggingMetric.CAPTURED_BYTES.add(length);
+            return;
+        }
+        ServletInputStream in = super.getInputStream();
+        int contentLength = getRequest().getContentLength();
+        if (contentLength == 0) {
+            body = EMPTY;
+            return;
+        }
+        // Content-Length 可能不准或很大，只用来决定初始容量；chunked 请求长度未知。
+        // 多读一个字节来判断是否超过上限
+        int limit = maxCachedBytes + 1;
+        long initial = contentLength > 0 ? Math.min(contentLength + 1L, INITIAL_CAPACITY) : INITIAL_CAPACITY;
+        byte[] buffer = new byte[(int) Math.min(limit, initial)];
+        int count = 0;
+        while (count < limit) {
+            if (count == buffer.length) {
+                buffer = Arrays.copyOf(buffer, (int) Math.min(limit, buffer.length * 2L));
+            }
+            int n = in.read(buffer, count, buffer.length - count);
+            if (n < 0) {
+                break;
+            }
+            count += n;
+        }
+        body = buffer;
+        if (count == limit) {
+            truncated = true;
+            length = maxCachedBytes;
+            remaining = in;
+        } else {
+            length = count;
+        }
+        LoggingMetric.CAPTURED_BYTES.add(length);
+    }
+
+    private static boolean isFormPost(HttpServletRequest request) {
+        String contentType = request.getContentType();
+        return contentType != null && contentType.startsWith(MediaType.APPLICATION_FORM_URLENCODED_VALUE)
+                && "POST".equalsIgnoreCase(request.getMethod());
+    }
+
+    /**
+     * 与 ContentCachingRequestWrapper 相同，从容器解析好的参数拼回请求体
+     */
+    private byte[] formBody() {
+        Charset charset = charset();
+        StringBuilder text = new StringBuilder();
+        for (Map.Entry<String, String[]> parameter : getParameterMap().entrySet()) {
+            String name = URLEncoder.encode(parameter.getKey(), charset);
+            for (String value : parameter.getValue()) {
+                if (!text.isEmpty()) {
+                    text.append('&');
+                }
+                text.append(name);
+                if (value != null) {
+                    text.append('=').append(URLEncoder.encode(value, charset));
+                }
+            }
+        }
+        return text.isEmpty() ? EMPTY : text.toString().getBytes(charset);
+    }
+
+    private Charset charset() {
+        String encoding = getCharacterEncoding();
+        if (encoding != null) {
+            try {
+                return Charset.forName(encoding);
+            } catch (IllegalArgumentException e) {
+                // 非法的 charset 按 UTF-8 处理
+            }
+        }
+        return StandardCharsets.UTF_8;
+    }
+
+    /**
+     * 先读缓存的数组，超过上限时再接着读原始流的剩余部分
+     */
+    private static final class CachedBodyInputStream extends ServletInputStream {
+        private final byte[] buffer;
+        private final int length;
+        private final ServletInputStream rest;
+        private int position;
+
+        CachedBodyInputStream(byte[] buffer, int length, ServletInputStream rest) {
+            this.buffer = buffer;
+            this.length = length;
+            this.rest = rest;
+        }
+
+        @Override
+        public int read() throws IOException {
+            if (position < length) {
+                return buffer[position++] & 0xFF;
+            }
+            return rest != null ? rest.read() : -1;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (len == 0) {
+                return 0;
+            }
+            if (position >= length) {
+                return rest != null ? rest.read(b, off, len) : -1;
+            }
+            int count = Math.min(len, length - position);
+            System.arraycopy(buffer, position, b, off, count);
+            position += count;
+            return count;
+        }
+
+        @Override
+        public int available() throws IOException {
+            return length - position + (rest != null ? rest.available() : 0);
+        }
+
+        @Override
+        public boolean isFinished() {
+            return position >= length && (rest == null || rest.isFinished());
+        }
+
+        @Override
+        public boolean isReady() {
+            return position < length || rest == null || rest.isReady();
+        }
+
+        @Override
+        public void setReadListener(ReadListener readListener) {
+            if (rest != null) {
+                // 剩余部分还在原始流中，由容器在数据可读时回调
+                rest.setReadListener(readListener);
+                return;
+            }
+            // 数据已经全部在内存中
+            try {
+                if (!isFinished()) {
+                    readListener.onDataAvailable();
+                }
+                readListener.onAllDataRead();
+            } catch (IOException e) {
+                readListener.onError(e);
+            }
+        }
+    }
+}
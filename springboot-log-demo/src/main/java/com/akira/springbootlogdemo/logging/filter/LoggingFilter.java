@@ -5,7 +5,6 @@ import jakarta.servlet.annotation.WebFilter;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.stereotype.Component;
-import org.springframework.web.util.ContentCachingRequestWrapper;
 import org.springframework.web.util.ContentCachingResponseWrapper;
 
 import java.io.IOException;
@@ -24,25 +23,24 @@ public class LoggingFilter implements Filter {
         HttpServletRequest httpRequest = (HttpServletRequest) request;
         HttpServletResponse httpResponse = (HttpServletResponse) response;
 
-        ContentCachingRequestWrapper requestWrapper = new ContentCachingRequestWrapper(httpRequest);
         ContentCachingResponseWrapper responseWrapper = new ContentCachingResponseWrapper(httpResponse);
 
         long startTime = System.currentTimeMillis();
 
         Exception exception = null;
         try {
-            chain.doFilter(requestWrapper, responseWrapper);
+            chain.doFilter(request, responseWrapper);
         } catch (Exception ex) {
             exception = ex;
             throw ex;
         } finally {
             long duration = System.currentTimeMillis() - startTime;
-            logRequestResponse(requestWrapper, responseWrapper, duration, exception);
+            logRequestResponse(httpRequest, responseWrapper, duration, exception);
             responseWrapper.copyBodyToResponse(); // 重要：写回原始响应体
         }
     }
 
-    private void logRequestResponse(ContentCachingRequestWrapper request,
+    private void logRequestResponse(HttpServletRequest request,
                                     ContentCachingResponseWrapper response,
                                     long duration,
                                     Exception ex) {
@@ -53,7 +51,7 @@ public class LoggingFilter implements Filter {
         String fullUri = queryString != null ? uri + "?" + queryString : uri;
         int status = response.getStatus();
 
-        String requestBody = getContentAsString(request.getContentAsByteArray(), request.getCharacterEncoding());
+        String requestBody = getRequestBody(request);
         String responseBody = getContentAsString(response.getContentAsByteArray(), response.getCharacterEncoding());
 
         System.out.println("======== API LOG START ========");
@@ -75,6 +73,21 @@ public class LoggingFilter implements Filter {
         System.out.println("======== API LOG END ==========");
     }
 
+    /**
+     * 请求体来自 CachedBodyFilter 共享的缓存；多解码一个字符，超长时由 truncate 加上截断标记
+     */
+    private String getRequestBody(HttpServletRequest request) {
+        CachedBodyRequest cachedRequest = CachedBodyRequest.from(request);
+        if (cachedRequest == null) {
+            return "";
+        }
+        try {
+            return cachedRequest.getBodyAsString(MAX_BODY_LENGTH + 1);
+        } catch (IOException e) {
+            return "[UNREADABLE BODY]";
+        }
+    }
+
     private String getContentAsString(byte[] buf, String encoding) {
         if (buf == null || buf.length == 0) {
             return "";
@@ -0,0 +1,122 @@
+package com.akira.springbootlogdemo.logging.filter;
+
+import com.akira.springbootlogdemo.logging.degrade.LoggingDegradation;
+import com.akira.springbootlogdemo.logging.metrics.RouteMetrics;
+import com.akira.springbootlogdemo.logging.profile.CallTreeProfiler;
+import com.akira.springbootlogdemo.logging.trace.TraceContext;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.MDC;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+import java.util.regex.Pattern;
+
+/**
+ * 最外层过滤器：为每个请求确定 traceId（优先使用请求头 X-Trace-Id，其次是 W3C traceparent），写入 MDC 和响应头，
+ * 之后的 API 日志、Controller 日志、SQL 日志都带上同一个 traceId。
+ * 请求结束时按路由模板记录耗时和状态码（{@link RouteMetrics}），被采样的请求输出调用树（{@link CallTreeProfiler}）
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class TraceIdFilter extends OncePerRequestFilter {
+
+    // 外部传入的 traceId 会进入日志和索引，只接受有限长度的安全字符
+    private static final Pattern VALID_TRACE_ID = Pattern.compile("[A-Za-z0-9_-]{1,64}");
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        String traceId = request.getHeader(TraceContext.TRACE_ID_HEADER);
+        if (traceId == null || !VALID_TRACE_ID.matcher(traceId).matches()) {
+            traceId = TraceContext.traceIdFromTraceparent(request.getHeader(TraceContext.TRACEPARENT_HEADER));
+        }
+        if (traceId == null) {
+            traceId = TraceContext.newTraceId();
+        }
+        MDC.put(TraceContext.TRACE_ID, traceId);
+        MDC.put(TraceContext.REQUEST_URI, request.getRequestURI());
+        response.setHeader(TraceContext.TRACE_ID_HEADER, traceId);
+        long start = System.nanoTime();
+        boolean profiled = CallTreeProfiler.beginRequest();
+        Throwable failure = null;
+        try {
+            filterChain.doFilter(request, response);
+        } catch (IOException | ServletException | RuntimeException | Error e) {
+            failure = e;
+            throw e;
+        } finally {
+            if (profiled) {
+                // 调用树只覆盖请求线程，异步请求也在这里结束采样
+                Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+                CallTreeProfiler.endRequest(request.getMethod(), pattern != null ? pattern.toString() : null, traceId);
+            }
+            if (request.isAsyncStarted()) {
+                // Mono/Callable 等异步请求在异步处理结束时才记录耗时
+                request.getAsyncContext().addListener(new CompletionListener(start, traceId));
+            } else {
+                recordRequest(request, response, start, traceId, failure != null);
+            }
+            MDC.remove(TraceContext.TRACE_ID);
+            MDC.remove(TraceContext.REQUEST_URI);
+            MDC.remove(TraceContext.STATUS);
+        }
+    }
+
+    private static void recordRequest(HttpServletRequest request, HttpServletResponse response,
+                                      long start, String traceId, boolean failed) {
+        long duration = System.nanoTime() - start;
+        // 请求耗时是日志降级的输入之一
+        LoggingDegradation.recordRequest(duration);
+        // 按路由模板而不是原始 URI 统计，/api/test/hello/{name} 只有一个 key
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        int status = response.getStatus();
+        if (failed && status < 400) {
+            // 异常还没被转换成错误响应
+            status = HttpServletResponse.SC_INTERNAL_SERVER_ERROR;
+        }
+        RouteMetrics.record(request.getMethod(), pattern != null ? pattern.toString() : null,
+                status, duration, traceId);
+    }
+
+    private static final class CompletionListener implements AsyncListener {
+        private final long start;
+        private final String traceId;
+        private volatile boolean failed;
+
+        CompletionListener(long start, String traceId) {
+            this.start = start;
+            this.traceId = traceId;
+        }
+
+        @Override
+        public void onComplete(AsyncEvent event) {
+            recordRequest((HttpServletRequest) event.getSuppliedRequest(),
+                    (HttpServletResponse) event.getSuppliedResponse(), start, traceId, failed);
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) {
+            failed = true;
+        }
+
+        @Override
+        public void onError(AsyncEvent event) {
+            failed = true;
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+            // 再次进入异步时继续监听
+            event.getAsyncContext().addListener(this);
+        }
+    }
+}
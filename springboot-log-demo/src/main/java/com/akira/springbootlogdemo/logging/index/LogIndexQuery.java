@@ -0,0 +1,242 @@
+package com.akira.springbootlogdemo.logging.index;
+
+import com.akira.springbootlogdemo.logging.archive.BlockCompressedLogReader;
+import com.akira.springbootlogdemo.logging.archive.BlockCompressor;
+import com.akira.springbootlogdemo.logging.archive.LogTimestamps;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+
+/**
+ * 按 traceId 或 URI/状态码查询日志目录下的应用日志和 SQL 日志（含已块压缩的归档）。
+ * <p>
+ * 有 {@link LogIndexWriter} 索引的文件直接按偏移读取；没有索引的旧文件退化为并行逐行扫描。
+ * <p>
+ * 命令行：
+ * <pre>
+ * LogIndexQuery logs trace 3f2a9c...
+ * LogIndexQuery logs uri /api/test/user 500
+ * </pre>
+ */
+public class LogIndexQuery {
+
+    private static final String LOG_SUFFIX = ".log";
+
+    private final Path logDirectory;
+    private final ZoneId zone;
+    private final BlockCompressedLogReader compressedReader;
+    // 归档的索引不再变化，活动文件的索引按大小和修改时间判断是否需要重新加载
+    private final Map<Path, CachedIndex> indexCache = new ConcurrentHashMap<>();
+
+    public LogIndexQuery(Path logDirectory, ZoneId zone) {
+        this.logDirectory = logDirectory;
+        this.zone = zone;
+        this.compressedReader = new BlockCompressedLogReader(zone);
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 3 || !("trace".equals(args[1]) || "uri".equals(args[1]))) {
+            System.err.println("Usage: LogIndexQuery <logDir> trace <traceId> | uri <uri> [status]");
+            System.exit(1);
+        }
+        LogIndexQuery query = new LogIndexQuery(Paths.get(args[0]), ZoneId.systemDefault());
+        long start = System.nanoTime();
+        List<LogHit> hits = "trace".equals(args[1])
+                ? query.findByTraceId(args[2])
+                : query.findByUri(args[2], args.length > 3 ? Integer.valueOf(args[3]) : null);
+        for (LogHit hit : hits) {
+            System.out.print("[" + hit.file().getFileName() + "] " + hit.text());
+        }
+        System.err.printf("%d lines in %.1f ms%n", hits.size(), (System.nanoTime() - start) / 1_000_000.0);
+    }
+
+    public List<LogHit> findByTraceId(String traceId) throws IOException {
+        return find(entry -> traceId.equals(entry.traceId()), line -> line.contains(traceId));
+    }
+
+    /**
+     * @param status 为 null 时不限状态码；未建索引的文件只能按 URI 文本匹配
+     */
+    public List<LogHit> findByUri(String uri, Integer status) throws IOException {
+        return find(entry -> uri.equals(entry.uri()) && (status == null || entry.status() == status),
+                line -> line.contains(uri));
+    }
+
+    private List<LogHit> find(Predicate<IndexEntry> indexed, Predicate<String> scanned) throws IOException {
+        try {
+            return dataFiles().parallelStream()
+                    .flatMap(file -> search(file, indexed, scanned).stream())
+                    .sorted(Comparator.comparingLong(LogHit::timestamp))
+                    .toList();
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    private List<Path> dataFiles() throws IOException {
+        List<Path> files = new ArrayList<>();
+        try (Stream<Path> list = Files.list(logDirectory)) {
+            for (Path file : (Iterable<Path>) list::iterator) {
+                String name = file.getFileName().toString();
+                if (name.endsWith(LOG_SUFFIX)) {
+                    files.add(file);
+                } else if (name.endsWith(LOG_SUFFIX + BlockCompressor.EXTENSION)
+                        // 压缩尚未完成时原文件还在，以原文件为准
+                        && !Files.exists(file.resolveSibling(name.substring(0,
+                        name.length() - BlockCompressor.EXTENSION.length())))) {
+                    files.add(file);
+                }
+            }
+        }
+        return files;
+    }
+
+    private List<LogHit> search(Path file, Predicate<IndexEntry> indexed, Predicate<String> scanned) {
+        try {
+            Path index = LogIndexWriter.indexPath(file);
+            List<IndexEntry> entries = Files.exists(index) ? loadIndex(index) : null;
+            if (entries == null) {
+                return scan(file, scanned);
+            }
+            List<IndexEntry> matched = entries.stream().filter(indexed).toList();
+            return matched.isEmpty() ? List.of() : read(file, matched);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private List<LogHit> read(Path file, List<IndexEntry> entries) throws IOException {
+        List<LogHit> hits = new ArrayList<>(entries.size());
+        if (file.getFileName().toString().endsWith(BlockCompressor.EXTENSION)) {
+            List<BlockCompressedLogReader.RawRange> ranges = entries.stream()
+                    .map(entry -> new BlockCompressedLogReader.RawRange(entry.offset(), entry.length()))
+                    .toList();
+            List<byte[]> raw = compressedReader.readRaw(file, ranges);
+            for (int i = 0; i < entries.size(); i++) {
+                hits.add(new LogHit(file, entries.get(i).timestamp(), new String(raw.get(i), StandardCharsets.UTF_8)));
+            }
+            return hits;
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            for (IndexEntry entry : entries) {
+                // 异常退出后索引可能比数据多几条，越界的跳过
+                if (entry.offset() + entry.length() > size) {
+                    continue;
+                }
+                ByteBuffer bytes = ByteBuffer.allocate(entry.length());
+                while (bytes.hasRemaining()) {
+                    if (channel.read(bytes, entry.offset() + bytes.position()) < 0) {
+                        break;
+                    }
+                }
+                hits.add(new LogHit(file, entry.timestamp(), new String(bytes.array(), 0, bytes.position(),
+                        StandardCharsets.UTF_8)));
+            }
+        }
+        return hits;
+    }
+
+    /**
+     * 没有索引的文件逐行扫描；活动文件末尾预分配的 0 字节处停止
+     */
+    private List<LogHit> scan(Path file, Predicate<String> scanned) throws IOException {
+        List<LogHit> hits = new ArrayList<>();
+        long[] timestamp = {LogTimestamps.NONE};
+        Consumer<String> matcher = line -> {
+            byte[] head = line.substring(0, Math.min(line.length(), LogTimestamps.MAX_PREFIX_LENGTH))
+                    .getBytes(StandardCharsets.ISO_8859_1);
+            long parsed = LogTimestamps.parse(head, 0, head.length, zone);
+            if (parsed != LogTimestamps.NONE) {
+                timestamp[0] = parsed;
+            }
+            if (scanned.test(line)) {
+                hits.add(new LogHit(file, timestamp[0], line));
+            }
+        };
+        if (file.getFileName().toString().endsWith(BlockCompressor.EXTENSION)) {
+            compressedReader.read(file, Long.MIN_VALUE, Long.MAX_VALUE, matcher);
+            return hits;
+        }
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null && !line.startsWith("\0")) {
+                matcher.accept(line + System.lineSeparator());
+            }
+        }
+        return hits;
+    }
+
+    private List<IndexEntry> loadIndex(Path index) throws IOException {
+        long size = Files.size(index);
+        FileTime modified = Files.getLastModifiedTime(index);
+        CachedIndex cached = indexCache.get(index);
+        if (cached != null && cached.size() == size && cached.modified().equals(modified)) {
+            return cached.entries();
+        }
+        List<IndexEntry> entries = new ArrayList<>();
+        if (readIndex(index, entries::add) == 0) {
+            // 不是索引文件，按未建索引处理
+            return null;
+        }
+        indexCache.put(index, new CachedIndex(size, modified, entries));
+        return entries;
+    }
+
+    /**
+     * 读取索引，返回完整记录结束处的字节数；文件头不对时返回 0
+     */
+    static long readIndex(Path index, Consumer<IndexEntry> consumer) throws IOException {
+        byte[] bytes = Files.readAllBytes(index);
+        if (bytes.length < LogIndexWriter.MAGIC.length
+                || !Arrays.equals(bytes, 0, LogIndexWriter.MAGIC.length, LogIndexWriter.MAGIC, 0, LogIndexWriter.MAGIC.length)) {
+            return 0;
+        }
+        ByteArrayInputStream source = new ByteArrayInputStream(bytes);
+        DataInputStream in = new DataInputStream(source);
+        in.skipNBytes(LogIndexWriter.MAGIC.length);
+        long valid = LogIndexWriter.MAGIC.length;
+        while (true) {
+            try {
+                IndexEntry entry = new IndexEntry(in.readLong(), in.readLong(), in.readInt(), in.readShort(),
+                        in.readUTF(), in.readUTF());
+                valid = bytes.length - source.available();
+                consumer.accept(entry);
+            } catch (EOFException e) {
+                // 末尾半条记录（写入中或异常退出）忽略
+                return valid;
+            }
+        }
+    }
+
+    public record IndexEntry(long timestamp, long offset, int length, int status, String traceId, String uri) {
+    }
+
+    public record LogHit(Path file, long timestamp, String text) {
+    }
+
+    private record CachedIndex(long size, FileTime modified, List<IndexEntry> entries) {
+    }
+}
@@ -0,0 +1,102 @@
+package com.akira.springbootlogdemo.logging.index;
+
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import com.akira.springbootlogdemo.logging.archive.BlockCompressor;
+import com.akira.springbootlogdemo.logging.trace.TraceContext;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+
+/**
+ * 日志文件旁的 traceId / URI 索引，由 MappedFileAppender 在写入时同步维护。
+ * <pre>
+ * xxx.log.tidx  "TIDX" { timestamp(long) offset(long) length(int) status(short) traceId(utf) uri(utf) }*
+ * </pre>
+ * offset 是未压缩日志中的字节偏移，归档被块压缩后依然有效（见 {@link LogIndexQuery}）。
+ * 只记录 MDC 中带 traceId 或 requestUri 的日志。
+ */
+public class LogIndexWriter implements Closeable {
+
+    public static final String EXTENSION = ".tidx";
+
+    static final byte[] MAGIC = "TIDX".getBytes(StandardCharsets.US_ASCII);
+    static final short NO_STATUS = -1;
+    // writeUTF 上限 64KB，URI 过长时截断
+    private static final int MAX_URI_LENGTH = 1024;
+
+    private final DataOutputStream out;
+
+    public LogIndexWriter(Path index) throws IOException {
+        boolean existing = false;
+        if (Files.exists(index)) {
+            // 上次异常退出可能留下半条记录，截掉后再追加；文件头不对时整个重建
+            long valid = LogIndexQuery.readIndex(index, entry -> { });
+            try (FileChannel channel = FileChannel.open(index, StandardOpenOption.WRITE)) {
+                channel.truncate(valid);
+            }
+            existing = valid > 0;
+        }
+        this.out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(index,
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND), 8192));
+        if (!existing) {
+            out.write(MAGIC);
+        }
+    }
+
+    /**
+     * 数据文件对应的索引文件；压缩归档 xxx.log.blz 与原文件共用 xxx.log.tidx
+     */
+    public static Path indexPath(Path dataFile) {
+        String name = dataFile.getFileName().toString();
+        if (name.endsWith(BlockCompressor.EXTENSION)) {
+            name = name.substring(0, name.length() - BlockCompressor.EXTENSION.length());
+        }
+        return dataFile.resolveSibling(name + EXTENSION);
+    }
+
+    public void record(ILoggingEvent event, long offset, int length) throws IOException {
+        Map<String, String> mdc = event.getMDCPropertyMap();
+        if (mdc == null || mdc.isEmpty()) {
+            return;
+        }
+        String traceId = mdc.get(TraceContext.TRACE_ID);
+        String uri = mdc.get(TraceContext.REQUEST_URI);
+        if (traceId == null && uri == null) {
+            return;
+        }
+        out.writeLong(event.getTimeStamp());
+        out.writeLong(offset);
+        out.writeInt(length);
+        out.writeShort(parseStatus(mdc.get(TraceContext.STATUS)));
+        out.writeUTF(traceId != null ? traceId : "");
+        out.writeUTF(uri == null ? "" : uri.length() > MAX_URI_LENGTH ? uri.substring(0, MAX_URI_LENGTH) : uri);
+    }
+
+    public void flush() throws IOException {
+        out.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        out.close();
+    }
+
+    private static short parseStatus(String status) {
+        if (status == null) {
+            return NO_STATUS;
+        }
+        try {
+            return Short.parseShort(status);
+        } catch (NumberFormatException e) {
+            return NO_STATUS;
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package com.akira.springbootlogdemo.logging.jdbc;
+
+import com.akira.springbootlogdemo.logging.metrics.SqlMetrics;
+import com.akira.springbootlogdemo.logging.trace.TraceContext;
+
+/**
+ * 一次 MappedStatement 执行（Executor.query/update）期间在 JDBC 层花费的时间，按当前线程收集。
+ * <p>
+ * SqlLoggingInterceptor 在调用前 {@link #begin}、结束后 {@link #end}；{@link TimingDataSource} 的代理把
+ * 连接获取、prepare、execute、ResultSet 读取的耗时和行数累加到当前线程的实例上。
+ * 总耗时减去这几项就是 MyBatis 自身的开销。没有安装 TimingDataSource 时 begin 返回 null，不做任何统计。
+ */
+public final class JdbcTimings {
+
+    private static final ThreadLocal<JdbcTimings> CURRENT = new ThreadLocal<>();
+    // 至少包装了一个 DataSource 后才开始统计，否则各项都是 0，全部算成 MyBatis 开销
+    private static volatile boolean installed;
+
+    private final JdbcTimings previous;
+    private final long start = System.nanoTime();
+    private long totalNanos;
+    long acquireNanos;
+    long prepareNanos;
+    long executeNanos;
+    long fetchNanos;
+    long rows;
+    int statements;
+
+    private JdbcTimings(JdbcTimings previous) {
+        this.previous = previous;
+    }
+
+    static void markInstalled() {
+        installed = true;
+    }
+
+    /**
+     * @return 传给 {@link #end} 的实例，没有安装 TimingDataSource 时为 null
+     */
+    public static JdbcTimings begin() {
+        if (!installed) {
+            return null;
+        }
+        JdbcTimings timings = new JdbcTimings(CURRENT.get());
+        CURRENT.set(timings);
+        return timings;
+    }
+
+    /**
+     * 结束统计，按 statementId 记入 {@link SqlMetrics}
+     */
+    public static void end(JdbcTimings timings, String statementId) {
+        if (timings == null) {
+            return;
+        }
+        timings.totalNanos = System.nanoTime() - timings.start;
+        if (timings.previous != null) {
+            CURRENT.set(timings.previous);
+        } else {
+            CURRENT.remove();
+        }
+        SqlMetrics.record(statementId, timings.totalNanos, timings.acquireNanos, timings.prepareNanos,
+                timings.executeNanos, timings.fetchNanos, timings.rows, TraceContext.currentTraceId());
+    }
+
+    static JdbcTimings current() {
+        return CURRENT.get();
+    }
+
+    public long getTotalNanos() {
+        return totalNanos;
+    }
+
+    public long getAcquireNanos() {
+        return acquireNanos;
+    }
+
+    public long getExecuteNanos() {
+        return executeNanos;
+    }
+
+    public long getFetchNanos() {
+        return fetchNanos;
+    }
+
+    public long getRows() {
+        return rows;
+    }
+
+    /**
+     * MyBatis 自身的开销：总耗时减去 JDBC 各阶段
+     */
+    public long getMybatisNanos() {
+        return Math.max(0, totalNanos - acquireNanos - prepareNanos - executeNanos - fetchNanos);
+    }
+
+    @Override
+    public String toString() {
+        return "acquire=" + millis(acquireNanos) + "ms prepare=" + millis(prepareNanos)
+                + "ms execute=" + millis(executeNanos) + "ms fetch=" + millis(fetchNanos)
+                + "ms rows=" + rows + " statements=" + statements + " mybatis=" + millis(getMybatisNanos()) + "ms";
+    }
+
+    private static double millis(long nanos) {
+        return Math.round(nanos / 1_000.0) / 1_000.0;
+    }
+}
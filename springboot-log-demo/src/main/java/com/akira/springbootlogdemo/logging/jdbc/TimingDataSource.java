@@ -0,0 +1,217 @@
+package com.akira.springbootlogdemo.logging.jdbc;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * 记录 JDBC 各阶段耗时的 DataSource 包装，结果累加到当前线程的 {@link JdbcTimings}：
+ * <ul>
+ *     <li>acquire：getConnection 的耗时（连接池等待）。事务中连接在 Mapper 调用前就已获取，
+ *     由这个连接上第一条语句所在的 MappedStatement 认领</li>
+ *     <li>prepare：prepareStatement/prepareCall/createStatement</li>
+ *     <li>execute：execute* 方法，即网络往返加数据库执行；更新语句的影响行数计入 rows</li>
+ *     <li>fetch：ResultSet 上除 close 以外的调用（next、getXxx），即读取和驱动解码；next 返回 true 计入 rows</li>
+ * </ul>
+ * Connection、Statement、ResultSet 都是 JDK 动态代理；不在 MappedStatement 执行期间（没有 JdbcTimings）时
+ * 只转发，ResultSet 不包装。Spring 的 DataSourceUnwrapper 能穿过这层包装拿到 HikariDataSource。
+ */
+public class TimingDataSource extends DelegatingDataSource {
+
+    public TimingDataSource(DataSource targetDataSource) {
+        super(targetDataSource);
+        JdbcTimings.markInstalled();
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        long start = System.nanoTime();
+        Connection connection = obtainTargetDataSource().getConnection();
+        return wrap(connection, System.nanoTime() - start);
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        long start = System.nanoTime();
+        Connection connection = obtainTargetDataSource().getConnection(username, password);
+        return wrap(connection, System.nanoTime() - start);
+    }
+
+    private static Connection wrap(Connection connection, long acquireNanos) {
+        return proxy(Connection.class, new ConnectionHandler(connection, acquireNanos));
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T proxy(Class<T> type, InvocationHandler handler) {
+        return (T) Proxy.newProxyInstance(TimingDataSource.class.getClassLoader(), new Class<?>[]{type}, handler);
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getTargetException();
+        }
+    }
+
+    /**
+     * equals/hashCode 按代理自身的身份，Spring 的事务同步会比较连接
+     */
+    private static Object identity(Object proxy, Method method, Object[] args) {
+        return switch (method.getName()) {
+            case "equals" -> proxy == args[0];
+            case "hashCode" -> System.identityHashCode(proxy);
+            default -> null;
+        };
+    }
+
+    private static boolean isIdentityMethod(Method method) {
+        return method.getDeclaringClass() == Object.class && !method.getName().equals("toString");
+    }
+
+    private static final class ConnectionHandler implements InvocationHandler {
+        private final Connection target;
+        // 尚未被任何 MappedStatement 认领的获取耗时
+        private long unclaimedAcquireNanos;
+
+        ConnectionHandler(Connection target, long acquireNanos) {
+            this.target = target;
+            this.unclaimedAcquireNanos = acquireNanos;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            if (isIdentityMethod(method)) {
+                return identity(proxy, method, args);
+            }
+            Class<?> returnType = method.getReturnType();
+            if (!Statement.class.isAssignableFrom(returnType)) {
+                return TimingDataSource.invoke(target, method, args);
+            }
+            JdbcTimings timings = JdbcTimings.current();
+            if (timings != null) {
+                timings.acquireNanos += unclaimedAcquireNanos;
+                unclaimedAcquireNanos = 0;
+            }
+            long start = System.nanoTime();
+            Statement statement = (Statement) TimingDataSource.invoke(target, method, args);
+            if (timings != null) {
+                timings.prepareNanos += System.nanoTime() - start;
+            }
+            return proxy(returnType, new StatementHandler(statement, (Connection) proxy));
+        }
+    }
+
+    private static final class StatementHandler implements InvocationHandler {
+        private final Statement target;
+        private final Connection connection;
+        // execute 之后第一次 getUpdateCount 的结果计入 rows，MyBatis 的多结果集循环会重复调用
+        private boolean updateCountPending;
+
+        StatementHandler(Statement target, Connection connection) {
+            this.target = target;
+            this.connection = connection;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            if (isIdentityMethod(method)) {
+                return identity(proxy, method, args);
+            }
+            String name = method.getName();
+            if (name.equals("getConnection")) {
+                return connection;
+            }
+            JdbcTimings timings = JdbcTimings.current();
+            if (timings == null) {
+                return TimingDataSource.invoke(target, method, args);
+            }
+            if (name.startsWith("execute")) {
+                long start = System.nanoTime();
+                Object result = TimingDataSource.invoke(target, method, args);
+                timings.executeNanos += System.nanoTime() - start;
+                timings.statements++;
+                updateCountPending = true;
+                return track(result, timings, (Statement) proxy);
+            }
+            if (name.equals("getResultSet")) {
+                return track(TimingDataSource.invoke(target, method, args), timings, (Statement) proxy);
+            }
+            Object result = TimingDataSource.invoke(target, method, args);
+            if (name.equals("getUpdateCount") && updateCountPending && (Integer) result > 0) {
+                timings.rows += (Integer) result;
+                updateCountPending = false;
+            }
+            return result;
+        }
+
+        /**
+         * 包装查询结果，累加更新语句的影响行数
+         */
+        private Object track(Object result, JdbcTimings timings, Statement statement) {
+            if (result instanceof ResultSet resultSet) {
+                return proxy(ResultSet.class, new ResultSetHandler(resultSet, timings, statement));
+            }
+            long count = 0;
+            if (result instanceof Integer rows) {
+                count = rows;
+            } else if (result instanceof Long rows) {
+                count = rows;
+            } else if (result instanceof int[] batch) {
+                for (int rows : batch) {
+                    count += Math.max(0, rows);
+                }
+            } else if (result instanceof long[] batch) {
+                for (long rows : batch) {
+                    count += Math.max(0, rows);
+                }
+            }
+            if (count > 0) {
+                timings.rows += count;
+                updateCountPending = false;
+            }
+            return result;
+        }
+    }
+
+    private static final class ResultSetHandler implements InvocationHandler {
+        private final ResultSet target;
+        private final JdbcTimings timings;
+        private final Statement statement;
+
+        ResultSetHandler(ResultSet target, JdbcTimings timings, Statement statement) {
+            this.target = target;
+            this.timings = timings;
+            this.statement = statement;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            if (isIdentityMethod(method)) {
+                return identity(proxy, method, args);
+            }
+            String name = method.getName();
+            if (name.equals("getStatement")) {
+                return statement;
+            }
+            if (name.equals("close")) {
+                return TimingDataSource.invoke(target, method, args);
+            }
+            long start = System.nanoTime();
+            Object result = TimingDataSource.invoke(target, method, args);
+            timings.fetchNanos += System.nanoTime() - start;
+            if (name.equals("next") && Boolean.TRUE.equals(result)) {
+                timings.rows++;
+            }
+            return result;
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package com.akira.springbootlogdemo.logging.jdbc;
+
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+
+/**
+ * 把容器中的 DataSource（application.yml 中的 MySQL 数据源）包装成 {@link TimingDataSource}。
+ * <p>
+ * 包装后 bean 的类型变为 TimingDataSource，按 HikariDataSource 类型注入的地方需要改为 DataSource 再 unwrap。
+ */
+@Component
+@ConditionalOnProperty(prefix = "logging.jdbc", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class TimingDataSourcePostProcessor implements BeanPostProcessor {
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+        if (bean instanceof DataSource dataSource && !(bean instanceof TimingDataSource)) {
+            return new TimingDataSource(dataSource);
+        }
+        return bean;
+    }
+}
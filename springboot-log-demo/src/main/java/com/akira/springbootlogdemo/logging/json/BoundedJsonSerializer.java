@@ -0,0 +1,345 @@
+package com.akira.springbootlogdemo.logging.json;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import com.fasterxml.jackson.annotation.JsonRawValue;
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.JsonSerializer;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.fasterxml.jackson.databind.ser.BeanPropertyWriter;
+import com.fasterxml.jackson.databind.ser.PropertyWriter;
+import com.fasterxml.jackson.databind.ser.std.BeanSerializerBase;
+
+import java.lang.reflect.Array;
+import java.time.temporal.TemporalAccessor;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 按字节数和嵌套深度限制的 JSON 序列化，用于 Controller 参数和响应快照。
+ * <p>
+ * 边遍历边写入线程复用的 {@link JsonWriter}，写满 maxBytes 后不再访问剩余的元素和字段：
+ * 数组末尾补 <code>"...(truncated)"</code>，对象末尾补 <code>"...":"truncated"</code>，
+ * 过长的字符串截断后加 "...(truncated)"，超过 maxDepth 的值写成 "..."。结果总是合法 JSON，
+ * 可能比 maxBytes 多出截断标记和闭合括号的长度。
+ * <p>
+ * 普通 Bean 沿用 ObjectMapper 解析出的属性（@JsonIgnore、@JsonProperty 等照常生效），按类型缓存：
+ * <ul>
+ *     <li>@JsonInclude 和全局 serializationInclusion 按属性生效，被排除的 null、空值、默认值不写</li>
+ *     <li>带 @JsonSerialize、@JsonFormat、@JsonRawValue 的属性用该属性自己的序列化器写值，
+ *     超出剩余预算时换成截断标记</li>
+ *     <li>其余属性的值按本类的规则递归写入，受字节数和深度限制</li>
+ * </ul>
+ * 带自定义序列化器的类型整体交给 ObjectMapper，超出剩余预算时整体换成截断标记。
+ * <p>
+ * 名字包含 redactedNames 中任一词（不区分大小写）的 Bean 属性、Map 键和 JsonNode 字段，值写成 "******"，
+ * 不读取原值；整体交给 ObjectMapper 的类型内部不做处理。
+ */
+public class BoundedJsonSerializer {
+
+    private static final String TRUNCATED = "...(truncated)";
+    private static final String ELLIPSIS = "...";
+    private static final String REDACTED = "******";
+    private static final byte[] TRUNCATED_FIELD = JsonWriter.fieldName(ELLIPSIS);
+    // JsonWriter 自身最多支持 32 层，留出余量
+    private static final int MAX_DEPTH = 30;
+    private static final int INITIAL_CAPACITY = 1024;
+    // 不是普通 Bean 的类型，按引用比较
+    private static final BeanProperty[] DELEGATE = new BeanProperty[0];
+
+    private final ObjectMapper objectMapper;
+    private final String[] redactedNames;
+    private final ThreadLocal<JsonWriter> writers;
+    private final Map<Class<?>, BeanProperty[]> beanProperties = new ConcurrentHashMap<>();
+
+    public BoundedJsonSerializer(ObjectMapper objectMapper) {
+        this(objectMapper, List.of());
+    }
+
+    /**
+     * @param redactedNames 敏感字段名中的词，如 password、secret
+     */
+    public BoundedJsonSerializer(ObjectMapper objectMapper, List<String> redactedNames) {
+        this.objectMapper = objectMapper;
+        this.redactedNames = redactedNames.stream().map(name -> name.toLowerCase(Locale.ROOT)).toArray(String[]::new);
+        this.writers = ThreadLocal.withInitial(() -> new JsonWriter(INITIAL_CAPACITY, objectMapper));
+    }
+
+    /**
+     * 名字是否包含敏感词，不区分大小写
+     */
+    public boolean isRedacted(String name) {
+        if (name == null || redactedNames.length == 0) {
+            return false;
+        }
+        String lower = name.toLowerCase(Locale.ROOT);
+        for (String redacted : redactedNames) {
+            if (lower.contains(redacted)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return 序列化结果，不会抛出异常；无法序列化时为 "[Serialization Error]"
+     */
+    public RawJson serialize(Object value, int maxBytes, int maxDepth) {
+        JsonWriter writer = writers.get();
+        writer.reset();
+        try {
+            write(writer, value, 0, new Budget(maxBytes, Math.min(maxDepth, MAX_DEPTH)));
+        } catch (RuntimeException | StackOverflowError e) {
+            writer.reset();
+            writer.value("[Serialization Error]");
+        }
+        RawJson json = new RawJson(writer.toByteArray());
+        writer.release();
+        return json;
+    }
+
+    private void write(JsonWriter writer, Object value, int depth, Budget budget) {
+        if (value == null || value instanceof Number || value instanceof Boolean || value instanceof Character
+                || value instanceof Enum<?> || value instanceof TemporalAccessor || value instanceof RawJson) {
+            writer.value(value);
+        } else if (value instanceof CharSequence text) {
+            writeText(writer, text, budget);
+        } else if (depth >= budget.maxDepth) {
+            writer.value(ELLIPSIS);
+        } else if (value instanceof JsonNode node) {
+            // ArrayNode/ObjectNode 也是 Iterable，必须先于集合判断
+            writeNode(writer, node, depth, budget);
+        } else if (value instanceof Map<?, ?> map) {
+            writer.beginObject();
+            for (Map.Entry<?, ?> entry : map.entrySet()) {
+                if (budget.exhausted(writer)) {
+                    writer.name(TRUNCATED_FIELD).value("truncated");
+                    break;
+                }
+                String name = String.valueOf(entry.getKey());
+                writer.name(name);
+                write(writer, isRedacted(name) ? REDACTED : entry.getValue(), depth + 1, budget);
+            }
+            writer.endObject();
+        } else if (value instanceof Iterable<?> iterable) {
+            writer.beginArray();
+            for (Object element : iterable) {
+                if (budget.exhausted(writer)) {
+                    writer.value(TRUNCATED);
+                    break;
+                }
+                write(writer, element, depth + 1, budget);
+            }
+            writer.endArray();
+        } else if (value.getClass().isArray()) {
+            writeArray(writer, value, depth, budget);
+        } else {
+            writeBean(writer, value, depth, budget);
+        }
+    }
+
+    private void writeText(JsonWriter writer, CharSequence text, Budget budget) {
+        // 按每个字符至少一个字节估算剩余可写的字符数
+        int remaining = Math.max(budget.remaining(writer), 0);
+        if (text.length() <= remaining) {
+            writer.value(text);
+        } else {
+            // 不在代理对中间截断
+            int end = remaining > 0 && Character.isHighSurrogate(text.charAt(remaining - 1)) ? remaining - 1 : remaining;
+            writer.value(text.subSequence(0, end) + TRUNCATED);
+        }
+    }
+
+    private void writeArray(JsonWriter writer, Object array, int depth, Budget budget) {
+        int length = Array.getLength(array);
+        boolean objects = array instanceof Object[];
+        writer.beginArray();
+        for (int i = 0; i < length; i++) {
+            if (budget.exhausted(writer)) {
+                writer.value(TRUNCATED);
+                break;
+            }
+            Object element = objects ? ((Object[]) array)[i] : Array.get(array, i);
+            write(writer, element, depth + 1, budget);
+        }
+        writer.endArray();
+    }
+
+    private void writeNode(JsonWriter writer, JsonNode node, int depth, Budget budget) {
+        if (node.isObject()) {
+            writer.beginObject();
+            Iterator<Map.Entry<String, JsonNode>> fields = node.fields();
+            while (fields.hasNext()) {
+                if (budget.exhausted(writer)) {
+                    writer.name(TRUNCATED_FIELD).value("truncated");
+                    break;
+                }
+                Map.Entry<String, JsonNode> field = fields.next();
+                writer.name(field.getKey());
+                if (isRedacted(field.getKey())) {
+                    writer.value(REDACTED);
+                } else {
+                    write(writer, field.getValue(), depth + 1, budget);
+                }
+            }
+            writer.endObject();
+        } else if (node.isArray()) {
+            writer.beginArray();
+            for (JsonNode element : node) {
+                if (budget.exhausted(writer)) {
+                    writer.value(TRUNCATED);
+                    break;
+                }
+                write(writer, element, depth + 1, budget);
+            }
+            writer.endArray();
+        } else if (node.isTextual()) {
+            writeText(writer, node.textValue(), budget);
+        } else {
+            writer.value(node);
+        }
+    }
+
+    private void writeBean(JsonWriter writer, Object bean, int depth, Budget budget) {
+        BeanProperty[] properties = beanProperties.computeIfAbsent(bean.getClass(), this::resolveProperties);
+        if (properties == DELEGATE) {
+            writer.writeWithObjectMapper(bean, Math.max(budget.remaining(writer), 0), TRUNCATED);
+            return;
+        }
+        // 只有用到 inclusion 或属性自己的序列化器时才需要
+        SerializerProvider provider = null;
+        writer.beginObject();
+        for (BeanProperty property : properties) {
+            if (budget.exhausted(writer)) {
+                writer.name(TRUNCATED_FIELD).value("truncated");
+                break;
+            }
+            if (property.redacted) {
+                writer.name(property.name).value(REDACTED);
+                continue;
+            }
+            Object value;
+            try {
+                value = property.writer.get(bean);
+            } catch (Exception e) {
+                writer.name(property.name).value("[Serialization Error]");
+                continue;
+            }
+            if (provider == null && (property.custom || property.suppressableValue != null)) {
+                provider = objectMapper.getSerializerProviderInstance();
+            }
+            if (property.suppressed(value, provider)) {
+                continue;
+            }
+            writer.name(property.name);
+            if (property.custom && value != null) {
+                writer.writeWithSerializer(value, property.serializer(value, provider), provider,
+                        Math.max(budget.remaining(writer), 0), TRUNCATED);
+            } else {
+                write(writer, value, depth + 1, budget);
+            }
+        }
+        writer.endObject();
+    }
+
+    /**
+     * @return ObjectMapper 为该类型生成的 Bean 属性；不是普通 Bean（自定义序列化器、JDK 类型等）时为 {@link #DELEGATE}
+     */
+    private BeanProperty[] resolveProperties(Class<?> type) {
+        JsonSerializer<Object> serializer;
+        try {
+            serializer = objectMapper.getSerializerProviderInstance().findValueSerializer(type);
+        } catch (JsonMappingException e) {
+            return DELEGATE;
+        }
+        if (!(serializer instanceof BeanSerializerBase beanSerializer) || beanSerializer.usesObjectId()) {
+            return DELEGATE;
+        }
+        List<BeanProperty> properties = new ArrayList<>();
+        Iterator<PropertyWriter> iterator = beanSerializer.properties();
+        while (iterator.hasNext()) {
+            if (!(iterator.next() instanceof BeanPropertyWriter property) || property.isUnwrapping()) {
+                // @JsonUnwrapped 属性无法逐个写，整个对象交给 ObjectMapper
+                return DELEGATE;
+            }
+            boolean custom = property.getAnnotation(JsonSerialize.class) != null
+                    || property.getAnnotation(JsonFormat.class) != null
+                    || property.getAnnotation(JsonRawValue.class) != null;
+            properties.add(new BeanProperty(JsonWriter.fieldName(property.getName()), property,
+                    isRedacted(property.getName()), custom, new InclusionReader(property).suppressableValue()));
+        }
+        return properties.toArray(new BeanProperty[0]);
+    }
+
+    /**
+     * @param custom            属性带有自己的序列化设置，值交给该属性的序列化器
+     * @param suppressableValue 与 BeanPropertyWriter 相同：null 表示总是输出，MARKER_FOR_EMPTY 表示空值不输出，其他为要排除的值
+     */
+    private record BeanProperty(byte[] name, BeanPropertyWriter writer, boolean redacted, boolean custom,
+                                Object suppressableValue) {
+
+        /**
+         * 与 BeanPropertyWriter.serializeAsField 的 inclusion 判断相同
+         */
+        boolean suppressed(Object value, SerializerProvider provider) {
+            if (value == null) {
+                return writer.willSuppressNulls();
+            }
+            if (suppressableValue == null) {
+                return false;
+            }
+            if (suppressableValue == BeanPropertyWriter.MARKER_FOR_EMPTY) {
+                try {
+                    return serializer(value, provider).isEmpty(provider, value);
+                } catch (RuntimeException e) {
+                    return false;
+                }
+            }
+            return suppressableValue.equals(value);
+        }
+
+        JsonSerializer<Object> serializer(Object value, SerializerProvider provider) {
+            JsonSerializer<Object> serializer = writer.getSerializer();
+            if (serializer != null) {
+                return serializer;
+            }
+            try {
+                // 与 BeanPropertyWriter 的动态查找相同，带上属性上下文，@JsonFormat 等随之生效
+                return provider.findPrimaryPropertySerializer(value.getClass(), writer);
+            } catch (JsonMappingException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+
+    /**
+     * 读取属性的 inclusion 设置（@JsonInclude、全局 serializationInclusion），BeanPropertyWriter 没有公开这个值
+     */
+    private static final class InclusionReader extends BeanPropertyWriter {
+
+        InclusionReader(BeanPropertyWriter base) {
+            super(base);
+        }
+
+        Object suppressableValue() {
+            return _suppressableValue;
+        }
+    }
+
+    private record Budget(int maxBytes, int maxDepth) {
+
+        boolean exhausted(JsonWriter writer) {
+            return writer.size() >= maxBytes;
+        }
+
+        int remaining(JsonWriter writer) {
+            return maxBytes - writer.size();
+        }
+    }
+}
@@ -0,0 +1,218 @@
+package com.akira.springbootlogdemo.logging.json;
+
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.classic.spi.IThrowableProxy;
+import ch.qos.logback.classic.spi.ThrowableProxyUtil;
+import ch.qos.logback.core.encoder.EncoderBase;
+import com.akira.springbootlogdemo.logging.metrics.LoggingMetric;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.event.KeyValuePair;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 直接从 ILoggingEvent 输出一行 JSON 的编码器，替代 "%msg 里再放一段 JSON 字符串" 的写法：
+ * <pre>
+ * {"@timestamp":"2025-04-10T10:00:00.000+08:00","level":"INFO","thread":"...","logger":"...","message":"API_LOG",
+ *  "traceId":"...","method":"GET","uri":"/api/test/user","status":200,...}
+ * </pre>
+ * MDC 和 SLF4J 2 的 key-value（{@code log.atInfo().addKeyValue(...)}）平铺为顶层字段，值按原类型写出。
+ * 同名时 key-value 覆盖 MDC（如 traceId、status），两者都不会覆盖固定字段。
+ * 固定字段名预先编码成字节，每个线程复用一个缓冲区，为大事件扩容到 64KB 以上的缓冲区用完后换回初始大小。
+ * <p>
+ * 时间戳固定为第一个字段，BlockCompressor 和 LogIndexQuery 依赖它按行定位时间。
+ * <pre>
+ * &lt;encoder class="com.akira.springbootlogdemo.logging.json.JsonEncoder"&gt;
+ *     &lt;includeMdc&gt;true&lt;/includeMdc&gt;
+ *     &lt;includeKeyValues&gt;true&lt;/includeKeyValues&gt;
+ * &lt;/encoder&gt;
+ * </pre>
+ */
+public class JsonEncoder extends EncoderBase<ILoggingEvent> {
+
+    public static final String TIMESTAMP_PREFIX = "{\"@timestamp\":\"";
+
+    private static final byte[] TIMESTAMP = TIMESTAMP_PREFIX.getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] LEVEL = JsonWriter.fieldName("level");
+    private static final byte[] THREAD = JsonWriter.fieldName("thread");
+    private static final byte[] LOGGER = JsonWriter.fieldName("logger");
+    private static final byte[] MESSAGE = JsonWriter.fieldName("message");
+    private static final byte[] STACK_TRACE = JsonWriter.fieldName("stack_trace");
+    private static final Set<String> RESERVED_NAMES =
+            Set.of("@timestamp", "level", "thread", "logger", "message", "stack_trace");
+    // 字段名缓存上限，防止动态 key 撑大缓存
+    private static final int MAX_CACHED_NAMES = 1024;
+    private static final DateTimeFormatter SECOND_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss");
+    private static final DateTimeFormatter OFFSET_FORMAT = DateTimeFormatter.ofPattern("xxx");
+
+    private boolean includeMdc = true;
+    private boolean includeKeyValues = true;
+    private boolean includeStackTrace = true;
+
+    private final ZoneId zone = ZoneId.systemDefault();
+    private final ObjectMapper objectMapper = JsonWriter.defaultObjectMapper();
+    private final Map<String, byte[]> fieldNames = new ConcurrentHashMap<>();
+    private final ThreadLocal<State> state = ThreadLocal.withInitial(() -> new State(new JsonWriter(512, objectMapper)));
+
+    @Override
+    public byte[] headerBytes() {
+        return null;
+    }
+
+    @Override
+    public byte[] encode(ILoggingEvent event) {
+        long start = System.nanoTime();
+        State current = state.get();
+        JsonWriter writer = current.writer;
+        writer.reset();
+
+        // 时间戳手写，保证它是第一个字段，之后的字段都会补逗号
+        writer.writeBytes(TIMESTAMP, 0, TIMESTAMP.length);
+        writeTimestamp(current, event.getTimeStamp());
+        writer.writeByte('"');
+        writer.enterObject();
+
+        writer.name(LEVEL).value(event.getLevel().toString());
+        writer.name(THREAD).value(event.getThreadName());
+        writer.name(LOGGER).value(event.getLoggerName());
+        writer.name(MESSAGE).value(event.getFormattedMessage());
+
+        // 同名字段只写一次：固定字段优先，其次 key-value，最后 MDC
+        List<KeyValuePair> keyValuePairs = includeKeyValues ? event.getKeyValuePairs() : null;
+        if (includeMdc) {
+            Map<String, String> mdc = event.getMDCPropertyMap();
+            if (mdc != null) {
+                for (Map.Entry<String, String> entry : mdc.entrySet()) {
+                    String key = entry.getKey();
+                    if (!RESERVED_NAMES.contains(key) && indexOf(keyValuePairs, key, Integer.MAX_VALUE) < 0) {
+                        writer.name(fieldName(key)).value(entry.getValue());
+                    }
+                }
+            }
+        }
+        if (keyValuePairs != null) {
+            for (int i = 0; i < keyValuePairs.size(); i++) {
+                KeyValuePair pair = keyValuePairs.get(i);
+                // 重复的 key 保留第一个
+                if (pair.key != null && !RESERVED_NAMES.contains(pair.key) && indexOf(keyValuePairs, pair.key, i) < 0) {
+                    writer.name(fieldName(pair.key)).value(pair.value);
+                }
+            }
+        }
+        IThrowableProxy throwable = event.getThrowableProxy();
+        if (includeStackTrace && throwable != null) {
+            writer.name(STACK_TRACE).value(ThrowableProxyUtil.asString(throwable));
+        }
+
+        writer.endObject();
+        writer.writeByte('\n');
+        byte[] bytes = writer.toByteArray();
+        writer.release();
+        LoggingMetric.recordTime(LoggingMetric.ENCODED_EVENTS, LoggingMetric.ENCODE_NANOS, start);
+        LoggingMetric.ENCODED_BYTES.add(bytes.length);
+        return bytes;
+    }
+
+    /**
+     * 当前线程缓冲区的容量
+     */
+    int bufferCapacity() {
+        return state.get().writer.capacity();
+    }
+
+    @Override
+    public byte[] footerBytes() {
+        return null;
+    }
+
+    /**
+     * key 在前 limit 个 pair 中的位置，没有时返回 -1；key-value 通常只有几个，线性查找即可
+     */
+    private static int indexOf(List<KeyValuePair> pairs, String key, int limit) {
+        if (pairs == null) {
+            return -1;
+        }
+        int end = Math.min(limit, pairs.size());
+        for (int i = 0; i < end; i++) {
+            if (key.equals(pairs.get(i).key)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private byte[] fieldName(String name) {
+        byte[] bytes = fieldNames.get(name);
+        if (bytes == null) {
+            bytes = JsonWriter.fieldName(name);
+            if (fieldNames.size() < MAX_CACHED_NAMES) {
+                fieldNames.put(name, bytes);
+            }
+        }
+        return bytes;
+    }
+
+    /**
+     * 秒以上的部分和时区偏移每秒只格式化一次，毫秒直接写数字
+     */
+    private void writeTimestamp(State current, long millis) {
+        long second = Math.floorDiv(millis, 1000);
+        if (second != current.cachedSecond) {
+            ZonedDateTime time = Instant.ofEpochSecond(second).atZone(zone);
+            current.secondBytes = SECOND_FORMAT.format(time).getBytes(StandardCharsets.US_ASCII);
+            current.offsetBytes = OFFSET_FORMAT.format(time).getBytes(StandardCharsets.US_ASCII);
+            current.cachedSecond = second;
+        }
+        JsonWriter writer = current.writer;
+        writer.writeBytes(current.secondBytes, 0, current.secondBytes.length);
+        int fraction = (int) Math.floorMod(millis, 1000);
+        writer.writeByte('.');
+        writer.writeByte('0' + fraction / 100);
+        writer.writeByte('0' + fraction / 10 % 10);
+        writer.writeByte('0' + fraction % 10);
+        writer.writeBytes(current.offsetBytes, 0, current.offsetBytes.length);
+    }
+
+    public boolean isIncludeMdc() {
+        return includeMdc;
+    }
+
+    public void setIncludeMdc(boolean includeMdc) {
+        this.includeMdc = includeMdc;
+    }
+
+    public boolean isIncludeKeyValues() {
+        return includeKeyValues;
+    }
+
+    public void setIncludeKeyValues(boolean includeKeyValues) {
+        this.includeKeyValues = includeKeyValues;
+    }
+
+    public boolean isIncludeStackTrace() {
+        return includeStackTrace;
+    }
+
+    public void setIncludeStackTrace(boolean includeStackTrace) {
+        this.includeStackTrace = includeStackTrace;
+    }
+
+    private static final class State {
+        private final JsonWriter writer;
+        private long cachedSecond = Long.MIN_VALUE;
+        private byte[] secondBytes;
+        private byte[] offsetBytes;
+
+        State(JsonWriter writer) {
+            this.writer = writer;
+        }
+    }
+}
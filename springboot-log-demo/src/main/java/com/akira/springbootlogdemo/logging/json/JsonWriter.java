@@ -0,0 +1,444 @@
+package com.akira.springbootlogdemo.logging.json;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.JsonSerializer;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializerProvider;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Map;
+
+/**
+ * 直接写 UTF-8 字节的 JSON 输出，缓冲区可复用，不经过中间 String。
+ * <p>
+ * 基本类型、字符串、Map、集合、数组、Jackson 的 JsonNode 和 {@link RawJson} 自己写；其他对象交给 ObjectMapper，
+ * 但同样写进这个缓冲区。非线程安全，每个线程持有一个实例。
+ */
+public class JsonWriter {
+
+    private static final int MAX_DEPTH = 32;
+    // 超过这个大小的缓冲区用完即丢，不让一条大事件长期占住每个线程的内存
+    static final int MAX_RETAINED_CAPACITY = 64 * 1024;
+    private static final byte[] NULL = "null".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] TRUE = "true".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] FALSE = "false".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] HEX = "0123456789abcdef".getBytes(StandardCharsets.US_ASCII);
+
+    private final ObjectMapper objectMapper;
+    private final OutputStream stream = new BufferStream();
+    private final int initialCapacity;
+    private byte[] bytes;
+    private int size;
+
+    // 每层容器是否是数组、是否还没有写过元素，用于决定是否补逗号
+    private final boolean[] array = new boolean[MAX_DEPTH + 2];
+    private final boolean[] first = new boolean[MAX_DEPTH + 2];
+    private int depth;
+
+    public JsonWriter(int capacity, ObjectMapper objectMapper) {
+        this.initialCapacity = capacity;
+        this.bytes = new byte[capacity];
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * 写入时不关闭目标流、不带缩进的 ObjectMapper
+     */
+    public static ObjectMapper defaultObjectMapper() {
+        ObjectMapper objectMapper = new ObjectMapper();
+        objectMapper.getFactory().disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        objectMapper.findAndRegisterModules();
+        return objectMapper;
+    }
+
+    /**
+     * 预先计算好的字段名字节：<code>"name":</code>
+     */
+    public static byte[] fieldName(String name) {
+        JsonWriter writer = new JsonWriter(name.length() + 8, null);
+        writer.writeQuoted(name);
+        writer.writeByte(':');
+        return writer.toByteArray();
+    }
+
+    public void reset() {
+        size = 0;
+        depth = 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public byte[] toByteArray() {
+        return Arrays.copyOf(bytes, size);
+    }
+
+    /**
+     * 取出结果后调用：为大事件扩容到 {@link #MAX_RETAINED_CAPACITY} 以上的缓冲区换回初始大小
+     */
+    public void release() {
+        if (bytes.length > MAX_RETAINED_CAPACITY) {
+            bytes = new byte[initialCapacity];
+        }
+        reset();
+    }
+
+    int capacity() {
+        return bytes.length;
+    }
+
+    public JsonWriter beginObject() {
+        beforeValue();
+        writeByte('{');
+        push(false);
+        return this;
+    }
+
+    public JsonWriter endObject() {
+        depth--;
+        writeByte('}');
+        return this;
+    }
+
+    /**
+     * 调用方已手工写了 '{' 和第一个字段，之后按对象内部继续写
+     */
+    void enterObject() {
+        push(false);
+        first[depth] = false;
+    }
+
+    public JsonWriter beginArray() {
+        beforeValue();
+        writeByte('[');
+        push(true);
+        return this;
+    }
+
+    public JsonWriter endArray() {
+        depth--;
+        writeByte(']');
+        return this;
+    }
+
+    /**
+     * @param fieldName {@link #fieldName(String)} 的结果
+     */
+    public JsonWriter name(byte[] fieldName) {
+        separator();
+        writeBytes(fieldName, 0, fieldName.length);
+        return this;
+    }
+
+    public JsonWriter name(String name) {
+        separator();
+        writeQuoted(name);
+        writeByte(':');
+        return this;
+    }
+
+    public JsonWriter value(CharSequence value) {
+        beforeValue();
+        if (value == null) {
+            writeBytes(NULL, 0, NULL.length);
+        } else {
+            writeQuoted(value);
+        }
+        return this;
+    }
+
+    public JsonWriter value(long value) {
+        beforeValue();
+        writeLong(value);
+        return this;
+    }
+
+    public JsonWriter value(boolean value) {
+        beforeValue();
+        byte[] literal = value ? TRUE : FALSE;
+        writeBytes(literal, 0, literal.length);
+        return this;
+    }
+
+    /**
+     * 已经是合法 JSON 的字节，原样写入
+     */
+    public JsonWriter rawValue(byte[] json, int offset, int length) {
+        beforeValue();
+        writeBytes(json, offset, length);
+        return this;
+    }
+
+    public JsonWriter value(Object value) {
+        if (value == null) {
+            beforeValue();
+            writeBytes(NULL, 0, NULL.length);
+        } else if (value instanceof CharSequence text) {
+            value(text);
+        } else if (value instanceof Integer || value instanceof Long || value instanceof Short || value instanceof Byte) {
+            value(((Number) value).longValue());
+        } else if (value instanceof Double || value instanceof Float) {
+            double number = ((Number) value).doubleValue();
+            if (Double.isFinite(number)) {
+                beforeValue();
+                writeAscii(value.toString());
+            } else {
+                value(value.toString());
+            }
+        } else if (value instanceof BigDecimal || value instanceof BigInteger) {
+            beforeValue();
+            writeAscii(value.toString());
+        } else if (value instanceof Boolean bool) {
+            value(bool.booleanValue());
+        } else if (value instanceof Enum<?> constant) {
+            value(constant.name());
+        } else if (value instanceof Character || value instanceof java.time.temporal.TemporalAccessor) {
+            value(value.toString());
+        } else if (value instanceof RawJson raw) {
+            rawValue(raw.bytes(), 0, raw.bytes().length);
+        } else if (depth >= MAX_DEPTH) {
+            // 防止自引用的 Map/集合无限递归
+            value("...");
+        } else if (value instanceof JsonNode node) {
+            // ArrayNode/ObjectNode 也是 Iterable，必须先于集合判断
+            writeNode(node);
+        } else if (value instanceof Map<?, ?> map) {
+            beginObject();
+            for (Map.Entry<?, ?> entry : map.entrySet()) {
+                name(String.valueOf(entry.getKey()));
+                value(entry.getValue());
+            }
+            endObject();
+        } else if (value instanceof Iterable<?> iterable) {
+            beginArray();
+            for (Object element : iterable) {
+                value(element);
+            }
+            endArray();
+        } else if (value instanceof Object[] elements) {
+            beginArray();
+            for (Object element : elements) {
+                value(element);
+            }
+            endArray();
+        } else {
+            writeWithObjectMapper(value);
+        }
+        return this;
+    }
+
+    private void writeNode(JsonNode node) {
+        if (node.isContainerNode() && depth >= MAX_DEPTH) {
+            // 嵌套过深的 JsonNode 同样截断，否则会越过 array/first 的边界
+            value("...");
+        } else if (node.isObject()) {
+            beginObject();
+            Iterator<Map.Entry<String, JsonNode>> fields = node.fields();
+            while (fields.hasNext()) {
+                Map.Entry<String, JsonNode> field = fields.next();
+                name(field.getKey());
+                writeNode(field.getValue());
+            }
+            endObject();
+        } else if (node.isArray()) {
+            beginArray();
+            for (JsonNode element : node) {
+                writeNode(element);
+            }
+            endArray();
+        } else if (node.isTextual()) {
+            value(node.textValue());
+        } else if (node.isNumber() || node.isBoolean() || node.isNull()) {
+            beforeValue();
+            writeAscii(node.asText());
+        } else {
+            writeWithObjectMapper(node);
+        }
+    }
+
+    private void writeWithObjectMapper(Object value) {
+        writeWithObjectMapper(value, Integer.MAX_VALUE, null);
+    }
+
+    /**
+     * 交给 ObjectMapper 写，结果超过 maxBytes 时换成 marker 字符串
+     */
+    void writeWithObjectMapper(Object value, int maxBytes, String marker) {
+        beforeValue();
+        int mark = size;
+        try {
+            objectMapper.writeValue(stream, value);
+            if (size - mark > maxBytes) {
+                size = mark;
+                writeQuoted(marker);
+            }
+        } catch (IOException | RuntimeException e) {
+            size = mark;
+            writeQuoted("[Serialization Error: " + value.getClass().getName() + "]");
+        }
+    }
+
+    /**
+     * 用指定的序列化器（如属性上 @JsonSerialize 指定的）写值，结果超过 maxBytes 时换成 marker 字符串
+     */
+    void writeWithSerializer(Object value, JsonSerializer<Object> serializer, SerializerProvider provider,
+                             int maxBytes, String marker) {
+        beforeValue();
+        int mark = size;
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(stream)) {
+            serializer.serialize(value, generator, provider);
+            generator.flush();
+            if (size - mark > maxBytes) {
+                size = mark;
+                writeQuoted(marker);
+            }
+        } catch (IOException | RuntimeException e) {
+            size = mark;
+            writeQuoted("[Serialization Error: " + value.getClass().getName() + "]");
+        }
+    }
+
+    private void push(boolean isArray) {
+        depth++;
+        array[depth] = isArray;
+        first[depth] = true;
+    }
+
+    private void separator() {
+        if (!first[depth]) {
+            writeByte(',');
+        }
+        first[depth] = false;
+    }
+
+    private void beforeValue() {
+        if (depth > 0 && array[depth]) {
+            separator();
+        }
+    }
+
+    private void writeQuoted(CharSequence value) {
+        writeByte('"');
+        int length = value.length();
+        ensure(length + 2);
+        for (int i = 0; i < length; i++) {
+            char c = value.charAt(i);
+            if (c < 0x80) {
+                if (c >= 0x20 && c != '"' && c != '\\') {
+                    writeByte(c);
+                } else {
+                    writeEscaped(c);
+                }
+            } else if (c < 0x800) {
+                ensure(2);
+                bytes[size++] = (byte) (0xC0 | (c >> 6));
+                bytes[size++] = (byte) (0x80 | (c & 0x3F));
+            } else if (Character.isHighSurrogate(c) && i + 1 < length && Character.isLowSurrogate(value.charAt(i + 1))) {
+                int codePoint = Character.toCodePoint(c, value.charAt(++i));
+                ensure(4);
+                bytes[size++] = (byte) (0xF0 | (codePoint >> 18));
+                bytes[size++] = (byte) (0x80 | ((codePoint >> 12) & 0x3F));
+                bytes[size++] = (byte) (0x80 | ((codePoint >> 6) & 0x3F));
+                bytes[size++] = (byte) (0x80 | (codePoint & 0x3F));
+            } else if (Character.isSurrogate(c)) {
+                // 孤立的代理字符不是合法 UTF-16，替换掉
+                writeByte('?');
+            } else {
+                ensure(3);
+                bytes[size++] = (byte) (0xE0 | (c >> 12));
+                bytes[size++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+                bytes[size++] = (byte) (0x80 | (c & 0x3F));
+            }
+        }
+        writeByte('"');
+    }
+
+    private void writeEscaped(char c) {
+        writeByte('\\');
+        switch (c) {
+            case '"' -> writeByte('"');
+            case '\\' -> writeByte('\\');
+            case '\n' -> writeByte('n');
+            case '\r' -> writeByte('r');
+            case '\t' -> writeByte('t');
+            default -> {
+                writeByte('u');
+                writeByte('0');
+                writeByte('0');
+                writeByte(HEX[c >> 4]);
+                writeByte(HEX[c & 0xF]);
+            }
+        }
+    }
+
+    private void writeLong(long value) {
+        if (value == Long.MIN_VALUE) {
+            writeAscii(Long.toString(value));
+            return;
+        }
+        ensure(20);
+        if (value < 0) {
+            bytes[size++] = '-';
+            value = -value;
+        }
+        int start = size;
+        do {
+            bytes[size++] = (byte) ('0' + value % 10);
+            value /= 10;
+        } while (value != 0);
+        // 倒序写入后翻转
+        for (int i = start, j = size - 1; i < j; i++, j--) {
+            byte tmp = bytes[i];
+            bytes[i] = bytes[j];
+            bytes[j] = tmp;
+        }
+    }
+
+    void writeAscii(String value) {
+        int length = value.length();
+        ensure(length);
+        for (int i = 0; i < length; i++) {
+            bytes[size++] = (byte) value.charAt(i);
+        }
+    }
+
+    void writeByte(int b) {
+        ensure(1);
+        bytes[size++] = (byte) b;
+    }
+
+    void writeBytes(byte[] src, int offset, int length) {
+        ensure(length);
+        System.arraycopy(src, offset, bytes, size, length);
+        size += length;
+    }
+
+    private void ensure(int extra) {
+        if (size + extra > bytes.length) {
+            bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, size + extra));
+        }
+    }
+
+    /**
+     * 让 ObjectMapper 直接写进缓冲区
+     */
+    private final class BufferStream extends OutputStream {
+        @Override
+        public void write(int b) {
+            writeByte(b);
+        }
+
+        @Override
+        public void write(byte[] src, int offset, int length) {
+            writeBytes(src, offset, length);
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package com.akira.springbootlogdemo.logging.json;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * 已经序列化好的 UTF-8 JSON 片段，作为 key-value 的值时由 {@link JsonWriter} 原样写入，不再当作字符串转义
+ */
+public final class RawJson {
+
+    private final byte[] bytes;
+
+    public RawJson(byte[] bytes) {
+        this.bytes = bytes;
+    }
+
+    public byte[] bytes() {
+        return bytes;
+    }
+
+    /**
+     * 控制台 %kvp、二进制编码等按字符串输出的地方直接得到 JSON 文本
+     */
+    @Override
+    public String toString() {
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,76 @@
+package com.akira.springbootlogdemo.logging.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 日志子系统自身的计数器。
+ * <p>
+ * 每个计数器是一个 {@link LongAdder}：写入方各自累加到分散的 cell 上，热路径上几乎没有竞争，
+ * 只有读取（管理接口）时才求和。计数器是全局静态的，logback 创建的 appender/encoder 也能直接使用。
+ */
+public enum LoggingMetric {
+
+    /** 过滤器缓存的请求体/响应体字节数，以及 SQL 日志采集的语句长度 */
+    CAPTURED_BYTES("captured.bytes"),
+    /** 切面把参数/响应转成 JsonNode 快照、SQL 拦截器格式化语句的次数和耗时 */
+    SERIALIZATION_COUNT("serialization.count"),
+    SERIALIZATION_NANOS("serialization.nanos"),
+    /** JsonEncoder 编码的事件数、输出字节数和耗时 */
+    ENCODED_EVENTS("encoded.events"),
+    ENCODED_BYTES("encoded.bytes"),
+    ENCODE_NANOS("encode.nanos"),
+    /** 敏感数据脱敏（参数掩码、请求头过滤）的次数和耗时 */
+    REDACTION_COUNT("redaction.count"),
+    REDACTION_NANOS("redaction.nanos"),
+    /** MappedFileAppender 实际写入的事件数和字节数 */
+    WRITTEN_EVENTS("written.events"),
+    WRITTEN_BYTES("written.bytes"),
+    /** 被 DegradationTurboFilter 丢弃的事件（异步队列丢弃的按 appender 单独统计） */
+    DISCARDED_EVENTS("discarded.events"),
+    /** 错误日志中因指纹重复而省略的堆栈数 */
+    DEDUPLICATED_STACK_TRACES("deduplicated.stack.traces"),
+    /** ForwardingAppender 发送成功的事件数和压缩后字节数、发送失败次数、写入磁盘暂存的批次数 */
+    FORWARDED_EVENTS("forwarded.events"),
+    FORWARDED_BYTES("forwarded.bytes"),
+    FORWARD_FAILURES("forward.failures"),
+    SPOOLED_BATCHES("spooled.batches"),
+    /** 收集端拒绝或读不出来、移到 dead-letter 目录的批次数 */
+    DEAD_LETTER_BATCHES("dead.letter.batches"),
+    /** 磁盘暂存满时 append 阻塞的累计耗时 */
+    FORWARD_BLOCKED_NANOS("forward.blocked.nanos"),
+    /** 异步队列溢出到磁盘的事件数和字节数、从溢出文件读回的事件数 */
+    SPILLED_EVENTS("spilled.events"),
+    SPILLED_BYTES("spilled.bytes"),
+    UNSPILLED_EVENTS("unspilled.events");
+
+    private final String key;
+    private final LongAdder adder = new LongAdder();
+
+    LoggingMetric(String key) {
+        this.key = key;
+    }
+
+    public String getKey() {
+        return key;
+    }
+
+    public void increment() {
+        adder.increment();
+    }
+
+    public void add(long value) {
+        adder.add(value);
+    }
+
+    public long sum() {
+        return adder.sum();
+    }
+
+    /**
+     * 记录一次计时：count 加一，nanos 加上从 startNanos 到现在的耗时
+     */
+    public static void recordTime(LoggingMetric count, LoggingMetric nanos, long startNanos) {
+        nanos.add(System.nanoTime() - startNanos);
+        count.increment();
+    }
+}
@@ -0,0 +1,64 @@
+package com.akira.springbootlogdemo.logging.metrics;
+
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.Appender;
+import com.akira.springbootlogdemo.logging.appender.RingBufferAsyncAppender;
+import org.slf4j.ILoggerFactory;
+import org.slf4j.LoggerFactory;
+
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 汇总日志子系统的自监控数据：{@link LoggingMetric} 计数器，加上每个 RingBufferAsyncAppender 的
+ * 队列深度、高水位和丢弃数。只在读取时遍历 logback 的 appender，不影响写日志的路径。
+ */
+public final class LoggingMetrics {
+
+    private LoggingMetrics() {
+    }
+
+    public static Map<String, Object> snapshot() {
+        return snapshot(LoggerFactory.getILoggerFactory());
+    }
+
+    static Map<String, Object> snapshot(ILoggerFactory factory) {
+        Map<String, Object> result = new LinkedHashMap<>();
+        Map<String, Long> counters = new LinkedHashMap<>();
+        for (LoggingMetric metric : LoggingMetric.values()) {
+            counters.put(metric.getKey(), metric.sum());
+        }
+        result.put("counters", counters);
+        result.put("asyncAppenders", asyncAppenders(factory));
+        return result;
+    }
+
+    private static Map<String, Object> asyncAppenders(ILoggerFactory factory) {
+        Map<String, Object> result = new LinkedHashMap<>();
+        if (!(factory instanceof LoggerContext context)) {
+            return result;
+        }
+        // 同一个 appender 可能挂在多个 logger 上
+        Map<Appender<ILoggingEvent>, Boolean> seen = new IdentityHashMap<>();
+        for (ch.qos.logback.classic.Logger logger : context.getLoggerList()) {
+            Iterator<Appender<ILoggingEvent>> it = logger.iteratorForAppenders();
+            while (it.hasNext()) {
+                Appender<ILoggingEvent> appender = it.next();
+                if (appender instanceof RingBufferAsyncAppender async && seen.put(appender, Boolean.TRUE) == null) {
+                    Map<String, Object> stats = new LinkedHashMap<>();
+                    stats.put("queueDepth", async.getQueueSize());
+                    stats.put("errorQueueDepth", async.getErrorQueueSize());
+                    stats.put("spilledQueueDepth", async.getSpilledQueueSize());
+                    stats.put("highWaterMark", async.getHighWaterMark());
+                    stats.put("capacity", async.getBufferSize());
+                    stats.put("dropped", async.getDroppedCount());
+                    result.put(async.getName(), stats);
+                }
+            }
+        }
+        return result;
+    }
+}
@@ -0,0 +1,84 @@
+package com.akira.springbootlogdemo.logging.metrics;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * {@code @Blocking} 方法卸载到虚拟线程后的排队和执行耗时，按方法（如 {@code TestService.processTest}）聚合。
+ * <p>
+ * 排队耗时：订阅到虚拟线程开始执行；执行耗时：开始执行到终止信号（包括订阅期间的阻塞）。
+ * 由 BlockingOffloadAspect 记录，管理接口 {@code /admin/logging/offload} 读取。
+ */
+public final class OffloadMetrics {
+
+    // 方法数量上限，超过后合并到 OTHER
+    private static final int MAX_METHODS = 1024;
+    private static final String OTHER = "OTHER";
+
+    private static final Map<String, MethodStats> METHODS = new ConcurrentHashMap<>();
+
+    private OffloadMetrics() {
+    }
+
+    public static void recordStart(String method) {
+        stats(method).inFlight.increment();
+    }
+
+    /**
+     * @param executionNanos 还没开始执行就被取消时为 0
+     */
+    public static void recordEnd(String method, long queueNanos, long executionNanos, boolean failed) {
+        MethodStats stats = stats(method);
+        stats.inFlight.decrement();
+        stats.calls.increment();
+        if (failed) {
+            stats.errors.increment();
+        }
+        stats.queueNanos.add(queueNanos);
+        stats.maxQueueNanos.accumulate(queueNanos);
+        stats.executionNanos.add(executionNanos);
+        stats.maxExecutionNanos.accumulate(executionNanos);
+    }
+
+    public static Map<String, Object> snapshot() {
+        Map<String, Object> result = new TreeMap<>();
+        METHODS.forEach((method, stats) -> result.put(method, stats.snapshot()));
+        return result;
+    }
+
+    private static MethodStats stats(String method) {
+        MethodStats stats = METHODS.get(method);
+        if (stats == null) {
+            stats = METHODS.computeIfAbsent(METHODS.size() >= MAX_METHODS ? OTHER : method,
+                    key -> new MethodStats());
+        }
+        return stats;
+    }
+
+    private static final class MethodStats {
+        private final LongAdder calls = new LongAdder();
+        private final LongAdder errors = new LongAdder();
+        private final LongAdder inFlight = new LongAdder();
+        private final LongAdder queueNanos = new LongAdder();
+        private final LongAccumulator maxQueueNanos = new LongAccumulator(Math::max, 0);
+        private final LongAdder executionNanos = new LongAdder();
+        private final LongAccumulator maxExecutionNanos = new LongAccumulator(Math::max, 0);
+
+        Map<String, Object> snapshot() {
+            long count = calls.sum();
+            Map<String, Object> result = new LinkedHashMap<>();
+            result.put("calls", count);
+            result.put("errors", errors.sum());
+            result.put("inFlight", inFlight.sum());
+            result.put("queueWaitMeanMs", count > 0 ? queueNanos.sum() / count / 1_000_000.0 : 0);
+            result.put("queueWaitMaxMs", maxQueueNanos.get() / 1_000_000.0);
+            result.put("executionMeanMs", count > 0 ? executionNanos.sum() / count / 1_000_000.0 : 0);
+            result.put("executionMaxMs", maxExecutionNanos.get() / 1_000_000.0);
+            return result;
+        }
+    }
+}
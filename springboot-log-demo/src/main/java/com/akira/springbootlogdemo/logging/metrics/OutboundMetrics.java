@@ -0,0 +1,62 @@
+package com.akira.springbootlogdemo.logging.metrics;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * WebClient 出站调用按目标 host（host:port）聚合的耗时和状态码直方图，以及连接池状态。
+ * <p>
+ * 直方图与 {@link RouteMetrics} 相同，状态码为 0 的失败调用（连接拒绝、超时）计入 other。
+ * 连接池每个目标地址一个，由 reactor-netty 在创建/销毁时注册，读取时取实时值。
+ * 由 OutboundLoggingFilter 记录，管理接口 {@code /admin/logging/outbound} 读取。
+ */
+public final class OutboundMetrics {
+
+    // host 数量上限，超过后合并到 OTHER
+    private static final int MAX_HOSTS = 1024;
+    private static final String OTHER = "OTHER";
+
+    private static final Map<String, RouteHistogram> HOSTS = new ConcurrentHashMap<>();
+    private static final Map<String, Supplier<Map<String, Object>>> POOLS = new ConcurrentHashMap<>();
+
+    private OutboundMetrics() {
+    }
+
+    public static void record(String host, int status, long durationNanos, String traceId) {
+        RouteHistogram histogram = HOSTS.get(host);
+        if (histogram == null) {
+            histogram = HOSTS.computeIfAbsent(HOSTS.size() >= MAX_HOSTS ? OTHER : host, key -> new RouteHistogram());
+        }
+        histogram.record(durationNanos, status, traceId);
+    }
+
+    /**
+     * @param pool  连接池名加目标地址
+     * @param stats 读取时调用，返回当前的连接数、空闲数、等待数等
+     */
+    public static void registerPool(String pool, Supplier<Map<String, Object>> stats) {
+        POOLS.put(pool, stats);
+    }
+
+    public static void deregisterPool(String pool) {
+        POOLS.remove(pool);
+    }
+
+    public static Map<String, Object> snapshot() {
+        Map<String, Object> hosts = new TreeMap<>();
+        HOSTS.forEach((host, histogram) -> hosts.put(host, histogram.snapshot()));
+        Map<String, Object> pools = new TreeMap<>();
+        POOLS.forEach((pool, stats) -> pools.put(pool, stats.get()));
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("hosts", hosts);
+        result.put("pools", pools);
+        return result;
+    }
+
+    public static void reset() {
+        HOSTS.clear();
+    }
+}
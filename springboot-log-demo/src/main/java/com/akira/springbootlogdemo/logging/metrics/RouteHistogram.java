@@ -0,0 +1,126 @@
+package com.akira.springbootlogdemo.logging.metrics;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 单个路由的耗时和状态码分布。
+ * <p>
+ * 耗时按 2 的幂分桶（&lt;=1ms、2ms、4ms ... 约 65s），每个桶一个 LongAdder；状态码按 1xx~5xx 计数。
+ * 每个桶保留最近一次请求的 traceId 作为样例，只有落在目前最慢的几个桶里的请求才会写入，
+ * 常见的快请求不会争抢同一个引用。
+ */
+final class RouteHistogram {
+
+    static final int BUCKETS = 18;
+    private static final int EXEMPLAR_BUCKETS = 3;
+
+    private final LongAdder[] buckets = new LongAdder[BUCKETS];
+    private final LongAdder[] statuses = new LongAdder[6];
+    private final LongAdder totalNanos = new LongAdder();
+    private final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0);
+    private final AtomicReferenceArray<String> exemplars = new AtomicReferenceArray<>(BUCKETS);
+    private volatile int slowestBucket;
+
+    RouteHistogram() {
+        for (int i = 0; i < BUCKETS; i++) {
+            buckets[i] = new LongAdder();
+        }
+        for (int i = 0; i < statuses.length; i++) {
+            statuses[i] = new LongAdder();
+        }
+    }
+
+    static int bucket(long millis) {
+        return millis <= 1 ? 0 : Math.min(BUCKETS - 1, 64 - Long.numberOfLeadingZeros(millis - 1));
+    }
+
+    void record(long nanos, int status, String traceId) {
+        int bucket = bucket(nanos / 1_000_000);
+        buckets[bucket].increment();
+        statuses[status >= 100 && status < 600 ? status / 100 : 0].increment();
+        totalNanos.add(nanos);
+        maxNanos.accumulate(nanos);
+
+        int slowest = slowestBucket;
+        if (bucket > slowest) {
+            slowestBucket = bucket;
+        }
+        if (traceId != null && bucket > slowest - EXEMPLAR_BUCKETS) {
+            exemplars.lazySet(bucket, traceId);
+        }
+    }
+
+    Map<String, Object> snapshot() {
+        long[] counts = new long[BUCKETS];
+        long total = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            counts[i] = buckets[i].sum();
+            total += counts[i];
+        }
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("count", total);
+        Map<String, Long> status = new LinkedHashMap<>();
+        for (int i = 1; i < statuses.length; i++) {
+            long count = statuses[i].sum();
+            if (count > 0) {
+                status.put(i + "xx", count);
+            }
+        }
+        if (statuses[0].sum() > 0) {
+            status.put("other", statuses[0].sum());
+        }
+        result.put("status", status);
+        result.put("meanMs", total == 0 ? 0 : totalNanos.sum() / total / 1_000_000.0);
+        result.put("maxMs", maxNanos.get() / 1_000_000.0);
+        result.put("p50Ms", percentile(counts, total, 0.50));
+        result.put("p90Ms", percentile(counts, total, 0.90));
+        result.put("p99Ms", percentile(counts, total, 0.99));
+
+        // 只列出非空的桶，key 是桶上界
+        Map<String, Long> histogram = new LinkedHashMap<>();
+        for (int i = 0; i < BUCKETS; i++) {
+            if (counts[i] > 0) {
+                histogram.put("le" + (1L << i) + "ms", counts[i]);
+            }
+        }
+        result.put("histogram", histogram);
+
+        // 最慢的几个非空桶的样例 traceId，可以直接用 LogIndexQuery 查到完整日志
+        List<Map<String, Object>> slowest = new ArrayList<>();
+        for (int i = BUCKETS - 1; i >= 0 && slowest.size() < EXEMPLAR_BUCKETS; i--) {
+            String traceId = exemplars.get(i);
+            if (counts[i] > 0 && traceId != null) {
+                Map<String, Object> exemplar = new LinkedHashMap<>();
+                exemplar.put("leMs", 1L << i);
+                exemplar.put("traceId", traceId);
+                slowest.add(exemplar);
+            }
+        }
+        result.put("exemplars", slowest);
+        return result;
+    }
+
+    /**
+     * @return 百分位所在桶的上界(ms)，没有请求时为 0
+     */
+    private static long percentile(long[] counts, long total, double percentile) {
+        if (total == 0) {
+            return 0;
+        }
+        long rank = (long) Math.ceil(total * percentile);
+        long seen = 0;
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                return 1L << i;
+            }
+        }
+        return 1L << (counts.length - 1);
+    }
+}
@@ -0,0 +1,52 @@
+package com.akira.springbootlogdemo.logging.metrics;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 按路由模板（如 {@code GET /api/test/hello/{name}}）聚合的请求耗时和状态码直方图，
+ * 不按原始 URI 统计，路由数量就是接口数量，不会随路径参数膨胀。
+ * <p>
+ * 由 TraceIdFilter 在请求结束时记录，管理接口 {@code /admin/logging/routes} 读取，
+ * 进程内即可得到各接口的 p50/p90/p99 和错误比例，不需要把每条请求日志都送到外部系统。
+ */
+public final class RouteMetrics {
+
+    /** 没有匹配到 Controller 的请求（404、静态资源等）统一归到这个路由下 */
+    public static final String UNMATCHED = "UNMATCHED";
+    // 路由数量上限，超过后合并到 OTHER，防止异常情况下无限增长
+    private static final int MAX_ROUTES = 1024;
+    private static final String OTHER = "OTHER";
+
+    private static final Map<String, RouteHistogram> ROUTES = new ConcurrentHashMap<>();
+
+    private RouteMetrics() {
+    }
+
+    /**
+     * @param method  HTTP 方法
+     * @param pattern 匹配到的路由模板，没有匹配时为 null
+     */
+    public static void record(String method, String pattern, int status, long durationNanos, String traceId) {
+        String route = method + " " + (pattern != null ? pattern : UNMATCHED);
+        RouteHistogram histogram = ROUTES.get(route);
+        if (histogram == null) {
+            if (ROUTES.size() >= MAX_ROUTES) {
+                route = OTHER;
+            }
+            histogram = ROUTES.computeIfAbsent(route, key -> new RouteHistogram());
+        }
+        histogram.record(durationNanos, status, traceId);
+    }
+
+    public static Map<String, Object> snapshot() {
+        Map<String, Object> result = new TreeMap<>();
+        ROUTES.forEach((route, histogram) -> result.put(route, histogram.snapshot()));
+        return result;
+    }
+
+    public static void reset() {
+        ROUTES.clear();
+    }
+}
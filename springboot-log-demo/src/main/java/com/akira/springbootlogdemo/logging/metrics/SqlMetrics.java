@@ -0,0 +1,100 @@
+package com.akira.springbootlogdemo.logging.metrics;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 按 MappedStatement id 聚合的 SQL 耗时拆分：连接获取等待、语句准备、执行（网络往返和数据库执行）、
+ * 读取结果（ResultSet 上的 next/getXxx，即驱动解码），其余是 MyBatis 自身（参数设置、结果映射、缓存）。
+ * <p>
+ * acquire 占大头是连接池耗尽，execute 占大头是慢查询，mybatis 占大头是映射开销。
+ * 由 JdbcTimings 在每次 Executor.query/update 结束时记录，管理接口 {@code /admin/logging/sql} 读取。
+ */
+public final class SqlMetrics {
+
+    // 语句数量上限，超过后合并到 OTHER
+    private static final int MAX_STATEMENTS = 1024;
+    private static final String OTHER = "OTHER";
+
+    private static final Map<String, StatementStats> STATEMENTS = new ConcurrentHashMap<>();
+
+    private SqlMetrics() {
+    }
+
+    /**
+     * @param traceId 当前请求的 traceId，总耗时创新高时作为样例保留
+     */
+    public static void record(String statementId, long totalNanos, long acquireNanos, long prepareNanos,
+                              long executeNanos, long fetchNanos, long rows, String traceId) {
+        StatementStats stats = STATEMENTS.get(statementId);
+        if (stats == null) {
+            stats = STATEMENTS.computeIfAbsent(STATEMENTS.size() >= MAX_STATEMENTS ? OTHER : statementId,
+                    key -> new StatementStats());
+        }
+        stats.calls.increment();
+        stats.rows.add(rows);
+        stats.totalNanos.add(totalNanos);
+        stats.acquireNanos.add(acquireNanos);
+        stats.maxAcquireNanos.accumulate(acquireNanos);
+        stats.prepareNanos.add(prepareNanos);
+        stats.executeNanos.add(executeNanos);
+        stats.maxExecuteNanos.accumulate(executeNanos);
+        stats.fetchNanos.add(fetchNanos);
+        if (totalNanos > stats.maxTotalNanos.get()) {
+            stats.maxTotalNanos.accumulate(totalNanos);
+            stats.slowestTraceId = traceId;
+        }
+    }
+
+    public static Map<String, Object> snapshot() {
+        Map<String, Object> result = new TreeMap<>();
+        STATEMENTS.forEach((id, stats) -> result.put(id, stats.snapshot()));
+        return result;
+    }
+
+    public static void reset() {
+        STATEMENTS.clear();
+    }
+
+    private static final class StatementStats {
+        private final LongAdder calls = new LongAdder();
+        private final LongAdder rows = new LongAdder();
+        private final LongAdder totalNanos = new LongAdder();
+        private final LongAccumulator maxTotalNanos = new LongAccumulator(Math::max, 0);
+        private final LongAdder acquireNanos = new LongAdder();
+        private final LongAccumulator maxAcquireNanos = new LongAccumulator(Math::max, 0);
+        private final LongAdder prepareNanos = new LongAdder();
+        private final LongAdder executeNanos = new LongAdder();
+        private final LongAccumulator maxExecuteNanos = new LongAccumulator(Math::max, 0);
+        private final LongAdder fetchNanos = new LongAdder();
+        private volatile String slowestTraceId;
+
+        Map<String, Object> snapshot() {
+            long count = calls.sum();
+            long total = totalNanos.sum();
+            long jdbc = acquireNanos.sum() + prepareNanos.sum() + executeNanos.sum() + fetchNanos.sum();
+            Map<String, Object> result = new LinkedHashMap<>();
+            result.put("calls", count);
+            result.put("rowsMean", count > 0 ? (double) rows.sum() / count : 0);
+            result.put("totalMeanMs", mean(total, count));
+            result.put("totalMaxMs", maxTotalNanos.get() / 1_000_000.0);
+            result.put("acquireMeanMs", mean(acquireNanos.sum(), count));
+            result.put("acquireMaxMs", maxAcquireNanos.get() / 1_000_000.0);
+            result.put("prepareMeanMs", mean(prepareNanos.sum(), count));
+            result.put("executeMeanMs", mean(executeNanos.sum(), count));
+            result.put("executeMaxMs", maxExecuteNanos.get() / 1_000_000.0);
+            result.put("fetchMeanMs", mean(fetchNanos.sum(), count));
+            result.put("mybatisMeanMs", mean(Math.max(0, total - jdbc), count));
+            result.put("slowestTraceId", slowestTraceId);
+            return result;
+        }
+
+        private static double mean(long nanos, long count) {
+            return count > 0 ? nanos / count / 1_000_000.0 : 0;
+        }
+    }
+}
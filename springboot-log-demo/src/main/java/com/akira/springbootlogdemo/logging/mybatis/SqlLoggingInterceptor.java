@@ -1,5 +1,11 @@
 package com.akira.springbootlogdemo.logging.mybatis;
 
+import com.akira.springbootlogdemo.logging.blocking.BlockingCallDetector;
+import com.akira.springbootlogdemo.logging.config.LoggingConfigManager;
+import com.akira.springbootlogdemo.logging.config.LoggingConfigSnapshot;
+import com.akira.springbootlogdemo.logging.jdbc.JdbcTimings;
+import com.akira.springbootlogdemo.logging.metrics.LoggingMetric;
+import com.akira.springbootlogdemo.logging.profile.CallTreeProfiler;
 import org.apache.ibatis.executor.Executor;
 import org.apache.ibatis.mapping.BoundSql;
 import org.apache.ibatis.mapping.MappedStatement;
@@ -11,6 +17,7 @@ import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Component;
 
 import java.util.Properties;
+import java.util.regex.Pattern;
 
 @Intercepts({
         @Signature(type = Executor.class, method = "query",
@@ -22,32 +29,93 @@ import java.util.Properties;
 public class SqlLoggingInterceptor implements Interceptor {
 
     private static final Logger logger = LoggerFactory.getLogger("SQL_LOGGER");
+    private static final Logger slowLogger = LoggerFactory.getLogger("SLOW_SQL_LOGGER");
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+    private final LoggingConfigManager configManager;
+
+    public SqlLoggingInterceptor(LoggingConfigManager configManager) {
+        this.configManager = configManager;
+    }
 
     @Override
     public Object intercept(Invocation invocation) throws Throwable {
         MappedStatement mappedStatement = (MappedStatement) invocation.getArgs()[0];
         Object parameter = invocation.getArgs()[1];
+        // 在非阻塞线程上执行 JDBC 时报告（logging.blocking-detection）
+        BlockingCallDetector.checkBlocking("JDBC", mappedStatement.getId());
 
-        BoundSql boundSql = mappedStatement.getBoundSql(parameter);
-        String sql = boundSql.getSql().replaceAll("\\s+", " ").trim();
+        // JDBC 各阶段耗时不受 SQL 日志开关影响，总是记入 SqlMetrics
+        JdbcTimings timings = JdbcTimings.begin();
+
+        // 每条 SQL 只读一次配置快照
+        LoggingConfigSnapshot config = configManager.current();
+        if (!config.isSqlEnabled() || config.isExcludedSqlId(mappedStatement.getId())) {
+            return proceed(invocation, mappedStatement, timings);
+        }
 
         long startTime = System.currentTimeMillis();
-        Object result = invocation.proceed();
+        Object result = proceed(invocation, mappedStatement, timings);
         long duration = System.currentTimeMillis() - startTime;
 
+        boolean slow = duration >= config.getSlowQueryThreshold();
+        if (!slow && !logger.isDebugEnabled()) {
+            return result;
+        }
+
+        long formatStart = System.nanoTime();
+        BoundSql boundSql = mappedStatement.getBoundSql(parameter);
+        String sql = WHITESPACE.matcher(boundSql.getSql()).replaceAll(" ").trim();
+        LoggingMetric.recordTime(LoggingMetric.SERIALIZATION_COUNT, LoggingMetric.SERIALIZATION_NANOS, formatStart);
+        LoggingMetric.CAPTURED_BYTES.add(sql.length());
+
+        if (slow) {
+            // 带上 JDBC 各阶段耗时，区分连接池等待、慢查询和映射开销
+            if (timings != null) {
+                slowLogger.warn("Slow SQL ({}ms, {}): {} [{}]", duration, timings, sql, mappedStatement.getId());
+            } else {
+                slowLogger.warn("Slow SQL ({}ms): {} [{}]", duration, sql, mappedStatement.getId());
+            }
+        }
+
         logger.debug("SQL: {}", sql);
-        logger.debug("Parameters: {}", boundSql.getParameterObject());
+        if (config.isShowParams()) {
+            logger.debug("Parameters: {}", boundSql.getParameterObject());
+        }
         logger.debug("Execution time: {}ms", duration);
+        if (timings != null) {
+            logger.debug("JDBC: {}", timings);
+        }
 
-        if (result instanceof java.util.List) {
-            logger.debug("Result size: {}", ((java.util.List<?>) result).size());
-        } else {
-            logger.debug("Result: {}", result);
+        if (config.isShowResults()) {
+            if (result instanceof java.util.List) {
+                logger.debug("Result size: {}", ((java.util.List<?>) result).size());
+            } else {
+                logger.debug("Result: {}", truncate(String.valueOf(result), config.getMaxResultLength()));
+            }
         }
 
         return result;
     }
 
+    /**
+     * 不受 SQL 日志开关影响，采样中的请求总是把 Mapper 调用记入调用树
+     */
+    private static Object proceed(Invocation invocation, MappedStatement mappedStatement,
+                                  JdbcTimings timings) throws Throwable {
+        int frame = CallTreeProfiler.enter(mappedStatement.getId());
+        try {
+            return invocation.proceed();
+        } finally {
+            CallTreeProfiler.exit(frame);
+            JdbcTimings.end(timings, mappedStatement.getId());
+        }
+    }
+
+    private static String truncate(String value, int maxLength) {
+        return maxLength > 0 && value.length() > maxLength ? value.substring(0, maxLength) + "..." : value;
+    }
+
     @Override
     public Object plugin(Object target) {
         return Plugin.wrap(target, this);
@@ -0,0 +1,18 @@
+package com.akira.springbootlogdemo.logging.offload;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * 标记会阻塞的 Service 方法（sleep、JDBC、阻塞 I/O）。
+ * 返回 Mono/Flux 时由 {@link BlockingOffloadAspect} 在虚拟线程上订阅，不占用事件循环和 boundedElastic 线程；
+ * 其他返回类型照常在调用线程上执行。
+ */
+@Documented
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface Blocking {
+}
@@ -0,0 +1,122 @@
+package com.akira.springbootlogdemo.logging.offload;
+
+import com.akira.springbootlogdemo.logging.metrics.OffloadMetrics;
+import jakarta.annotation.PreDestroy;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.reactivestreams.Publisher;
+import org.slf4j.MDC;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.Map;
+import java.util.concurrent.Executors;
+
+/**
+ * 把 {@link Blocking} 标记的、返回 Mono/Flux 的 Service 方法卸载到虚拟线程上订阅。
+ * <p>
+ * 方法本身的调用和订阅（包括 map 里的 sleep、JDBC 等阻塞操作）都在虚拟线程上进行，事件循环和
+ * boundedElastic 线程只负责转发结果。每次订阅一个新的虚拟线程，执行前带上订阅线程的 MDC（traceId 等）；
+ * 线程随任务结束，不需要清理 MDC。
+ * <p>
+ * 切点沿用 LoggingAspect 的 Service 切点，与 logging.weaving 无关；排队和执行耗时记录在 {@link OffloadMetrics}。
+ */
+@Aspect
+@Component
+@Order(0) // 在日志切面之外，整条调用链都在虚拟线程上执行
+@ConditionalOnProperty(prefix = "logging.offload", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class BlockingOffloadAspect {
+
+    private final Scheduler scheduler;
+
+    public BlockingOffloadAspect() {
+        this(Schedulers.fromExecutorService(
+                Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("blocking-offload-", 0).factory()),
+                "blocking-offload"));
+    }
+
+    BlockingOffloadAspect(Scheduler scheduler) {
+        this.scheduler = scheduler;
+    }
+
+    @PreDestroy
+    public void stop() {
+        scheduler.dispose();
+    }
+
+    @Around("com.akira.springbootlogdemo.logging.aop.LoggingAspect.serviceMethods() && " +
+            "@annotation(com.akira.springbootlogdemo.logging.offload.Blocking)")
+    public Object offload(ProceedingJoinPoint joinPoint) throws Throwable {
+        Class<?> returnType = ((MethodSignature) joinPoint.getSignature()).getReturnType();
+        String method = joinPoint.getSignature().getDeclaringType().getSimpleName()
+                + "." + joinPoint.getSignature().getName();
+
+        if (Mono.class.isAssignableFrom(returnType)) {
+            return Mono.defer(() -> {
+                Offload offload = new Offload(method);
+                // doFinally 在 subscribeOn 之外，排队期间被取消时也会执行
+                return Mono.defer(() -> Mono.from(offload.invoke(joinPoint)))
+                        .subscribeOn(scheduler)
+                        .doFinally(offload::finish);
+            });
+        } else if (Flux.class.isAssignableFrom(returnType)) {
+            return Flux.defer(() -> {
+                Offload offload = new Offload(method);
+                return Flux.defer(() -> Flux.from(offload.invoke(joinPoint)))
+                        .subscribeOn(scheduler)
+                        .doFinally(offload::finish);
+            });
+        }
+        // 同步方法无法卸载，照常在调用线程上执行
+        return joinPoint.proceed();
+    }
+
+    /**
+     * 一次订阅：在订阅线程上创建，记录排队开始时间和 MDC
+     */
+    private static final class Offload {
+        private final String method;
+        private final Map<String, String> mdc = MDC.getCopyOfContextMap();
+        private final long scheduledNanos = System.nanoTime();
+        // 在虚拟线程上写，doFinally 可能在其他线程上读
+        private volatile long startedNanos;
+
+        Offload(String method) {
+            this.method = method;
+            OffloadMetrics.recordStart(method);
+        }
+
+        Publisher<?> invoke(ProceedingJoinPoint joinPoint) {
+            startedNanos = System.nanoTime();
+            if (mdc != null) {
+                MDC.setContextMap(mdc);
+            }
+            try {
+                Object result = joinPoint.proceed();
+                return result != null ? (Publisher<?>) result : Mono.empty();
+            } catch (Throwable e) {
+                return Mono.error(e);
+            }
+        }
+
+        void finish(SignalType signal) {
+            long now = System.nanoTime();
+            long started = startedNanos;
+            if (started == 0) {
+                // 排队期间被取消
+                OffloadMetrics.recordEnd(method, now - scheduledNanos, 0, false);
+            } else {
+                OffloadMetrics.recordEnd(method, started - scheduledNanos, now - started,
+                        signal == SignalType.ON_ERROR);
+            }
+        }
+    }
+}
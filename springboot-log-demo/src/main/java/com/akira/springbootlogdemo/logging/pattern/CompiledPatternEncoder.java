@@ -0,0 +1,542 @@
+package com.akira.springbootlogdemo.logging.pattern;
+
+import ch.qos.logback.classic.encoder.PatternLayoutEncoder;
+import ch.qos.logback.classic.pattern.Abbreviator;
+import ch.qos.logback.classic.pattern.ClassNameOnlyAbbreviator;
+import ch.qos.logback.classic.pattern.ExtendedThrowableProxyConverter;
+import ch.qos.logback.classic.pattern.TargetLengthBasedClassNameAbbreviator;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.CoreConstants;
+import ch.qos.logback.core.encoder.EncoderBase;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 把 PatternLayout 的模式预先编译成一串直接写字节的片段，输出与 PatternLayoutEncoder 逐字节相同。
+ * <p>
+ * 支持的转换词：%d/%date（模式和时区两个选项）、%t/%thread、%p/%le/%level、%c/%lo/%logger{n}、
+ * %m/%msg/%message、%kvp 和 %kvpSuffix（NONE/SINGLE/DOUBLE）、%n，以及宽度和截断修饰（如 %-5level、%.30logger）。
+ * <ul>
+ *     <li>时间戳每个线程缓存上一毫秒的格式化结果</li>
+ *     <li>缩写后的 logger 名、线程名和补齐后的级别按值缓存成字节</li>
+ *     <li>消息等动态文本直接编码进线程复用的 ByteBuffer，不经过中间的 StringBuilder；
+ *     为大消息扩容到 64KB 以上的缓冲区用完后换回初始大小</li>
+ * </ul>
+ * 与 PatternLayout 一样，事件带异常时在末尾追加 %xEx 的输出（由 logback 自己的转换器生成）。
+ * 模式中有其他转换词、括号分组或转义时，整体回退到 PatternLayoutEncoder。
+ * <pre>
+ * &lt;encoder class="com.akira.springbootlogdemo.logging.pattern.CompiledPatternEncoder"&gt;
+ *     &lt;pattern&gt;%d{yyyy-MM-dd HH:mm:ss.SSS} [%thread] %-5level %logger{36} - %msg%n&lt;/pattern&gt;
+ * &lt;/encoder&gt;
+ * </pre>
+ */
+public class CompiledPatternEncoder extends EncoderBase<ILoggingEvent> {
+
+    // logger 名、线程名缓存上限，防止动态命名的线程撑大缓存
+    private static final int MAX_CACHED_NAMES = 4096;
+    private static final int INITIAL_CAPACITY = 512;
+    // 超过这个大小的缓冲区用完即丢，不让一条大消息长期占住每个线程的内存
+    static final int MAX_RETAINED_CAPACITY = 64 * 1024;
+
+    private String pattern;
+    private Charset charset;
+
+    private Segment[] segments;
+    private boolean utf8;
+    private ExtendedThrowableProxyConverter throwableConverter;
+    private PatternLayoutEncoder fallback;
+    private final ThreadLocal<State> state = ThreadLocal.withInitial(State::new);
+
+    @Override
+    public void start() {
+        if (pattern == null || pattern.isEmpty()) {
+            addError("No pattern set for the encoder named [" + getClass().getSimpleName() + "]");
+            return;
+        }
+        // 与 LayoutWrappingEncoder 相同：没有配置 charset 时用平台默认字符集
+        Charset target = charset != null ? charset : Charset.defaultCharset();
+        utf8 = target.equals(StandardCharsets.UTF_8);
+        try {
+            segments = compile(pattern).toArray(new Segment[0]);
+        } catch (IllegalArgumentException e) {
+            addInfo("Pattern [" + pattern + "] cannot be precompiled (" + e.getMessage()
+                    + "), falling back to PatternLayoutEncoder");
+            fallback = new PatternLayoutEncoder();
+            fallback.setContext(getContext());
+            fallback.setPattern(pattern);
+            fallback.setCharset(charset);
+            fallback.start();
+            super.start();
+            return;
+        }
+        throwableConverter = new ExtendedThrowableProxyConverter();
+        throwableConverter.setContext(getContext());
+        throwableConverter.start();
+        super.start();
+    }
+
+    @Override
+    public void stop() {
+        if (fallback != null) {
+            fallback.stop();
+        }
+        if (throwableConverter != null) {
+            throwableConverter.stop();
+        }
+        super.stop();
+    }
+
+    @Override
+    public byte[] headerBytes() {
+        return fallback != null ? fallback.headerBytes() : null;
+    }
+
+    @Override
+    public byte[] encode(ILoggingEvent event) {
+        if (fallback != null) {
+            return fallback.encode(event);
+        }
+        State current = state.get();
+        current.buffer.clear();
+        for (Segment segment : segments) {
+            segment.write(event, current);
+        }
+        if (event.getThrowableProxy() != null) {
+            current.writeText(throwableConverter.convert(event));
+        }
+        ByteBuffer buffer = current.buffer;
+        byte[] bytes = new byte[buffer.position()];
+        buffer.flip();
+        buffer.get(bytes);
+        if (buffer.capacity() > MAX_RETAINED_CAPACITY) {
+            current.buffer = ByteBuffer.allocate(INITIAL_CAPACITY);
+        }
+        return bytes;
+    }
+
+    /**
+     * 当前线程缓冲区的容量
+     */
+    int bufferCapacity() {
+        return state.get().buffer.capacity();
+    }
+
+    @Override
+    public byte[] footerBytes() {
+        return fallback != null ? fallback.footerBytes() : null;
+    }
+
+    public String getPattern() {
+        return pattern;
+    }
+
+    public void setPattern(String pattern) {
+        this.pattern = pattern;
+    }
+
+    public Charset getCharset() {
+        return charset;
+    }
+
+    public void setCharset(Charset charset) {
+        this.charset = charset;
+    }
+
+    /**
+     * 按 logback 的语法解析模式：% [-] [最小宽度] [.[-]最大宽度] 转换词 [{选项}]
+     *
+     * @throws IllegalArgumentException 模式中有不支持的语法
+     */
+    List<Segment> compile(String pattern) {
+        List<Segment> result = new ArrayList<>();
+        StringBuilder literal = new StringBuilder();
+        int i = 0;
+        while (i < pattern.length()) {
+            char c = pattern.charAt(i);
+            if (c == '\\' || c == '(' || c == ')') {
+                throw new IllegalArgumentException("escape or group at " + i);
+            }
+            if (c != '%') {
+                literal.append(c);
+                i++;
+                continue;
+            }
+            if (!literal.isEmpty()) {
+                result.add(new Literal(encode(literal.toString())));
+                literal.setLength(0);
+            }
+
+            i++;
+            Format format = new Format();
+            if (i < pattern.length() && pattern.charAt(i) == '-') {
+                format.padLeft = false;
+                i++;
+            }
+            int start = i;
+            while (i < pattern.length() && Character.isDigit(pattern.charAt(i))) {
+                i++;
+            }
+            if (i > start) {
+                format.min = Integer.parseInt(pattern.substring(start, i));
+            }
+            if (i < pattern.length() && pattern.charAt(i) == '.') {
+                i++;
+                if (i < pattern.length() && pattern.charAt(i) == '-') {
+                    format.truncateLeft = false;
+                    i++;
+                }
+                start = i;
+                while (i < pattern.length() && Character.isDigit(pattern.charAt(i))) {
+                    i++;
+                }
+                if (i == start) {
+                    throw new IllegalArgumentException("missing max width at " + i);
+                }
+                format.max = Integer.parseInt(pattern.substring(start, i));
+            }
+
+            start = i;
+            while (i < pattern.length() && Character.isJavaIdentifierPart(pattern.charAt(i))) {
+                i++;
+            }
+            String word = pattern.substring(start, i);
+            List<String> options = List.of();
+            if (i < pattern.length() && pattern.charAt(i) == '{') {
+                int end = pattern.indexOf('}', i);
+                if (end < 0) {
+                    throw new IllegalArgumentException("unterminated option at " + i);
+                }
+                options = options(pattern.substring(i + 1, end));
+                i = end + 1;
+            }
+            result.add(converter(word, options, format.isDefault() ? null : format));
+        }
+        if (!literal.isEmpty()) {
+            result.add(new Literal(encode(literal.toString())));
+        }
+        return result;
+    }
+
+    private Segment converter(String word, List<String> options, Format format) {
+        switch (word) {
+            case "d", "date" -> {
+                return new DateSegment(options, format);
+            }
+            case "t", "thread" -> {
+                return new CachedSegment(format) {
+                    @Override
+                    String value(ILoggingEvent event) {
+                        return event.getThreadName();
+                    }
+                };
+            }
+            case "p", "le", "level" -> {
+                return new CachedSegment(format) {
+                    @Override
+                    String value(ILoggingEvent event) {
+                        return event.getLevel().toString();
+                    }
+                };
+            }
+            case "c", "lo", "logger" -> {
+                return new LoggerSegment(options, format);
+            }
+            case "m", "msg", "message" -> {
+                return new TextSegment(format) {
+                    @Override
+                    String value(ILoggingEvent event) {
+                        return event.getFormattedMessage();
+                    }
+                };
+            }
+            case "kvp" -> {
+                return new KeyValueSegment(options, format, false);
+            }
+            case "kvpSuffix" -> {
+                return new KeyValueSegment(options, format, true);
+            }
+            case "n" -> {
+                return new Literal(encode(CoreConstants.LINE_SEPARATOR));
+            }
+            default -> throw new IllegalArgumentException("unsupported conversion word %" + word);
+        }
+    }
+
+    private static List<String> options(String text) {
+        if (text.indexOf('"') >= 0 || text.indexOf('\'') >= 0) {
+            throw new IllegalArgumentException("quoted option");
+        }
+        List<String> options = new ArrayList<>();
+        for (String option : text.split(",")) {
+            options.add(option.trim());
+        }
+        return options;
+    }
+
+    private byte[] encode(String text) {
+        return text.getBytes(charset != null ? charset : Charset.defaultCharset());
+    }
+
+    /**
+     * 模式中的一段，按顺序写进缓冲区
+     */
+    private interface Segment {
+        void write(ILoggingEvent event, State state);
+    }
+
+    private record Literal(byte[] bytes) implements Segment {
+        @Override
+        public void write(ILoggingEvent event, State state) {
+            state.writeBytes(bytes);
+        }
+    }
+
+    /**
+     * 宽度和截断修饰，语义与 logback 的 FormatInfo/FormattingConverter 相同
+     */
+    static final class Format {
+        int min = Integer.MIN_VALUE;
+        int max = Integer.MAX_VALUE;
+        boolean padLeft = true;
+        boolean truncateLeft = true;
+
+        boolean isDefault() {
+            return min == Integer.MIN_VALUE && max == Integer.MAX_VALUE && padLeft && truncateLeft;
+        }
+
+        String apply(String value) {
+            if (value == null) {
+                return min > 0 ? " ".repeat(min) : "";
+            }
+            int length = value.length();
+            if (length > max) {
+                return truncateLeft ? value.substring(length - max) : value.substring(0, max);
+            }
+            if (length < min) {
+                String padding = " ".repeat(min - length);
+                return padLeft ? padding + value : value + padding;
+            }
+            return value;
+        }
+    }
+
+    /**
+     * 每次都变化的文本（消息等），直接编码进缓冲区
+     */
+    private abstract static class TextSegment implements Segment {
+        private final Format format;
+
+        TextSegment(Format format) {
+            this.format = format;
+        }
+
+        abstract String value(ILoggingEvent event);
+
+        @Override
+        public void write(ILoggingEvent event, State state) {
+            String value = value(event);
+            state.writeText(format != null ? format.apply(value) : String.valueOf(value));
+        }
+    }
+
+    /**
+     * 取值范围有限的文本（线程名、级别），按原值缓存格式化并编码后的字节
+     */
+    private abstract class CachedSegment implements Segment {
+        private final Format format;
+        private final Map<String, byte[]> cache = new ConcurrentHashMap<>();
+
+        CachedSegment(Format format) {
+            this.format = format;
+        }
+
+        abstract String value(ILoggingEvent event);
+
+        String convert(String value) {
+            return value;
+        }
+
+        @Override
+        public void write(ILoggingEvent event, State state) {
+            String value = value(event);
+            if (value == null) {
+                state.writeText(format != null ? format.apply(null) : "null");
+                return;
+            }
+            byte[] bytes = cache.get(value);
+            if (bytes == null) {
+                String converted = convert(value);
+                bytes = encode(format != null ? format.apply(converted) : converted);
+                if (cache.size() < MAX_CACHED_NAMES) {
+                    cache.put(value, bytes);
+                }
+            }
+            state.writeBytes(bytes);
+        }
+    }
+
+    /**
+     * %logger{n}：缩写直接使用 logback 的 Abbreviator，结果按 logger 名缓存
+     */
+    private final class LoggerSegment extends CachedSegment {
+        private final Abbreviator abbreviator;
+
+        LoggerSegment(List<String> options, Format format) {
+            super(format);
+            Abbreviator selected = null;
+            if (!options.isEmpty()) {
+                try {
+                    int length = Integer.parseInt(options.get(0));
+                    if (length == 0) {
+                        selected = new ClassNameOnlyAbbreviator();
+                    } else if (length > 0) {
+                        selected = new TargetLengthBasedClassNameAbbreviator(length);
+                    }
+                } catch (NumberFormatException e) {
+                    throw new IllegalArgumentException("invalid logger length " + options.get(0));
+                }
+            }
+            this.abbreviator = selected;
+        }
+
+        @Override
+        String value(ILoggingEvent event) {
+            return event.getLoggerName();
+        }
+
+        @Override
+        String convert(String value) {
+            return abbreviator != null ? abbreviator.abbreviate(value) : value;
+        }
+    }
+
+    /**
+     * %d{模式, 时区}：与 CachingDateFormatter 相同，用 DateTimeFormatter 格式化，每个线程缓存上一毫秒的结果
+     */
+    private final class DateSegment implements Segment {
+        private final DateTimeFormatter formatter;
+        private final Format format;
+
+        DateSegment(List<String> options, Format format) {
+            if (options.size() > 2) {
+                throw new IllegalArgumentException("date locale option");
+            }
+            String datePattern = options.isEmpty() ? CoreConstants.ISO8601_PATTERN : options.get(0);
+            if (datePattern.equals(CoreConstants.ISO8601_STR)) {
+                datePattern = CoreConstants.ISO8601_PATTERN;
+            } else if (datePattern.equals("STRICT") || datePattern.equals("EPOCH")) {
+                throw new IllegalArgumentException("date keyword " + datePattern);
+            }
+            ZoneId zone = options.size() > 1 ? ZoneId.of(options.get(1)) : ZoneId.systemDefault();
+            this.formatter = DateTimeFormatter.ofPattern(datePattern).withZone(zone);
+            this.format = format;
+        }
+
+        @Override
+        public void write(ILoggingEvent event, State state) {
+            long millis = event.getTimeStamp();
+            DateCache cache = state.dates.get(this);
+            if (cache == null) {
+                cache = new DateCache();
+                state.dates.put(this, cache);
+            }
+            if (cache.bytes == null || cache.millis != millis) {
+                String text = formatter.format(Instant.ofEpochMilli(millis));
+                cache.bytes = encode(format != null ? format.apply(text) : text);
+                cache.millis = millis;
+            }
+            state.writeBytes(cache.bytes);
+        }
+    }
+
+    /**
+     * %kvp：key="value"，以空格分隔，与 KeyValuePairConverter 相同；
+     * %kvpSuffix 在非空时前面多一个空格，见 {@link KeyValueSuffixConverter}
+     */
+    private static final class KeyValueSegment extends TextSegment {
+        private final String quote;
+        private final boolean leadingSpace;
+
+        KeyValueSegment(List<String> options, Format format, boolean leadingSpace) {
+            super(format);
+            this.quote = KeyValueSuffixConverter.quote(options.isEmpty() ? null : options.get(0));
+            this.leadingSpace = leadingSpace;
+        }
+
+        @Override
+        String value(ILoggingEvent event) {
+            return KeyValueSuffixConverter.format(event.getKeyValuePairs(), quote, leadingSpace);
+        }
+    }
+
+    private static final class DateCache {
+        private long millis;
+        private byte[] bytes;
+    }
+
+    /**
+     * 每个线程的输出缓冲区和时间戳缓存
+     */
+    private final class State {
+        private ByteBuffer buffer = ByteBuffer.allocate(INITIAL_CAPACITY);
+        private final Map<DateSegment, DateCache> dates = new IdentityHashMap<>(2);
+
+        void writeBytes(byte[] bytes) {
+            ensure(bytes.length);
+            buffer.put(bytes);
+        }
+
+        /**
+         * UTF-8 手写编码；未配对的代理字符与 String.getBytes 一样写成 '?'。其他字符集走 String.getBytes
+         */
+        void writeText(String text) {
+            if (!utf8) {
+                writeBytes(encode(text));
+                return;
+            }
+            int length = text.length();
+            ensure(length * 3);
+            for (int i = 0; i < length; i++) {
+                char c = text.charAt(i);
+                if (c < 0x80) {
+                    buffer.put((byte) c);
+                } else if (c < 0x800) {
+                    buffer.put((byte) (0xC0 | (c >> 6)));
+                    buffer.put((byte) (0x80 | (c & 0x3F)));
+                } else if (Character.isHighSurrogate(c) && i + 1 < length
+                        && Character.isLowSurrogate(text.charAt(i + 1))) {
+                    int codePoint = Character.toCodePoint(c, text.charAt(++i));
+                    buffer.put((byte) (0xF0 | (codePoint >> 18)));
+                    buffer.put((byte) (0x80 | ((codePoint >> 12) & 0x3F)));
+                    buffer.put((byte) (0x80 | ((codePoint >> 6) & 0x3F)));
+                    buffer.put((byte) (0x80 | (codePoint & 0x3F)));
+                } else if (Character.isSurrogate(c)) {
+                    buffer.put((byte) '?');
+                } else {
+                    buffer.put((byte) (0xE0 | (c >> 12)));
+                    buffer.put((byte) (0x80 | ((c >> 6) & 0x3F)));
+                    buffer.put((byte) (0x80 | (c & 0x3F)));
+                }
+            }
+        }
+
+        private void ensure(int extra) {
+            if (buffer.remaining() < extra) {
+                ByteBuffer larger = ByteBuffer.allocate(Math.max(buffer.capacity() * 2, buffer.position() + extra));
+                buffer.flip();
+                larger.put(buffer);
+                buffer = larger;
+            }
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package com.akira.springbootlogdemo.logging.pattern;
+
+import ch.qos.logback.classic.pattern.ClassicConverter;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import org.slf4j.event.KeyValuePair;
+
+import java.util.List;
+
+/**
+ * %kvpSuffix：与 %kvp 相同，但有 key-value 时前面带一个空格，没有时什么都不输出。
+ * 模式写成 %msg%kvpSuffix%n，没有 key-value 的行末尾不会多出空格。
+ * <p>
+ * 在 logback-spring.xml 中用 conversionRule 注册；{@link CompiledPatternEncoder} 直接编译这个转换词，输出相同。
+ * <pre>
+ * &lt;conversionRule conversionWord="kvpSuffix"
+ *                 converterClass="com.akira.springbootlogdemo.logging.pattern.KeyValueSuffixConverter"/&gt;
+ * </pre>
+ */
+public class KeyValueSuffixConverter extends ClassicConverter {
+
+    private String quote = "\"";
+
+    @Override
+    public void start() {
+        try {
+            quote = quote(getFirstOption());
+        } catch (IllegalArgumentException e) {
+            addError("Invalid option for %kvpSuffix: " + e.getMessage());
+            return;
+        }
+        super.start();
+    }
+
+    @Override
+    public String convert(ILoggingEvent event) {
+        return format(event.getKeyValuePairs(), quote, true);
+    }
+
+    /**
+     * %kvp 的引号选项：NONE/SINGLE/DOUBLE，默认 DOUBLE
+     */
+    static String quote(String spec) {
+        if (spec == null) {
+            return "\"";
+        }
+        return switch (spec) {
+            case "NONE" -> "";
+            case "SINGLE" -> "'";
+            case "DOUBLE" -> "\"";
+            default -> throw new IllegalArgumentException("kvp quote " + spec);
+        };
+    }
+
+    /**
+     * key="value"，以空格分隔，与 KeyValuePairConverter 相同；leadingSpace 时非空结果前面加一个空格
+     */
+    static String format(List<KeyValuePair> pairs, String quote, boolean leadingSpace) {
+        if (pairs == null || pairs.isEmpty()) {
+            return "";
+        }
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < pairs.size(); i++) {
+            KeyValuePair pair = pairs.get(i);
+            if (i != 0 || leadingSpace) {
+                text.append(' ');
+            }
+            text.append(pair.key).append('=').append(quote).append(pair.value).append(quote);
+        }
+        return text.toString();
+    }
+}
@@ -0,0 +1,165 @@
+package com.akira.springbootlogdemo.logging.profile;
+
+/**
+ * 一个线程上正在采样的请求调用树。
+ * <p>
+ * 节点和调用栈都是构造时预分配的数组，采样过程中不再分配对象；同一父节点下相同 key 的调用合并成一个节点，
+ * 累加调用次数和耗时。节点 0 是请求本身，子节点的下标总是大于父节点。
+ */
+final class CallTree {
+
+    /**
+     * 没有记录的调用（未采样、超出深度或节点数），exit 时忽略
+     */
+    static final int NONE = 0;
+
+    private static final int ROOT = 0;
+
+    private final Object[] keys;
+    private final int[] parents;
+    private final int[] firstChild;
+    private final int[] nextSibling;
+    private final long[] calls;
+    private final long[] totalNanos;
+    private final long[] childNanos;
+
+    // 当前调用栈，stackNodes[0] 固定是根节点
+    private final int[] stackNodes;
+    private final long[] stackStarts;
+
+    private int size;
+    private int depth;
+    private int dropped;
+    private boolean active;
+
+    CallTree(int maxFrames, int maxDepth) {
+        keys = new Object[maxFrames];
+        parents = new int[maxFrames];
+        firstChild = new int[maxFrames];
+        nextSibling = new int[maxFrames];
+        calls = new long[maxFrames];
+        totalNanos = new long[maxFrames];
+        childNanos = new long[maxFrames];
+        stackNodes = new int[maxDepth + 1];
+        stackStarts = new long[maxDepth + 1];
+    }
+
+    void begin(long now) {
+        size = 0;
+        int root = newNode(-1, null);
+        calls[root] = 1;
+        stackNodes[0] = root;
+        stackStarts[0] = now;
+        depth = 1;
+        dropped = 0;
+        active = true;
+    }
+
+    /**
+     * @return 传给 {@link #exit} 的标记，没有记录时为 {@link #NONE}
+     */
+    int enter(Object key, long now) {
+        if (depth == stackNodes.length) {
+            dropped++;
+            return NONE;
+        }
+        int node = findOrAdd(stackNodes[depth - 1], key);
+        if (node < 0) {
+            // 节点用完，这次调用的耗时算在父节点的自身耗时里
+            dropped++;
+            return NONE;
+        }
+        calls[node]++;
+        stackNodes[depth] = node;
+        stackStarts[depth] = now;
+        return ++depth;
+    }
+
+    void exit(int token, long now) {
+        // token > depth：外层调用已经先退出（内层漏掉了 exit），忽略
+        if (token == NONE || token > depth) {
+            return;
+        }
+        int index = token - 1;
+        long elapsed = now - stackStarts[index];
+        totalNanos[stackNodes[index]] += elapsed;
+        childNanos[stackNodes[index - 1]] += elapsed;
+        depth = index;
+    }
+
+    /**
+     * @return 请求总耗时(ns)
+     */
+    long end(long now) {
+        active = false;
+        depth = 1;
+        totalNanos[ROOT] = now - stackStarts[0];
+        return totalNanos[ROOT];
+    }
+
+    private int findOrAdd(int parent, Object key) {
+        for (int child = firstChild[parent]; child >= 0; child = nextSibling[child]) {
+            Object existing = keys[child];
+            if (existing == key || existing.equals(key)) {
+                return child;
+            }
+        }
+        return size < keys.length ? newNode(parent, key) : -1;
+    }
+
+    private int newNode(int parent, Object key) {
+        int node = size++;
+        keys[node] = key;
+        parents[node] = parent;
+        firstChild[node] = -1;
+        nextSibling[node] = -1;
+        calls[node] = 0;
+        totalNanos[node] = 0;
+        childNanos[node] = 0;
+        if (parent >= 0) {
+            nextSibling[node] = firstChild[parent];
+            firstChild[parent] = node;
+        }
+        return node;
+    }
+
+    boolean isActive() {
+        return active;
+    }
+
+    int capacity() {
+        return keys.length;
+    }
+
+    int maxDepth() {
+        return stackNodes.length - 1;
+    }
+
+    int size() {
+        return size;
+    }
+
+    int dropped() {
+        return dropped;
+    }
+
+    Object key(int node) {
+        return keys[node];
+    }
+
+    int parent(int node) {
+        return parents[node];
+    }
+
+    long calls(int node) {
+        return calls[node];
+    }
+
+    long totalNanos(int node) {
+        return totalNanos[node];
+    }
+
+    long selfNanos(int node) {
+        return Math.max(0, totalNanos[node] - childNanos[node]);
+    }
+}
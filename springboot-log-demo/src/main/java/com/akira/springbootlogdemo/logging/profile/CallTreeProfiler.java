@@ -0,0 +1,166 @@
+package com.akira.springbootlogdemo.logging.profile;
+
+import com.akira.springbootlogdemo.logging.config.ProfilingProperties;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.slf4j.event.Level;
+import org.springframework.stereotype.Component;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 按请求采样的调用树 profiler：记录请求线程上 Service（LoggingAspect 或编译期包装类）和
+ * Mapper（SqlLoggingInterceptor）调用的次数、总耗时和自身耗时。
+ * <p>
+ * TraceIdFilter 在请求开始时按 sampleRate 决定是否采样，结束时请求耗时达到 threshold 才输出一条 PROFILE 记录：
+ * <pre>
+ * frames  ["GET /api/users/{id} 310", "GET /api/users/{id};UserService.find 120", "GET /api/users/{id};UserService.find;UserMapper.selectById 5400"]
+ * calls   [1, 1, 3]
+ * totalUs [5830, 5520, 5400]
+ * </pre>
+ * frames 是 flamegraph 折叠格式（调用路径 + 自身耗时us），calls 和 totalUs 按下标与之对应。
+ * 在其他线程上执行的部分（Mono/Flux 的异步阶段）不计入。
+ * <p>
+ * 和 LoggingDegradation 一样，配置放在静态字段里，切面、MyBatis 插件和生成的代码直接调用静态方法；
+ * 未开启时每次调用只多一次 volatile 读。
+ */
+@Component
+public class CallTreeProfiler {
+
+    public static final int NONE = CallTree.NONE;
+
+    private static final Logger logger = LoggerFactory.getLogger("PROFILE_LOGGER");
+
+    // 每个线程一棵预分配的树，请求之间复用
+    private static final ThreadLocal<CallTree> TREES = new ThreadLocal<>();
+
+    private static volatile boolean enabled;
+    private static volatile double sampleRate;
+    private static volatile long thresholdNanos;
+    private static volatile int maxFrames = 256;
+    private static volatile int maxDepth = 32;
+
+    public CallTreeProfiler(ProfilingProperties properties) {
+        sampleRate = properties.getSampleRate();
+        thresholdNanos = TimeUnit.MILLISECONDS.toNanos(properties.getThreshold());
+        maxFrames = Math.max(2, properties.getMaxFrames());
+        maxDepth = Math.max(1, properties.getMaxDepth());
+        enabled = properties.isEnabled();
+    }
+
+    @PreDestroy
+    public void stop() {
+        enabled = false;
+    }
+
+    /**
+     * 由 TraceIdFilter 在请求开始时调用
+     *
+     * @return 这个请求是否被采样，采样时必须在同一线程上调用 {@link #endRequest}
+     */
+    public static boolean beginRequest() {
+        if (!enabled || ThreadLocalRandom.current().nextDouble() >= sampleRate) {
+            return false;
+        }
+        CallTree tree = TREES.get();
+        if (tree == null || tree.capacity() != maxFrames || tree.maxDepth() != maxDepth) {
+            tree = new CallTree(maxFrames, maxDepth);
+            TREES.set(tree);
+        }
+        tree.begin(System.nanoTime());
+        return true;
+    }
+
+    /**
+     * 当前线程是否在采样中；调用方可以据此跳过计算 key 的开销
+     */
+    public static boolean isSampling() {
+        if (!enabled) {
+            return false;
+        }
+        CallTree tree = TREES.get();
+        return tree != null && tree.isActive();
+    }
+
+    /**
+     * @param key 同一调用点每次传入相同（equals）的对象：Method、Mapper 语句 id 等
+     * @return 传给 {@link #exit} 的标记
+     */
+    public static int enter(Object key) {
+        if (!enabled) {
+            return NONE;
+        }
+        CallTree tree = TREES.get();
+        return tree != null && tree.isActive() ? tree.enter(key, System.nanoTime()) : NONE;
+    }
+
+    public static void exit(int token) {
+        if (token == NONE) {
+            return;
+        }
+        CallTree tree = TREES.get();
+        if (tree != null && tree.isActive()) {
+            tree.exit(token, System.nanoTime());
+        }
+    }
+
+    /**
+     * @param pattern 路由模板，没有匹配到 handler 时为 null
+     */
+    public static void endRequest(String method, String pattern, String traceId) {
+        CallTree tree = TREES.get();
+        if (tree == null || !tree.isActive()) {
+            return;
+        }
+        long duration = tree.end(System.nanoTime());
+        if (duration >= thresholdNanos && logger.isInfoEnabled()) {
+            String route = method + " " + (pattern != null ? pattern : "UNMATCHED");
+            log(tree, route, duration, traceId);
+        }
+    }
+
+    private static void log(CallTree tree, String route, long duration, String traceId) {
+        int size = tree.size();
+        String[] paths = new String[size];
+        List<String> frames = new ArrayList<>(size);
+        List<Long> calls = new ArrayList<>(size);
+        List<Long> totals = new ArrayList<>(size);
+        for (int node = 0; node < size; node++) {
+            paths[node] = node == 0 ? route : paths[tree.parent(node)] + ";" + label(tree.key(node));
+            frames.add(paths[node] + " " + TimeUnit.NANOSECONDS.toMicros(tree.selfNanos(node)));
+            calls.add(tree.calls(node));
+            totals.add(TimeUnit.NANOSECONDS.toMicros(tree.totalNanos(node)));
+        }
+        // endRequest 已经判断过 isInfoEnabled()，直接构造事件，不再经过 turbo filter 重复采样
+        logger.makeLoggingEventBuilder(Level.INFO)
+                .setMessage("PROFILE")
+                .addKeyValue("traceId", traceId)
+                .addKeyValue("type", "PROFILE")
+                .addKeyValue("route", route)
+                .addKeyValue("durationMs", TimeUnit.NANOSECONDS.toMillis(duration))
+                .addKeyValue("dropped", tree.dropped())
+                .addKeyValue("frames", frames)
+                .addKeyValue("calls", calls)
+                .addKeyValue("totalUs", totals)
+                .log();
+    }
+
+    static String label(Object key) {
+        if (key instanceof Method method) {
+            return method.getDeclaringClass().getSimpleName() + "." + method.getName();
+        }
+        String text = String.valueOf(key);
+        if (key instanceof String) {
+            // Mapper 语句 id：com.example.mapper.UserMapper.selectById -> UserMapper.selectById
+            int last = text.lastIndexOf('.');
+            int previous = last > 0 ? text.lastIndexOf('.', last - 1) : -1;
+            return previous >= 0 ? text.substring(previous + 1) : text;
+        }
+        return text;
+    }
+}
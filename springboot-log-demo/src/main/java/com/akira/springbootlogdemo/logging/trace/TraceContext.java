@@ -0,0 +1,76 @@
+package com.akira.springbootlogdemo.logging.trace;
+
+import org.slf4j.MDC;
+
+import java.util.HexFormat;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 请求级追踪上下文，统一放在 MDC 中，供日志组件和索引使用
+ */
+public final class TraceContext {
+
+    public static final String TRACE_ID = "traceId";
+    public static final String REQUEST_URI = "requestUri";
+    public static final String STATUS = "status";
+
+    public static final String TRACE_ID_HEADER = "X-Trace-Id";
+    /** W3C Trace Context：00-{32 位 traceId}-{16 位 parent span id}-{flags} */
+    public static final String TRACEPARENT_HEADER = "traceparent";
+
+    private static final Pattern TRACEPARENT = Pattern.compile("00-([0-9a-f]{32})-([0-9a-f]{16})-[0-9a-f]{2}");
+    private static final Pattern W3C_TRACE_ID = Pattern.compile("[0-9a-f]{32}");
+    private static final String INVALID_TRACE_ID = "00000000000000000000000000000000";
+
+    private TraceContext() {
+    }
+
+    public static String currentTraceId() {
+        return MDC.get(TRACE_ID);
+    }
+
+    /**
+     * 当前请求的 traceId，不在请求内时生成一个新的
+     */
+    public static String currentOrNewTraceId() {
+        String traceId = MDC.get(TRACE_ID);
+        return traceId != null ? traceId : newTraceId();
+    }
+
+    public static String newTraceId() {
+        return UUID.randomUUID().toString().replace("-", "");
+    }
+
+    public static String newSpanId() {
+        return HexFormat.of().toHexDigits(ThreadLocalRandom.current().nextLong(1, Long.MAX_VALUE));
+    }
+
+    /**
+     * @return traceparent 中的 traceId，格式不对或全 0 时为 null
+     */
+    public static String traceIdFromTraceparent(String traceparent) {
+        if (traceparent == null) {
+            return null;
+        }
+        Matcher matcher = TRACEPARENT.matcher(traceparent.trim());
+        if (!matcher.matches() || INVALID_TRACE_ID.equals(matcher.group(1))) {
+            return null;
+        }
+        return matcher.group(1);
+    }
+
+    /**
+     * 生成向下游传递的 traceparent（sampled）；traceId 不是 32 位十六进制（外部传入的自定义 X-Trace-Id）时为 null，
+     * 只传 X-Trace-Id
+     */
+    public static String traceparent(String traceId, String spanId) {
+        String normalized = traceId.toLowerCase();
+        if (!W3C_TRACE_ID.matcher(normalized).matches() || INVALID_TRACE_ID.equals(normalized)) {
+            return null;
+        }
+        return "00-" + normalized + "-" + spanId + "-01";
+    }
+}
@@ -1,11 +1,14 @@
 package com.akira.springbootlogdemo.service;
 
+import com.akira.springbootlogdemo.logging.offload.Blocking;
 import org.springframework.stereotype.Service;
 import reactor.core.publisher.Mono;
 
 @Service
 public class TestService {
 
+    // map 里会 sleep，在虚拟线程上订阅
+    @Blocking
     public Mono<String> processTest() {
         return Mono.just("Test response")
                 .map(response -> {
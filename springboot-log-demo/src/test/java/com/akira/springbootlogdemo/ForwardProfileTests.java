@@ -0,0 +1,95 @@
+package com.akira.springbootlogdemo;
+
+import com.akira.springbootlogdemo.loadtest.LoadTestMapper;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.fail;
+
+/**
+ * forward profile：业务 logger 都是 additivity="false"，确认它们的日志也能到达收集端
+ */
+class ForwardProfileTests {
+
+    @TempDir
+    Path logPath;
+
+    // 收集端解压后的每一行
+    private final List<String> received = Collections.synchronizedList(new ArrayList<>());
+    private HttpServer collector;
+
+    @BeforeEach
+    void startCollector() throws IOException {
+        collector = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        collector.createContext("/logs", exchange -> {
+            try (InputStream in = new GZIPInputStream(new ByteArrayInputStream(exchange.getRequestBody().readAllBytes()))) {
+                received.addAll(new String(in.readAllBytes(), StandardCharsets.UTF_8).lines().toList());
+            }
+            exchange.sendResponseHeaders(200, -1);
+            exchange.close();
+        });
+        collector.start();
+        // logback-spring.xml 从系统属性读取收集端地址，必须在启动前设置
+        System.setProperty("LOG_COLLECTOR_URL", "http://127.0.0.1:" + collector.getAddress().getPort() + "/logs");
+    }
+
+    @AfterEach
+    void stopCollector() {
+        System.clearProperty("LOG_COLLECTOR_URL");
+        collector.stop(0);
+    }
+
+    @Test
+    void controllerAndSqlLogsReachCollector() throws Exception {
+        try (ConfigurableApplicationContext context = new SpringApplicationBuilder(SpringbootLogDemoApplication.class)
+                .profiles("loadtest", "forward")
+                .properties("logging.file.path=" + logPath)
+                .run()) {
+            int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+            HttpResponse<Void> response = HttpClient.newHttpClient().send(
+                    HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/api/test/user")).GET().build(),
+                    HttpResponse.BodyHandlers.discarding());
+            assertEquals(200, response.statusCode());
+            assertEquals(1, context.getBean(LoadTestMapper.class).selectById(1));
+
+            awaitLogger("CONTROLLER_LOGGER");
+            awaitLogger("SQL_LOGGER");
+        }
+    }
+
+    private void awaitLogger(String logger) throws InterruptedException {
+        String field = "\"logger\":\"" + logger + "\"";
+        long deadline = System.currentTimeMillis() + 15_000;
+        while (System.currentTimeMillis() < deadline) {
+            synchronized (received) {
+                if (received.stream().anyMatch(line -> line.contains(field))) {
+                    return;
+                }
+            }
+            Thread.sleep(50);
+        }
+        fail("no " + logger + " record forwarded");
+    }
+}
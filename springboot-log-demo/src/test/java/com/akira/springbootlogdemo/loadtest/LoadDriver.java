@@ -0,0 +1,159 @@
+package com.akira.springbootlogdemo.loadtest;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 固定并发的闭环压测驱动：每个线程循环调用，记录每次调用的耗时
+ */
+final class LoadDriver {
+
+    /**
+     * 一次调用，返回 HTTP 状态码（非 HTTP 调用成功时返回 200）
+     */
+    @FunctionalInterface
+    interface Call {
+        int execute(int iteration) throws Exception;
+    }
+
+    private final int concurrency;
+    private final Duration warmup;
+    private final Duration duration;
+
+    LoadDriver(int concurrency, Duration warmup, Duration duration) {
+        this.concurrency = concurrency;
+        this.warmup = warmup;
+        this.duration = duration;
+    }
+
+    LoadResult run(String name, Call call) throws Exception {
+        // 预热：让 JIT、连接池、Jackson 缓存都就绪，不计入结果
+        drive(call, warmup);
+        Run measured = drive(call, duration);
+        Worker[] workers = measured.workers();
+
+        int total = 0;
+        int errors = 0;
+        for (Worker worker : workers) {
+            total += worker.count;
+            errors += worker.errors;
+        }
+        long[] latencies = new long[total];
+        int offset = 0;
+        for (Worker worker : workers) {
+            System.arraycopy(worker.latencies, 0, latencies, offset, worker.count);
+            offset += worker.count;
+        }
+        Arrays.sort(latencies);
+        return new LoadResult(name, latencies, errors, measured.elapsedNanos());
+    }
+
+    /**
+     * 一轮调用的结果，elapsedNanos 是实际耗时：从放行所有线程到最后一个线程结束，包括越过截止时间的最后一次调用
+     */
+    private record Run(Worker[] workers, long elapsedNanos) {
+    }
+
+    private Run drive(Call call, Duration window) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(concurrency);
+        Worker[] workers = new Worker[concurrency];
+        CountDownLatch start = new CountDownLatch(1);
+        long deadline = System.nanoTime() + window.toNanos();
+        List<Future<?>> futures = new ArrayList<>();
+        long begin;
+        long end;
+        try {
+            for (int i = 0; i < concurrency; i++) {
+                Worker worker = new Worker(call, start, deadline);
+                workers[i] = worker;
+                futures.add(executor.submit(worker));
+            }
+            begin = System.nanoTime();
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get();
+            }
+            end = System.nanoTime();
+        } finally {
+            executor.shutdownNow();
+            executor.awaitTermination(10, TimeUnit.SECONDS);
+        }
+        return new Run(workers, end - begin);
+    }
+
+    private static final class Worker implements Runnable {
+        private final Call call;
+        private final CountDownLatch start;
+        private final long deadline;
+        // 每个线程独立记录，避免压测本身引入竞争
+        private long[] latencies = new long[4096];
+        private int count;
+        private int errors;
+
+        Worker(Call call, CountDownLatch start, long deadline) {
+            this.call = call;
+            this.start = start;
+            this.deadline = deadline;
+        }
+
+        @Override
+        public void run() {
+            try {
+                start.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            int iteration = 0;
+            while (System.nanoTime() < deadline) {
+                long begin = System.nanoTime();
+                int status;
+                try {
+                    status = call.execute(iteration++);
+                } catch (Exception e) {
+                    status = -1;
+                }
+                record(System.nanoTime() - begin);
+                if (status < 200 || status >= 300) {
+                    errors++;
+                }
+            }
+        }
+
+        private void record(long nanos) {
+            if (count == latencies.length) {
+                latencies = Arrays.copyOf(latencies, count * 2);
+            }
+            latencies[count++] = nanos;
+        }
+    }
+
+    /**
+     * 单个场景的结果，latencies 已排序
+     */
+    record LoadResult(String name, long[] latencies, int errors, long elapsedNanos) {
+
+        int count() {
+            return latencies.length;
+        }
+
+        double throughput() {
+            return latencies.length / (elapsedNanos / 1_000_000_000.0);
+        }
+
+        double percentileMillis(double percentile) {
+            if (latencies.length == 0) {
+                return 0;
+            }
+            int index = (int) Math.ceil(percentile / 100.0 * latencies.length) - 1;
+            return latencies[Math.max(0, Math.min(index, latencies.length - 1))] / 1_000_000.0;
+        }
+    }
+}
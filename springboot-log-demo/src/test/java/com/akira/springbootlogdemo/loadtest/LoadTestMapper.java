@@ -0,0 +1,15 @@
+package com.akira.springbootlogdemo.loadtest;
+
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+
+/**
+ * 压测用 Mapper，让 SQL 拦截器在 H2 上有语句可拦截
+ */
+@Mapper
+public interface LoadTestMapper {
+
+    @Select("SELECT CAST(#{id} AS INT)")
+    Integer selectById(@Param("id") int id);
+}
@@ -0,0 +1,216 @@
+package com.akira.springbootlogdemo.loadtest;
+
+import com.akira.springbootlogdemo.SpringbootLogDemoApplication;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.BeansException;
+import org.springframework.beans.factory.config.ConfigurableListableBeanFactory;
+import org.springframework.beans.factory.support.BeanDefinitionRegistry;
+import org.springframework.beans.factory.support.BeanDefinitionRegistryPostProcessor;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ApplicationContextInitializer;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 日志组件端到端开销压测。
+ * <p>
+ * 每个场景启动一个独立的应用上下文（H2 代替 MySQL），按场景移除对应的日志 Bean，
+ * 以固定并发压 TestController2 的各个接口以及 SQL 拦截器，输出吞吐和延迟分位。
+ * <p>
+ * 运行：./gradlew loadTest -Dloadtest.concurrency=32 -Dloadtest.duration=20
+ * <ul>
+ *     <li>loadtest.concurrency 并发线程数，默认 16</li>
+ *     <li>loadtest.warmup / loadtest.duration 预热和统计时长（秒），默认 3 / 10</li>
+ *     <li>loadtest.scenarios / loadtest.workloads 逗号分隔，只跑指定的场景或接口</li>
+ * </ul>
+ */
+@Tag("load")
+class LoggingOverheadLoadTest {
+
+    private static final Set<String> FILTER_BEANS =
+            Set.of("apiLoggingJsonFilter", "apiLoggingJsonUtf8Filter", "loggingFilter", "cachedBodyFilter");
+    private static final Set<String> ASPECT_BEANS =
+            Set.of("controllerLoggingAspectOrg", "loggingAspect");
+    private static final Set<String> SQL_BEANS =
+            Set.of("sqlLoggingInterceptor", "sqlLogInterceptor");
+
+    private static final String COMPILED_SCENARIO = "aspects-compiled";
+
+    private static final String BOUNDARY = "----loadtest-boundary";
+
+    private final HttpClient httpClient = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(Duration.ofSeconds(5))
+            .build();
+
+    @Test
+    void measureLoggingOverhead() throws Exception {
+        int concurrency = Integer.getInteger("loadtest.concurrency", 16);
+        Duration warmup = Duration.ofSeconds(Long.getLong("loadtest.warmup", 3));
+        Duration duration = Duration.ofSeconds(Long.getLong("loadtest.duration", 10));
+        LoadDriver driver = new LoadDriver(concurrency, warmup, duration);
+
+        // 场景 -> 需要移除的日志 Bean
+        Map<String, Set<String>> scenarios = new LinkedHashMap<>();
+        scenarios.put("all-off", union(FILTER_BEANS, ASPECT_BEANS, SQL_BEANS));
+        scenarios.put("filters", union(ASPECT_BEANS, SQL_BEANS));
+        scenarios.put("aspects", union(FILTER_BEANS, SQL_BEANS));
+        // 同样只开 Controller/Service 日志，但使用编译期生成的包装类（logging.weaving=compile）
+        scenarios.put(COMPILED_SCENARIO, union(FILTER_BEANS, SQL_BEANS));
+        scenarios.put("sql", union(FILTER_BEANS, ASPECT_BEANS));
+        scenarios.put("all-on", Set.of());
+        scenarios.keySet().retainAll(selected("loadtest.scenarios", scenarios.keySet()));
+
+        List<LoadDriver.LoadResult> results = new ArrayList<>();
+        for (Map.Entry<String, Set<String>> scenario : scenarios.entrySet()) {
+            boolean compiled = scenario.getKey().equals(COMPILED_SCENARIO);
+            try (ConfigurableApplicationContext context = start(scenario.getValue(), compiled)) {
+                int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+                LoadTestMapper mapper = context.getBean(LoadTestMapper.class);
+
+                Map<String, LoadDriver.Call> workloads = workloads("http://localhost:" + port, mapper);
+                workloads.keySet().retainAll(selected("loadtest.workloads", workloads.keySet()));
+                for (Map.Entry<String, LoadDriver.Call> workload : workloads.entrySet()) {
+                    results.add(driver.run(scenario.getKey() + "/" + workload.getKey(), workload.getValue()));
+                }
+            }
+        }
+
+        printReport(concurrency, duration, results);
+    }
+
+    private ConfigurableApplicationContext start(Set<String> disabledBeans, boolean compiled) {
+        ApplicationContextInitializer<ConfigurableApplicationContext> initializer = context ->
+                context.getBeanFactory().registerSingleton("loadTestBeanRemover", new BeanRemover(disabledBeans));
+        return new SpringApplicationBuilder(SpringbootLogDemoApplication.class)
+                .profiles("loadtest")
+                .properties("logging.weaving=" + (compiled ? "compile" : "runtime"))
+                .initializers(initializer)
+                .run();
+    }
+
+    private Map<String, LoadDriver.Call> workloads(String baseUrl, LoadTestMapper mapper) {
+        byte[] json = "{\"name\":\"王五\",\"email\":\"wangwu@test.com\",\"age\":28}".getBytes(StandardCharsets.UTF_8);
+        byte[] form = "username=admin&password=123456".getBytes(StandardCharsets.UTF_8);
+        byte[] multipart = multipartBody(new byte[8 * 1024]);
+
+        Map<String, LoadDriver.Call> workloads = new LinkedHashMap<>();
+        workloads.put("get-path", i -> send(get(baseUrl + "/api/test/hello/user" + (i % 100))));
+        workloads.put("get-query", i -> send(get(baseUrl + "/api/test/greet?name=loadtest&age=" + (i % 100))));
+        workloads.put("get-json", i -> send(get(baseUrl + "/api/test/user")));
+        workloads.put("post-form", i -> send(post(baseUrl + "/api/test/form",
+                "application/x-www-form-urlencoded", form)));
+        workloads.put("post-json", i -> send(post(baseUrl + "/api/test/json", "application/json", json)));
+        workloads.put("post-multipart", i -> send(post(baseUrl + "/api/test/upload",
+                "multipart/form-data; boundary=" + BOUNDARY, multipart)));
+        // SQL 拦截器不经过 HTTP，直接压 Mapper
+        workloads.put("sql", i -> mapper.selectById(i) == i ? 200 : 500);
+        return workloads;
+    }
+
+    private HttpRequest get(String url) {
+        return HttpRequest.newBuilder(URI.create(url)).GET().build();
+    }
+
+    private HttpRequest post(String url, String contentType, byte[] body) {
+        return HttpRequest.newBuilder(URI.create(url))
+                .header("Content-Type", contentType)
+                .POST(HttpRequest.BodyPublishers.ofByteArray(body))
+                .build();
+    }
+
+    private int send(HttpRequest request) throws Exception {
+        return httpClient.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+    }
+
+    private byte[] multipartBody(byte[] file) {
+        String head = "--" + BOUNDARY + "\r\n"
+                + "Content-Disposition: form-data; name=\"file\"; filename=\"load.bin\"\r\n"
+                + "Content-Type: application/octet-stream\r\n\r\n";
+        String tail = "\r\n--" + BOUNDARY + "\r\n"
+                + "Content-Disposition: form-data; name=\"meta\"\r\n\r\n"
+                + "loadtest\r\n"
+                + "--" + BOUNDARY + "--\r\n";
+        byte[] headBytes = head.getBytes(StandardCharsets.UTF_8);
+        byte[] tailBytes = tail.getBytes(StandardCharsets.UTF_8);
+        byte[] body = new byte[headBytes.length + file.length + tailBytes.length];
+        System.arraycopy(headBytes, 0, body, 0, headBytes.length);
+        System.arraycopy(file, 0, body, headBytes.length, file.length);
+        System.arraycopy(tailBytes, 0, body, headBytes.length + file.length, tailBytes.length);
+        return body;
+    }
+
+    private void printReport(int concurrency, Duration duration, List<LoadDriver.LoadResult> results) {
+        StringBuilder report = new StringBuilder();
+        report.append(String.format("%n===== Logging overhead (concurrency=%d, duration=%ds) =====%n",
+                concurrency, duration.toSeconds()));
+        report.append(String.format("%-28s %10s %8s %10s %9s %9s %9s %9s %9s%n",
+                "scenario/workload", "requests", "errors", "req/s", "p50(ms)", "p90(ms)", "p99(ms)", "p999(ms)", "max(ms)"));
+        for (LoadDriver.LoadResult result : results) {
+            report.append(String.format("%-28s %10d %8d %10.1f %9.3f %9.3f %9.3f %9.3f %9.3f%n",
+                    result.name(), result.count(), result.errors(), result.throughput(),
+                    result.percentileMillis(50), result.percentileMillis(90), result.percentileMillis(99),
+                    result.percentileMillis(99.9), result.percentileMillis(100)));
+        }
+        System.out.println(report);
+    }
+
+    @SafeVarargs
+    private static Set<String> union(Set<String>... sets) {
+        Set<String> result = new HashSet<>();
+        for (Set<String> set : sets) {
+            result.addAll(set);
+        }
+        return result;
+    }
+
+    private static Set<String> selected(String property, Set<String> defaults) {
+        String value = System.getProperty(property);
+        if (value == null || value.isBlank()) {
+            return Set.copyOf(defaults);
+        }
+        return Set.copyOf(Arrays.asList(value.trim().split("\\s*,\\s*")));
+    }
+
+    /**
+     * 在配置类解析之后移除指定的 Bean 定义，
+     * 这样 @Component 扫描到的和 @Bean 声明的日志组件都能被关掉
+     */
+    private static final class BeanRemover implements BeanDefinitionRegistryPostProcessor {
+
+        private final Set<String> beanNames;
+
+        BeanRemover(Set<String> beanNames) {
+            this.beanNames = beanNames;
+        }
+
+        @Override
+        public void postProcessBeanDefinitionRegistry(BeanDefinitionRegistry registry) throws BeansException {
+            for (String beanName : beanNames) {
+                if (registry.containsBeanDefinition(beanName)) {
+                    registry.removeBeanDefinition(beanName);
+                }
+            }
+        }
+
+        @Override
+        public void postProcessBeanFactory(ConfigurableListableBeanFactory beanFactory) throws BeansException {
+            // nothing to do
+        }
+    }
+}
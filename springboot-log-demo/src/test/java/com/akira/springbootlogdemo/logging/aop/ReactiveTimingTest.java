@@ -0,0 +1,70 @@
+package com.akira.springbootlogdemo.logging.aop;
+
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ReactiveTimingTest {
+
+    @Test
+    void measuresFromSubscriptionInsteadOfAssembly() {
+        AtomicReference<ReactiveTiming> timing = new AtomicReference<>();
+        AtomicReference<Object> value = new AtomicReference<>();
+        // 与 TestService.processTest 相同：耗时在 map 里，组装时不执行
+        Mono<String> mono = Mono.just("Test response").map(response -> {
+            sleep(100);
+            return response;
+        });
+
+        Mono<String> timed = ReactiveTiming.mono(mono, (t, v, e) -> {
+            timing.set(t);
+            value.set(v);
+        });
+        assertNull(timing.get());
+
+        StepVerifier.create(timed).expectNext("Test response").verifyComplete();
+        assertEquals(SignalType.ON_COMPLETE, timing.get().signal());
+        assertTrue(timing.get().durationMillis() >= 100);
+        assertEquals(1, timing.get().elements());
+        assertEquals("Test response", value.get());
+    }
+
+    @Test
+    void recordsFirstElementGapsAndCancellation() {
+        AtomicReference<ReactiveTiming> timing = new AtomicReference<>();
+        AtomicReference<Object> value = new AtomicReference<>();
+        Flux<Long> flux = Flux.interval(Duration.ofMillis(50)).take(10);
+
+        StepVerifier.create(ReactiveTiming.flux(flux, true, (t, v, e) -> {
+                    timing.set(t);
+                    value.set(v);
+                }))
+                .expectNext(0L, 1L, 2L)
+                .thenCancel()
+                .verify();
+
+        assertEquals(SignalType.CANCEL, timing.get().signal());
+        assertEquals(3, timing.get().elements());
+        assertTrue(timing.get().firstElementMillis() >= 50);
+        assertTrue(timing.get().maxGapMillis() >= 40);
+        assertEquals(List.of(0L, 1L, 2L), value.get());
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
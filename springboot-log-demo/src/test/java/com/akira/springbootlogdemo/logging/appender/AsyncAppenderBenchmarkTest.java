@@ -0,0 +1,147 @@
+package com.akira.springbootlogdemo.logging.appender;
+
+import ch.qos.logback.classic.AsyncAppender;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.encoder.PatternLayoutEncoder;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.Appender;
+import ch.qos.logback.core.FileAppender;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+
+/**
+ * RingBufferAsyncAppender 与当前 logback-spring.xml 中 AsyncAppender 配置的对比压测。
+ * <p>
+ * 运行：./gradlew loadTest -Dloadtest.threads=8 -Dloadtest.events=200000
+ */
+@Tag("load")
+class AsyncAppenderBenchmarkTest {
+
+    private static final String PATTERN = "%d{yyyy-MM-dd HH:mm:ss.SSS} [%thread] %-5level %logger{36} - %msg%n";
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void compareWithLogbackAsyncAppender() throws Exception {
+        int threads = Integer.getInteger("loadtest.threads", 8);
+        int events = Integer.getInteger("loadtest.events", 200_000);
+
+        System.out.println(String.format("%n===== Async appender (threads=%d, events/thread=%d) =====", threads, events));
+        System.out.println(String.format("%-32s %12s %10s %10s %10s %10s",
+                "appender", "events/s", "p50(us)", "p99(us)", "p999(us)", "max(us)"));
+        for (int round = 0; round < 2; round++) {
+            // 第一轮作为预热，只打印第二轮
+            boolean print = round == 1;
+            run("AsyncAppender(current)", threads, events, print, this::logbackAsync);
+            run("RingBuffer/BLOCK", threads, events, print,
+                    (context, file) -> ringBuffer(context, file, OverflowPolicy.BLOCK));
+            run("RingBuffer/DROP_DEBUG_INFO", threads, events, print,
+                    (context, file) -> ringBuffer(context, file, OverflowPolicy.DROP_DEBUG_INFO));
+            run("RingBuffer/SPILL", threads, events, print,
+                    (context, file) -> ringBuffer(context, file, OverflowPolicy.SPILL));
+        }
+    }
+
+    private interface AsyncFactory {
+        Appender<ILoggingEvent> create(LoggerContext context, FileAppender<ILoggingEvent> file);
+    }
+
+    private Appender<ILoggingEvent> logbackAsync(LoggerContext context, FileAppender<ILoggingEvent> file) {
+        AsyncAppender async = new AsyncAppender();
+        async.setContext(context);
+        async.setName("ASYNC");
+        async.setQueueSize(1024);
+        async.setDiscardingThreshold(0);
+        async.setIncludeCallerData(true);
+        async.addAppender(file);
+        async.start();
+        return async;
+    }
+
+    private Appender<ILoggingEvent> ringBuffer(LoggerContext context, FileAppender<ILoggingEvent> file,
+                                              OverflowPolicy policy) {
+        // 下游只由 worker 线程写入，可以关闭逐条 flush，由批次统一 flush
+        file.setImmediateFlush(false);
+        RingBufferAsyncAppender async = new RingBufferAsyncAppender();
+        async.setContext(context);
+        async.setName("ASYNC");
+        async.setBufferSize(1024);
+        async.setOverflowPolicy(policy);
+        async.setSpillFile(tempDir.resolve("spill").resolve("ASYNC").toString());
+        async.addAppender(file);
+        async.start();
+        return async;
+    }
+
+    private void run(String name, int threads, int events, boolean print, AsyncFactory factory) throws Exception {
+        LoggerContext context = new LoggerContext();
+        PatternLayoutEncoder encoder = new PatternLayoutEncoder();
+        encoder.setContext(context);
+        encoder.setPattern(PATTERN);
+        encoder.start();
+
+        FileAppender<ILoggingEvent> file = new FileAppender<>();
+        file.setContext(context);
+        file.setName("FILE");
+        file.setFile(tempDir.resolve(name.replaceAll("\\W", "_") + ".log").toString());
+        file.setEncoder(encoder);
+
+        Appender<ILoggingEvent> async = factory.create(context, file);
+        file.start();
+
+        Logger logger = context.getLogger("CONTROLLER_LOGGER");
+        logger.setAdditive(false);
+        logger.addAppender(async);
+
+        long[][] latencies = new long[threads][events];
+        CountDownLatch start = new CountDownLatch(1);
+        Thread[] workers = new Thread[threads];
+        for (int t = 0; t < threads; t++) {
+            long[] samples = latencies[t];
+            workers[t] = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                for (int i = 0; i < events; i++) {
+                    long begin = System.nanoTime();
+                    logger.info("API_LOG: {\"method\":\"GET\",\"uri\":\"/api/test/user\",\"status\":200,\"durationMs\":{}}", i);
+                    samples[i] = System.nanoTime() - begin;
+                }
+            }, "bench-" + t);
+            workers[t].start();
+        }
+
+        long begin = System.nanoTime();
+        start.countDown();
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        long elapsed = System.nanoTime() - begin;
+        // stop 会等待缓冲区写完，保证两种实现写入量一致
+        async.stop();
+        file.stop();
+        context.stop();
+
+        if (print) {
+            long[] all = Arrays.stream(latencies).flatMapToLong(Arrays::stream).sorted().toArray();
+            System.out.println(String.format("%-32s %12.0f %10.2f %10.2f %10.2f %10.2f",
+                    name, (double) threads * events / (elapsed / 1_000_000_000.0),
+                    percentile(all, 50), percentile(all, 99), percentile(all, 99.9), percentile(all, 100)));
+        }
+    }
+
+    private static double percentile(long[] sorted, double percentile) {
+        int index = (int) Math.ceil(percentile / 100.0 * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(index, sorted.length - 1))] / 1_000.0;
+    }
+}
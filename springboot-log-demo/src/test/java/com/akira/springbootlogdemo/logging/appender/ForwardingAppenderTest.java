@@ -0,0 +1,264 @@
+package com.akira.springbootlogdemo.logging.appender;
+
+import ch.qos.logback.core.ContextBase;
+import ch.qos.logback.core.encoder.EchoEncoder;
+import ch.qos.logback.core.util.Duration;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ForwardingAppenderTest {
+
+    @TempDir
+    Path spoolDirectory;
+
+    // 收集端：前 failures 次请求返回 503，之后解压并按行记录；含 poison 的批次返回 400
+    private final List<String> received = Collections.synchronizedList(new ArrayList<>());
+    private final AtomicInteger failures = new AtomicInteger();
+    private HttpServer collector;
+
+    @AfterEach
+    void stopCollector() {
+        if (collector != null) {
+            collector.stop(0);
+        }
+    }
+
+    @Test
+    void deliversAllEventsInOrderAfterCollectorOutage() throws Exception {
+        startCollector();
+        failures.set(5);
+        ForwardingAppender<String> appender = appender();
+
+        List<String> expected = appendEvents(appender, 0, 1000);
+
+        awaitReceived(expected.size());
+        appender.stop();
+        assertEquals(expected, received);
+    }
+
+    @Test
+    void spooledBatchesAreReplayedOnNextStart() throws Exception {
+        startCollector();
+        failures.set(Integer.MAX_VALUE);
+        ForwardingAppender<String> first = appender();
+        List<String> expected = appendEvents(first, 0, 100);
+        first.stop();
+        try (var files = Files.list(spoolDirectory)) {
+            assertTrue(files.findAny().isPresent());
+        }
+        assertTrue(received.isEmpty());
+
+        failures.set(0);
+        ForwardingAppender<String> second = appender();
+        expected.addAll(appendEvents(second, 100, 50));
+
+        awaitReceived(expected.size());
+        second.stop();
+        assertEquals(expected, received);
+    }
+
+    @Test
+    void rejectedAndUnreadableBatchesAreMovedToDeadLetter() throws Exception {
+        startCollector();
+        // 上次运行留下的不完整暂存文件
+        Files.write(spoolDirectory.resolve(String.format("%020d.batch", 0)), new byte[]{1, 2});
+        ForwardingAppender<String> appender = appender();
+
+        List<String> expected = appendEvents(appender, 0, 10);
+        for (int i = 10; i < 20; i++) {
+            appender.doAppend("poison-" + i);
+        }
+        expected.addAll(appendEvents(appender, 20, 10));
+
+        awaitReceived(expected.size());
+        appender.stop();
+        assertEquals(expected, received);
+        assertEquals(List.of(String.format("%020d.batch", 0), String.format("%020d.batch", 2)),
+                deadLetterSequences());
+    }
+
+    @Test
+    void deadLettersFromEarlierRunsAreNotOverwritten() throws Exception {
+        startCollector();
+        for (int run = 0; run < 2; run++) {
+            // 暂存为空，每次启动序号都从 0 开始
+            ForwardingAppender<String> appender = appender();
+            appender.doAppend("poison-" + run);
+            awaitDeadLetters(run + 1);
+            appender.stop();
+            Thread.sleep(5);
+        }
+
+        assertEquals(List.of(String.format("%020d.batch", 0), String.format("%020d.batch", 0)),
+                deadLetterSequences());
+    }
+
+    @Test
+    void tcpTransportReconnectsAndDeliversInOrder() throws Exception {
+        try (ServerSocket server = new ServerSocket(0, 50, InetAddress.getLoopbackAddress())) {
+            Thread acceptor = new Thread(() -> serveTcp(server), "tcp-collector");
+            acceptor.setDaemon(true);
+            acceptor.start();
+            ForwardingAppender<String> appender = appender("tcp://127.0.0.1:" + server.getLocalPort());
+
+            List<String> expected = appendEvents(appender, 0, 200);
+
+            awaitReceived(expected.size());
+            appender.stop();
+            assertEquals(expected, received);
+        }
+    }
+
+    /**
+     * TCP 收集端：读 [长度][事件数][gzip 数据] 帧并回 1；第一个连接收到第一帧后不确认直接断开
+     */
+    private void serveTcp(ServerSocket server) {
+        boolean first = true;
+        while (!server.isClosed()) {
+            try (Socket socket = server.accept();
+                 DataInputStream in = new DataInputStream(socket.getInputStream());
+                 OutputStream out = socket.getOutputStream()) {
+                while (true) {
+                    int length = in.readInt();
+                    int events = in.readInt();
+                    byte[] payload = in.readNBytes(length);
+                    if (first) {
+                        first = false;
+                        break;
+                    }
+                    List<String> lines = gunzipLines(payload);
+                    assertEquals(events, lines.size());
+                    received.addAll(lines);
+                    out.write(1);
+                    out.flush();
+                }
+            } catch (IOException e) {
+                // 发送端断开，等下一个连接
+            }
+        }
+    }
+
+    private ForwardingAppender<String> appender() {
+        return appender("http://127.0.0.1:" + collector.getAddress().getPort() + "/logs");
+    }
+
+    private ForwardingAppender<String> appender(String collectorUrl) {
+        ContextBase context = new ContextBase();
+        EchoEncoder<String> encoder = new EchoEncoder<>();
+        encoder.setContext(context);
+        encoder.start();
+
+        ForwardingAppender<String> appender = new ForwardingAppender<>();
+        appender.setContext(context);
+        appender.setName("FORWARD");
+        appender.setEncoder(encoder);
+        appender.setCollectorUrl(collectorUrl);
+        appender.setSpoolDirectory(spoolDirectory.toString());
+        appender.setBatchSize(10);
+        appender.setMaxPendingBatches(2);
+        appender.setLingerTime(Duration.buildByMilliseconds(50));
+        appender.setMaxRetryDelay(Duration.buildByMilliseconds(200));
+        appender.setShutdownTimeout(Duration.buildByMilliseconds(500));
+        appender.start();
+        assertTrue(appender.isStarted());
+        return appender;
+    }
+
+    private static List<String> appendEvents(ForwardingAppender<String> appender, int from, int count) {
+        List<String> events = new ArrayList<>();
+        for (int i = from; i < from + count; i++) {
+            String event = "event-" + i;
+            appender.doAppend(event);
+            events.add(event);
+        }
+        return events;
+    }
+
+    private void startCollector() throws IOException {
+        collector = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        collector.createContext("/logs", exchange -> {
+            byte[] body;
+            try (InputStream in = exchange.getRequestBody()) {
+                body = in.readAllBytes();
+            }
+            if (failures.getAndDecrement() > 0) {
+                exchange.sendResponseHeaders(503, -1);
+            } else {
+                List<String> lines = gunzipLines(body);
+                if (lines.stream().anyMatch(line -> line.startsWith("poison"))) {
+                    exchange.sendResponseHeaders(400, -1);
+                } else {
+                    received.addAll(lines);
+                    exchange.sendResponseHeaders(200, -1);
+                }
+            }
+            exchange.close();
+        });
+        collector.start();
+    }
+
+    private static List<String> gunzipLines(byte[] body) throws IOException {
+        try (InputStream gzip = new GZIPInputStream(new ByteArrayInputStream(body))) {
+            return new String(gzip.readAllBytes(), StandardCharsets.UTF_8).lines().toList();
+        }
+    }
+
+    /**
+     * @return dead-letter 文件名去掉运行前缀后的部分，按文件名排序
+     */
+    private List<String> deadLetterSequences() throws IOException {
+        try (var files = Files.list(spoolDirectory.resolve("dead-letter"))) {
+            return files.map(file -> file.getFileName().toString())
+                    .sorted()
+                    .map(name -> name.substring(name.indexOf('-') + 1))
+                    .toList();
+        }
+    }
+
+    private void awaitDeadLetters(int count) throws Exception {
+        Path deadLetter = spoolDirectory.resolve("dead-letter");
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (System.currentTimeMillis() < deadline) {
+            if (Files.isDirectory(deadLetter)) {
+                try (var files = Files.list(deadLetter)) {
+                    if (files.filter(file -> file.toString().endsWith(".batch")).count() >= count) {
+                        return;
+                    }
+                }
+            }
+            Thread.sleep(20);
+        }
+        throw new AssertionError("expected " + count + " dead-letter batches");
+    }
+
+    private void awaitReceived(int count) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (received.size() < count && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+        }
+        assertEquals(count, received.size());
+    }
+}
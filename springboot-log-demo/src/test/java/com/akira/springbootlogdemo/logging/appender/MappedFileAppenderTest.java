@@ -0,0 +1,138 @@
+package com.akira.springbootlogdemo.logging.appender;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.classic.spi.LoggingEvent;
+import ch.qos.logback.core.util.Duration;
+import ch.qos.logback.core.util.FileSize;
+import com.akira.springbootlogdemo.logging.binary.BinaryLogDecoder;
+import com.akira.springbootlogdemo.logging.binary.BinaryLogEncoder;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MappedFileAppenderTest {
+
+    @TempDir
+    Path tempDir;
+
+    private final LoggerContext context = new LoggerContext();
+    private final Logger logger = context.getLogger("SQL_LOGGER");
+
+    @Test
+    void restartAfterCrashResumesAfterTrailingZeroByte() throws Exception {
+        Path file = tempDir.resolve("binary.blog");
+        MappedFileAppender<ILoggingEvent> first = appender(file);
+        // 最后一个参数为 null，编码以 ARG_NULL（0 字节）结尾
+        first.doAppend(event("Parameters: {}", (Object) null));
+
+        // 异常退出：文件没有截断，末尾是预分配区域和长度记录
+        Path crashed = tempDir.resolve("crashed.blog");
+        Files.copy(file, crashed);
+        first.stop();
+
+        MappedFileAppender<ILoggingEvent> second = appender(crashed);
+        second.doAppend(event("Parameters: {}", (Object) null));
+        second.stop();
+
+        List<BinaryLogDecoder.DecodedEvent> decoded = decode(crashed);
+        assertEquals(2, decoded.size());
+        for (BinaryLogDecoder.DecodedEvent event : decoded) {
+            assertEquals("Parameters: null", event.formattedMessage());
+            assertArrayEquals(new Object[]{null}, event.arguments());
+        }
+    }
+
+    @Test
+    void restartAfterCleanStopKeepsWholeFile() throws Exception {
+        Path file = tempDir.resolve("binary.blog");
+        MappedFileAppender<ILoggingEvent> first = appender(file);
+        first.doAppend(event("Parameters: {}", (Object) null));
+        first.stop();
+        long closedSize = Files.size(file);
+
+        MappedFileAppender<ILoggingEvent> second = appender(file);
+        second.doAppend(event("Execution time: {}ms", 3L));
+        second.stop();
+
+        assertTrue(Files.size(file) > closedSize);
+        List<BinaryLogDecoder.DecodedEvent> decoded = decode(file);
+        assertEquals(2, decoded.size());
+        assertEquals("Parameters: null", decoded.get(0).formattedMessage());
+        assertEquals("Execution time: 3ms", decoded.get(1).formattedMessage());
+    }
+
+    @Test
+    void batchForceCommitsAfterEachRingBufferBatch() throws Exception {
+        Path file = tempDir.resolve("batch.blog");
+        // 后台 force 的间隔足够长，测试期间只会由批次触发
+        MappedFileAppender<ILoggingEvent> mapped = appender(file, Durability.BATCH_FORCE, Duration.buildByHours(1));
+
+        RingBufferAsyncAppender async = new RingBufferAsyncAppender();
+        async.setContext(context);
+        async.setName("ASYNC_BINARY");
+        async.addAppender(mapped);
+        async.start();
+
+        for (int i = 0; i < 10; i++) {
+            async.doAppend(event("Execution time: {}ms", (long) i));
+        }
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (mapped.committedBytes() == 0 && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertTrue(mapped.committedBytes() > 0);
+
+        async.stop();
+        mapped.stop();
+        assertEquals(10, decode(file).size());
+    }
+
+    private MappedFileAppender<ILoggingEvent> appender(Path file) {
+        return appender(file, Durability.OS_FLUSH, Duration.buildByMilliseconds(200));
+    }
+
+    private MappedFileAppender<ILoggingEvent> appender(Path file, Durability durability, Duration commitInterval) {
+        BinaryLogEncoder encoder = new BinaryLogEncoder();
+        encoder.setContext(context);
+        encoder.start();
+
+        MappedFileAppender<ILoggingEvent> appender = new MappedFileAppender<>();
+        appender.setContext(context);
+        appender.setName("BINARY");
+        appender.setFile(file.toString());
+        appender.setFileNamePattern(tempDir.resolve(file.getFileName() + "-%d{yyyy-MM-dd}.%i").toString());
+        appender.setMaxFileSize(new FileSize(64 * FileSize.KB_COEFFICIENT));
+        appender.setEncoder(encoder);
+        appender.setDurability(durability);
+        appender.setCommitInterval(commitInterval);
+        appender.start();
+        return appender;
+    }
+
+    private LoggingEvent event(String message, Object... args) {
+        LoggingEvent event = new LoggingEvent(Logger.class.getName(), logger, Level.DEBUG, message, null, args);
+        event.setThreadName("main");
+        return event;
+    }
+
+    private static List<BinaryLogDecoder.DecodedEvent> decode(Path file) throws Exception {
+        List<BinaryLogDecoder.DecodedEvent> decoded = new ArrayList<>();
+        try (InputStream in = Files.newInputStream(file)) {
+            new BinaryLogDecoder().decode(in, decoded::add);
+        }
+        return decoded;
+    }
+}
@@ -0,0 +1,191 @@
+package com.akira.springbootlogdemo.logging.appender;
+
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.classic.spi.ThrowableProxyUtil;
+import ch.qos.logback.core.AppenderBase;
+import com.akira.springbootlogdemo.logging.metrics.LoggingMetric;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.slf4j.event.KeyValuePair;
+
+import java.io.IOException;
+import java.lang.management.BufferPoolMXBean;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.LockSupport;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RingBufferSpillTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void overflowIsSpilledAndDeliveredInOrder() throws Exception {
+        LoggerContext context = new LoggerContext();
+        // 下游很慢，8 个槽位的缓冲区很快写满
+        List<ILoggingEvent> received = Collections.synchronizedList(new ArrayList<>());
+        AppenderBase<ILoggingEvent> slow = new AppenderBase<>() {
+            @Override
+            protected void append(ILoggingEvent event) {
+                LockSupport.parkNanos(20_000);
+                received.add(event);
+            }
+        };
+        slow.setContext(context);
+        slow.start();
+
+        RingBufferAsyncAppender async = new RingBufferAsyncAppender();
+        async.setContext(context);
+        async.setName("SPILL");
+        async.setBufferSize(8);
+        async.setOverflowPolicy(OverflowPolicy.SPILL);
+        async.setSpillFile(tempDir.resolve("SPILL").toString());
+        async.setMaxFlushTime(30_000);
+        async.addAppender(slow);
+        async.start();
+
+        Logger logger = context.getLogger("CONTROLLER_LOGGER");
+        logger.setAdditive(false);
+        logger.addAppender(async);
+
+        long spilledBefore = LoggingMetric.SPILLED_EVENTS.sum();
+        int threads = 4;
+        int events = 500;
+        IllegalStateException failure = new IllegalStateException("boom", new IllegalArgumentException("cause"));
+        Thread[] producers = new Thread[threads];
+        for (int t = 0; t < threads; t++) {
+            producers[t] = new Thread(() -> {
+                for (int i = 0; i < events; i++) {
+                    logger.atInfo()
+                            .addKeyValue("seq", i)
+                            .addKeyValue("payload", Map.of("ok", true))
+                            .setCause(i % 100 == 0 ? failure : null)
+                            .log("event {}", i);
+                }
+            }, "producer-" + t);
+            producers[t].start();
+        }
+        for (Thread producer : producers) {
+            producer.join();
+        }
+        async.stop();
+
+        assertTrue(LoggingMetric.SPILLED_EVENTS.sum() > spilledBefore);
+        assertEquals(threads * events, received.size());
+        Map<String, Integer> lastSeq = new HashMap<>();
+        for (ILoggingEvent event : received) {
+            KeyValuePair seq = event.getKeyValuePairs().get(0);
+            int current = ((Number) seq.value).intValue();
+            Integer previous = lastSeq.put(event.getThreadName(), current);
+            // 同一线程的事件按写入顺序送达
+            assertEquals(previous == null ? 0 : previous + 1, current);
+            assertEquals("event " + current, event.getFormattedMessage());
+            if (event instanceof SpilledEvent) {
+                // 溢出过的对象值按 JSON 保存
+                assertEquals("{\"ok\":true}", event.getKeyValuePairs().get(1).value.toString());
+            }
+            if (current % 100 == 0) {
+                assertNotNull(event.getThrowableProxy());
+                String trace = ThrowableProxyUtil.asString(event.getThrowableProxy());
+                assertTrue(trace.contains("IllegalStateException: boom"));
+                assertTrue(trace.contains("Caused by: java.lang.IllegalArgumentException: cause"));
+            }
+        }
+        context.stop();
+    }
+
+    @Test
+    void spillIsClosedWhenWorkerFinishesAfterFlushTimeout() throws Exception {
+        LoggerContext context = new LoggerContext();
+        List<ILoggingEvent> received = Collections.synchronizedList(new ArrayList<>());
+        AppenderBase<ILoggingEvent> slow = new AppenderBase<>() {
+            @Override
+            protected void append(ILoggingEvent event) {
+                LockSupport.parkNanos(200_000);
+                received.add(event);
+            }
+        };
+        slow.setContext(context);
+        slow.start();
+
+        RingBufferAsyncAppender async = new RingBufferAsyncAppender();
+        async.setContext(context);
+        async.setName("SPILL_TIMEOUT");
+        async.setBufferSize(8);
+        async.setOverflowPolicy(OverflowPolicy.SPILL);
+        async.setSpillFile(tempDir.resolve("SPILL_TIMEOUT").toString());
+        // 停止时等不到写完
+        async.setMaxFlushTime(1);
+        async.addAppender(slow);
+        async.start();
+
+        Logger logger = context.getLogger("CONTROLLER_LOGGER");
+        logger.setAdditive(false);
+        logger.addAppender(async);
+        int events = 1000;
+        for (int i = 0; i < events; i++) {
+            logger.info("event {}", i);
+        }
+        async.stop();
+        assertTrue(received.size() < events);
+        assertTrue(spillSegments() > 0);
+
+        // worker 在 stop 返回后继续写完，退出时删除溢出段
+        long deadline = System.currentTimeMillis() + 10_000;
+        while ((received.size() < events || spillSegments() > 0) && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+        }
+        assertEquals(events, received.size());
+        assertEquals(0, spillSegments());
+        assertEquals(0, async.getSpilledQueueSize());
+        context.stop();
+    }
+
+    @Test
+    void drainedSegmentsAreUnmappedAndDeletedWithoutGc() throws Exception {
+        BufferPoolMXBean mapped = ManagementFactory.getPlatformMXBeans(BufferPoolMXBean.class).stream()
+                .filter(pool -> pool.getName().equals("mapped"))
+                .findFirst()
+                .orElseThrow();
+        long mappedBefore = mapped.getCount();
+        SpillQueue queue = new SpillQueue(tempDir.resolve("DRAIN"), 1024, 1024 * 1024);
+        queue.open();
+        byte[] record = new byte[100];
+        for (int i = 0; i < 100; i++) {
+            assertTrue(queue.offer(record));
+        }
+        assertTrue(spillSegments() > 1);
+        assertEquals(mappedBefore + spillSegments(), mapped.getCount());
+
+        while (queue.drain(drained -> { }, 16) > 0) {
+            // 读空
+        }
+        // 只留最后一段从头复用，其余段的文件和映射立即释放
+        assertEquals(1, spillSegments());
+        assertEquals(1024, queue.mappedBytes());
+        assertEquals(mappedBefore + 1, mapped.getCount());
+
+        queue.close();
+        assertEquals(0, spillSegments());
+        assertEquals(mappedBefore, mapped.getCount());
+    }
+
+    private long spillSegments() throws IOException {
+        try (Stream<Path> files = Files.list(tempDir)) {
+            return files.filter(file -> file.getFileName().toString().endsWith(".spill")).count();
+        }
+    }
+}
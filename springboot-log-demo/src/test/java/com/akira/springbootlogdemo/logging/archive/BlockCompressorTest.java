@@ -0,0 +1,97 @@
+package com.akira.springbootlogdemo.logging.archive;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BlockCompressorTest {
+
+    private static final ZoneId ZONE = ZoneOffset.UTC;
+    private static final DateTimeFormatter TIMESTAMP = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss.SSS");
+    private static final LocalDateTime START = LocalDateTime.of(2025, 4, 10, 10, 0);
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void compressSeekAndReadTimeRange() throws Exception {
+        // 每秒一条，每 50 条带两行堆栈
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < 2000; i++) {
+            text.append(line(i));
+        }
+        Path source = tempDir.resolve("application-2025-04-10.0.log");
+        Files.writeString(source, text, StandardCharsets.UTF_8);
+
+        Path compressed = new BlockCompressor(1024, ZONE).compress(source);
+        BlockCompressedLogReader reader = new BlockCompressedLogReader(ZONE);
+        List<BlockCompressedLogReader.BlockIndexEntry> blocks = reader.readIndex(BlockCompressor.indexPath(compressed));
+        assertTrue(blocks.size() > 50);
+        assertTrue(Files.size(compressed) < Files.size(source));
+        for (int i = 1; i < blocks.size(); i++) {
+            assertTrue(blocks.get(i).firstMillis() >= blocks.get(i - 1).lastMillis());
+        }
+
+        // 第 1000 到 1100 秒：只输出这段时间的日志，堆栈续行跟随所属的日志
+        List<String> lines = new ArrayList<>();
+        reader.read(compressed, millis(1000), millis(1100), lines::add);
+        StringBuilder expected = new StringBuilder();
+        for (int i = 1000; i <= 1100; i++) {
+            expected.append(line(i));
+        }
+        assertEquals(expected.toString(), String.join("", lines));
+    }
+
+    @Test
+    void readRawAcrossBlockBoundaries() throws Exception {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < 500; i++) {
+            text.append(line(i));
+        }
+        byte[] raw = text.toString().getBytes(StandardCharsets.UTF_8);
+        Path source = tempDir.resolve("application-2025-04-10.1.log");
+        Files.write(source, raw);
+
+        Path compressed = new BlockCompressor(512, ZONE).compress(source);
+        // 首尾、块内、跨多个块的片段
+        List<BlockCompressedLogReader.RawRange> ranges = List.of(
+                new BlockCompressedLogReader.RawRange(0, 40),
+                new BlockCompressedLogReader.RawRange(700, 100),
+                new BlockCompressedLogReader.RawRange(1000, 3000),
+                new BlockCompressedLogReader.RawRange(raw.length - 30, 30));
+        List<byte[]> slices = new BlockCompressedLogReader(ZONE).readRaw(compressed, ranges);
+
+        assertEquals(ranges.size(), slices.size());
+        for (int i = 0; i < ranges.size(); i++) {
+            BlockCompressedLogReader.RawRange range = ranges.get(i);
+            byte[] expected = new byte[range.length()];
+            System.arraycopy(raw, (int) range.offset(), expected, 0, range.length());
+            assertArrayEquals(expected, slices.get(i));
+        }
+    }
+
+    private static String line(int second) {
+        String line = START.plusSeconds(second).format(TIMESTAMP) + " [main] INFO  demo - event " + second + "\n";
+        if (second % 50 == 0) {
+            line += "java.lang.IllegalStateException: boom " + second + "\n\tat demo.Service.call(Service.java:42)\n";
+        }
+        return line;
+    }
+
+    private static long millis(int second) {
+        return START.plusSeconds(second).atZone(ZONE).toInstant().toEpochMilli();
+    }
+}
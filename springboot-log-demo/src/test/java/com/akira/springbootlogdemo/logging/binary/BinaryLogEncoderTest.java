@@ -0,0 +1,101 @@
+package com.akira.springbootlogdemo.logging.binary;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.pattern.TargetLengthBasedClassNameAbbreviator;
+import ch.qos.logback.classic.spi.LoggingEvent;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.slf4j.event.KeyValuePair;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BinaryLogEncoderTest {
+
+    private final LoggerContext context = new LoggerContext();
+    private final Logger logger = context.getLogger("SQL_LOGGER");
+
+    @Test
+    void roundTripRestoresTextPattern() throws Exception {
+        BinaryLogEncoder encoder = new BinaryLogEncoder();
+        encoder.setContext(context);
+        encoder.start();
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        out.write(encoder.headerBytes());
+        List<LoggingEvent> events = List.of(
+                event(Level.DEBUG, "SQL: {}", "select 1"),
+                event(Level.DEBUG, "Execution time: {}ms", 12L),
+                event(Level.DEBUG, "Execution time: {}ms", 7L),
+                event(Level.INFO, "{\"traceId\":\"t-1\",\"type\":\"REQUEST\"}"));
+        for (LoggingEvent event : events) {
+            out.write(encoder.encode(event));
+        }
+        // MappedFileAppender 活动文件末尾的预分配区域
+        out.write(new byte[16]);
+
+        List<BinaryLogDecoder.DecodedEvent> decoded = new ArrayList<>();
+        new BinaryLogDecoder().decode(new ByteArrayInputStream(out.toByteArray()), decoded::add);
+
+        assertEquals(events.size(), decoded.size());
+        TargetLengthBasedClassNameAbbreviator abbreviator = new TargetLengthBasedClassNameAbbreviator(36);
+        for (int i = 0; i < events.size(); i++) {
+            LoggingEvent expected = events.get(i);
+            BinaryLogDecoder.DecodedEvent actual = decoded.get(i);
+            assertEquals(expected.getTimeStamp(), actual.timestamp());
+            assertEquals(expected.getLevel(), actual.level());
+            assertEquals(expected.getFormattedMessage(), actual.formattedMessage());
+            assertTrue(BinaryLogDecoder.toText(abbreviator, actual).contains("[main] " + expected.getLevel()));
+        }
+    }
+
+    @Test
+    void roundTripKeepsKeyValues() throws Exception {
+        BinaryLogEncoder encoder = new BinaryLogEncoder();
+        encoder.setContext(context);
+        encoder.start();
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        out.write(encoder.headerBytes());
+        for (int i = 0; i < 3; i++) {
+            LoggingEvent event = event(Level.INFO, "API_LOG");
+            event.addKeyValuePair(new KeyValuePair("traceId", "t-" + i));
+            event.addKeyValuePair(new KeyValuePair("durationMs", (long) i));
+            event.addKeyValuePair(new KeyValuePair("cached", i % 2 == 0));
+            event.addKeyValuePair(new KeyValuePair("error", null));
+            out.write(encoder.encode(event));
+        }
+        out.write(encoder.encode(event(Level.INFO, "no key values")));
+
+        List<BinaryLogDecoder.DecodedEvent> decoded = new ArrayList<>();
+        new BinaryLogDecoder().decode(new ByteArrayInputStream(out.toByteArray()), decoded::add);
+
+        assertEquals(4, decoded.size());
+        for (int i = 0; i < 3; i++) {
+            Map<String, Object> keyValues = decoded.get(i).keyValues();
+            assertEquals(List.of("traceId", "durationMs", "cached", "error"), List.copyOf(keyValues.keySet()));
+            assertEquals("t-" + i, keyValues.get("traceId"));
+            assertEquals((long) i, keyValues.get("durationMs"));
+            assertEquals(i % 2 == 0, keyValues.get("cached"));
+            assertNull(keyValues.get("error"));
+        }
+        assertTrue(decoded.get(3).keyValues().isEmpty());
+        assertTrue(BinaryLogDecoder.toJson(new ObjectMapper(), decoded.get(0)).contains("\"keyValues\":{\"traceId\":\"t-0\""));
+    }
+
+    private LoggingEvent event(Level level, String message, Object... args) {
+        LoggingEvent event = new LoggingEvent(Logger.class.getName(), logger, level, message, null,
+                args.length > 0 ? args : null);
+        event.setThreadName("main");
+        return event;
+    }
+}
@@ -0,0 +1,147 @@
+package com.akira.springbootlogdemo.logging.blocking;
+
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.read.ListAppender;
+import com.akira.springbootlogdemo.logging.config.BlockingDetectionProperties;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.LoggerFactory;
+import org.slf4j.event.KeyValuePair;
+import reactor.core.scheduler.NonBlocking;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BlockingCallDetectorTest {
+
+    private final Logger reportLogger = (Logger) LoggerFactory.getLogger("BLOCKING_LOGGER");
+    private final ListAppender<ILoggingEvent> appender = new ListAppender<>();
+    private BlockingCallDetector detector;
+
+    @BeforeEach
+    void setUp() {
+        appender.setContext(reportLogger.getLoggerContext());
+        appender.start();
+        reportLogger.addAppender(appender);
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (detector != null) {
+            detector.stop();
+        }
+        reportLogger.detachAppender(appender);
+    }
+
+    @Test
+    void reportsEachCallSiteOnceOnNonBlockingThreads() throws Exception {
+        start(20);
+
+        runOnNonBlockingThread(() -> {
+            for (int i = 0; i < 3; i++) {
+                BlockingCallDetector.checkBlocking("JDBC", "demo.select");
+            }
+            BlockingCallDetector.checkBlocking("LOCK", "demo.update");
+        });
+        // 普通线程上不报告
+        BlockingCallDetector.checkBlocking("JDBC", "demo.select");
+
+        assertEquals(2, appender.list.size());
+        Map<String, Object> first = keyValues(appender.list.get(0));
+        assertEquals("JDBC", first.get("operation"));
+        assertEquals("demo.select", first.get("target"));
+        assertEquals("non-blocking-test", first.get("thread"));
+        // 测试类也在 logging 包下被当作框架跳过，调用点落到线程入口
+        assertTrue(((String) first.get("callSite")).contains("java.lang.Thread.run"));
+        assertEquals("LOCK", keyValues(appender.list.get(1)).get("operation"));
+    }
+
+    @Test
+    void limitsReportsPerMinuteAndCountsSuppressed() throws Exception {
+        start(2);
+
+        runOnNonBlockingThread(() -> {
+            BlockingCallDetector.checkBlocking("JDBC", "a");
+            BlockingCallDetector.checkBlocking("LOCK", "b");
+            BlockingCallDetector.checkBlocking("SOCKET", "c");
+            BlockingCallDetector.checkBlocking("FILE", "d");
+        });
+
+        assertEquals(2, appender.list.size());
+
+        // 重新启用时清空已报告的调用点和限流窗口
+        detector.stop();
+        start(2);
+        runOnNonBlockingThread(() -> BlockingCallDetector.checkBlocking("JDBC", "a"));
+        assertEquals(3, appender.list.size());
+        assertEquals(0L, keyValues(appender.list.get(2)).get("suppressed"));
+    }
+
+    @Test
+    void disabledDetectorReportsNothing() throws Exception {
+        BlockingDetectionProperties properties = new BlockingDetectionProperties();
+        detector = new BlockingCallDetector(properties);
+        detector.start();
+
+        runOnNonBlockingThread(() -> BlockingCallDetector.checkBlocking("JDBC", "demo.select"));
+
+        assertEquals(0, appender.list.size());
+    }
+
+    @Test
+    void callSiteSkipsFrameworkAndGeneratedFrames() {
+        StackTraceElement[] stack = {
+                frame("java.lang.Thread", "sleep"),
+                frame("reactor.core.publisher.MonoCallable", "call"),
+                frame("com.akira.springbootlogdemo.logging.mybatis.SqlLoggingInterceptor", "intercept"),
+                frame("com.demo.OrderService$$SpringCGLIB$$0", "find"),
+                frame("com.demo.OrderService_Logged", "find"),
+                frame("com.demo.OrderService", "find"),
+                frame("com.demo.OrderController", "get")
+        };
+
+        assertEquals(frame("com.demo.OrderService", "find").toString(), BlockingCallDetector.callSite(stack));
+        assertEquals(stack[1].toString(), BlockingCallDetector.callSite(new StackTraceElement[]{stack[0], stack[1]}));
+        assertEquals("unknown", BlockingCallDetector.callSite(new StackTraceElement[0]));
+    }
+
+    private void start(int maxReportsPerMinute) {
+        BlockingDetectionProperties properties = new BlockingDetectionProperties();
+        properties.setEnabled(true);
+        // 不安装 BlockHound，只测显式检查点
+        properties.setInstrument(false);
+        properties.setMaxReportsPerMinute(maxReportsPerMinute);
+        detector = new BlockingCallDetector(properties);
+        detector.start();
+    }
+
+    private static void runOnNonBlockingThread(Runnable task) throws InterruptedException {
+        Thread thread = new NonBlockingThread(task);
+        thread.start();
+        thread.join();
+    }
+
+    private static Map<String, Object> keyValues(ILoggingEvent event) {
+        Map<String, Object> values = new HashMap<>();
+        for (KeyValuePair pair : event.getKeyValuePairs()) {
+            values.put(pair.key, pair.value);
+        }
+        return values;
+    }
+
+    private static StackTraceElement frame(String className, String method) {
+        return new StackTraceElement(className, method, null, -1);
+    }
+
+    // 与 Reactor 的 parallel/single 调度器线程一样实现 NonBlocking
+    private static final class NonBlockingThread extends Thread implements NonBlocking {
+        NonBlockingThread(Runnable task) {
+            super(task, "non-blocking-test");
+        }
+    }
+}
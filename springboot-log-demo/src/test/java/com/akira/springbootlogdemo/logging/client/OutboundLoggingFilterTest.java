@@ -0,0 +1,104 @@
+package com.akira.springbootlogdemo.logging.client;
+
+import com.akira.springbootlogdemo.logging.metrics.OutboundMetrics;
+import com.akira.springbootlogdemo.logging.trace.TraceContext;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.netty.http.client.HttpClient;
+import reactor.util.context.Context;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class OutboundLoggingFilterTest {
+
+    // 下游收到的 X-Trace-Id 和 traceparent
+    private final List<String> traceIds = Collections.synchronizedList(new ArrayList<>());
+    private final List<String> traceparents = Collections.synchronizedList(new ArrayList<>());
+    private HttpServer server;
+    private WebClient webClient;
+
+    @BeforeEach
+    void start() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/echo", exchange -> {
+            traceIds.add(exchange.getRequestHeaders().getFirst(TraceContext.TRACE_ID_HEADER));
+            traceparents.add(exchange.getRequestHeaders().getFirst(TraceContext.TRACEPARENT_HEADER));
+            byte[] body = exchange.getRequestBody().readAllBytes();
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+        server.start();
+        webClient = WebClient.builder()
+                .baseUrl("http://127.0.0.1:" + server.getAddress().getPort())
+                .clientConnector(new ReactorClientHttpConnector(OutboundTimings.instrument(HttpClient.create())))
+                .filter(new OutboundLoggingFilter(16))
+                .build();
+        OutboundMetrics.reset();
+    }
+
+    @AfterEach
+    void stop() {
+        server.stop(0);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void propagatesTraceAndRecordsPerHostLatency() throws InterruptedException {
+        String traceId = TraceContext.newTraceId();
+        String body = "x".repeat(100);
+        for (int i = 0; i < 2; i++) {
+            String response = webClient.post().uri("/echo").bodyValue(body)
+                    .retrieve().bodyToMono(String.class)
+                    .contextWrite(Context.of(TraceContext.TRACE_ID, traceId))
+                    .block();
+            // 只截取日志中的前缀，body 本身完整传递
+            assertEquals(body, response);
+        }
+
+        assertEquals(List.of(traceId, traceId), traceIds);
+        assertEquals(2, traceparents.size());
+        for (String traceparent : traceparents) {
+            assertTrue(traceparent.matches("00-" + traceId + "-[0-9a-f]{16}-01"), traceparent);
+        }
+        // 每次调用的 parent span id 不同
+        assertTrue(!traceparents.get(0).equals(traceparents.get(1)));
+
+        // 统计在响应体的 doFinally 中记录，可能晚于 block 返回
+        String key = "127.0.0.1:" + server.getAddress().getPort();
+        Map<String, Object> host = Map.of();
+        for (int i = 0; i < 100 && !Long.valueOf(2L).equals(host.get("count")); i++) {
+            Thread.sleep(20);
+            host = (Map<String, Object>) ((Map<String, Object>) OutboundMetrics.snapshot().get("hosts"))
+                    .getOrDefault(key, Map.of());
+        }
+        assertEquals(2L, host.get("count"));
+        assertEquals(Map.of("2xx", 2L), host.get("status"));
+    }
+
+    @Test
+    void customTraceIdIsPropagatedWithoutTraceparent() {
+        webClient.get().uri("/echo")
+                .retrieve().toBodilessEntity()
+                .contextWrite(Context.of(TraceContext.TRACE_ID, "order-42"))
+                .block();
+
+        assertEquals(List.of("order-42"), traceIds);
+        assertEquals(Collections.singletonList(null), traceparents);
+    }
+}
@@ -0,0 +1,72 @@
+package com.akira.springbootlogdemo.logging.codegen;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PatchMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.bind.annotation.RestController;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class LoggedMethodTest {
+
+    @RestController
+    @RequestMapping("/api/orders")
+    static class OrderController {
+
+        @GetMapping("/{id}")
+        public String get(@PathVariable("id") Long id) {
+            return "";
+        }
+
+        @PutMapping(path = "/{id}")
+        public String update(@PathVariable("id") Long id) {
+            return "";
+        }
+
+        @DeleteMapping("/{id}")
+        public void delete(@PathVariable("id") Long id) {
+        }
+
+        @PatchMapping({"/{id}/status", "/{id}/state"})
+        public String patch(@PathVariable("id") Long id) {
+            return "";
+        }
+
+        @RequestMapping(value = "/search", method = RequestMethod.POST)
+        public String search() {
+            return "";
+        }
+
+        @RequestMapping("/any")
+        public String any() {
+            return "";
+        }
+    }
+
+    /**
+     * 与 LoggingWrapperProcessorTest 中同一个 Controller 在编译期生成的常量一致
+     */
+    @Test
+    void resolvesSameRoutesAsGeneratedWrapper() throws Exception {
+        assertEquals(new LoggedMethod("OrderController", "get", "GET", "/api/orders/{id}"), resolve("get"));
+        assertEquals(new LoggedMethod("OrderController", "update", "PUT", "/api/orders/{id}"), resolve("update"));
+        assertEquals(new LoggedMethod("OrderController", "delete", "DELETE", "/api/orders/{id}"), resolve("delete"));
+        assertEquals(new LoggedMethod("OrderController", "patch", "PATCH", "/api/orders/{id}/status"), resolve("patch"));
+        assertEquals(new LoggedMethod("OrderController", "search", "POST", "/api/orders/search"), resolve("search"));
+        assertEquals(new LoggedMethod("OrderController", "any", null, "/api/orders/any"), resolve("any"));
+    }
+
+    private static LoggedMethod resolve(String name) throws Exception {
+        for (var method : OrderController.class.getDeclaredMethods()) {
+            if (method.getName().equals(name)) {
+                return LoggedMethod.controller(method);
+            }
+        }
+        throw new NoSuchMethodException(name);
+    }
+}
@@ -0,0 +1,34 @@
+package com.akira.springbootlogdemo.logging.config;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LoggingConfigSnapshotTest {
+
+    @Test
+    void compilesListsIntoMatchers() {
+        LoggingProperties controller = new LoggingProperties();
+        controller.setExcludedHeaders(List.of("Authorization", "cookie"));
+        MyBatisLoggingProperties mybatis = new MyBatisLoggingProperties();
+        mybatis.setExcludedSqlIds(List.of("com.example.mapper.ConfigMapper.*", "com.example.mapper.UserMapper.selectById"));
+
+        LoggingConfigSnapshot snapshot = LoggingConfigSnapshot.compile(controller, mybatis);
+
+        assertTrue(snapshot.isExcludedHeader("authorization"));
+        assertTrue(snapshot.isExcludedHeader("Cookie"));
+        assertFalse(snapshot.isExcludedHeader("Accept"));
+        assertTrue(snapshot.isExcludedParameterType(org.springframework.ui.Model.class));
+
+        assertTrue(snapshot.isExcludedSqlId("com.example.mapper.ConfigMapper.selectSystemConfig"));
+        assertTrue(snapshot.isExcludedSqlId("com.example.mapper.UserMapper.selectById"));
+        assertFalse(snapshot.isExcludedSqlId("com.example.mapper.UserMapper.selectAll"));
+
+        // 快照与属性对象解耦，之后修改属性不影响已编译的快照
+        controller.setEnabled(false);
+        assertTrue(snapshot.isControllerEnabled());
+    }
+}
@@ -0,0 +1,107 @@
+package com.akira.springbootlogdemo.logging.degrade;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.read.ListAppender;
+import com.akira.springbootlogdemo.logging.config.LoggingDegradationProperties;
+import com.akira.springbootlogdemo.logging.metrics.LoggingMetric;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class DegradationTurboFilterTest {
+
+    private final LoggerContext context = new LoggerContext();
+    private final Logger logger = context.getLogger("CONTROLLER_LOGGER");
+    private final ListAppender<ILoggingEvent> appender = new ListAppender<>();
+    private LoggingDegradation degradation;
+
+    @BeforeEach
+    void setUp() {
+        DegradationTurboFilter filter = new DegradationTurboFilter();
+        filter.setContext(context);
+        filter.setSampleRate(10);
+        filter.start();
+        context.addTurboFilter(filter);
+
+        appender.setContext(context);
+        appender.start();
+        logger.addAppender(appender);
+        logger.setLevel(Level.INFO);
+
+        // 水位为 0 时每次评估都算有压力，升到 SAMPLE_INFO
+        LoggingDegradationProperties properties = new LoggingDegradationProperties();
+        properties.setQueueHighWatermark(0);
+        degradation = new LoggingDegradation(properties);
+        while (LoggingDegradation.currentLevel() != DegradationLevel.SAMPLE_INFO) {
+            degradation.evaluate();
+        }
+    }
+
+    @AfterEach
+    void tearDown() {
+        degradation.stop();
+    }
+
+    @Test
+    void samplesFluentInfoEvents() {
+        long discarded = LoggingMetric.DISCARDED_EVENTS.sum();
+        for (int i = 0; i < 100; i++) {
+            logger.atInfo().setMessage("REQUEST").addKeyValue("i", i).log();
+        }
+        for (int i = 0; i < 5; i++) {
+            logger.atError().setMessage("ERROR").log();
+        }
+
+        long info = appender.list.stream().filter(event -> event.getLevel() == Level.INFO).count();
+        long error = appender.list.stream().filter(event -> event.getLevel() == Level.ERROR).count();
+        assertEquals(10, info);
+        assertEquals(5, error);
+        assertEquals(90, LoggingMetric.DISCARDED_EVENTS.sum() - discarded);
+    }
+
+    @Test
+    void guardedCallIsSampledOnce() {
+        long discarded = LoggingMetric.DISCARDED_EVENTS.sum();
+        for (int i = 0; i < 100; i++) {
+            if (logger.isInfoEnabled()) {
+                logger.info("REQUEST {}", i);
+            }
+        }
+
+        // 放行的判断之后，紧接着的那条不再采样
+        assertEquals(10, appender.list.size());
+        assertEquals(90, LoggingMetric.DISCARDED_EVENTS.sum() - discarded);
+    }
+
+    @Test
+    void admittedProbeCoversOnlyTheNextCall() {
+        // 第一次判断必然放行
+        assertTrue(logger.isInfoEnabled());
+        int calls = 1000;
+        for (int i = 0; i < calls; i++) {
+            logger.info("REQUEST {}", i);
+        }
+
+        // 放行只用在第一条上，之后的调用照常按 1/10 采样
+        long kept = appender.list.size();
+        assertTrue(kept >= calls / 10 - 2 && kept <= calls / 10 + 2, "kept " + kept);
+    }
+
+    @Test
+    void disabledLevelIsNotCounted() {
+        long discarded = LoggingMetric.DISCARDED_EVENTS.sum();
+        for (int i = 0; i < 100; i++) {
+            logger.atDebug().setMessage("DEBUG").log();
+            logger.debug("DEBUG {}", i);
+        }
+
+        assertEquals(0, appender.list.size());
+        assertEquals(0, LoggingMetric.DISCARDED_EVENTS.sum() - discarded);
+    }
+}
@@ -0,0 +1,64 @@
+package com.akira.springbootlogdemo.logging.error;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class StackTraceFingerprintsTest {
+
+    private final StackTraceFingerprints fingerprints = new StackTraceFingerprints();
+
+    @Test
+    void sameStackTraceIsWrittenOncePerWindow() {
+        StackTraceFingerprints.Occurrence first = null;
+        StackTraceFingerprints.Occurrence last = null;
+        for (int i = 0; i < 3; i++) {
+            // 同一行抛出，消息不同
+            StackTraceFingerprints.Occurrence occurrence =
+                    fingerprints.record(fail("request " + i), 60_000, 16);
+            if (first == null) {
+                first = occurrence;
+            }
+            last = occurrence;
+        }
+
+        assertNotNull(first.stackTrace());
+        assertEquals(1, first.occurrences());
+        assertNull(last.stackTrace());
+        assertEquals(3, last.occurrences());
+        assertEquals(first.fingerprint(), last.fingerprint());
+    }
+
+    @Test
+    void causeChainIsPartOfFingerprint() {
+        IllegalStateException plain = fail("x");
+        IllegalStateException caused = fail("x");
+        caused.initCause(new RuntimeException("root"));
+
+        StackTraceFingerprints.Occurrence a = fingerprints.record(plain, 60_000, 16);
+        StackTraceFingerprints.Occurrence b = fingerprints.record(caused, 60_000, 16);
+
+        assertNotEquals(a.fingerprint(), b.fingerprint());
+        assertTrue(b.stackTrace().contains("Caused by: java.lang.RuntimeException: root"));
+    }
+
+    @Test
+    void zeroWindowAndFullCacheAlwaysWriteStackTrace() {
+        assertNotNull(fingerprints.record(fail("a"), 0, 16).stackTrace());
+        assertNotNull(fingerprints.record(fail("a"), 0, 16).stackTrace());
+        assertEquals(0, fingerprints.size());
+
+        fingerprints.record(new RuntimeException("a"), 60_000, 1);
+        assertNotNull(fingerprints.record(fail("b"), 60_000, 1).stackTrace());
+        assertNotNull(fingerprints.record(fail("b"), 60_000, 1).stackTrace());
+        assertEquals(1, fingerprints.size());
+    }
+
+    private static IllegalStateException fail(String message) {
+        return new IllegalStateException(message);
+    }
+}
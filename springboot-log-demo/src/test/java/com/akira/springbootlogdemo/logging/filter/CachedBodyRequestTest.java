@@ -0,0 +1,87 @@
+package com.akira.springbootlogdemo.logging.filter;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.util.StreamUtils;
+
+import java.io.BufferedReader;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CachedBodyRequestTest {
+
+    @Test
+    void bodyCanBeReadRepeatedlyThroughStreamAndReader() throws Exception {
+        MockHttpServletRequest original = new MockHttpServletRequest("POST", "/api/echo");
+        original.setCharacterEncoding("UTF-8");
+        original.setContent("{\"msg\": \"你好\"}".getBytes(StandardCharsets.UTF_8));
+        CachedBodyRequest request = new CachedBodyRequest(original, 1024);
+
+        // 先 getInputStream 再 getReader，原始请求会抛 IllegalStateException
+        assertEquals("{\"msg\": \"你好\"}", StreamUtils.copyToString(request.getInputStream(), StandardCharsets.UTF_8));
+        try (BufferedReader reader = request.getReader()) {
+            assertEquals("{\"msg\": \"你好\"}", reader.readLine());
+        }
+        assertEquals("{\"msg\": \"你好\"}", request.getBodyAsString(100));
+        assertEquals("{\"msg\"", request.getBodyAsString(6));
+
+        // 包装后的请求也能通过请求属性找到同一份缓存
+        assertSame(request, CachedBodyRequest.from(original));
+    }
+
+    @Test
+    void bodyOverLimitIsCachedOnlyUpToLimitAndStreamedOnce() throws Exception {
+        byte[] content = new byte[10_000];
+        for (int i = 0; i < content.length; i++) {
+            content[i] = (byte) ('a' + i % 26);
+        }
+        // Content-Length 声称很大，不按它分配
+        MockHttpServletRequest original = new MockHttpServletRequest("POST", "/api/upload") {
+            @Override
+            public int getContentLength() {
+                return Integer.MAX_VALUE;
+            }
+        };
+        original.setContent(content);
+        CachedBodyRequest request = new CachedBodyRequest(original, 100);
+
+        assertEquals(new String(content, 0, 100, StandardCharsets.UTF_8), request.getBodyAsString(1000));
+        assertEquals(100, request.getBodyLength());
+        assertTrue(request.isTruncated());
+        // 第一个读取者拿到完整的请求体
+        assertArrayEquals(content, StreamUtils.copyToByteArray(request.getInputStream()));
+        assertThrows(IllegalStateException.class, request::getInputStream);
+        assertEquals(new String(content, 0, 100, StandardCharsets.UTF_8), request.getBodyAsString(1000));
+    }
+
+    @Test
+    void bodyAtLimitIsNotTruncated() throws Exception {
+        MockHttpServletRequest original = new MockHttpServletRequest("PUT", "/api/echo");
+        original.setContent("0123456789".getBytes(StandardCharsets.UTF_8));
+        CachedBodyRequest request = new CachedBodyRequest(original, 10);
+
+        assertEquals("0123456789", StreamUtils.copyToString(request.getInputStream(), StandardCharsets.UTF_8));
+        assertEquals("0123456789", StreamUtils.copyToString(request.getInputStream(), StandardCharsets.UTF_8));
+        assertFalse(request.isTruncated());
+    }
+
+    @Test
+    void formBodyIsRebuiltFromParameters() throws Exception {
+        MockHttpServletRequest original = new MockHttpServletRequest("POST", "/api/form");
+        original.setContentType("application/x-www-form-urlencoded");
+        original.setCharacterEncoding("UTF-8");
+        original.addParameter("name", "张三");
+        original.addParameter("tag", "a", "b");
+        CachedBodyRequest request = new CachedBodyRequest(original, 1024);
+
+        assertEquals("name=%E5%BC%A0%E4%B8%89&tag=a&tag=b", request.getBodyAsString(100));
+        // 参数仍由容器解析
+        assertEquals("张三", request.getParameter("name"));
+    }
+}
@@ -0,0 +1,85 @@
+package com.akira.springbootlogdemo.logging.index;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.classic.spi.LoggingEvent;
+import ch.qos.logback.core.util.FileSize;
+import com.akira.springbootlogdemo.logging.appender.MappedFileAppender;
+import com.akira.springbootlogdemo.logging.json.JsonEncoder;
+import com.akira.springbootlogdemo.logging.trace.TraceContext;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LogIndexQueryTest {
+
+    private static final int EVENTS = 300;
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void findsTraceIdAndUriAcrossSegmentRollover() throws Exception {
+        LoggerContext context = new LoggerContext();
+        Logger logger = context.getLogger("CONTROLLER_LOGGER");
+        JsonEncoder encoder = new JsonEncoder();
+        encoder.setContext(context);
+        encoder.start();
+
+        MappedFileAppender<ILoggingEvent> appender = new MappedFileAppender<>();
+        appender.setContext(context);
+        appender.setName("FILE");
+        appender.setFile(tempDir.resolve("application.log").toString());
+        appender.setFileNamePattern(tempDir.resolve("application-%d{yyyy-MM-dd}.%i.log").toString());
+        // 每段只能放几十条，写完会滚动多次
+        appender.setMaxFileSize(new FileSize(8 * FileSize.KB_COEFFICIENT));
+        appender.setIndex(true);
+        appender.setEncoder(encoder);
+        appender.start();
+
+        long start = System.currentTimeMillis();
+        for (int i = 0; i < EVENTS; i++) {
+            LoggingEvent event = new LoggingEvent(Logger.class.getName(), logger, Level.INFO, "API_LOG " + i, null, null);
+            event.setTimeStamp(start + i);
+            event.setMDCPropertyMap(Map.of(
+                    TraceContext.TRACE_ID, "trace-" + (i % 20),
+                    TraceContext.REQUEST_URI, "/api/orders/" + (i % 3),
+                    TraceContext.STATUS, i % 7 == 0 ? "500" : "200"));
+            appender.doAppend(event);
+        }
+        appender.stop();
+
+        LogIndexQuery query = new LogIndexQuery(tempDir, ZoneId.systemDefault());
+        List<LogIndexQuery.LogHit> trace = query.findByTraceId("trace-3");
+        assertEquals(EVENTS / 20, trace.size());
+        assertTrue(trace.stream().map(LogIndexQuery.LogHit::file).distinct().count() > 1);
+        for (int n = 0; n < trace.size(); n++) {
+            // 按时间排序，每条是完整的一行
+            String text = trace.get(n).text();
+            assertTrue(text.startsWith(JsonEncoder.TIMESTAMP_PREFIX));
+            assertTrue(text.endsWith("\n"));
+            assertTrue(text.contains("\"message\":\"API_LOG " + (n * 20 + 3) + "\""));
+        }
+
+        int expected = 0;
+        for (int i = 0; i < EVENTS; i++) {
+            if (i % 3 == 1 && i % 7 == 0) {
+                expected++;
+            }
+        }
+        List<LogIndexQuery.LogHit> failed = query.findByUri("/api/orders/1", 500);
+        assertEquals(expected, failed.size());
+        assertTrue(failed.stream().map(LogIndexQuery.LogHit::file).distinct().count() > 1);
+        failed.forEach(hit -> assertTrue(hit.text().contains("\"requestUri\":\"/api/orders/1\"")));
+        assertEquals(EVENTS / 3, query.findByUri("/api/orders/1", null).size());
+    }
+}
@@ -0,0 +1,121 @@
+package com.akira.springbootlogdemo.logging.jdbc;
+
+import com.akira.springbootlogdemo.logging.metrics.SqlMetrics;
+import org.junit.jupiter.api.Test;
+
+import javax.sql.DataSource;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TimingDataSourceTest {
+
+    private static final long MILLIS = 1_000_000;
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void splitsStatementTimeIntoJdbcPhases() throws Exception {
+        SqlMetrics.reset();
+        DataSource dataSource = new TimingDataSource(fakeDataSource(3));
+
+        JdbcTimings timings = JdbcTimings.begin();
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement statement = connection.prepareStatement("select * from t where id = ?")) {
+            statement.setLong(1, 1L);
+            try (ResultSet resultSet = statement.executeQuery()) {
+                assertSame(statement, resultSet.getStatement());
+                while (resultSet.next()) {
+                    resultSet.getString(1);
+                }
+            }
+            // 映射等 MyBatis 自身的开销
+            LockSupport.parkNanos(5 * MILLIS);
+        } finally {
+            JdbcTimings.end(timings, "TestMapper.select");
+        }
+
+        assertEquals(3, timings.getRows());
+        assertTrue(timings.getAcquireNanos() >= 5 * MILLIS, timings.toString());
+        assertTrue(timings.getExecuteNanos() >= 10 * MILLIS, timings.toString());
+        assertTrue(timings.getFetchNanos() >= 3 * MILLIS, timings.toString());
+        assertTrue(timings.getMybatisNanos() >= 5 * MILLIS, timings.toString());
+        assertNull(JdbcTimings.current());
+
+        Map<String, Object> stats = (Map<String, Object>) SqlMetrics.snapshot().get("TestMapper.select");
+        assertEquals(1L, stats.get("calls"));
+        assertEquals(3.0, stats.get("rowsMean"));
+    }
+
+    @Test
+    void transactionConnectionAcquireIsClaimedByFirstStatement() throws Exception {
+        DataSource dataSource = new TimingDataSource(fakeDataSource(0));
+        // 事务开始时在 Mapper 调用之外获取连接
+        try (Connection connection = dataSource.getConnection()) {
+            JdbcTimings first = JdbcTimings.begin();
+            connection.prepareStatement("update t set a = 1").executeUpdate();
+            JdbcTimings.end(first, "TestMapper.update");
+            JdbcTimings second = JdbcTimings.begin();
+            connection.prepareStatement("update t set a = 2").executeUpdate();
+            JdbcTimings.end(second, "TestMapper.update");
+
+            assertTrue(first.getAcquireNanos() >= 5 * MILLIS);
+            assertEquals(0, second.getAcquireNanos());
+            assertEquals(2, first.getRows());
+        }
+    }
+
+    /**
+     * 获取连接 5ms、执行 10ms、每行读取 1ms，更新语句影响 2 行
+     */
+    private static DataSource fakeDataSource(int rows) {
+        return proxy(DataSource.class, (proxy, method, args) -> {
+            if (!method.getName().equals("getConnection")) {
+                return null;
+            }
+            LockSupport.parkNanos(5 * MILLIS);
+            return proxy(Connection.class, (connection, connectionMethod, connectionArgs) -> {
+                if (!connectionMethod.getName().equals("prepareStatement")) {
+                    return null;
+                }
+                return proxy(PreparedStatement.class, (statement, statementMethod, statementArgs) ->
+                        switch (statementMethod.getName()) {
+                            case "executeQuery" -> {
+                                LockSupport.parkNanos(10 * MILLIS);
+                                yield resultSet(rows);
+                            }
+                            case "executeUpdate" -> {
+                                LockSupport.parkNanos(10 * MILLIS);
+                                yield 2;
+                            }
+                            default -> null;
+                        });
+            });
+        });
+    }
+
+    private static ResultSet resultSet(int rows) {
+        AtomicInteger remaining = new AtomicInteger(rows);
+        return proxy(ResultSet.class, (proxy, method, args) -> switch (method.getName()) {
+            case "next" -> {
+                LockSupport.parkNanos(MILLIS);
+                yield remaining.getAndDecrement() > 0;
+            }
+            case "getString" -> "value";
+            default -> null;
+        });
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T proxy(Class<T> type, java.lang.reflect.InvocationHandler handler) {
+        return (T) Proxy.newProxyInstance(TimingDataSourceTest.class.getClassLoader(), new Class<?>[]{type}, handler);
+    }
+}
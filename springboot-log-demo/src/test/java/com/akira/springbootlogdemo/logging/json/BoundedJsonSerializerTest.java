@@ -0,0 +1,135 @@
+package com.akira.springbootlogdemo.logging.json;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.fasterxml.jackson.databind.ser.std.ToStringSerializer;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BoundedJsonSerializerTest {
+
+    private final ObjectMapper objectMapper = JsonWriter.defaultObjectMapper();
+    private final BoundedJsonSerializer serializer = new BoundedJsonSerializer(objectMapper, List.of("password", "secret"));
+
+    public static class Node {
+        public String name = "node";
+        public List<Integer> values = new ArrayList<>();
+        public Node child;
+        @JsonIgnore
+        public String secret = "hidden";
+    }
+
+    public static class Account {
+        public String name = "akira";
+        public String password = "p@ss";
+        public Map<String, Object> extra = new LinkedHashMap<>(Map.of("apiSecret", "s3cr3t", "region", "cn"));
+    }
+
+    public static class Annotated {
+        @JsonInclude(JsonInclude.Include.NON_NULL)
+        public String nickname;
+        @JsonInclude(JsonInclude.Include.NON_EMPTY)
+        public List<String> tags = new ArrayList<>();
+        @JsonSerialize(using = ToStringSerializer.class)
+        public long id = 9007199254740993L;
+        @JsonFormat(pattern = "yyyy/MM/dd")
+        public LocalDate birthday = LocalDate.of(2025, 4, 10);
+        @JsonFormat(shape = JsonFormat.Shape.STRING)
+        public int count = 3;
+        public String plain = "value";
+    }
+
+    @Test
+    void smallValueMatchesObjectMapper() throws Exception {
+        Node node = new Node();
+        node.values.add(1);
+        node.child = new Node();
+
+        RawJson json = serializer.serialize(node, 4096, 8);
+
+        assertEquals(objectMapper.readTree(objectMapper.writeValueAsBytes(node)), objectMapper.readTree(json.bytes()));
+    }
+
+    @Test
+    void propertyInclusionAndSerializersMatchObjectMapper() throws Exception {
+        Annotated annotated = new Annotated();
+
+        RawJson json = serializer.serialize(annotated, 4096, 8);
+
+        JsonNode tree = objectMapper.readTree(json.bytes());
+        assertEquals(objectMapper.readTree(objectMapper.writeValueAsBytes(annotated)), tree);
+        assertFalse(tree.has("nickname"));
+        assertFalse(tree.has("tags"));
+        assertEquals("9007199254740993", tree.get("id").asText());
+        assertEquals("2025/04/10", tree.get("birthday").asText());
+    }
+
+    @Test
+    void sensitivePropertiesAndKeysAreRedactedWithoutReadingThem() throws Exception {
+        JsonNode tree = objectMapper.readTree(serializer.serialize(new Account(), 4096, 8).bytes());
+
+        assertEquals("akira", tree.get("name").asText());
+        assertEquals("******", tree.get("password").asText());
+        assertEquals("******", tree.get("extra").get("apiSecret").asText());
+        assertEquals("cn", tree.get("extra").get("region").asText());
+    }
+
+    @Test
+    void truncationDoesNotSplitSurrogatePairs() throws Exception {
+        // 每个 emoji 占两个 char，101 个字符的预算落在第 51 个 emoji 中间
+        String emoji = "\uD83D\uDE00".repeat(1000);
+
+        JsonNode tree = objectMapper.readTree(serializer.serialize(emoji, 101, 8).bytes());
+
+        assertEquals("\uD83D\uDE00".repeat(50) + "...(truncated)", tree.asText());
+    }
+
+    @Test
+    void largeCollectionIsCutAtByteBudget() throws Exception {
+        Node node = new Node();
+        for (int i = 0; i < 100_000; i++) {
+            node.values.add(i);
+        }
+        node.child = new Node();
+
+        RawJson json = serializer.serialize(node, 256, 8);
+
+        assertTrue(json.bytes().length < 512);
+        JsonNode tree = objectMapper.readTree(json.bytes());
+        JsonNode values = tree.get("values");
+        assertEquals("...(truncated)", values.get(values.size() - 1).asText());
+        assertEquals("truncated", tree.get("...").asText());
+        assertFalse(tree.has("child"));
+    }
+
+    @Test
+    void deepNestingAndLongStringsAreTruncated() throws Exception {
+        Node root = new Node();
+        Node current = root;
+        for (int i = 0; i < 100; i++) {
+            current.child = new Node();
+            current = current.child;
+        }
+
+        JsonNode tree = objectMapper.readTree(serializer.serialize(root, 4096, 3).bytes());
+        assertEquals("...", tree.get("child").get("child").get("child").asText());
+
+        root.name = "x".repeat(10_000);
+        tree = objectMapper.readTree(serializer.serialize(root, 1024, 3).bytes());
+        assertTrue(tree.get("name").asText().endsWith("...(truncated)"));
+        assertTrue(tree.get("name").asText().length() < 1100);
+    }
+}
@@ -0,0 +1,140 @@
+package com.akira.springbootlogdemo.logging.json;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.spi.LoggingEvent;
+import com.akira.springbootlogdemo.logging.archive.LogTimestamps;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.junit.jupiter.api.Test;
+import org.slf4j.event.KeyValuePair;
+
+import java.nio.charset.StandardCharsets;
+import java.time.ZoneId;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class JsonEncoderTest {
+
+    private final LoggerContext context = new LoggerContext();
+    private final Logger logger = context.getLogger("API_LOGGER");
+
+    @Test
+    void writesKeyValuesAndMdcAsTopLevelFields() throws Exception {
+        JsonEncoder encoder = new JsonEncoder();
+        encoder.setContext(context);
+        encoder.start();
+
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("name", "张三 \"quoted\"\n😀");
+        body.put("tags", List.of(1, 2.5, true));
+
+        LoggingEvent event = new LoggingEvent(Logger.class.getName(), logger, Level.INFO, "API_LOG", null, null);
+        event.setThreadName("main");
+        event.setMDCPropertyMap(Map.of("traceId", "t-1"));
+        event.addKeyValuePair(new KeyValuePair("status", 200));
+        event.addKeyValuePair(new KeyValuePair("body", body));
+
+        byte[] bytes = encoder.encode(event);
+        assertEquals('\n', bytes[bytes.length - 1]);
+
+        JsonNode json = new ObjectMapper().readTree(bytes);
+        assertEquals("INFO", json.get("level").asText());
+        assertEquals("API_LOG", json.get("message").asText());
+        assertEquals("t-1", json.get("traceId").asText());
+        assertEquals(200, json.get("status").asInt());
+        assertEquals("张三 \"quoted\"\n😀", json.get("body").get("name").asText());
+        assertTrue(json.get("body").get("tags").get(2).asBoolean());
+
+        // 块压缩和索引查询按行首时间戳定位
+        assertEquals(event.getTimeStamp(), LogTimestamps.parse(bytes, 0, bytes.length, ZoneId.systemDefault()));
+    }
+
+    @Test
+    void keyValuesOverrideMdcWithoutDuplicateFields() throws Exception {
+        JsonEncoder encoder = new JsonEncoder();
+        encoder.setContext(context);
+        encoder.start();
+
+        LoggingEvent event = new LoggingEvent(Logger.class.getName(), logger, Level.INFO, "API_LOG", null, null);
+        event.setThreadName("main");
+        event.setMDCPropertyMap(Map.of("traceId", "from-mdc", "status", "500", "userId", "u-1", "level", "x"));
+        event.addKeyValuePair(new KeyValuePair("traceId", "from-kv"));
+        event.addKeyValuePair(new KeyValuePair("status", 200));
+        event.addKeyValuePair(new KeyValuePair("status", 201));
+        event.addKeyValuePair(new KeyValuePair("message", "x"));
+
+        String line = new String(encoder.encode(event), StandardCharsets.UTF_8);
+        assertEquals(1, count(line, "\"traceId\":"));
+        assertEquals(1, count(line, "\"status\":"));
+        assertEquals(1, count(line, "\"level\":"));
+        assertEquals(1, count(line, "\"message\":"));
+
+        JsonNode json = new ObjectMapper().readTree(line);
+        assertEquals("from-kv", json.get("traceId").asText());
+        assertEquals(200, json.get("status").asInt());
+        assertEquals("u-1", json.get("userId").asText());
+        assertEquals("INFO", json.get("level").asText());
+        assertEquals("API_LOG", json.get("message").asText());
+    }
+
+    @Test
+    void deeplyNestedJsonNodeIsTruncated() throws Exception {
+        ObjectMapper objectMapper = new ObjectMapper();
+        ObjectNode root = objectMapper.createObjectNode();
+        ObjectNode current = root;
+        for (int i = 0; i < 100; i++) {
+            current = current.putObject("child");
+        }
+        ArrayNode array = objectMapper.createArrayNode();
+        ArrayNode currentArray = array;
+        for (int i = 0; i < 100; i++) {
+            currentArray = currentArray.addArray();
+        }
+
+        JsonWriter writer = new JsonWriter(64, objectMapper);
+        writer.beginObject().name("tree").value(root).name("array").value(array).endObject();
+
+        JsonNode json = objectMapper.readTree(writer.toByteArray());
+        JsonNode node = json.get("tree");
+        int depth = 0;
+        while (node.isObject()) {
+            node = node.get("child");
+            depth++;
+        }
+        assertEquals("...", node.asText());
+        assertTrue(depth < 100);
+        assertTrue(json.get("array").isArray());
+    }
+
+    @Test
+    void largeEventBufferIsNotRetained() throws Exception {
+        JsonEncoder encoder = new JsonEncoder();
+        encoder.setContext(context);
+        encoder.start();
+        String large = "x".repeat(1024 * 1024);
+
+        LoggingEvent event = new LoggingEvent(Logger.class.getName(), logger, Level.INFO, large, null, null);
+        event.setThreadName("main");
+        byte[] bytes = encoder.encode(event);
+
+        assertEquals(large, new ObjectMapper().readTree(bytes).get("message").asText());
+        // 大事件用过的缓冲区不留在线程上
+        assertTrue(encoder.bufferCapacity() <= JsonWriter.MAX_RETAINED_CAPACITY);
+    }
+
+    private static int count(String text, String part) {
+        int count = 0;
+        for (int i = text.indexOf(part); i >= 0; i = text.indexOf(part, i + 1)) {
+            count++;
+        }
+        return count;
+    }
+}
@@ -0,0 +1,109 @@
+package com.akira.springbootlogdemo.logging.metrics;
+
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.read.ListAppender;
+import com.akira.springbootlogdemo.logging.appender.RingBufferAsyncAppender;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LoggingMetricsTest {
+
+    @Test
+    void countersSumIncrementsFromAllThreads() throws Exception {
+        long before = LoggingMetric.DEDUPLICATED_STACK_TRACES.sum();
+        long bytesBefore = LoggingMetric.CAPTURED_BYTES.sum();
+        int threads = 8;
+        int perThread = 10_000;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+        try {
+            for (int i = 0; i < threads; i++) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    for (int n = 0; n < perThread; n++) {
+                        LoggingMetric.DEDUPLICATED_STACK_TRACES.increment();
+                        LoggingMetric.CAPTURED_BYTES.add(3);
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals((long) threads * perThread, LoggingMetric.DEDUPLICATED_STACK_TRACES.sum() - before);
+        assertEquals(3L * threads * perThread, LoggingMetric.CAPTURED_BYTES.sum() - bytesBefore);
+    }
+
+    @Test
+    void recordTimeAddsCountAndElapsedNanos() {
+        long count = LoggingMetric.REDACTION_COUNT.sum();
+        long nanos = LoggingMetric.REDACTION_NANOS.sum();
+        long start = System.nanoTime() - 5_000_000;
+
+        LoggingMetric.recordTime(LoggingMetric.REDACTION_COUNT, LoggingMetric.REDACTION_NANOS, start);
+
+        assertEquals(1, LoggingMetric.REDACTION_COUNT.sum() - count);
+        assertTrue(LoggingMetric.REDACTION_NANOS.sum() - nanos >= 5_000_000);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void snapshotListsEveryCounterAndEachAsyncAppenderOnce() {
+        LoggerContext context = new LoggerContext();
+        ListAppender<ILoggingEvent> target = new ListAppender<>();
+        target.setContext(context);
+        target.start();
+        RingBufferAsyncAppender async = new RingBufferAsyncAppender();
+        async.setContext(context);
+        async.setName("ASYNC");
+        async.setBufferSize(64);
+        async.addAppender(target);
+        async.start();
+        // 同一个 appender 挂在两个 logger 上
+        Logger controller = context.getLogger("CONTROLLER_LOGGER");
+        Logger sql = context.getLogger("SQL_LOGGER");
+        controller.addAppender(async);
+        sql.addAppender(async);
+        try {
+            controller.info("REQUEST");
+            LoggingMetric.DISCARDED_EVENTS.increment();
+
+            Map<String, Object> snapshot = LoggingMetrics.snapshot(context);
+
+            Map<String, Long> counters = (Map<String, Long>) snapshot.get("counters");
+            List<String> keys = new ArrayList<>();
+            for (LoggingMetric metric : LoggingMetric.values()) {
+                keys.add(metric.getKey());
+            }
+            assertEquals(keys, new ArrayList<>(counters.keySet()));
+            assertEquals(LoggingMetric.DISCARDED_EVENTS.sum(), (long) counters.get("discarded.events"));
+
+            Map<String, Object> appenders = (Map<String, Object>) snapshot.get("asyncAppenders");
+            assertEquals(List.of("ASYNC"), new ArrayList<>(appenders.keySet()));
+            Map<String, Object> stats = (Map<String, Object>) appenders.get("ASYNC");
+            assertEquals(64, stats.get("capacity"));
+            assertEquals(0L, stats.get("dropped"));
+            assertTrue((Integer) stats.get("highWaterMark") >= 0);
+        } finally {
+            async.stop();
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package com.akira.springbootlogdemo.logging.metrics;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+class RouteMetricsTest {
+
+    @BeforeEach
+    @AfterEach
+    void reset() {
+        RouteMetrics.reset();
+    }
+
+    @Test
+    void bucketUpperBoundsArePowersOfTwo() {
+        assertEquals(0, RouteHistogram.bucket(0));
+        assertEquals(0, RouteHistogram.bucket(1));
+        assertEquals(1, RouteHistogram.bucket(2));
+        assertEquals(2, RouteHistogram.bucket(3));
+        assertEquals(2, RouteHistogram.bucket(4));
+        assertEquals(3, RouteHistogram.bucket(5));
+        assertEquals(10, RouteHistogram.bucket(1024));
+        assertEquals(11, RouteHistogram.bucket(1025));
+        assertEquals(RouteHistogram.BUCKETS - 1, RouteHistogram.bucket(Long.MAX_VALUE));
+    }
+
+    @Test
+    void countsStatusClassesAndPercentiles() {
+        RouteHistogram histogram = new RouteHistogram();
+        for (int i = 0; i < 90; i++) {
+            histogram.record(millis(1), 200, null);
+        }
+        for (int i = 0; i < 9; i++) {
+            histogram.record(millis(10), 404, null);
+        }
+        histogram.record(millis(3000), 503, null);
+        histogram.record(millis(1), 0, null);
+        histogram.record(millis(1), 700, null);
+
+        Map<String, Object> snapshot = histogram.snapshot();
+        assertEquals(102L, snapshot.get("count"));
+        assertEquals(Map.of("2xx", 90L, "4xx", 9L, "5xx", 1L, "other", 2L), snapshot.get("status"));
+        assertEquals(1L, snapshot.get("p50Ms"));
+        assertEquals(16L, snapshot.get("p99Ms"));
+        assertEquals(3000.0, snapshot.get("maxMs"));
+        assertEquals(Map.of("le1ms", 92L, "le16ms", 9L, "le4096ms", 1L), snapshot.get("histogram"));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void keepsTraceIdOfSlowestRequests() {
+        RouteHistogram histogram = new RouteHistogram();
+        histogram.record(millis(1), 200, "fast-1");
+        histogram.record(millis(100), 200, "medium");
+        histogram.record(millis(3000), 500, "slow");
+        // 远快于目前最慢的桶，不再覆盖样例
+        histogram.record(millis(1), 200, "fast-2");
+        histogram.record(millis(2500), 200, "slow-2");
+
+        List<Map<String, Object>> exemplars = (List<Map<String, Object>>) histogram.snapshot().get("exemplars");
+        assertEquals(3, exemplars.size());
+        assertEquals(Map.of("leMs", 4096L, "traceId", "slow-2"), exemplars.get(0));
+        assertEquals(Map.of("leMs", 128L, "traceId", "medium"), exemplars.get(1));
+        assertEquals(Map.of("leMs", 1L, "traceId", "fast-1"), exemplars.get(2));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void groupsByRouteTemplateAndCapsRouteCount() {
+        RouteMetrics.record("GET", "/api/users/{id}", 200, millis(5), "t-1");
+        RouteMetrics.record("GET", "/api/users/{id}", 200, millis(5), "t-2");
+        RouteMetrics.record("GET", null, 404, millis(1), "t-3");
+        Map<String, Object> routes = RouteMetrics.snapshot();
+        assertEquals(2L, ((Map<String, Object>) routes.get("GET /api/users/{id}")).get("count"));
+        assertEquals(1L, ((Map<String, Object>) routes.get("GET " + RouteMetrics.UNMATCHED)).get("count"));
+
+        // 超过 1024 个路由后，新路由合并到 OTHER，已有的路由照常记录
+        for (int i = 0; i < 1100; i++) {
+            RouteMetrics.record("GET", "/generated/" + i, 200, millis(1), null);
+        }
+        RouteMetrics.record("GET", "/api/users/{id}", 200, millis(5), "t-4");
+        routes = RouteMetrics.snapshot();
+        assertEquals(1025, routes.size());
+        Map<String, Object> other = (Map<String, Object>) routes.get("OTHER");
+        assertNotNull(other);
+        assertEquals(1100L - (1024 - 2), other.get("count"));
+        assertEquals(3L, ((Map<String, Object>) routes.get("GET /api/users/{id}")).get("count"));
+    }
+
+    private static long millis(long millis) {
+        return TimeUnit.MILLISECONDS.toNanos(millis);
+    }
+}
@@ -0,0 +1,74 @@
+package com.akira.springbootlogdemo.logging.offload;
+
+import com.akira.springbootlogdemo.logging.metrics.OffloadMetrics;
+import com.akira.springbootlogdemo.service.TestService;
+import org.junit.jupiter.api.Test;
+import org.slf4j.MDC;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+import reactor.core.Disposable;
+import reactor.core.scheduler.Schedulers;
+import reactor.test.StepVerifier;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BlockingOffloadAspectTest {
+
+    private static final String METHOD = "TestService.processTest";
+
+    @Test
+    void subscribesOnVirtualThreadWithCallerMdc() {
+        BlockingOffloadAspect aspect = new BlockingOffloadAspect();
+        TestService service = proxy(aspect);
+        MDC.put("traceId", "offload-trace");
+        try {
+            // 下游的 map 与方法的订阅在同一个线程上
+            StepVerifier.create(service.processTest()
+                            .map(response -> List.of(Thread.currentThread(), String.valueOf(MDC.get("traceId")))))
+                    .assertNext(result -> {
+                        Thread thread = (Thread) result.get(0);
+                        assertTrue(thread.isVirtual());
+                        assertTrue(thread.getName().startsWith("blocking-offload-"));
+                        assertEquals("offload-trace", result.get(1));
+                    })
+                    .verifyComplete();
+        } finally {
+            MDC.clear();
+            aspect.stop();
+        }
+    }
+
+    @Test
+    void cancelWhileQueuedReleasesInFlight() {
+        // 任务只排队不执行
+        List<Runnable> queued = new ArrayList<>();
+        BlockingOffloadAspect aspect = new BlockingOffloadAspect(Schedulers.fromExecutor(queued::add));
+        TestService service = proxy(aspect);
+        long calls = stat("calls");
+        long inFlight = stat("inFlight");
+
+        Disposable subscription = service.processTest().subscribe();
+        assertEquals(1, queued.size());
+        assertEquals(inFlight + 1, stat("inFlight"));
+
+        subscription.dispose();
+        assertEquals(inFlight, stat("inFlight"));
+        assertEquals(calls + 1, stat("calls"));
+    }
+
+    private static TestService proxy(BlockingOffloadAspect aspect) {
+        AspectJProxyFactory factory = new AspectJProxyFactory(new TestService());
+        factory.addAspect(aspect);
+        return factory.getProxy();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static long stat(String name) {
+        Map<String, Object> stats = (Map<String, Object>) OffloadMetrics.snapshot().get(METHOD);
+        return stats == null ? 0 : (Long) stats.get(name);
+    }
+}
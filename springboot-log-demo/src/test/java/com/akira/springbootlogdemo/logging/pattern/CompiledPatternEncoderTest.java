@@ -0,0 +1,110 @@
+package com.akira.springbootlogdemo.logging.pattern;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.encoder.PatternLayoutEncoder;
+import ch.qos.logback.classic.spi.LoggingEvent;
+import org.junit.jupiter.api.Test;
+import org.slf4j.event.KeyValuePair;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CompiledPatternEncoderTest {
+
+    private static final String[] PATTERNS = {
+            "%d{yyyy-MM-dd HH:mm:ss.SSS} [%thread] %-5level %logger{36} - %msg%n",
+            "%d{yyyy-MM-dd HH:mm:ss.SSS} [%thread] %-5level %logger{36} - %msg %kvp%n",
+            "%d [%t] %5p %.10c{0} |%-12.-3m| %kvp{SINGLE}%n",
+            // 不支持的转换词，回退到 PatternLayoutEncoder
+            "%d{HH:mm:ss} %X{traceId} %msg%n"
+    };
+
+    private final LoggerContext context = new LoggerContext();
+    private final Logger logger = context.getLogger("com.akira.springbootlogdemo.logging.aop.ControllerLogWriter");
+
+    @Test
+    void outputIsByteIdenticalToPatternLayoutEncoder() {
+        List<LoggingEvent> events = List.of(
+                event(Level.INFO, "plain message", null),
+                event(Level.WARN, "张三 \"quoted\"\n😀 {}", null),
+                event(Level.DEBUG, null, null),
+                event(Level.ERROR, "failed", new IllegalStateException("boom", new RuntimeException("root"))));
+        events.get(0).addKeyValuePair(new KeyValuePair("status", 200));
+        events.get(0).addKeyValuePair(new KeyValuePair("path", null));
+
+        for (String pattern : PATTERNS) {
+            PatternLayoutEncoder expected = new PatternLayoutEncoder();
+            expected.setContext(context);
+            expected.setPattern(pattern);
+            expected.start();
+            CompiledPatternEncoder actual = new CompiledPatternEncoder();
+            actual.setContext(context);
+            actual.setPattern(pattern);
+            actual.start();
+
+            for (LoggingEvent event : events) {
+                assertArrayEquals(expected.encode(event), actual.encode(event), pattern);
+                // 第二次走缓存
+                assertArrayEquals(expected.encode(event), actual.encode(event), pattern);
+            }
+        }
+    }
+
+    @Test
+    void kvpSuffixAddsSeparatorOnlyWhenThereAreKeyValues() {
+        LoggingEvent plain = event(Level.INFO, "plain message", null);
+        LoggingEvent withPairs = event(Level.INFO, "plain message", null);
+        withPairs.addKeyValuePair(new KeyValuePair("status", 200));
+        withPairs.addKeyValuePair(new KeyValuePair("path", "/api"));
+
+        CompiledPatternEncoder suffix = compiled("%msg%kvpSuffix%n");
+        // 有 key-value 时等同于 "%msg %kvp"，没有时等同于 "%msg"，行尾不多出空格
+        assertArrayEquals(layout("%msg %kvp%n").encode(withPairs), suffix.encode(withPairs));
+        assertArrayEquals(layout("%msg%n").encode(plain), suffix.encode(plain));
+        assertEquals("plain message status='200' path='/api'" + System.lineSeparator(),
+                new String(compiled("%msg%kvpSuffix{SINGLE}%n").encode(withPairs), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void largeMessageBufferIsNotRetained() {
+        CompiledPatternEncoder encoder = new CompiledPatternEncoder();
+        encoder.setContext(context);
+        encoder.setPattern(PATTERNS[0]);
+        encoder.start();
+        String large = "x".repeat(1024 * 1024);
+
+        byte[] bytes = encoder.encode(event(Level.INFO, large, null));
+
+        assertTrue(new String(bytes, StandardCharsets.UTF_8).contains(" - " + large));
+        // 大消息用过的缓冲区不留在线程上
+        assertTrue(encoder.bufferCapacity() <= CompiledPatternEncoder.MAX_RETAINED_CAPACITY);
+    }
+
+    private CompiledPatternEncoder compiled(String pattern) {
+        CompiledPatternEncoder encoder = new CompiledPatternEncoder();
+        encoder.setContext(context);
+        encoder.setPattern(pattern);
+        encoder.start();
+        return encoder;
+    }
+
+    private PatternLayoutEncoder layout(String pattern) {
+        PatternLayoutEncoder encoder = new PatternLayoutEncoder();
+        encoder.setContext(context);
+        encoder.setPattern(pattern);
+        encoder.start();
+        return encoder;
+    }
+
+    private LoggingEvent event(Level level, String message, Throwable error) {
+        LoggingEvent event = new LoggingEvent(Logger.class.getName(), logger, level, message, error, null);
+        event.setThreadName("http-nio-8080-exec-1");
+        return event;
+    }
+}
@@ -0,0 +1,49 @@
+package com.akira.springbootlogdemo.logging.profile;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class CallTreeTest {
+
+    @Test
+    void mergesRepeatedCallsAndSplitsSelfTime() {
+        CallTree tree = new CallTree(8, 4);
+        tree.begin(0);
+
+        int service = tree.enter("UserService.find", 10);
+        for (int i = 0; i < 3; i++) {
+            int mapper = tree.enter("com.example.mapper.UserMapper.selectById", 20 + i * 10);
+            tree.exit(mapper, 25 + i * 10);
+        }
+        tree.exit(service, 60);
+        assertEquals(100, tree.end(100));
+
+        // 根、Service、Mapper 三个节点，三次 Mapper 调用合并成一个
+        assertEquals(3, tree.size());
+        assertEquals(1, tree.calls(1));
+        assertEquals(3, tree.calls(2));
+        assertEquals(50, tree.totalNanos(1));
+        assertEquals(35, tree.selfNanos(1));
+        assertEquals(15, tree.totalNanos(2));
+        assertEquals(50, tree.selfNanos(0));
+        assertEquals("UserMapper.selectById", CallTreeProfiler.label(tree.key(2)));
+    }
+
+    @Test
+    void dropsFramesBeyondCapacity() {
+        CallTree tree = new CallTree(2, 4);
+        tree.begin(0);
+
+        int first = tree.enter("a", 1);
+        int second = tree.enter("b", 2);
+        assertEquals(CallTree.NONE, second);
+        tree.exit(second, 3);
+        tree.exit(first, 4);
+        tree.end(5);
+
+        assertEquals(2, tree.size());
+        assertEquals(1, tree.dropped());
+        assertEquals(3, tree.selfNanos(1));
+    }
+}